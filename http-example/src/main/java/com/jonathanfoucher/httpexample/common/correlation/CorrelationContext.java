@@ -0,0 +1,67 @@
+package com.jonathanfoucher.httpexample.common.correlation;
+
+import jakarta.servlet.ServletRequest;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.MDC;
+
+@Getter
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public final class CorrelationContext {
+    public static final String MDC_KEY = "correlation-id";
+
+    private static final String ATTRIBUTE_NAME = CorrelationContext.class.getName();
+    private static final ThreadLocal<CorrelationContext> CURRENT = new ThreadLocal<>();
+    private static final Scope CLEARING_SCOPE = () -> restore(null);
+
+    private final String correlationId;
+
+    public static CorrelationContext of(String correlationId) {
+        return new CorrelationContext(correlationId);
+    }
+
+    public static CorrelationContext bind(ServletRequest request, String correlationId) {
+        CorrelationContext correlationContext = of(correlationId);
+        request.setAttribute(ATTRIBUTE_NAME, correlationContext);
+        return correlationContext;
+    }
+
+    public static CorrelationContext get(ServletRequest request) {
+        return (CorrelationContext) request.getAttribute(ATTRIBUTE_NAME);
+    }
+
+    public static CorrelationContext current() {
+        return CURRENT.get();
+    }
+
+    public static String currentCorrelationId() {
+        CorrelationContext correlationContext = CURRENT.get();
+        return correlationContext != null ? correlationContext.getCorrelationId() : null;
+    }
+
+    /**
+     * Makes this context the current one until the returned scope is closed, the previous context is then restored
+     */
+    public Scope open() {
+        CorrelationContext previous = CURRENT.get();
+        restore(this);
+        return previous != null ? () -> restore(previous) : CLEARING_SCOPE;
+    }
+
+    // the correlation id is kept in the MDC as well, so that async appenders and structured encoders log it too
+    static void restore(CorrelationContext correlationContext) {
+        if (correlationContext != null) {
+            CURRENT.set(correlationContext);
+            MDC.put(MDC_KEY, correlationContext.correlationId);
+        } else {
+            CURRENT.remove();
+            MDC.remove(MDC_KEY);
+        }
+    }
+
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
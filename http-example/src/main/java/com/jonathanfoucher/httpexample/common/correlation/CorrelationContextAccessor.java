@@ -0,0 +1,30 @@
+package com.jonathanfoucher.httpexample.common.correlation;
+
+import io.micrometer.context.ThreadLocalAccessor;
+
+/**
+ * Lets context snapshots (task decorators, reactive pipelines) carry the correlation context to other threads
+ */
+public class CorrelationContextAccessor implements ThreadLocalAccessor<CorrelationContext> {
+    public static final String KEY = "correlation-context";
+
+    @Override
+    public Object key() {
+        return KEY;
+    }
+
+    @Override
+    public CorrelationContext getValue() {
+        return CorrelationContext.current();
+    }
+
+    @Override
+    public void setValue(CorrelationContext value) {
+        CorrelationContext.restore(value);
+    }
+
+    @Override
+    public void setValue() {
+        CorrelationContext.restore(null);
+    }
+}
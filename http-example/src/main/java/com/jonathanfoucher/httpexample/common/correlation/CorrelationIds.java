@@ -0,0 +1,41 @@
+package com.jonathanfoucher.httpexample.common.correlation;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+public final class CorrelationIds {
+    private static final int LENGTH = 36;
+
+    private CorrelationIds() {
+    }
+
+    /**
+     * Checks that the value is a lowercase UUID such as 256a46fb-f91a-402a-b45e-065cbe5f2aa9
+     */
+    public static boolean isValid(String correlationId) {
+        if (correlationId == null || correlationId.length() != LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < LENGTH; i++) {
+            char c = correlationId.charAt(i);
+            if (i == 8 || i == 13 || i == 18 || i == 23) {
+                if (c != '-') {
+                    return false;
+                }
+            } else if ((c < '0' || c > '9') && (c < 'a' || c > 'f')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Generates a random (version 4) UUID without going through the blocking SecureRandom of UUID.randomUUID()
+     */
+    public static String generate() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long mostSignificantBits = (random.nextLong() & 0xffffffffffff0fffL) | 0x0000000000004000L;
+        long leastSignificantBits = (random.nextLong() & 0x3fffffffffffffffL) | 0x8000000000000000L;
+        return new UUID(mostSignificantBits, leastSignificantBits).toString();
+    }
+}
@@ -0,0 +1,16 @@
+package com.jonathanfoucher.httpexample.common.errors;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+@Getter
+public class UpstreamUnavailableException extends RuntimeException {
+    private final Duration retryAfter;
+
+    public UpstreamUnavailableException(String upstream, Duration retryAfter) {
+        // thrown on every rejected call while the circuit is open, the stack trace would only slow the fast-fail down
+        super("Upstream " + upstream + " is unavailable", null, false, false);
+        this.retryAfter = retryAfter;
+    }
+}
@@ -1,47 +1,39 @@
 package com.jonathanfoucher.httpexample.common.filters;
 
+import com.jonathanfoucher.httpexample.common.correlation.CorrelationContext;
+import com.jonathanfoucher.httpexample.common.correlation.CorrelationIds;
 import jakarta.servlet.*;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import org.slf4j.MDC;
-import org.springframework.core.annotation.Order;
+import org.springframework.boot.web.servlet.FilterRegistration;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
-import java.util.UUID;
-import java.util.regex.Pattern;
 
 import static com.jonathanfoucher.httpexample.data.enums.AdditionalHttpHeaders.CORRELATION_ID_HEADER;
 
+// async results are dispatched on another container thread which also needs the correlation context
 @Component
-@Order(1)
+@FilterRegistration(order = 1, dispatcherTypes = {DispatcherType.REQUEST, DispatcherType.ASYNC})
 public class CorrelationIdFilter implements Filter {
-    private static final Pattern CORRELATION_ID_REGEX_PATTERN = Pattern.compile("^[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}$");
-    private static final String CORRELATION_ID_LOGS_VARIABLE = "correlation-id";
-
     @Override
     public void doFilter(ServletRequest servletRequest, ServletResponse servletResponse, FilterChain filterChain) throws IOException, ServletException {
         HttpServletRequest request = (HttpServletRequest) servletRequest;
 
-        String correlationId = request.getHeader(CORRELATION_ID_HEADER.getHeaderName());
-        if (correlationId == null || !CORRELATION_ID_REGEX_PATTERN.matcher(correlationId).matches()) {
-            correlationId = UUID.randomUUID().toString();
-            request.setAttribute(CORRELATION_ID_HEADER.getHeaderName(), correlationId);
-        }
-        setCorrelationId(correlationId);
-
-        HttpServletResponse response = (HttpServletResponse) servletResponse;
-        response.setHeader(CORRELATION_ID_HEADER.getHeaderName(), correlationId);
-
-        filterChain.doFilter(request, response);
-        removeCorrelationId();
-    }
+        CorrelationContext correlationContext = CorrelationContext.get(request);
+        if (correlationContext == null) {
+            String correlationId = request.getHeader(CORRELATION_ID_HEADER.getHeaderName());
+            if (!CorrelationIds.isValid(correlationId)) {
+                correlationId = CorrelationIds.generate();
+            }
+            correlationContext = CorrelationContext.bind(request, correlationId);
 
-    private void setCorrelationId(String correlationId) {
-        MDC.put(CORRELATION_ID_LOGS_VARIABLE, correlationId);
-    }
+            HttpServletResponse response = (HttpServletResponse) servletResponse;
+            response.setHeader(CORRELATION_ID_HEADER.getHeaderName(), correlationId);
+        }
 
-    private void removeCorrelationId() {
-        MDC.remove(CORRELATION_ID_LOGS_VARIABLE);
+        try (CorrelationContext.Scope ignored = correlationContext.open()) {
+            filterChain.doFilter(request, servletResponse);
+        }
     }
 }
@@ -1,41 +1,162 @@
 package com.jonathanfoucher.httpexample.connectors;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.jonathanfoucher.httpexample.common.correlation.CorrelationContext;
+import com.jonathanfoucher.httpexample.connectors.breakers.ConnectorCircuitBreaker;
+import com.jonathanfoucher.httpexample.connectors.caches.ValidatedResponse;
+import com.jonathanfoucher.httpexample.connectors.coalescers.RequestCoalescer;
+import com.jonathanfoucher.httpexample.connectors.hedgers.RequestHedger;
 import com.jonathanfoucher.httpexample.connectors.interceptors.CorrelationIdInterceptor;
+import com.jonathanfoucher.httpexample.connectors.observations.UriTemplateObservationConvention;
+import com.jonathanfoucher.httpexample.connectors.retries.ConnectorRetry;
+import com.jonathanfoucher.httpexample.connectors.templates.CompiledUriBuilderFactory;
+import com.jonathanfoucher.httpexample.connectors.templates.RequestTemplate;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.retry.Retry;
+import io.micrometer.context.ContextSnapshot;
+import io.micrometer.context.ContextSnapshotFactory;
 import org.springframework.boot.restclient.RestTemplateBuilder;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.reactive.ClientHttpConnector;
 import org.springframework.web.client.RestTemplate;
-import org.springframework.web.util.UriComponentsBuilder;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import tools.jackson.databind.json.JsonMapper;
 
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
+import static com.jonathanfoucher.httpexample.connectors.observations.UriTemplateObservationConvention.URI_TEMPLATE_ATTRIBUTE;
+import static com.jonathanfoucher.httpexample.data.enums.AdditionalHttpHeaders.CORRELATION_ID_HEADER;
 import static org.springframework.http.HttpMethod.GET;
-import static org.springframework.http.HttpMethod.POST;
+import static org.springframework.http.HttpStatus.NOT_MODIFIED;
 import static org.springframework.util.CollectionUtils.isEmpty;
 
 public abstract class Connector {
+    private static final ContextSnapshotFactory CONTEXT_SNAPSHOT_FACTORY = ContextSnapshotFactory.builder().build();
+    private static final long MAX_VALIDATED_RESPONSES = 10_000;
+
     private final RestTemplate restTemplate;
+    private final JsonMapper jsonMapper;
+    private final WebClient webClient;
+    private final CompiledUriBuilderFactory uriBuilderFactory = new CompiledUriBuilderFactory();
+    private final RequestCoalescer requestCoalescer = new RequestCoalescer();
+    private final Cache<String, ValidatedResponse> validatedResponses = Caffeine.newBuilder()
+            .maximumSize(MAX_VALIDATED_RESPONSES)
+            .build();
+    private final ConnectorCircuitBreaker circuitBreaker;
+    private final ConnectorRetry retry;
+    private final RequestHedger requestHedger;
 
-    protected Connector(RestTemplateBuilder restTemplateBuilder) {
-        this.restTemplate = restTemplateBuilder.additionalInterceptors(new CorrelationIdInterceptor())
+    protected Connector(RestTemplateBuilder restTemplateBuilder, ClientHttpRequestFactory requestFactory,
+                        WebClient.Builder webClientBuilder, ClientHttpConnector httpConnector, JsonMapper jsonMapper,
+                        CircuitBreaker circuitBreaker, Retry retry, RequestHedger requestHedger) {
+        this.restTemplate = restTemplateBuilder.requestFactory(() -> requestFactory)
+                .uriTemplateHandler(uriBuilderFactory)
+                .additionalInterceptors(new CorrelationIdInterceptor())
+                .build();
+        // requests are sent with an already expanded URI, their metrics are tagged with the template they carry
+        this.webClient = webClientBuilder.clientConnector(httpConnector)
+                .observationConvention(new UriTemplateObservationConvention())
                 .build();
+        // the application mapper, so that copied bodies are written and read like the answers of the upstream
+        this.jsonMapper = jsonMapper;
+        this.circuitBreaker = new ConnectorCircuitBreaker(circuitBreaker);
+        this.retry = new ConnectorRetry(retry);
+        this.requestHedger = requestHedger;
+    }
+
+    protected RequestTemplate createRequestTemplate(HttpMethod httpMethod, String uriTemplate, Map<String, String> customHeaders) {
+        uriBuilderFactory.compile(uriTemplate);
+        return new RequestTemplate(httpMethod, uriTemplate, getHeaders(customHeaders));
+    }
+
+    protected <T> Optional<T> get(RequestTemplate requestTemplate, Class<T> clazz, Object... uriVariables) {
+        return call(requestTemplate, clazz, requestTemplate.getEmptyEntity(), uriVariables);
+    }
+
+    protected <T, K> Optional<T> post(RequestTemplate requestTemplate, Class<T> clazz, K body, Object... uriVariables) {
+        return call(requestTemplate, clazz, requestTemplate.createEntity(body), uriVariables);
+    }
+
+    protected <T> CompletableFuture<Optional<T>> getAsync(RequestTemplate requestTemplate, Class<T> clazz, Object... uriVariables) {
+        return callAsync(requestTemplate, clazz, null, uriVariables);
+    }
+
+    protected <T, K> CompletableFuture<Optional<T>> postAsync(RequestTemplate requestTemplate, Class<T> clazz, K body, Object... uriVariables) {
+        return callAsync(requestTemplate, clazz, body, uriVariables);
+    }
+
+    private <T, K> Optional<T> call(RequestTemplate requestTemplate, Class<T> clazz, HttpEntity<K> httpEntity, Object... uriVariables) {
+        if (isIdempotent(requestTemplate.getMethod())) {
+            String requestKey = getRequestKey(requestTemplate, clazz, uriVariables);
+            // the circuit breaker records the outcome of the hedged request, not of each of its attempts
+            return requestCoalescer.execute(requestKey, () -> retry.execute(() -> circuitBreaker.execute(() -> requestHedger.execute(
+                    () -> connect(requestTemplate, requestKey, httpEntity, clazz, uriVariables)))));
+        }
+        return circuitBreaker.execute(() -> connect(requestTemplate, null, httpEntity, clazz, uriVariables));
+    }
+
+    private <T, K> CompletableFuture<Optional<T>> callAsync(RequestTemplate requestTemplate, Class<T> clazz, K body, Object... uriVariables) {
+        ContextSnapshot contextSnapshot = CONTEXT_SNAPSHOT_FACTORY.captureAll();
+        // retried and hedged attempts are sent from other threads, the correlation id is read once here
+        String correlationId = CorrelationContext.currentCorrelationId();
+
+        if (isIdempotent(requestTemplate.getMethod())) {
+            String requestKey = getRequestKey(requestTemplate, clazz, uriVariables);
+            // a coalesced caller gets the future of the first one, its own context is restored on it
+            return withContext(requestCoalescer.executeAsync(requestKey, () -> retry.executeAsync(() -> circuitBreaker.executeAsync(() -> requestHedger.executeAsync(
+                    () -> connectAsync(requestTemplate, requestKey, correlationId, body, clazz, uriVariables))))), contextSnapshot);
+        }
+        return withContext(circuitBreaker.executeAsync(() -> connectAsync(requestTemplate, null, correlationId, body, clazz, uriVariables)), contextSnapshot);
     }
 
-    protected <T> Optional<T> get(String url, Map<String, String> customHeaders, Class<T> clazz, Map<String, String> pathParameters) {
-        return call(GET, url, customHeaders, clazz, null, pathParameters, null);
+    /**
+     * Reads the elements of a JSON array answer one at a time, the body is never held as a whole.
+     * A streamed answer cannot be shared nor replayed, so it is neither coalesced, retried nor hedged.
+     */
+    protected <T> CompletableFuture<ResponseEntity<Flux<T>>> getStreamAsync(RequestTemplate requestTemplate, Class<T> elementClass, Object... uriVariables) {
+        ContextSnapshot contextSnapshot = CONTEXT_SNAPSHOT_FACTORY.captureAll();
+        String correlationId = CorrelationContext.currentCorrelationId();
+
+        return withContext(circuitBreaker.executeStreamAsync(() -> createRequest(requestTemplate, correlationId, null, uriVariables)
+                .retrieve()
+                .toEntityFlux(elementClass)
+                .toFuture()), contextSnapshot);
     }
 
-    protected <T, K> Optional<T> post(String url, Map<String, String> customHeaders, Class<T> clazz, K body) {
-        return call(POST, url, customHeaders, clazz, null, null, body);
+    /**
+     * Long poll, the server holds the request until it has something to answer: its latency would be taken for slow calls,
+     * so it is sent once, neither coalesced, retried, hedged nor recorded by the circuit breaker. Failed polls are left to the caller.
+     */
+    protected <T> CompletableFuture<Optional<T>> pollAsync(RequestTemplate requestTemplate, Class<T> clazz, Object... uriVariables) {
+        ContextSnapshot contextSnapshot = CONTEXT_SNAPSHOT_FACTORY.captureAll();
+        String correlationId = CorrelationContext.currentCorrelationId();
+
+        return withContext(connectAsync(requestTemplate, null, correlationId, null, clazz, uriVariables), contextSnapshot);
     }
 
-    private <T, K> Optional<T> call(HttpMethod httpMethod, String url, Map<String, String> customHeaders, Class<T> clazz, Map<String, String> queryParameters, Map<String, String> pathParameters, K body) {
-        HttpHeaders headers = getHeaders(customHeaders);
-        HttpEntity<K> httpEntity = new HttpEntity<>(body, headers);
-        return Optional.ofNullable(connect(url, httpEntity, httpMethod, clazz, queryParameters, pathParameters).getBody());
+    /**
+     * Future completed with the context of the caller restored, so that its dependent stages keep it whatever thread completes the call
+     */
+    private static <T> CompletableFuture<T> withContext(CompletableFuture<T> future, ContextSnapshot contextSnapshot) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        future.whenComplete((value, error) -> {
+            try (ContextSnapshot.Scope ignored = contextSnapshot.setThreadLocals()) {
+                if (error != null) {
+                    result.completeExceptionally(error);
+                } else {
+                    result.complete(value);
+                }
+            }
+        });
+        return result;
     }
 
     private HttpHeaders getHeaders(Map<String, String> headers) {
@@ -46,20 +167,82 @@ public abstract class Connector {
         return httpHeaders;
     }
 
-    private <T, K> ResponseEntity<T> connect(String url, HttpEntity<K> httpEntity, HttpMethod method, Class<T> clazz, Map<String, String> queryParameters, Map<String, String> pathParameters) {
-        String builtUrl;
-        UriComponentsBuilder builder = UriComponentsBuilder.fromUriString(url);
+    private boolean isIdempotent(HttpMethod httpMethod) {
+        return GET.equals(httpMethod);
+    }
 
-        if (!isEmpty(queryParameters)) {
-            queryParameters.forEach(builder::replaceQueryParam);
+    private String getRequestKey(RequestTemplate requestTemplate, Class<?> clazz, Object... uriVariables) {
+        StringBuilder requestKey = new StringBuilder(requestTemplate.getRequestKeyPrefix())
+                .append(clazz.getName());
+        for (Object uriVariable : uriVariables) {
+            requestKey.append(' ').append(uriVariable);
         }
+        return requestKey.toString();
+    }
+
+    private <T, K> Optional<T> connect(RequestTemplate requestTemplate, String requestKey, HttpEntity<K> httpEntity, Class<T> clazz, Object... uriVariables) {
+        ValidatedResponse validatedResponse = getValidatedResponse(requestKey);
+        HttpEntity<K> request = validatedResponse != null ? withIfNoneMatch(httpEntity, validatedResponse.eTag()) : httpEntity;
+        ResponseEntity<T> response = restTemplate.exchange(requestTemplate.getUriTemplate(), requestTemplate.getMethod(), request, clazz, uriVariables);
+        return getBody(requestKey, validatedResponse, response, clazz);
+    }
+
+    private <T, K> CompletableFuture<Optional<T>> connectAsync(RequestTemplate requestTemplate, String requestKey, String correlationId, K body,
+                                                         Class<T> clazz, Object... uriVariables) {
+        ValidatedResponse validatedResponse = getValidatedResponse(requestKey);
+        WebClient.RequestBodySpec requestSpec = createRequest(requestTemplate, correlationId, validatedResponse, uriVariables);
+        WebClient.RequestHeadersSpec<?> request = body != null ? requestSpec.bodyValue(body) : requestSpec;
+
+        return request.retrieve()
+                .toEntity(clazz)
+                .map(response -> getBody(requestKey, validatedResponse, response, clazz))
+                .toFuture();
+    }
+
+    private WebClient.RequestBodySpec createRequest(RequestTemplate requestTemplate, String correlationId, ValidatedResponse validatedResponse,
+                                                    Object... uriVariables) {
+        return webClient.method(requestTemplate.getMethod())
+                .uri(uriBuilderFactory.expand(requestTemplate.getUriTemplate(), uriVariables))
+                .attribute(URI_TEMPLATE_ATTRIBUTE, requestTemplate.getUriTemplate())
+                .headers(httpHeaders -> {
+                    httpHeaders.addAll(requestTemplate.getHeaders());
+                    if (correlationId != null) {
+                        httpHeaders.add(CORRELATION_ID_HEADER.getHeaderName(), correlationId);
+                    }
+                    if (validatedResponse != null) {
+                        httpHeaders.setIfNoneMatch(validatedResponse.eTag());
+                    }
+                });
+    }
+
+    private ValidatedResponse getValidatedResponse(String requestKey) {
+        return requestKey != null ? validatedResponses.getIfPresent(requestKey) : null;
+    }
 
-        if (!isEmpty(pathParameters)) {
-            builtUrl = builder.buildAndExpand(pathParameters).toUriString();
-        } else {
-            builtUrl = builder.build().toUriString();
+    private <K> HttpEntity<K> withIfNoneMatch(HttpEntity<K> httpEntity, String eTag) {
+        HttpHeaders httpHeaders = new HttpHeaders();
+        httpHeaders.addAll(httpEntity.getHeaders());
+        httpHeaders.setIfNoneMatch(eTag);
+        return new HttpEntity<>(httpEntity.getBody(), httpHeaders);
+    }
+
+    /**
+     * A 304 answer reads a copy of the body of the previous answer, any other answer replaces the stored entity tag
+     */
+    private <T> Optional<T> getBody(String requestKey, ValidatedResponse validatedResponse, ResponseEntity<T> response, Class<T> clazz) {
+        if (validatedResponse != null && response.getStatusCode().isSameCodeAs(NOT_MODIFIED)) {
+            return Optional.of(jsonMapper.readValue(validatedResponse.body(), clazz));
         }
 
-        return restTemplate.exchange(builtUrl, method, httpEntity, clazz);
+        T body = response.getBody();
+        if (requestKey != null) {
+            String eTag = response.getHeaders().getETag();
+            if (eTag != null && body != null) {
+                validatedResponses.put(requestKey, new ValidatedResponse(eTag, jsonMapper.writeValueAsBytes(body)));
+            } else if (validatedResponse != null) {
+                validatedResponses.invalidate(requestKey);
+            }
+        }
+        return Optional.ofNullable(body);
     }
 }
@@ -1,43 +1,230 @@
 package com.jonathanfoucher.httpexample.connectors;
 
+import com.jonathanfoucher.httpexample.connectors.configs.HttpClientConfig;
 import com.jonathanfoucher.httpexample.connectors.configs.MovieApiConfig;
+import com.jonathanfoucher.httpexample.connectors.configs.RetryingConfig;
+import com.jonathanfoucher.httpexample.connectors.hedgers.RequestHedger;
+import com.jonathanfoucher.httpexample.connectors.pages.MoviePage;
+import com.jonathanfoucher.httpexample.connectors.templates.RequestTemplate;
+import com.jonathanfoucher.httpexample.data.dto.MovieBatchDto;
+import com.jonathanfoucher.httpexample.data.dto.MovieChangesDto;
 import com.jonathanfoucher.httpexample.data.dto.MovieDto;
+import com.jonathanfoucher.httpexample.data.enums.WireFormat;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.retry.Retry;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.restclient.RestTemplateBuilder;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.reactive.ClientHttpConnector;
 import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
+import tools.jackson.databind.json.JsonMapper;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Optional;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 import static com.jonathanfoucher.httpexample.data.enums.AdditionalHttpHeaders.API_KEY_HEADER;
+import static org.springframework.http.HttpHeaders.ACCEPT;
+import static org.springframework.http.HttpHeaders.CONTENT_TYPE;
+import static org.springframework.http.HttpHeaders.LINK;
+import static org.springframework.http.HttpMethod.GET;
+import static org.springframework.http.HttpMethod.POST;
+import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
 
 @Component
 public class MovieApiConnector extends Connector {
     private final MovieApiConfig movieApiConfig;
+    private final Duration timeout;
+    private final RequestTemplate getMovieByIdRequest;
+    private final RequestTemplate getMoviesByIdsRequest;
+    private final RequestTemplate getFirstMoviePageRequest;
+    private final RequestTemplate getMoviePageRequest;
+    private final RequestTemplate getFirstMovieChangesRequest;
+    private final RequestTemplate getMovieChangesRequest;
+    private final RequestTemplate findMoviesByTitlePrefixRequest;
+    private final RequestTemplate findMoviesByReleaseDateRequest;
+    private final RequestTemplate saveMovieRequest;
+    private final RequestTemplate saveMoviesRequest;
 
-    public MovieApiConnector(RestTemplateBuilder restTemplateBuilder, MovieApiConfig movieApiConfig) {
-        super(restTemplateBuilder);
+    public MovieApiConnector(RestTemplateBuilder restTemplateBuilder, MovieApiConfig movieApiConfig,
+                             @Qualifier("movieApiRequestFactory") ClientHttpRequestFactory movieApiRequestFactory,
+                             WebClient.Builder webClientBuilder,
+                             @Qualifier("movieApiHttpConnector") ClientHttpConnector movieApiHttpConnector,
+                             JsonMapper jsonMapper,
+                             @Qualifier("movieApiCircuitBreaker") CircuitBreaker movieApiCircuitBreaker,
+                             @Qualifier("movieApiRetry") Retry movieApiRetry,
+                             @Qualifier("movieApiRequestHedger") RequestHedger movieApiRequestHedger) {
+        super(restTemplateBuilder, movieApiRequestFactory, webClientBuilder, movieApiHttpConnector, jsonMapper, movieApiCircuitBreaker,
+                movieApiRetry, movieApiRequestHedger);
         this.movieApiConfig = movieApiConfig;
+        this.timeout = computeTimeout(movieApiConfig.getClient(), movieApiConfig.getRetry());
+
+        WireFormat wireFormat = movieApiConfig.getWireFormat();
+        Map<String, String> getHeaders = Map.of(API_KEY_HEADER.getHeaderName(), movieApiConfig.getApiKey(),
+                ACCEPT, wireFormat.getAccept());
+        Map<String, String> postHeaders = Map.of(API_KEY_HEADER.getHeaderName(), movieApiConfig.getApiKey(),
+                CONTENT_TYPE, wireFormat.getContentType());
+        this.getMovieByIdRequest = createRequestTemplate(GET, movieApiConfig.getBaseUrl() + movieApiConfig.getMovieByIdPath(), getHeaders);
+        this.getMoviesByIdsRequest = createRequestTemplate(GET, movieApiConfig.getBaseUrl() + movieApiConfig.getMoviesPath() + "?ids={ids}", getHeaders);
+        // pages are streamed as JSON arrays whatever the wire format, protobuf messages cannot be read one movie at a time,
+        // and movie changes are not part of the protobuf schema
+        Map<String, String> jsonHeaders = Map.of(API_KEY_HEADER.getHeaderName(), movieApiConfig.getApiKey(),
+                ACCEPT, APPLICATION_JSON_VALUE);
+        this.getFirstMoviePageRequest = createRequestTemplate(GET, movieApiConfig.getBaseUrl() + movieApiConfig.getMoviesPath() + "?limit={limit}", jsonHeaders);
+        this.getMoviePageRequest = createRequestTemplate(GET, movieApiConfig.getBaseUrl() + movieApiConfig.getMoviesPath() + "?cursor={cursor}&limit={limit}", jsonHeaders);
+        this.getFirstMovieChangesRequest = createRequestTemplate(GET, movieApiConfig.getBaseUrl() + movieApiConfig.getMovieChangesPath(), jsonHeaders);
+        this.getMovieChangesRequest = createRequestTemplate(GET, movieApiConfig.getBaseUrl() + movieApiConfig.getMovieChangesPath()
+                + "?after={afterSequence}&wait_ms={waitMillis}", jsonHeaders);
+        this.findMoviesByTitlePrefixRequest = createRequestTemplate(GET, movieApiConfig.getBaseUrl() + movieApiConfig.getMoviesPath()
+                + "?title_prefix={titlePrefix}&limit={limit}", getHeaders);
+        this.findMoviesByReleaseDateRequest = createRequestTemplate(GET, movieApiConfig.getBaseUrl() + movieApiConfig.getMoviesPath()
+                + "?release_date_from={from}&release_date_to={to}&limit={limit}", getHeaders);
+        this.saveMovieRequest = createRequestTemplate(POST, movieApiConfig.getBaseUrl() + movieApiConfig.getMoviesPath(), postHeaders);
+        this.saveMoviesRequest = createRequestTemplate(POST, movieApiConfig.getBaseUrl() + movieApiConfig.getMoviesBatchPath(), postHeaders);
+    }
+
+    /**
+     * Longest time a call may take, every attempt waiting for a connection and then for the response, with the longest backoffs in between
+     */
+    public Duration getTimeout() {
+        return timeout;
     }
 
     public Optional<MovieDto> getMovieById(Long movieId) {
-        String url = movieApiConfig.getBaseUrl() + movieApiConfig.getMovieByIdPath();
+        return get(getMovieByIdRequest, MovieDto.class, movieId);
+    }
+
+    public CompletableFuture<Optional<MovieDto>> getMovieByIdAsync(Long movieId) {
+        return getAsync(getMovieByIdRequest, MovieDto.class, movieId);
+    }
+
+    public MovieBatchDto getMoviesByIds(Collection<Long> movieIds) {
+        MovieBatchDto movieBatch = new MovieBatchDto();
+        for (List<Long> chunk : getChunks(movieIds)) {
+            get(getMoviesByIdsRequest, MovieBatchDto.class, joinMovieIds(chunk))
+                    .ifPresent(result -> mergeMovieBatch(movieBatch, result));
+        }
+        return movieBatch;
+    }
 
-        Map<String, String> customHeaders = new HashMap<>();
-        customHeaders.put(API_KEY_HEADER.getHeaderName(), movieApiConfig.getApiKey());
+    public CompletableFuture<MovieBatchDto> getMoviesByIdsAsync(Collection<Long> movieIds) {
+        List<CompletableFuture<Optional<MovieBatchDto>>> chunks = getChunks(movieIds).stream()
+                .map(chunk -> getAsync(getMoviesByIdsRequest, MovieBatchDto.class, joinMovieIds(chunk)))
+                .toList();
 
-        Map<String, String> pathParams = new HashMap<>();
-        pathParams.put("movie_id", String.valueOf(movieId));
+        return CompletableFuture.allOf(chunks.toArray(CompletableFuture[]::new))
+                .thenApply(ignored -> {
+                    MovieBatchDto movieBatch = new MovieBatchDto();
+                    chunks.forEach(chunk -> chunk.join().ifPresent(result -> mergeMovieBatch(movieBatch, result)));
+                    return movieBatch;
+                });
+    }
+
+    /**
+     * Completes once the movie API answered, the movies of the page are then read as they are consumed
+     */
+    public CompletableFuture<MoviePage> getMoviePageAsync(String cursor, int limit) {
+        CompletableFuture<ResponseEntity<Flux<MovieDto>>> response = cursor != null
+                ? getStreamAsync(getMoviePageRequest, MovieDto.class, cursor, limit)
+                : getStreamAsync(getFirstMoviePageRequest, MovieDto.class, limit);
+        return response.thenApply(page -> new MoviePage(Objects.requireNonNullElseGet(page.getBody(), Flux::empty), getNextCursor(page.getHeaders())));
+    }
+
+    /**
+     * Ids of the movies saved after the sequence, the movie API waits up to the timeout for a save when there is none yet.
+     * Without a sequence, the answer is a reset with the sequence to follow the changes from.
+     */
+    public CompletableFuture<MovieChangesDto> getMovieChangesAsync(Long afterSequence, Duration timeout) {
+        CompletableFuture<Optional<MovieChangesDto>> changes = afterSequence != null
+                ? pollAsync(getMovieChangesRequest, MovieChangesDto.class, afterSequence, timeout.toMillis())
+                : pollAsync(getFirstMovieChangesRequest, MovieChangesDto.class);
+        return changes.thenApply(result -> result.orElseThrow(() -> new IllegalStateException("The movie API answered movie changes without a body")));
+    }
+
+    public CompletableFuture<List<MovieDto>> findMoviesByTitlePrefixAsync(String titlePrefix, int limit) {
+        return getAsync(findMoviesByTitlePrefixRequest, MovieDto[].class, titlePrefix, limit)
+                .thenApply(this::toMovies);
+    }
 
-        return get(url, customHeaders, MovieDto.class, pathParams);
+    public CompletableFuture<List<MovieDto>> findMoviesByReleaseDateAsync(LocalDate from, LocalDate to, int limit) {
+        return getAsync(findMoviesByReleaseDateRequest, MovieDto[].class, from, to, limit)
+                .thenApply(this::toMovies);
     }
 
     public void saveMovie(MovieDto movie) {
-        String url = movieApiConfig.getBaseUrl() + movieApiConfig.getMoviesPath();
+        post(saveMovieRequest, Void.class, movie);
+    }
+
+    public CompletableFuture<Void> saveMovieAsync(MovieDto movie) {
+        return postAsync(saveMovieRequest, Void.class, movie)
+                .thenApply(ignored -> null);
+    }
+
+    public void saveMovies(List<MovieDto> movies) {
+        post(saveMoviesRequest, Void.class, movies);
+    }
+
+    private static Duration computeTimeout(HttpClientConfig client, RetryingConfig retry) {
+        int attempts = retry.isEnabled() ? retry.getMaxAttempts() : 1;
+        Duration timeout = client.getConnectionRequestTimeout().plus(client.getResponseTimeout()).multipliedBy(attempts);
+        double backoffNanos = retry.getInitialBackoff().toNanos() * (1 + retry.getJitter());
+        for (int attempt = 1; attempt < attempts; attempt++) {
+            timeout = timeout.plusNanos((long) backoffNanos);
+            backoffNanos *= retry.getBackoffMultiplier();
+        }
+        return timeout;
+    }
+
+    private List<List<Long>> getChunks(Collection<Long> movieIds) {
+        List<Long> distinctMovieIds = new ArrayList<>(new LinkedHashSet<>(movieIds));
+        int batchSize = movieApiConfig.getMoviesBatchSize();
 
-        Map<String, String> customHeaders = new HashMap<>();
-        customHeaders.put(API_KEY_HEADER.getHeaderName(), movieApiConfig.getApiKey());
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int i = 0; i < distinctMovieIds.size(); i += batchSize) {
+            chunks.add(distinctMovieIds.subList(i, Math.min(i + batchSize, distinctMovieIds.size())));
+        }
+        return chunks;
+    }
+
+    private String joinMovieIds(List<Long> movieIds) {
+        StringBuilder joinedMovieIds = new StringBuilder(movieIds.size() * 8);
+        for (Long movieId : movieIds) {
+            if (!joinedMovieIds.isEmpty()) {
+                joinedMovieIds.append(',');
+            }
+            joinedMovieIds.append(movieId);
+        }
+        return joinedMovieIds.toString();
+    }
+
+    /**
+     * Cursor of the {@code rel="next"} link, null on the last page
+     */
+    private String getNextCursor(HttpHeaders headers) {
+        for (String link : headers.getValuesAsList(LINK)) {
+            int uriEnd = link.indexOf('>');
+            if (link.startsWith("<") && uriEnd > 0 && link.substring(uriEnd).contains("rel=\"next\"")) {
+                return UriComponentsBuilder.fromUriString(link.substring(1, uriEnd))
+                        .build()
+                        .getQueryParams()
+                        .getFirst("cursor");
+            }
+        }
+        return null;
+    }
+
+    private List<MovieDto> toMovies(Optional<MovieDto[]> movies) {
+        return movies.map(List::of).orElseGet(List::of);
+    }
 
-        post(url, customHeaders, Void.class, movie);
+    private void mergeMovieBatch(MovieBatchDto movieBatch, MovieBatchDto result) {
+        movieBatch.getMovies().addAll(result.getMovies());
+        movieBatch.getMissingIds().addAll(result.getMissingIds());
     }
 }
@@ -0,0 +1,65 @@
+package com.jonathanfoucher.httpexample.connectors.breakers;
+
+import com.jonathanfoucher.httpexample.connectors.configs.CircuitBreakingConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+@Slf4j
+public final class CircuitBreakerFactory {
+    private CircuitBreakerFactory() {
+    }
+
+    public static CircuitBreaker createCircuitBreaker(String name, CircuitBreakingConfig config, MeterRegistry meterRegistry) {
+        CircuitBreakerConfig circuitBreakerConfig = CircuitBreakerConfig.custom()
+                .slidingWindowType(config.getSlidingWindowType())
+                .slidingWindowSize(config.getSlidingWindowSize())
+                .minimumNumberOfCalls(config.getMinimumNumberOfCalls())
+                .failureRateThreshold(config.getFailureRateThreshold())
+                .slowCallRateThreshold(config.getSlowCallRateThreshold())
+                .slowCallDurationThreshold(config.getSlowCallDurationThreshold())
+                .waitDurationInOpenState(config.getWaitDurationInOpenState())
+                .permittedNumberOfCallsInHalfOpenState(config.getPermittedNumberOfCallsInHalfOpenState())
+                .automaticTransitionFromOpenToHalfOpenEnabled(false)
+                .recordException(CircuitBreakerFactory::isUpstreamFailure)
+                .writableStackTraceEnabled(false)
+                .build();
+
+        CircuitBreakerRegistry circuitBreakerRegistry = CircuitBreakerRegistry.of(circuitBreakerConfig);
+        CircuitBreaker circuitBreaker = circuitBreakerRegistry.circuitBreaker(name);
+        if (!config.isEnabled()) {
+            circuitBreaker.transitionToDisabledState();
+        }
+
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(circuitBreakerRegistry).bindTo(meterRegistry);
+        circuitBreaker.getEventPublisher().onStateTransition(event -> {
+            log.warn("Circuit breaker {} went from {} to {}", event.getCircuitBreakerName(),
+                    event.getStateTransition().getFromState(), event.getStateTransition().getToState());
+            Counter.builder("resilience4j.circuitbreaker.transitions")
+                    .description("Number of circuit breaker state transitions")
+                    .tag("name", event.getCircuitBreakerName())
+                    .tag("from", event.getStateTransition().getFromState().name().toLowerCase())
+                    .tag("to", event.getStateTransition().getToState().name().toLowerCase())
+                    .register(meterRegistry)
+                    .increment();
+        });
+        return circuitBreaker;
+    }
+
+    /**
+     * Client errors (4xx) are answers from a healthy upstream, they must not open the circuit
+     */
+    private static boolean isUpstreamFailure(Throwable throwable) {
+        if (throwable instanceof HttpClientErrorException) {
+            return false;
+        }
+        return !(throwable instanceof WebClientResponseException webClientResponseException)
+                || !webClientResponseException.getStatusCode().is4xxClientError();
+    }
+}
@@ -0,0 +1,129 @@
+package com.jonathanfoucher.httpexample.connectors.breakers;
+
+import com.jonathanfoucher.httpexample.common.errors.UpstreamUnavailableException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import org.springframework.http.ResponseEntity;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+public class ConnectorCircuitBreaker {
+    private final CircuitBreaker circuitBreaker;
+    private final Duration retryAfter;
+    private final Duration unsubscribedBodyTimeout;
+
+    public ConnectorCircuitBreaker(CircuitBreaker circuitBreaker) {
+        this.circuitBreaker = circuitBreaker;
+        this.retryAfter = Duration.ofMillis(circuitBreaker.getCircuitBreakerConfig()
+                .getWaitIntervalFunctionInOpenState()
+                .apply(1));
+        this.unsubscribedBodyTimeout = circuitBreaker.getCircuitBreakerConfig().getSlowCallDurationThreshold();
+    }
+
+    public <T> T execute(Supplier<T> request) {
+        acquirePermission();
+
+        long start = System.nanoTime();
+        try {
+            T result = request.get();
+            circuitBreaker.onSuccess(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return result;
+        } catch (Throwable e) {
+            // errors are recorded too, a half-open breaker would otherwise never get its permission back
+            circuitBreaker.onError(System.nanoTime() - start, TimeUnit.NANOSECONDS, e);
+            throw e;
+        }
+    }
+
+    public <T> CompletableFuture<T> executeAsync(Supplier<CompletableFuture<T>> request) {
+        try {
+            acquirePermission();
+        } catch (UpstreamUnavailableException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        long start = System.nanoTime();
+        CompletableFuture<T> future;
+        try {
+            future = request.get();
+        } catch (Throwable e) {
+            circuitBreaker.onError(System.nanoTime() - start, TimeUnit.NANOSECONDS, e);
+            throw e;
+        }
+        return future.whenComplete((result, error) -> {
+            if (error != null) {
+                circuitBreaker.onError(System.nanoTime() - start, TimeUnit.NANOSECONDS, unwrap(error));
+            } else {
+                circuitBreaker.onSuccess(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        });
+    }
+
+    /**
+     * The outcome of a streamed response is recorded once its body ends, so that failing mid-stream counts as an error.
+     * Its duration is the time to the response headers, a long stream is not a slow call,
+     * and a stream cancelled by the caller, or not subscribed within the slow call duration, gives its permission back without being recorded.
+     */
+    public <T> CompletableFuture<ResponseEntity<Flux<T>>> executeStreamAsync(Supplier<CompletableFuture<ResponseEntity<Flux<T>>>> request) {
+        try {
+            acquirePermission();
+        } catch (UpstreamUnavailableException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        long start = System.nanoTime();
+        CompletableFuture<ResponseEntity<Flux<T>>> future;
+        try {
+            future = request.get();
+        } catch (Throwable e) {
+            circuitBreaker.onError(System.nanoTime() - start, TimeUnit.NANOSECONDS, e);
+            throw e;
+        }
+        return future.whenComplete((response, error) -> {
+                    if (error != null) {
+                        circuitBreaker.onError(System.nanoTime() - start, TimeUnit.NANOSECONDS, unwrap(error));
+                    }
+                })
+                .thenApply(response -> recordBody(response, System.nanoTime() - start));
+    }
+
+    private <T> ResponseEntity<Flux<T>> recordBody(ResponseEntity<Flux<T>> response, long duration) {
+        if (response.getBody() == null) {
+            circuitBreaker.onSuccess(duration, TimeUnit.NANOSECONDS);
+            return response;
+        }
+        // the permission is settled once, whichever of the body outcome or the unsubscribed timeout comes first
+        AtomicBoolean settled = new AtomicBoolean();
+        Disposable unsubscribedRelease = Mono.delay(unsubscribedBodyTimeout)
+                .subscribe(ignored -> settle(settled, circuitBreaker::releasePermission));
+        Flux<T> body = response.getBody()
+                .doOnSubscribe(subscription -> unsubscribedRelease.dispose())
+                .doOnComplete(() -> settle(settled, () -> circuitBreaker.onSuccess(duration, TimeUnit.NANOSECONDS)))
+                .doOnError(error -> settle(settled, () -> circuitBreaker.onError(duration, TimeUnit.NANOSECONDS, error)))
+                .doOnCancel(() -> settle(settled, circuitBreaker::releasePermission));
+        return new ResponseEntity<>(body, response.getHeaders(), response.getStatusCode());
+    }
+
+    private void settle(AtomicBoolean settled, Runnable outcome) {
+        if (settled.compareAndSet(false, true)) {
+            outcome.run();
+        }
+    }
+
+    private void acquirePermission() {
+        if (!circuitBreaker.tryAcquirePermission()) {
+            throw new UpstreamUnavailableException(circuitBreaker.getName(), retryAfter);
+        }
+    }
+
+    private Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+}
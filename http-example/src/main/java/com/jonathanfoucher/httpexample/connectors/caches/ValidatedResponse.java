@@ -0,0 +1,8 @@
+package com.jonathanfoucher.httpexample.connectors.caches;
+
+/**
+ * Serialized body of a previous answer with its entity tag, a new copy of the body is read each time the upstream answers
+ * a conditional request with a 304, so that callers never share a mutable body
+ */
+public record ValidatedResponse(String eTag, byte[] body) {
+}
@@ -0,0 +1,28 @@
+package com.jonathanfoucher.httpexample.connectors.clients;
+
+import com.jonathanfoucher.httpexample.connectors.hedgers.RequestHedger;
+import org.apache.hc.client5.http.classic.HttpClient;
+import org.apache.hc.core5.concurrent.Cancellable;
+import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+
+import java.net.URI;
+
+/**
+ * Lets the request hedger abort a blocking request whose attempt lost to a faster one
+ */
+public class CancellableClientHttpRequestFactory extends HttpComponentsClientHttpRequestFactory {
+    public CancellableClientHttpRequestFactory(HttpClient httpClient) {
+        super(httpClient);
+    }
+
+    @Override
+    protected ClassicHttpRequest createHttpUriRequest(HttpMethod httpMethod, URI uri) {
+        ClassicHttpRequest request = super.createHttpUriRequest(httpMethod, uri);
+        if (request instanceof Cancellable cancellable) {
+            RequestHedger.abortOnCancel(cancellable::cancel);
+        }
+        return request;
+    }
+}
@@ -0,0 +1,64 @@
+package com.jonathanfoucher.httpexample.connectors.clients;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.reactive.ClientHttpConnector;
+import org.springframework.http.client.reactive.ClientHttpRequest;
+import org.springframework.http.client.reactive.ClientHttpResponse;
+import org.springframework.http.client.reactive.ClientHttpResponseDecorator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.util.function.Function;
+
+import static org.springframework.http.HttpHeaders.*;
+
+/**
+ * Asks for gzip compressed responses and inflates them while they are read
+ */
+public class DecompressingClientHttpConnector implements ClientHttpConnector {
+    private static final String GZIP = "gzip";
+
+    private final ClientHttpConnector delegate;
+
+    public DecompressingClientHttpConnector(ClientHttpConnector delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public Mono<ClientHttpResponse> connect(HttpMethod method, URI uri, Function<? super ClientHttpRequest, Mono<Void>> requestCallback) {
+        return delegate.connect(method, uri, request -> {
+                    request.getHeaders().set(ACCEPT_ENCODING, GZIP);
+                    return requestCallback.apply(request);
+                })
+                .map(response -> GZIP.equalsIgnoreCase(response.getHeaders().getFirst(CONTENT_ENCODING)) ? new GzipClientHttpResponse(response) : response);
+    }
+
+    private static class GzipClientHttpResponse extends ClientHttpResponseDecorator {
+        private final HttpHeaders headers;
+
+        GzipClientHttpResponse(ClientHttpResponse delegate) {
+            super(delegate);
+            this.headers = new HttpHeaders();
+            this.headers.addAll(delegate.getHeaders());
+            this.headers.remove(CONTENT_ENCODING);
+            this.headers.remove(CONTENT_LENGTH);
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+
+        @Override
+        public Flux<DataBuffer> getBody() {
+            return Flux.using(GzipDecoder::new,
+                    decoder -> getDelegate().getBody()
+                            .map(decoder::decode)
+                            .concatWith(Mono.<DataBuffer>fromRunnable(decoder::complete)),
+                    GzipDecoder::close);
+        }
+    }
+}
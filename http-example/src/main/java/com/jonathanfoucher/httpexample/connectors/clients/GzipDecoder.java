@@ -0,0 +1,188 @@
+package com.jonathanfoucher.httpexample.connectors.clients;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * Inflates a gzip stream one buffer at a time, so that a compressed body is never held in memory as a whole.
+ * Concatenated gzip members are inflated one after the other (RFC 1952).
+ * Not thread safe, a decoder is used for a single response.
+ */
+class GzipDecoder {
+    private static final int GZIP_MAGIC = 0x8b1f;
+    private static final int DEFLATE_METHOD = 8;
+    private static final int FIXED_HEADER_SIZE = 10;
+    private static final int TRAILER_SIZE = 8;
+    private static final int FHCRC = 2;
+    private static final int FEXTRA = 4;
+    private static final int FNAME = 8;
+    private static final int FCOMMENT = 16;
+    private static final int OUTPUT_CHUNK_SIZE = 8192;
+
+    private enum State {HEADER, EXTRA_LENGTH, EXTRA, NAME, COMMENT, HEADER_CRC, BODY, TRAILER}
+
+    private final Inflater inflater = new Inflater(true);
+    private final CRC32 crc = new CRC32();
+    private final byte[] pending = new byte[FIXED_HEADER_SIZE];
+    private final byte[] output = new byte[OUTPUT_CHUNK_SIZE];
+
+    private State state = State.HEADER;
+    private int pendingSize;
+    private int flags;
+    private int remaining;
+    // output of the current buffer, sized by the first inflated chunk then grown with what the inflater writes
+    private DataBuffer decoded;
+
+    DataBuffer decode(DataBuffer input) {
+        DataBufferFactory bufferFactory = input.factory();
+        byte[] bytes = new byte[input.readableByteCount()];
+        input.read(bytes);
+        DataBufferUtils.release(input);
+
+        try {
+            int offset = 0;
+            while (offset < bytes.length) {
+                offset = state == State.BODY ? inflate(bytes, offset, bufferFactory) : readHeaderOrTrailer(bytes, offset);
+            }
+            return decoded != null ? decoded : bufferFactory.allocateBuffer(0);
+        } catch (ZipException | DataFormatException e) {
+            if (decoded != null) {
+                DataBufferUtils.release(decoded);
+            }
+            throw new IllegalStateException("Invalid gzip response body", e);
+        } finally {
+            decoded = null;
+        }
+    }
+
+    /**
+     * The body must end between two members, an empty body is accepted too
+     */
+    void complete() {
+        if (state != State.HEADER || pendingSize != 0) {
+            throw new IllegalStateException("Truncated gzip response body");
+        }
+    }
+
+    void close() {
+        inflater.end();
+    }
+
+    private int inflate(byte[] bytes, int offset, DataBufferFactory bufferFactory) throws DataFormatException {
+        inflater.setInput(bytes, offset, bytes.length - offset);
+        while (!inflater.finished() && !inflater.needsInput()) {
+            int count = inflater.inflate(output);
+            if (count == 0 && inflater.needsDictionary()) {
+                throw new DataFormatException("Preset dictionary is not supported");
+            }
+            if (count > 0) {
+                crc.update(output, 0, count);
+                if (decoded == null) {
+                    decoded = bufferFactory.allocateBuffer(count);
+                } else {
+                    decoded.ensureWritable(count);
+                }
+                decoded.write(output, 0, count);
+            }
+        }
+        if (inflater.finished()) {
+            state = State.TRAILER;
+            pendingSize = 0;
+            return bytes.length - inflater.getRemaining();
+        }
+        return bytes.length;
+    }
+
+    private int readHeaderOrTrailer(byte[] bytes, int offset) throws ZipException {
+        byte current = bytes[offset];
+        switch (state) {
+            case HEADER -> {
+                if (fill(current, FIXED_HEADER_SIZE)) {
+                    if (readShort(0) != GZIP_MAGIC || pending[2] != DEFLATE_METHOD) {
+                        throw new ZipException("Not in gzip format");
+                    }
+                    flags = pending[3] & 0xff;
+                    nextHeaderField(State.EXTRA_LENGTH);
+                }
+            }
+            case EXTRA_LENGTH -> {
+                if (fill(current, 2)) {
+                    remaining = readShort(0);
+                    nextHeaderField(remaining > 0 ? State.EXTRA : State.NAME);
+                }
+            }
+            case EXTRA -> {
+                if (--remaining == 0) {
+                    nextHeaderField(State.NAME);
+                }
+            }
+            case NAME -> {
+                if (current == 0) {
+                    nextHeaderField(State.COMMENT);
+                }
+            }
+            case COMMENT -> {
+                if (current == 0) {
+                    nextHeaderField(State.HEADER_CRC);
+                }
+            }
+            case HEADER_CRC -> {
+                if (fill(current, 2)) {
+                    nextHeaderField(State.BODY);
+                }
+            }
+            case TRAILER -> {
+                if (fill(current, TRAILER_SIZE)) {
+                    if (readInt(0) != (int) crc.getValue() || readInt(4) != (int) inflater.getBytesWritten()) {
+                        throw new ZipException("Corrupt gzip trailer");
+                    }
+                    // another member may follow
+                    inflater.reset();
+                    crc.reset();
+                    nextHeaderField(State.HEADER);
+                }
+            }
+            default -> throw new IllegalStateException("Unexpected gzip decoder state " + state);
+        }
+        return offset + 1;
+    }
+
+    /**
+     * Moves to the given header field, or to the next ones when the flags tell they are not present
+     */
+    private void nextHeaderField(State next) {
+        pendingSize = 0;
+        state = next;
+        if (state == State.EXTRA_LENGTH && (flags & FEXTRA) == 0) {
+            state = State.NAME;
+        }
+        if (state == State.NAME && (flags & FNAME) == 0) {
+            state = State.COMMENT;
+        }
+        if (state == State.COMMENT && (flags & FCOMMENT) == 0) {
+            state = State.HEADER_CRC;
+        }
+        if (state == State.HEADER_CRC && (flags & FHCRC) == 0) {
+            state = State.BODY;
+        }
+    }
+
+    private boolean fill(byte current, int size) {
+        pending[pendingSize++] = current;
+        return pendingSize == size;
+    }
+
+    private int readShort(int index) {
+        return (pending[index] & 0xff) | (pending[index + 1] & 0xff) << 8;
+    }
+
+    private int readInt(int index) {
+        return readShort(index) | readShort(index + 2) << 16;
+    }
+}
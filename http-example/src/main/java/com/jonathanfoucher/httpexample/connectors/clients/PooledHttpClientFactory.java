@@ -0,0 +1,116 @@
+package com.jonathanfoucher.httpexample.connectors.clients;
+
+import com.jonathanfoucher.httpexample.connectors.configs.HttpClientConfig;
+import com.jonathanfoucher.httpexample.connectors.interceptors.CompressionInterceptor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.config.TlsConfig;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManager;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.InterceptingClientHttpRequestFactory;
+import org.springframework.http.client.reactive.ClientHttpConnector;
+import org.springframework.http.client.reactive.HttpComponentsClientHttpConnector;
+
+import java.time.Duration;
+import java.util.List;
+
+public final class PooledHttpClientFactory {
+    private static final String CLIENT_TAG = "client";
+
+    private PooledHttpClientFactory() {
+    }
+
+    public static ClientHttpRequestFactory createRequestFactory(CloseableHttpClient httpClient, HttpClientConfig config) {
+        ClientHttpRequestFactory requestFactory = new CancellableClientHttpRequestFactory(httpClient);
+        if (!config.isAcceptCompressedResponses() && !config.isCompressRequests()) {
+            return requestFactory;
+        }
+        long requestCompressionMinSize = config.isCompressRequests() ? config.getRequestCompressionMinSize().toBytes() : -1;
+        CompressionInterceptor compressionInterceptor = new CompressionInterceptor(config.isAcceptCompressedResponses(), requestCompressionMinSize);
+        return new InterceptingClientHttpRequestFactory(requestFactory, List.of(compressionInterceptor));
+    }
+
+    public static ClientHttpConnector createHttpConnector(CloseableHttpAsyncClient httpClient, HttpClientConfig config) {
+        ClientHttpConnector httpConnector = new HttpComponentsClientHttpConnector(httpClient);
+        return config.isAcceptCompressedResponses() ? new DecompressingClientHttpConnector(httpConnector) : httpConnector;
+    }
+
+    /**
+     * Classic client of the blocking calls, sent from the calling thread over a pool of its own (HTTP/1.1 only)
+     */
+    public static CloseableHttpClient createBlockingHttpClient(String name, HttpClientConfig config, MeterRegistry meterRegistry) {
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(config.getMaxConnections())
+                .setMaxConnPerRoute(config.getMaxConnectionsPerRoute())
+                .setDefaultConnectionConfig(createConnectionConfig(config))
+                .build();
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, name, Tags.of(CLIENT_TAG, "blocking")).bindTo(meterRegistry);
+
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(createRequestConfig(config))
+                .evictIdleConnections(toTimeValue(config.getIdleTimeout()))
+                .evictExpiredConnections()
+                .build();
+    }
+
+    /**
+     * Async client of the WebClient calls
+     */
+    public static CloseableHttpAsyncClient createHttpClient(String name, HttpClientConfig config, MeterRegistry meterRegistry) {
+        PoolingAsyncClientConnectionManager connectionManager = PoolingAsyncClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(config.getMaxConnections())
+                .setMaxConnPerRoute(config.getMaxConnectionsPerRoute())
+                .setDefaultConnectionConfig(createConnectionConfig(config))
+                .setDefaultTlsConfig(TlsConfig.custom()
+                        .setVersionPolicy(config.getVersionPolicy())
+                        .build())
+                .build();
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, name, Tags.of(CLIENT_TAG, "async")).bindTo(meterRegistry);
+
+        CloseableHttpAsyncClient httpClient = HttpAsyncClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(createRequestConfig(config))
+                .evictIdleConnections(toTimeValue(config.getIdleTimeout()))
+                .evictExpiredConnections()
+                .build();
+        httpClient.start();
+        return httpClient;
+    }
+
+    private static ConnectionConfig createConnectionConfig(HttpClientConfig config) {
+        return ConnectionConfig.custom()
+                .setConnectTimeout(toTimeout(config.getConnectTimeout()))
+                .setSocketTimeout(toTimeout(config.getResponseTimeout()))
+                .setTimeToLive(toTimeValue(config.getTimeToLive()))
+                .build();
+    }
+
+    private static RequestConfig createRequestConfig(HttpClientConfig config) {
+        return RequestConfig.custom()
+                .setConnectionRequestTimeout(toTimeout(config.getConnectionRequestTimeout()))
+                .setResponseTimeout(toTimeout(config.getResponseTimeout()))
+                .setConnectionKeepAlive(toTimeValue(config.getKeepAlive()))
+                .build();
+    }
+
+    private static Timeout toTimeout(Duration duration) {
+        return Timeout.ofMilliseconds(duration.toMillis());
+    }
+
+    private static TimeValue toTimeValue(Duration duration) {
+        return TimeValue.ofMilliseconds(duration.toMillis());
+    }
+}
@@ -0,0 +1,75 @@
+package com.jonathanfoucher.httpexample.connectors.coalescers;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+@Slf4j
+public class RequestCoalescer {
+    private final ConcurrentMap<String, CompletableFuture<Object>> inFlightRequests = new ConcurrentHashMap<>();
+
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String requestKey, Supplier<T> request) {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> inFlightRequest = inFlightRequests.putIfAbsent(requestKey, future);
+        if (inFlightRequest != null) {
+            log.debug("Joining in-flight request {}", requestKey);
+            return (T) await(inFlightRequest);
+        }
+
+        try {
+            T result = request.get();
+            future.complete(result);
+            return result;
+        } catch (Throwable e) {
+            // any failure, errors included, is shared with the followers, they would otherwise wait forever
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlightRequests.remove(requestKey, future);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> executeAsync(String requestKey, Supplier<CompletableFuture<T>> request) {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> inFlightRequest = inFlightRequests.putIfAbsent(requestKey, future);
+        if (inFlightRequest != null) {
+            log.debug("Joining in-flight request {}", requestKey);
+            return inFlightRequest.thenApply(result -> (T) result);
+        }
+
+        try {
+            request.get().whenComplete((result, error) -> {
+                inFlightRequests.remove(requestKey, future);
+                if (error != null) {
+                    future.completeExceptionally(error);
+                } else {
+                    future.complete(result);
+                }
+            });
+        } catch (Throwable e) {
+            inFlightRequests.remove(requestKey, future);
+            future.completeExceptionally(e);
+        }
+        return future.thenApply(result -> (T) result);
+    }
+
+    private Object await(CompletableFuture<Object> inFlightRequest) {
+        try {
+            return inFlightRequest.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
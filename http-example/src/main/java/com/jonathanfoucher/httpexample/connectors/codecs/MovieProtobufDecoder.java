@@ -0,0 +1,50 @@
+package com.jonathanfoucher.httpexample.connectors.codecs;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.AbstractDataBufferDecoder;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+import static com.jonathanfoucher.httpexample.connectors.codecs.MovieProtobufMapper.APPLICATION_PROTOBUF;
+
+/**
+ * Protobuf messages are not delimited, the whole body is joined before being parsed
+ */
+public class MovieProtobufDecoder extends AbstractDataBufferDecoder<Object> {
+    public MovieProtobufDecoder() {
+        super(APPLICATION_PROTOBUF);
+    }
+
+    @Override
+    public boolean canDecode(ResolvableType elementType, MimeType mimeType) {
+        return MovieProtobufMapper.isMovieType(elementType) && supportsMimeType(mimeType);
+    }
+
+    @Override
+    public Flux<Object> decode(Publisher<DataBuffer> input, ResolvableType elementType, MimeType mimeType, Map<String, Object> hints) {
+        return decodeToMono(input, elementType, mimeType, hints).flux();
+    }
+
+    @Override
+    public Object decode(DataBuffer dataBuffer, ResolvableType targetType, MimeType mimeType, Map<String, Object> hints) {
+        try (InputStream inputStream = dataBuffer.asInputStream(true)) {
+            return MovieProtobufMapper.toDto(MovieProtobufMapper.getParser(targetType).parseFrom(inputStream), targetType);
+        } catch (InvalidProtocolBufferException e) {
+            throw new DecodingException("Invalid protobuf movie payload: " + e.getMessage(), e);
+        } catch (IOException e) {
+            throw new DecodingException("Could not read protobuf movie payload", e);
+        }
+    }
+
+    private boolean supportsMimeType(MimeType mimeType) {
+        return mimeType == null || APPLICATION_PROTOBUF.isCompatibleWith(mimeType);
+    }
+}
@@ -0,0 +1,40 @@
+package com.jonathanfoucher.httpexample.connectors.codecs;
+
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.AbstractEncoder;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+
+import java.util.Map;
+
+import static com.jonathanfoucher.httpexample.connectors.codecs.MovieProtobufMapper.APPLICATION_PROTOBUF;
+
+public class MovieProtobufEncoder extends AbstractEncoder<Object> {
+    public MovieProtobufEncoder() {
+        super(APPLICATION_PROTOBUF);
+    }
+
+    /**
+     * Like the message converter, protobuf is only written when explicitly asked for
+     */
+    @Override
+    public boolean canEncode(ResolvableType elementType, MimeType mimeType) {
+        return mimeType != null && APPLICATION_PROTOBUF.equalsTypeAndSubtype(mimeType) && MovieProtobufMapper.isMovieType(elementType);
+    }
+
+    @Override
+    public Flux<DataBuffer> encode(Publisher<?> inputStream, DataBufferFactory bufferFactory, ResolvableType elementType,
+                                   MimeType mimeType, Map<String, Object> hints) {
+        return Flux.from(inputStream)
+                .map(value -> encodeValue(value, bufferFactory, elementType, mimeType, hints));
+    }
+
+    @Override
+    public DataBuffer encodeValue(Object value, DataBufferFactory bufferFactory, ResolvableType valueType, MimeType mimeType,
+                                  Map<String, Object> hints) {
+        return bufferFactory.wrap(MovieProtobufMapper.toMessage(value).toByteArray());
+    }
+}
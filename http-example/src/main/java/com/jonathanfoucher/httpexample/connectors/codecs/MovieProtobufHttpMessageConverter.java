@@ -0,0 +1,69 @@
+package com.jonathanfoucher.httpexample.connectors.codecs;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.jonathanfoucher.httpexample.data.dto.MovieBatchDto;
+import com.jonathanfoucher.httpexample.data.dto.MovieDto;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+import static com.jonathanfoucher.httpexample.connectors.codecs.MovieProtobufMapper.APPLICATION_PROTOBUF;
+
+public class MovieProtobufHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+    public MovieProtobufHttpMessageConverter() {
+        super(new MediaType(APPLICATION_PROTOBUF));
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return clazz == MovieDto.class || clazz == MovieBatchDto.class;
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return MovieProtobufMapper.isMovieType(ResolvableType.forType(type)) && canRead(mediaType);
+    }
+
+    /**
+     * Raw lists are only written when protobuf is explicitly asked for, as their elements are not known yet
+     */
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        ResolvableType resolvableType = type != null ? ResolvableType.forType(type) : ResolvableType.forClass(clazz);
+        if (!MovieProtobufMapper.isMovieType(resolvableType)) {
+            return false;
+        }
+        return supports(resolvableType.toClass()) ? canWrite(mediaType) : mediaType != null && APPLICATION_PROTOBUF.equalsTypeAndSubtype(mediaType);
+    }
+
+    @Override
+    public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) throws IOException {
+        try {
+            ResolvableType resolvableType = ResolvableType.forType(type);
+            return MovieProtobufMapper.toDto(MovieProtobufMapper.getParser(resolvableType).parseFrom(inputMessage.getBody()), resolvableType);
+        } catch (InvalidProtocolBufferException e) {
+            throw new HttpMessageNotReadableException("Invalid protobuf movie payload: " + e.getMessage(), e, inputMessage);
+        }
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) throws IOException {
+        return read(clazz, null, inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage) throws IOException {
+        try {
+            MovieProtobufMapper.toMessage(object).writeTo(outputMessage.getBody());
+        } catch (IllegalArgumentException e) {
+            throw new HttpMessageNotWritableException(e.getMessage(), e);
+        }
+    }
+}
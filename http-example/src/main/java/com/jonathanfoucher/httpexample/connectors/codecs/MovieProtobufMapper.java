@@ -0,0 +1,135 @@
+package com.jonathanfoucher.httpexample.connectors.codecs;
+
+import com.google.protobuf.Message;
+import com.google.protobuf.Parser;
+import com.jonathanfoucher.httpexample.data.dto.MovieBatchDto;
+import com.jonathanfoucher.httpexample.data.dto.MovieDto;
+import com.jonathanfoucher.httpexample.data.proto.Movie;
+import com.jonathanfoucher.httpexample.data.proto.MovieBatch;
+import com.jonathanfoucher.httpexample.data.proto.MovieList;
+import org.springframework.core.ResolvableType;
+import org.springframework.util.MimeType;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Maps movies, movie batches and movie lists or arrays to the protobuf messages of src/main/proto/movie.proto
+ */
+public final class MovieProtobufMapper {
+    public static final MimeType APPLICATION_PROTOBUF = new MimeType("application", "x-protobuf");
+
+    private MovieProtobufMapper() {
+    }
+
+    /**
+     * A raw list is accepted as well, since a request body is only known by its class
+     */
+    public static boolean isMovieType(ResolvableType type) {
+        Class<?> clazz = type.toClass();
+        if (clazz == MovieDto.class || clazz == MovieBatchDto.class || clazz == MovieDto[].class) {
+            return true;
+        }
+        if (!List.class.isAssignableFrom(clazz)) {
+            return false;
+        }
+        Class<?> elementClass = type.getGeneric(0).toClass();
+        return elementClass == MovieDto.class || elementClass == Object.class;
+    }
+
+    public static Parser<? extends Message> getParser(ResolvableType type) {
+        Class<?> clazz = type.toClass();
+        if (clazz == MovieDto.class) {
+            return Movie.parser();
+        } else if (clazz == MovieBatchDto.class) {
+            return MovieBatch.parser();
+        }
+        return MovieList.parser();
+    }
+
+    /**
+     * Movie lists are read as arrays when an array is expected
+     */
+    public static Object toDto(Message message, ResolvableType type) {
+        Object dto = toDto(message);
+        return type.isArray() && dto instanceof List<?> movies ? movies.toArray(MovieDto[]::new) : dto;
+    }
+
+    public static Object toDto(Message message) {
+        return switch (message) {
+            case Movie movie -> toMovieDto(movie);
+            case MovieBatch movieBatch -> toMovieBatchDto(movieBatch);
+            case MovieList movieList -> toMovieDtos(movieList.getMoviesList());
+            default -> throw new IllegalArgumentException("Not a movie message: " + message.getClass().getName());
+        };
+    }
+
+    public static Message toMessage(Object dto) {
+        return switch (dto) {
+            case MovieDto movie -> toMovie(movie);
+            case MovieBatchDto movieBatch -> toMovieBatch(movieBatch);
+            case List<?> movies -> toMovieList(movies);
+            case MovieDto[] movies -> toMovieList(Arrays.asList(movies));
+            default -> throw new IllegalArgumentException("Not a movie type: " + dto.getClass().getName());
+        };
+    }
+
+    private static MovieDto toMovieDto(Movie movie) {
+        MovieDto movieDto = new MovieDto();
+        movieDto.setId(movie.hasId() ? movie.getId() : null);
+        movieDto.setTitle(movie.hasTitle() ? movie.getTitle() : null);
+        movieDto.setReleaseDate(movie.hasReleaseDate() ? LocalDate.ofEpochDay(movie.getReleaseDate()) : null);
+        return movieDto;
+    }
+
+    private static List<MovieDto> toMovieDtos(List<Movie> movies) {
+        List<MovieDto> movieDtos = new ArrayList<>(movies.size());
+        for (Movie movie : movies) {
+            movieDtos.add(toMovieDto(movie));
+        }
+        return movieDtos;
+    }
+
+    private static MovieBatchDto toMovieBatchDto(MovieBatch movieBatch) {
+        MovieBatchDto movieBatchDto = new MovieBatchDto();
+        movieBatchDto.setMovies(toMovieDtos(movieBatch.getMoviesList()));
+        movieBatchDto.setMissingIds(new ArrayList<>(movieBatch.getMissingIdsList()));
+        return movieBatchDto;
+    }
+
+    private static Movie toMovie(MovieDto movieDto) {
+        Movie.Builder movie = Movie.newBuilder();
+        if (movieDto.getId() != null) {
+            movie.setId(movieDto.getId());
+        }
+        if (movieDto.getTitle() != null) {
+            movie.setTitle(movieDto.getTitle());
+        }
+        if (movieDto.getReleaseDate() != null) {
+            movie.setReleaseDate(movieDto.getReleaseDate().toEpochDay());
+        }
+        return movie.build();
+    }
+
+    private static MovieBatch toMovieBatch(MovieBatchDto movieBatchDto) {
+        MovieBatch.Builder movieBatch = MovieBatch.newBuilder();
+        for (MovieDto movieDto : movieBatchDto.getMovies()) {
+            movieBatch.addMovies(toMovie(movieDto));
+        }
+        return movieBatch.addAllMissingIds(movieBatchDto.getMissingIds())
+                .build();
+    }
+
+    private static MovieList toMovieList(List<?> movieDtos) {
+        MovieList.Builder movieList = MovieList.newBuilder();
+        for (Object movieDto : movieDtos) {
+            if (!(movieDto instanceof MovieDto movie)) {
+                throw new IllegalArgumentException("Not a movie: " + movieDto);
+            }
+            movieList.addMovies(toMovie(movie));
+        }
+        return movieList.build();
+    }
+}
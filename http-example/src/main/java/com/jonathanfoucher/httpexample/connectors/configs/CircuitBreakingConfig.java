@@ -0,0 +1,21 @@
+package com.jonathanfoucher.httpexample.connectors.configs;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig.SlidingWindowType;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+public class CircuitBreakingConfig {
+    private boolean enabled = true;
+    private SlidingWindowType slidingWindowType = SlidingWindowType.COUNT_BASED;
+    private int slidingWindowSize = 20;
+    private int minimumNumberOfCalls = 10;
+    private float failureRateThreshold = 50;
+    private float slowCallRateThreshold = 80;
+    private Duration slowCallDurationThreshold = Duration.ofSeconds(2);
+    private Duration waitDurationInOpenState = Duration.ofSeconds(10);
+    private int permittedNumberOfCallsInHalfOpenState = 3;
+}
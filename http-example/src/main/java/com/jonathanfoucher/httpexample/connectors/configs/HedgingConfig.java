@@ -0,0 +1,18 @@
+package com.jonathanfoucher.httpexample.connectors.configs;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+public class HedgingConfig {
+    private boolean enabled = true;
+    private double percentile = 0.95;
+    private Duration minDelay = Duration.ofMillis(20);
+    private Duration maxDelay = Duration.ofSeconds(1);
+    private int minSamples = 50;
+    private double budgetRatio = 0.1;
+    private int budgetBurst = 10;
+}
@@ -0,0 +1,25 @@
+package com.jonathanfoucher.httpexample.connectors.configs;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.apache.hc.core5.http2.HttpVersionPolicy;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+public class HttpClientConfig {
+    private HttpVersionPolicy versionPolicy = HttpVersionPolicy.FORCE_HTTP_1;
+    private int maxConnections = 200;
+    private int maxConnectionsPerRoute = 50;
+    private Duration connectTimeout = Duration.ofSeconds(2);
+    private Duration connectionRequestTimeout = Duration.ofSeconds(2);
+    private Duration responseTimeout = Duration.ofSeconds(10);
+    private Duration keepAlive = Duration.ofSeconds(30);
+    private Duration idleTimeout = Duration.ofSeconds(30);
+    private Duration timeToLive = Duration.ofMinutes(5);
+    private boolean acceptCompressedResponses = true;
+    private boolean compressRequests = false;
+    private DataSize requestCompressionMinSize = DataSize.ofKilobytes(2);
+}
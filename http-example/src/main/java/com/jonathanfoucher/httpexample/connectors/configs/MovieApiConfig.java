@@ -1,9 +1,23 @@
 package com.jonathanfoucher.httpexample.connectors.configs;
 
+import com.jonathanfoucher.httpexample.connectors.breakers.CircuitBreakerFactory;
+import com.jonathanfoucher.httpexample.connectors.clients.PooledHttpClientFactory;
+import com.jonathanfoucher.httpexample.connectors.hedgers.RequestHedger;
+import com.jonathanfoucher.httpexample.connectors.retries.RetryFactory;
+import com.jonathanfoucher.httpexample.data.enums.WireFormat;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.retry.Retry;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.Getter;
 import lombok.Setter;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.reactive.ClientHttpConnector;
 
 @Getter
 @Setter
@@ -13,5 +27,48 @@ public class MovieApiConfig {
     private String baseUrl;
     private String apiKey;
     private String moviesPath;
+    private String moviesBatchPath;
     private String movieByIdPath;
+    private String movieChangesPath;
+    private int moviesBatchSize = 100;
+    private WireFormat wireFormat = WireFormat.JSON;
+    private HttpClientConfig client = new HttpClientConfig();
+    private CircuitBreakingConfig circuitBreaker = new CircuitBreakingConfig();
+    private RetryingConfig retry = new RetryingConfig();
+    private HedgingConfig hedging = new HedgingConfig();
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpAsyncClient movieApiHttpClient(MeterRegistry meterRegistry) {
+        return PooledHttpClientFactory.createHttpClient("movie-api", client, meterRegistry);
+    }
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient movieApiBlockingHttpClient(MeterRegistry meterRegistry) {
+        return PooledHttpClientFactory.createBlockingHttpClient("movie-api", client, meterRegistry);
+    }
+
+    @Bean
+    public CircuitBreaker movieApiCircuitBreaker(MeterRegistry meterRegistry) {
+        return CircuitBreakerFactory.createCircuitBreaker("movie-api", circuitBreaker, meterRegistry);
+    }
+
+    @Bean
+    public Retry movieApiRetry(MeterRegistry meterRegistry) {
+        return RetryFactory.createRetry("movie-api", retry, meterRegistry);
+    }
+
+    @Bean
+    public RequestHedger movieApiRequestHedger(MeterRegistry meterRegistry) {
+        return new RequestHedger("movie-api", hedging, meterRegistry);
+    }
+
+    @Bean
+    public ClientHttpRequestFactory movieApiRequestFactory(@Qualifier("movieApiBlockingHttpClient") CloseableHttpClient movieApiBlockingHttpClient) {
+        return PooledHttpClientFactory.createRequestFactory(movieApiBlockingHttpClient, client);
+    }
+
+    @Bean
+    public ClientHttpConnector movieApiHttpConnector(@Qualifier("movieApiHttpClient") CloseableHttpAsyncClient movieApiHttpClient) {
+        return PooledHttpClientFactory.createHttpConnector(movieApiHttpClient, client);
+    }
 }
@@ -0,0 +1,25 @@
+package com.jonathanfoucher.httpexample.connectors.configs;
+
+import com.jonathanfoucher.httpexample.connectors.codecs.MovieProtobufDecoder;
+import com.jonathanfoucher.httpexample.connectors.codecs.MovieProtobufEncoder;
+import com.jonathanfoucher.httpexample.connectors.codecs.MovieProtobufHttpMessageConverter;
+import org.springframework.boot.http.converter.autoconfigure.ClientHttpMessageConvertersCustomizer;
+import org.springframework.boot.webclient.WebClientCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class ProtobufConfig {
+    @Bean
+    public ClientHttpMessageConvertersCustomizer protobufMessageConvertersCustomizer() {
+        return builder -> builder.addCustomConverter(new MovieProtobufHttpMessageConverter());
+    }
+
+    @Bean
+    public WebClientCustomizer protobufWebClientCustomizer() {
+        return webClientBuilder -> webClientBuilder.codecs(configurer -> {
+            configurer.customCodecs().register(new MovieProtobufEncoder());
+            configurer.customCodecs().register(new MovieProtobufDecoder());
+        });
+    }
+}
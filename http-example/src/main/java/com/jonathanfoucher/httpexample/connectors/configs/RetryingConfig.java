@@ -0,0 +1,16 @@
+package com.jonathanfoucher.httpexample.connectors.configs;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+public class RetryingConfig {
+    private boolean enabled = true;
+    private int maxAttempts = 3;
+    private Duration initialBackoff = Duration.ofMillis(50);
+    private double backoffMultiplier = 2;
+    private double jitter = 0.5;
+}
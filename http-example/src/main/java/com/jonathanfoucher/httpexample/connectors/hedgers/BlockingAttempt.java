@@ -0,0 +1,67 @@
+package com.jonathanfoucher.httpexample.connectors.hedgers;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * Attempt of a blocking request, cancelling it aborts the request it has in flight so that the blocked thread is released
+ */
+class BlockingAttempt<T> extends CompletableFuture<T> {
+    private static final ThreadLocal<BlockingAttempt<?>> CURRENT = new ThreadLocal<>();
+
+    private Runnable abort;
+
+    static <T> BlockingAttempt<T> fork(Supplier<T> request, Executor executor) {
+        BlockingAttempt<T> attempt = new BlockingAttempt<>();
+        executor.execute(() -> attempt.run(request));
+        return attempt;
+    }
+
+    static void onCancel(Runnable abort) {
+        BlockingAttempt<?> attempt = CURRENT.get();
+        if (attempt != null) {
+            attempt.setAbort(abort);
+        }
+    }
+
+    void run(Supplier<T> request) {
+        BlockingAttempt<?> previous = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            complete(request.get());
+        } catch (Throwable e) {
+            completeExceptionally(e);
+        } finally {
+            CURRENT.set(previous);
+            synchronized (this) {
+                abort = null;
+            }
+        }
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        boolean cancelled = super.cancel(mayInterruptIfRunning);
+        Runnable pendingAbort;
+        synchronized (this) {
+            pendingAbort = abort;
+            abort = null;
+        }
+        if (cancelled && pendingAbort != null) {
+            pendingAbort.run();
+        }
+        return cancelled;
+    }
+
+    private void setAbort(Runnable abort) {
+        synchronized (this) {
+            if (!isCancelled()) {
+                this.abort = abort;
+                return;
+            }
+        }
+        // cancelled before the request was sent
+        abort.run();
+    }
+}
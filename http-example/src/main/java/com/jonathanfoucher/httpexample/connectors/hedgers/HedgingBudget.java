@@ -0,0 +1,49 @@
+package com.jonathanfoucher.httpexample.connectors.hedgers;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket earning a fraction of a token per request, each hedge spends a whole token so that hedges never add
+ * more than the given ratio of extra load on the upstream (plus the burst)
+ */
+class HedgingBudget {
+    private static final long TOKEN = 1_000;
+
+    private final long depositPerRequest;
+    private final long capacity;
+    private final AtomicLong balance;
+
+    HedgingBudget(double ratio, int burst) {
+        this.depositPerRequest = Math.round(ratio * TOKEN);
+        this.capacity = Math.max(1, burst) * TOKEN;
+        this.balance = new AtomicLong(capacity);
+    }
+
+    void deposit() {
+        long current;
+        do {
+            current = balance.get();
+            if (current >= capacity) {
+                return;
+            }
+        } while (!balance.compareAndSet(current, Math.min(capacity, current + depositPerRequest)));
+    }
+
+    /**
+     * Gives back a withdrawn token that was not spent
+     */
+    void refund() {
+        balance.accumulateAndGet(TOKEN, (current, token) -> Math.min(capacity, current + token));
+    }
+
+    boolean tryWithdraw() {
+        long current;
+        do {
+            current = balance.get();
+            if (current < TOKEN) {
+                return false;
+            }
+        } while (!balance.compareAndSet(current, current - TOKEN));
+        return true;
+    }
+}
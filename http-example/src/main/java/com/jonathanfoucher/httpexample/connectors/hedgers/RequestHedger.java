@@ -0,0 +1,236 @@
+package com.jonathanfoucher.httpexample.connectors.hedgers;
+
+import com.jonathanfoucher.httpexample.connectors.configs.HedgingConfig;
+import io.micrometer.context.ContextSnapshotFactory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+@Slf4j
+public class RequestHedger implements AutoCloseable {
+    private static final long THRESHOLD_REFRESH_INTERVAL = TimeUnit.SECONDS.toNanos(1);
+    private static final ContextSnapshotFactory CONTEXT_SNAPSHOT_FACTORY = ContextSnapshotFactory.builder().build();
+
+    private final HedgingConfig hedgingConfig;
+    private final HedgingBudget budget;
+    private final Timer latencyTimer;
+    private final Counter sentCounter;
+    private final Counter rejectedCounter;
+    private final Counter wonCounter;
+    private final ScheduledExecutorService scheduler;
+    private final ExecutorService blockingHedgeExecutor;
+
+    private volatile long thresholdNanos;
+    private volatile long thresholdRefreshTime;
+
+    public RequestHedger(String name, HedgingConfig hedgingConfig, MeterRegistry meterRegistry) {
+        this.hedgingConfig = hedgingConfig;
+        this.budget = new HedgingBudget(hedgingConfig.getBudgetRatio(), hedgingConfig.getBudgetBurst());
+        this.latencyTimer = Timer.builder("hedging.latency")
+                .description("Latency of the first attempt of hedged requests")
+                .tag("name", name)
+                .publishPercentiles(hedgingConfig.getPercentile())
+                .register(meterRegistry);
+        this.sentCounter = hedgeCounter(name, "sent", meterRegistry);
+        this.rejectedCounter = hedgeCounter(name, "rejected", meterRegistry);
+        this.wonCounter = hedgeCounter(name, "won", meterRegistry);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform()
+                .name("hedging-" + name)
+                .daemon()
+                .factory());
+        this.blockingHedgeExecutor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual()
+                .name("hedging-" + name + "-", 0)
+                .factory());
+        this.thresholdNanos = hedgingConfig.getMaxDelay().toNanos();
+        this.thresholdRefreshTime = System.nanoTime();
+    }
+
+    /**
+     * Sends the request and, when no answer came back within the latency threshold, sends it a second time and
+     * returns whichever answer succeeds first. Only meant for idempotent requests.
+     */
+    public <T> CompletableFuture<T> executeAsync(Supplier<CompletableFuture<T>> request) {
+
+        if (!hedgingConfig.isEnabled()) {
+            return request.get();
+        }
+        HedgedRequest<T> hedgedRequest = new HedgedRequest<>(request);
+        CompletableFuture<T> primary = request.get();
+        hedgedRequest.addPrimary(primary);
+        if (!primary.isDone()) {
+            hedgedRequest.scheduleHedge();
+        }
+        return hedgedRequest.result;
+    }
+
+    /**
+     * Blocking flavor, the first attempt runs on the calling thread and the hedge on a virtual thread with the caller context,
+     * the losing attempt gets its request aborted so that the caller returns with the first answer
+     */
+    public <T> T execute(Supplier<T> request) {
+        if (!hedgingConfig.isEnabled()) {
+            return request.get();
+        }
+        Executor hedgeExecutor = CONTEXT_SNAPSHOT_FACTORY.captureAll().wrapExecutor(blockingHedgeExecutor);
+        HedgedRequest<T> hedgedRequest = new HedgedRequest<>(() -> BlockingAttempt.fork(request, hedgeExecutor));
+        BlockingAttempt<T> primary = new BlockingAttempt<>();
+        hedgedRequest.addPrimary(primary);
+        hedgedRequest.scheduleHedge();
+        primary.run(request);
+        try {
+            return hedgedRequest.result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Registers how to abort the request sent by the current blocking attempt, run when the other attempt answered first
+     */
+    public static void abortOnCancel(Runnable abort) {
+        BlockingAttempt.onCancel(abort);
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        blockingHedgeExecutor.shutdownNow();
+    }
+
+    private class HedgedRequest<T> {
+        private final Supplier<CompletableFuture<T>> request;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        private final AtomicInteger pendingAttempts = new AtomicInteger(1);
+        private final List<CompletableFuture<T>> attempts = new CopyOnWriteArrayList<>();
+        private final long start = System.nanoTime();
+
+        private HedgedRequest(Supplier<CompletableFuture<T>> request) {
+            this.request = request;
+            budget.deposit();
+        }
+
+        private void addPrimary(CompletableFuture<T> primary) {
+            attempts.add(primary);
+            primary.whenComplete((value, error) -> {
+                // failed or cancelled attempts are recorded too, their latency is a lower bound of the one of a slow answer
+                latencyTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                complete(value, error);
+            });
+        }
+
+        private void scheduleHedge() {
+            ScheduledFuture<?> scheduledHedge;
+            try {
+                scheduledHedge = scheduler.schedule(this::hedge, getThresholdNanos(), TimeUnit.NANOSECONDS);
+            } catch (RejectedExecutionException e) {
+                // closed on shutdown, the request is left to its first attempt
+                return;
+            }
+            // the first answer settles the request, the attempt still in flight and the hedge yet to be sent are cancelled
+            result.whenComplete((value, error) -> {
+                scheduledHedge.cancel(false);
+                attempts.forEach(attempt -> attempt.cancel(true));
+            });
+        }
+
+        private void hedge() {
+            if (result.isDone()) {
+                return;
+            }
+            if (!budget.tryWithdraw()) {
+                rejectedCounter.increment();
+                return;
+            }
+
+            pendingAttempts.incrementAndGet();
+            if (result.isDone()) {
+                // answered in between, the hedge is not sent and its token is given back
+                budget.refund();
+                return;
+            }
+            sentCounter.increment();
+            log.debug("Sending hedged request after {} ms", TimeUnit.NANOSECONDS.toMillis(thresholdNanos));
+
+            CompletableFuture<T> hedged;
+            try {
+                hedged = request.get();
+            } catch (RuntimeException e) {
+                complete(null, e);
+                return;
+            }
+            attempts.add(hedged);
+            hedged.whenComplete((value, error) -> {
+                if (error == null && !result.isDone()) {
+                    wonCounter.increment();
+                }
+                complete(value, error);
+            });
+            if (result.isDone()) {
+                // answered while the hedge was being sent, after the losing attempts were cancelled
+                hedged.cancel(true);
+            }
+        }
+
+        private void complete(T value, Throwable error) {
+            if (error == null) {
+                result.complete(value);
+            } else if (pendingAttempts.decrementAndGet() == 0) {
+                // the last attempt decides, an early failure still leaves the other attempt a chance to succeed
+                result.completeExceptionally(error);
+            }
+        }
+    }
+
+    long getThresholdNanos() {
+        long now = System.nanoTime();
+        if (now - thresholdRefreshTime >= THRESHOLD_REFRESH_INTERVAL) {
+            thresholdRefreshTime = now;
+            thresholdNanos = computeThresholdNanos();
+        }
+        return thresholdNanos;
+    }
+
+    private long computeThresholdNanos() {
+        long minDelay = hedgingConfig.getMinDelay().toNanos();
+        long maxDelay = hedgingConfig.getMaxDelay().toNanos();
+
+        HistogramSnapshot snapshot = latencyTimer.takeSnapshot();
+        if (snapshot.count() < hedgingConfig.getMinSamples() || snapshot.percentileValues().length == 0) {
+            return maxDelay;
+        }
+        ValueAtPercentile percentile = snapshot.percentileValues()[0];
+        long percentileNanos = (long) percentile.value(TimeUnit.NANOSECONDS);
+        return Math.clamp(percentileNanos, minDelay, maxDelay);
+    }
+
+    private static Counter hedgeCounter(String name, String result, MeterRegistry meterRegistry) {
+        return Counter.builder("hedging.requests")
+                .description("Number of hedged requests by result")
+                .tag("name", name)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
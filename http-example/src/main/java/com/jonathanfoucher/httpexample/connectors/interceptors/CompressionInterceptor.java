@@ -0,0 +1,124 @@
+package com.jonathanfoucher.httpexample.connectors.interceptors;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.springframework.http.HttpHeaders.*;
+
+/**
+ * Asks for gzip compressed responses and inflates them while they are read when they are accepted, request bodies from the given size are
+ * compressed either way (a negative size disables it)
+ */
+public class CompressionInterceptor implements ClientHttpRequestInterceptor {
+    private static final String GZIP = "gzip";
+    private static final int BUFFER_SIZE = 8192;
+
+    private final boolean acceptCompressedResponses;
+    private final long requestCompressionMinSize;
+
+    public CompressionInterceptor(boolean acceptCompressedResponses, long requestCompressionMinSize) {
+        this.acceptCompressedResponses = acceptCompressedResponses;
+        this.requestCompressionMinSize = requestCompressionMinSize;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution) throws IOException {
+        HttpHeaders headers = request.getHeaders();
+        if (acceptCompressedResponses) {
+            headers.set(ACCEPT_ENCODING, GZIP);
+        }
+
+        byte[] sentBody = body;
+        if (requestCompressionMinSize >= 0 && body.length >= requestCompressionMinSize && !headers.containsHeader(CONTENT_ENCODING)) {
+            sentBody = compress(body);
+            headers.set(CONTENT_ENCODING, GZIP);
+            headers.setContentLength(sentBody.length);
+        }
+
+        ClientHttpResponse response = execution.execute(request, sentBody);
+        return acceptCompressedResponses && GZIP.equalsIgnoreCase(response.getHeaders().getFirst(CONTENT_ENCODING)) ? new GzipClientHttpResponse(response) : response;
+    }
+
+    private byte[] compress(byte[] body) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.length / 4);
+        try (GZIPOutputStream outputStream = new FastGZIPOutputStream(compressed)) {
+            outputStream.write(body);
+        }
+        return compressed.toByteArray();
+    }
+
+    /**
+     * Best speed saves about as many bytes as the default level on movie batches, for half of the CPU time
+     */
+    private static class FastGZIPOutputStream extends GZIPOutputStream {
+        FastGZIPOutputStream(OutputStream outputStream) throws IOException {
+            super(outputStream, BUFFER_SIZE);
+            def.setLevel(Deflater.BEST_SPEED);
+        }
+    }
+
+    private static class GzipClientHttpResponse implements ClientHttpResponse {
+        private final ClientHttpResponse delegate;
+        private final HttpHeaders headers;
+        private InputStream body;
+
+        GzipClientHttpResponse(ClientHttpResponse delegate) {
+            this.delegate = delegate;
+            this.headers = new HttpHeaders();
+            this.headers.addAll(delegate.getHeaders());
+            this.headers.remove(CONTENT_ENCODING);
+            this.headers.remove(CONTENT_LENGTH);
+        }
+
+        @Override
+        public HttpStatusCode getStatusCode() throws IOException {
+            return delegate.getStatusCode();
+        }
+
+        @Override
+        public String getStatusText() throws IOException {
+            return delegate.getStatusText();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+
+        /**
+         * Bodiless answers (204, 304, HEAD) may still tell their content coding, their empty body is not inflated
+         */
+        @Override
+        public InputStream getBody() throws IOException {
+            if (body == null) {
+                PushbackInputStream compressed = new PushbackInputStream(delegate.getBody(), 1);
+                int first = compressed.read();
+                if (first == -1) {
+                    body = InputStream.nullInputStream();
+                } else {
+                    compressed.unread(first);
+                    body = new GZIPInputStream(compressed, BUFFER_SIZE);
+                }
+            }
+            return body;
+        }
+
+        @Override
+        public void close() {
+            delegate.close();
+        }
+    }
+}
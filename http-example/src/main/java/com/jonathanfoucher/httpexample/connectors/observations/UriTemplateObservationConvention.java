@@ -0,0 +1,24 @@
+package com.jonathanfoucher.httpexample.connectors.observations;
+
+import io.micrometer.common.KeyValue;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientRequestObservationContext;
+import org.springframework.web.reactive.function.client.DefaultClientRequestObservationConvention;
+
+/**
+ * Tags the requests sent with an already expanded URI with the template carried by their {@link #URI_TEMPLATE_ATTRIBUTE} attribute
+ */
+public class UriTemplateObservationConvention extends DefaultClientRequestObservationConvention {
+    public static final String URI_TEMPLATE_ATTRIBUTE = UriTemplateObservationConvention.class.getName() + ".uriTemplate";
+
+    @Override
+    protected KeyValue uri(ClientRequestObservationContext context) {
+        ClientRequest request = context.getRequest();
+        if (context.getUriTemplate() == null && request != null) {
+            request.attribute(URI_TEMPLATE_ATTRIBUTE)
+                    .map(String.class::cast)
+                    .ifPresent(context::setUriTemplate);
+        }
+        return super.uri(context);
+    }
+}
@@ -0,0 +1,10 @@
+package com.jonathanfoucher.httpexample.connectors.pages;
+
+import com.jonathanfoucher.httpexample.data.dto.MovieDto;
+import reactor.core.publisher.Flux;
+
+/**
+ * A page of movies read while it is relayed, the next cursor is null on the last page
+ */
+public record MoviePage(Flux<MovieDto> movies, String nextCursor) {
+}
@@ -0,0 +1,33 @@
+package com.jonathanfoucher.httpexample.connectors.retries;
+
+import io.github.resilience4j.retry.Retry;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Supplier;
+
+public class ConnectorRetry {
+    private static final ScheduledExecutorService BACKOFF_SCHEDULER = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform()
+            .name("connector-retry")
+            .daemon(true)
+            .factory());
+
+    private final Retry retry;
+
+    public ConnectorRetry(Retry retry) {
+        this.retry = retry;
+    }
+
+    public <T> T execute(Supplier<T> request) {
+        return retry.executeSupplier(request);
+    }
+
+    /**
+     * Backoff delays are waited on a scheduler instead of a blocked thread, the next attempt is sent from there
+     */
+    public <T> CompletableFuture<T> executeAsync(Supplier<CompletableFuture<T>> request) {
+        return retry.executeCompletionStage(BACKOFF_SCHEDULER, request::get)
+                .toCompletableFuture();
+    }
+}
@@ -0,0 +1,54 @@
+package com.jonathanfoucher.httpexample.connectors.retries;
+
+import com.jonathanfoucher.httpexample.connectors.configs.RetryingConfig;
+import io.github.resilience4j.core.IntervalFunction;
+import io.github.resilience4j.micrometer.tagged.TaggedRetryMetrics;
+import io.github.resilience4j.retry.Retry;
+import io.github.resilience4j.retry.RetryConfig;
+import io.github.resilience4j.retry.RetryRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.util.concurrent.CompletionException;
+
+import static org.springframework.http.HttpStatus.*;
+
+public final class RetryFactory {
+    private RetryFactory() {
+    }
+
+    public static Retry createRetry(String name, RetryingConfig config, MeterRegistry meterRegistry) {
+        RetryConfig retryConfig = RetryConfig.custom()
+                .maxAttempts(config.isEnabled() ? config.getMaxAttempts() : 1)
+                .intervalFunction(IntervalFunction.ofExponentialRandomBackoff(config.getInitialBackoff(), config.getBackoffMultiplier(), config.getJitter()))
+                .retryOnException(RetryFactory::isTransientFailure)
+                .failAfterMaxAttempts(false)
+                .build();
+
+        RetryRegistry retryRegistry = RetryRegistry.of(retryConfig);
+        TaggedRetryMetrics.ofRetryRegistry(retryRegistry).bindTo(meterRegistry);
+        return retryRegistry.retry(name);
+    }
+
+    /**
+     * Only connection errors and gateway like answers are worth another attempt, the circuit breaker rejections are not
+     */
+    private static boolean isTransientFailure(Throwable throwable) {
+        Throwable failure = throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable;
+        return switch (failure) {
+            case ResourceAccessException ignored -> true;
+            case WebClientRequestException ignored -> true;
+            case HttpServerErrorException exception -> isTransientStatus(exception.getStatusCode());
+            case WebClientResponseException exception -> isTransientStatus(exception.getStatusCode());
+            default -> false;
+        };
+    }
+
+    private static boolean isTransientStatus(HttpStatusCode statusCode) {
+        return statusCode.isSameCodeAs(BAD_GATEWAY) || statusCode.isSameCodeAs(SERVICE_UNAVAILABLE) || statusCode.isSameCodeAs(GATEWAY_TIMEOUT);
+    }
+}
@@ -0,0 +1,26 @@
+package com.jonathanfoucher.httpexample.connectors.templates;
+
+import org.springframework.web.util.DefaultUriBuilderFactory;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+public class CompiledUriBuilderFactory extends DefaultUriBuilderFactory {
+    private final ConcurrentMap<String, CompiledUriTemplate> compiledTemplates = new ConcurrentHashMap<>();
+
+    public CompiledUriTemplate compile(String uriTemplate) {
+        return compiledTemplates.computeIfAbsent(uriTemplate, CompiledUriTemplate::new);
+    }
+
+    @Override
+    public URI expand(String uriTemplate, Map<String, ?> uriVariables) {
+        return compile(uriTemplate).expand(uriVariables);
+    }
+
+    @Override
+    public URI expand(String uriTemplate, Object... uriVariables) {
+        return compile(uriTemplate).expand(uriVariables);
+    }
+}
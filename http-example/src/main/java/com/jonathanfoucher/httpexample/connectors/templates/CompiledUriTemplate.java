@@ -0,0 +1,84 @@
+package com.jonathanfoucher.httpexample.connectors.templates;
+
+import org.springframework.web.util.UriComponentsBuilder;
+import org.springframework.web.util.UriUtils;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+public class CompiledUriTemplate {
+    private final String[] literals;
+    private final String[] variableNames;
+    private final int expectedLength;
+
+    public CompiledUriTemplate(String uriTemplate) {
+        String encodedTemplate = UriComponentsBuilder.fromUriString(uriTemplate)
+                .encode()
+                .build()
+                .toUriString();
+
+        List<String> literalParts = new ArrayList<>();
+        List<String> variableParts = new ArrayList<>();
+        int start = 0;
+        int open = encodedTemplate.indexOf('{');
+        while (open >= 0) {
+            int close = encodedTemplate.indexOf('}', open);
+            if (close < 0) {
+                throw new IllegalArgumentException("Unclosed variable in URI template " + uriTemplate);
+            }
+            literalParts.add(encodedTemplate.substring(start, open));
+            variableParts.add(encodedTemplate.substring(open + 1, close));
+            start = close + 1;
+            open = encodedTemplate.indexOf('{', start);
+        }
+        literalParts.add(encodedTemplate.substring(start));
+
+        this.literals = literalParts.toArray(String[]::new);
+        this.variableNames = variableParts.toArray(String[]::new);
+        this.expectedLength = encodedTemplate.length() + variableNames.length * 16;
+    }
+
+    public URI expand(Object... uriVariables) {
+        if (uriVariables.length < variableNames.length) {
+            throw new IllegalArgumentException("Not enough variable values to expand " + String.join(", ", variableNames));
+        }
+
+        StringBuilder uri = new StringBuilder(expectedLength);
+        for (int i = 0; i < variableNames.length; i++) {
+            uri.append(literals[i]);
+            appendEncoded(uri, uriVariables[i]);
+        }
+        uri.append(literals[variableNames.length]);
+        return URI.create(uri.toString());
+    }
+
+    public URI expand(Map<String, ?> uriVariables) {
+        Object[] values = new Object[variableNames.length];
+        for (int i = 0; i < variableNames.length; i++) {
+            if (!uriVariables.containsKey(variableNames[i])) {
+                throw new IllegalArgumentException("Map has no value for '" + variableNames[i] + "'");
+            }
+            values[i] = uriVariables.get(variableNames[i]);
+        }
+        return expand(values);
+    }
+
+    private void appendEncoded(StringBuilder uri, Object value) {
+        String stringValue = value != null ? value.toString() : "";
+        for (int i = 0; i < stringValue.length(); i++) {
+            if (!isAllowed(stringValue.charAt(i))) {
+                uri.append(UriUtils.encode(stringValue, StandardCharsets.UTF_8));
+                return;
+            }
+        }
+        uri.append(stringValue);
+    }
+
+    private boolean isAllowed(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                || c == '-' || c == '.' || c == '_' || c == '~' || c == ',';
+    }
+}
@@ -0,0 +1,47 @@
+package com.jonathanfoucher.httpexample.connectors.templates;
+
+import lombok.Getter;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+
+import java.util.Set;
+
+import static com.jonathanfoucher.httpexample.data.enums.AdditionalHttpHeaders.API_KEY_HEADER;
+import static org.springframework.http.HttpHeaders.AUTHORIZATION;
+
+@Getter
+public class RequestTemplate {
+    private static final Set<String> SECRET_HEADERS = Set.of(API_KEY_HEADER.getHeaderName(), AUTHORIZATION.toLowerCase());
+
+    private final HttpMethod method;
+    private final String uriTemplate;
+    private final HttpHeaders headers;
+    private final HttpEntity<Void> emptyEntity;
+    private final String requestKeyPrefix;
+
+    public RequestTemplate(HttpMethod method, String uriTemplate, HttpHeaders headers) {
+        this.method = method;
+        this.uriTemplate = uriTemplate;
+        this.headers = HttpHeaders.readOnlyHttpHeaders(headers);
+        this.emptyEntity = new HttpEntity<>(this.headers);
+        this.requestKeyPrefix = method + " " + uriTemplate + " " + getKeyHeaders(headers) + " ";
+    }
+
+    public <K> HttpEntity<K> createEntity(K body) {
+        return new HttpEntity<>(body, headers);
+    }
+
+    /**
+     * Headers telling answers apart, secrets are left out since request keys are logged and kept in caches
+     */
+    private static HttpHeaders getKeyHeaders(HttpHeaders headers) {
+        HttpHeaders keyHeaders = new HttpHeaders();
+        headers.forEach((name, values) -> {
+            if (!SECRET_HEADERS.contains(name.toLowerCase())) {
+                keyHeaders.addAll(name, values);
+            }
+        });
+        return keyHeaders;
+    }
+}
@@ -1,26 +1,162 @@
 package com.jonathanfoucher.httpexample.controllers;
 
+import com.jonathanfoucher.httpexample.common.errors.MovieNotValidException;
 import com.jonathanfoucher.httpexample.controllers.validators.MovieValidator;
+import com.jonathanfoucher.httpexample.data.dto.MovieBatchDto;
+import com.jonathanfoucher.httpexample.data.dto.MovieBulkResultDto;
 import com.jonathanfoucher.httpexample.data.dto.MovieDto;
 import com.jonathanfoucher.httpexample.services.MovieService;
+import com.jonathanfoucher.httpexample.services.savers.MovieBulkSaver;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
+import tools.jackson.core.JacksonException;
+import tools.jackson.core.StreamWriteFeature;
+import tools.jackson.databind.DatabindException;
+import tools.jackson.databind.MappingIterator;
+import tools.jackson.databind.ObjectWriter;
+import tools.jackson.databind.SequenceWriter;
+import tools.jackson.databind.SerializationFeature;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+import static org.springframework.http.HttpHeaders.LINK;
+import static org.springframework.http.HttpStatus.BAD_REQUEST;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON_VALUE;
 
 @RestController
 @RequestMapping("/movies")
 @RequiredArgsConstructor
 public class MovieController {
+    private static final int MAX_SEARCH_LIMIT = 100;
+    private static final String DEFAULT_SEARCH_LIMIT = "20";
+    private static final int MAX_PAGE_SIZE = 10_000;
+    private static final String DEFAULT_PAGE_SIZE = "1000";
+    private static final int MOVIE_PREFETCH = 32;
+
     private final MovieValidator movieValidator;
     private final MovieService movieService;
+    private final JsonMapper jsonMapper;
 
     @GetMapping("/{movie_id}")
-    public MovieDto getMovie(@PathVariable("movie_id") Long movieId) {
-        return movieService.getMovieById(movieId);
+    public CompletableFuture<ResponseEntity<MovieDto>> getMovie(@PathVariable("movie_id") Long movieId) {
+        // conditional requests are answered with a 304 by Spring when the entity tag matches
+        return movieService.getMovieByIdAsync(movieId)
+                .thenApply(movie -> ResponseEntity.ok()
+                        .eTag(MovieETags.getETag(movie))
+                        .body(movie));
+    }
+
+    /**
+     * Relays a page of movies from the movie API while it is read, the cursor of the next page is given by the {@code Link} header
+     */
+    @GetMapping
+    public CompletableFuture<ResponseEntity<StreamingResponseBody>> getMoviePage(@RequestParam(value = "cursor", required = false) String cursor,
+                                                                                 @RequestParam(value = "limit", defaultValue = DEFAULT_PAGE_SIZE) int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new ResponseStatusException(BAD_REQUEST, "Between 1 and " + MAX_PAGE_SIZE + " movies can be listed at once");
+        }
+
+        // the current request is only bound to this thread, the next page link is prepared before the movie API answers
+        UriComponentsBuilder nextPage = ServletUriComponentsBuilder.fromCurrentRequest()
+                .replaceQueryParam("limit", limit);
+        return movieService.getMoviePageAsync(cursor, limit)
+                .thenApply(page -> {
+                    ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                            .contentType(APPLICATION_JSON);
+                    if (page.nextCursor() != null) {
+                        response.header(LINK, "<" + nextPage.replaceQueryParam("cursor", page.nextCursor()).toUriString() + ">; rel=\"next\"");
+                    }
+                    return response.body(outputStream -> writeMovies(page.movies(), outputStream));
+                });
+    }
+
+    @GetMapping(params = "ids")
+    public CompletableFuture<MovieBatchDto> getMovies(@RequestParam("ids") List<Long> movieIds) {
+        return movieService.getMoviesByIdsAsync(movieIds);
+    }
+
+    @GetMapping(params = "title_prefix")
+    public CompletableFuture<List<MovieDto>> findMoviesByTitlePrefix(@RequestParam("title_prefix") String titlePrefix,
+                                                                     @RequestParam(value = "limit", defaultValue = DEFAULT_SEARCH_LIMIT) int limit) {
+        checkSearchLimit(limit);
+        return movieService.findMoviesByTitlePrefixAsync(titlePrefix, limit);
+    }
+
+    @GetMapping(params = {"release_date_from", "release_date_to"})
+    public CompletableFuture<List<MovieDto>> findMoviesByReleaseDate(@RequestParam("release_date_from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                                     @RequestParam("release_date_to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                                     @RequestParam(value = "limit", defaultValue = DEFAULT_SEARCH_LIMIT) int limit) {
+        checkSearchLimit(limit);
+        if (from.isAfter(to)) {
+            throw new ResponseStatusException(BAD_REQUEST, "The release date range cannot end before it starts");
+        }
+        return movieService.findMoviesByReleaseDateAsync(from, to, limit);
     }
 
     @PostMapping
-    public void saveMovie(@RequestBody MovieDto movie) {
+    public CompletableFuture<Void> saveMovie(@RequestBody MovieDto movie) {
         movieValidator.validateMovie(movie);
-        movieService.saveMovie(movie);
+        return movieService.saveMovieAsync(movie);
+    }
+
+    @PostMapping(path = "/bulk", consumes = {APPLICATION_NDJSON_VALUE, APPLICATION_JSON_VALUE})
+    public MovieBulkResultDto saveMovies(InputStream movies) {
+        MovieBulkSaver movieBulkSaver = movieService.createBulkSaver();
+        try (MappingIterator<MovieDto> iterator = jsonMapper.readerFor(MovieDto.class).readValues(movies)) {
+            while (iterator.hasNextValue()) {
+                saveMovie(iterator, movieBulkSaver);
+            }
+        } catch (JacksonException e) {
+            movieBulkSaver.abort("Payload could not be read: " + e.getOriginalMessage());
+        }
+        return movieBulkSaver.complete();
+    }
+
+    private void saveMovie(MappingIterator<MovieDto> iterator, MovieBulkSaver movieBulkSaver) {
+        try {
+            MovieDto movie = iterator.nextValue();
+            movieValidator.validateMovie(movie);
+            movieBulkSaver.save(movie);
+        } catch (MovieNotValidException e) {
+            movieBulkSaver.reject(e.getMessage());
+        } catch (DatabindException e) {
+            movieBulkSaver.reject(e.getOriginalMessage());
+        }
+    }
+
+    /**
+     * Movies are requested a few at a time as they are written, so that a slow client slows down the read of the movie API answer.
+     * The array is only closed once all the movies were relayed, a relay that failed midway ends with an invalid body.
+     */
+    private void writeMovies(Flux<MovieDto> movies, OutputStream outputStream) {
+        ObjectWriter movieWriter = jsonMapper.writerFor(MovieDto.class)
+                .without(StreamWriteFeature.AUTO_CLOSE_TARGET)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        try (Stream<MovieDto> movieStream = movies.toStream(MOVIE_PREFETCH)) {
+            SequenceWriter sequenceWriter = movieWriter.writeValuesAsArray(outputStream);
+            movieStream.forEach(sequenceWriter::write);
+            sequenceWriter.close();
+        }
+    }
+
+    private void checkSearchLimit(int limit) {
+        if (limit < 1 || limit > MAX_SEARCH_LIMIT) {
+            throw new ResponseStatusException(BAD_REQUEST, "Between 1 and " + MAX_SEARCH_LIMIT + " movies can be searched at once");
+        }
     }
 }
@@ -2,31 +2,45 @@ package com.jonathanfoucher.httpexample.controllers.advisers;
 
 import com.jonathanfoucher.httpexample.common.errors.MovieNotFoundException;
 import com.jonathanfoucher.httpexample.common.errors.MovieNotValidException;
+import com.jonathanfoucher.httpexample.common.errors.UpstreamUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.slf4j.event.Level;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
 import org.springframework.http.ProblemDetail;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
 import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExceptionHandler;
 
 import java.net.URI;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static org.slf4j.event.Level.ERROR;
 import static org.slf4j.event.Level.WARN;
+import static org.springframework.http.HttpHeaders.RETRY_AFTER;
 import static org.springframework.http.HttpStatus.*;
 
 @ControllerAdvice
+@RequiredArgsConstructor
 @Slf4j
 public class CustomResponseEntityExceptionHandler extends ResponseEntityExceptionHandler {
     private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
-    @ExceptionHandler({HttpClientErrorException.NotFound.class, MovieNotFoundException.class})
+    private final MeterRegistry meterRegistry;
+    private final Map<ExceptionCounterKey, Counter> exceptionCounters = new ConcurrentHashMap<>();
+
+    @ExceptionHandler({HttpClientErrorException.NotFound.class, WebClientResponseException.NotFound.class, MovieNotFoundException.class})
     public ResponseEntity<ProblemDetail> handleNotFoundExceptions(Exception exception, WebRequest request) {
         return generateResponseEntity(exception, request, NOT_FOUND, WARN);
     }
@@ -36,13 +50,35 @@ public class CustomResponseEntityExceptionHandler extends ResponseEntityExceptio
         return generateResponseEntity(exception, request, BAD_REQUEST, WARN);
     }
 
+    @ExceptionHandler(UpstreamUnavailableException.class)
+    public ResponseEntity<ProblemDetail> handleServiceUnavailableExceptions(UpstreamUnavailableException exception, WebRequest request) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(RETRY_AFTER, String.valueOf(Math.max(1, exception.getRetryAfter().toSeconds())));
+        return generateResponseEntity(exception, request, SERVICE_UNAVAILABLE, WARN, headers);
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ProblemDetail> handleInternalServerErrorExceptions(Exception exception, WebRequest request) {
         return generateResponseEntity(exception, request, INTERNAL_SERVER_ERROR, ERROR);
     }
 
+    /**
+     * Exceptions answered by the inherited handlers, such as bad requests and unsupported methods, are counted as well
+     */
+    @Override
+    protected ResponseEntity<Object> handleExceptionInternal(Exception exception, Object body, HttpHeaders headers, HttpStatusCode statusCode,
+                                                             WebRequest request) {
+        getExceptionCounter(exception, statusCode).increment();
+        return super.handleExceptionInternal(exception, body, headers, statusCode, request);
+    }
+
     private ResponseEntity<ProblemDetail> generateResponseEntity(Exception exception, WebRequest request, HttpStatus status, Level level) {
-        log.makeLoggingEventBuilder(level)
+        return generateResponseEntity(exception, request, status, level, HttpHeaders.EMPTY);
+    }
+
+    private ResponseEntity<ProblemDetail> generateResponseEntity(Exception exception, WebRequest request, HttpStatus status, Level level, HttpHeaders headers) {
+        getExceptionCounter(exception, status).increment();
+        log.atLevel(level)
                 .log(exception.getMessage(), exception);
 
         ProblemDetail details = ProblemDetail.forStatus(status);
@@ -51,6 +87,25 @@ public class CustomResponseEntityExceptionHandler extends ResponseEntityExceptio
         details.setInstance(URI.create(request.getDescription(false)));
         details.setProperty("timestamp", LocalDateTime.now().format(DATE_TIME_FORMATTER));
 
-        return new ResponseEntity<>(details, status);
+        return new ResponseEntity<>(details, headers, status);
+    }
+
+    /**
+     * Counters are registered once per exception type and status, so that counting an exception does not look up the registry
+     */
+    private Counter getExceptionCounter(Exception exception, HttpStatusCode status) {
+        ExceptionCounterKey counterKey = new ExceptionCounterKey(exception.getClass(), status.value());
+        Counter counter = exceptionCounters.get(counterKey);
+        if (counter == null) {
+            counter = exceptionCounters.computeIfAbsent(counterKey, key -> Counter.builder("http.server.exceptions")
+                    .description("Number of exceptions handled by type")
+                    .tag("exception", key.exceptionClass().getSimpleName())
+                    .tag("status", String.valueOf(key.status()))
+                    .register(meterRegistry));
+        }
+        return counter;
+    }
+
+    private record ExceptionCounterKey(Class<?> exceptionClass, int status) {
     }
 }
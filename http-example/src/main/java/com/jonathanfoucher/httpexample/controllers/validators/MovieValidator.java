@@ -2,6 +2,8 @@ package com.jonathanfoucher.httpexample.controllers.validators;
 
 import com.jonathanfoucher.httpexample.common.errors.MovieNotValidException;
 import com.jonathanfoucher.httpexample.data.dto.MovieDto;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
@@ -14,21 +16,39 @@ import static org.springframework.util.CollectionUtils.isEmpty;
 public class MovieValidator {
     private static final int MAX_TITLE_LENGTH = 100;
 
+    private final Counter missingIdCounter;
+    private final Counter missingTitleCounter;
+    private final Counter titleTooLongCounter;
+    private final Counter missingReleaseDateCounter;
+
+    public MovieValidator(MeterRegistry meterRegistry) {
+        this.missingIdCounter = failureCounter("id_required", meterRegistry);
+        this.missingTitleCounter = failureCounter("title_required", meterRegistry);
+        this.titleTooLongCounter = failureCounter("title_too_long", meterRegistry);
+        this.missingReleaseDateCounter = failureCounter("release_date_required", meterRegistry);
+    }
+
     public void validateMovie(MovieDto movie) {
         List<String> errors = new ArrayList<>();
 
         if (movie.getId() == null) {
+            missingIdCounter.increment();
             errors.add("id field is required");
         }
 
         if (movie.getTitle() == null) {
+            missingTitleCounter.increment();
             errors.add("title field is required");
         } else {
             checkTitleLength(movie.getTitle())
-                    .ifPresent(errors::add);
+                    .ifPresent(error -> {
+                        titleTooLongCounter.increment();
+                        errors.add(error);
+                    });
         }
 
         if (movie.getReleaseDate() == null) {
+            missingReleaseDateCounter.increment();
             errors.add("release_date field is required");
         }
 
@@ -43,4 +63,11 @@ public class MovieValidator {
         }
         return Optional.empty();
     }
+
+    private static Counter failureCounter(String rule, MeterRegistry meterRegistry) {
+        return Counter.builder("movie.validation.failures")
+                .description("Number of movies rejected by validation rule")
+                .tag("rule", rule)
+                .register(meterRegistry);
+    }
 }
@@ -0,0 +1,14 @@
+package com.jonathanfoucher.httpexample.data.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+public class MovieBatchDto {
+    private List<MovieDto> movies = new ArrayList<>();
+    private List<Long> missingIds = new ArrayList<>();
+}
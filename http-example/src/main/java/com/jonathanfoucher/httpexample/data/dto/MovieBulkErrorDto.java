@@ -0,0 +1,16 @@
+package com.jonathanfoucher.httpexample.data.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class MovieBulkErrorDto {
+    private long fromIndex;
+    private long toIndex;
+    private String reason;
+}
@@ -0,0 +1,18 @@
+package com.jonathanfoucher.httpexample.data.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+public class MovieBulkResultDto {
+    private long received;
+    private long saved;
+    private long rejected;
+    private long failed;
+    private boolean errorsTruncated;
+    private List<MovieBulkErrorDto> errors = new ArrayList<>();
+}
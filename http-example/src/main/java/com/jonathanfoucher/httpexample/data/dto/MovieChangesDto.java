@@ -0,0 +1,15 @@
+package com.jonathanfoucher.httpexample.data.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+public class MovieChangesDto {
+    private long sequence;
+    private boolean reset;
+    private List<Long> movieIds = new ArrayList<>();
+}
@@ -0,0 +1,15 @@
+package com.jonathanfoucher.httpexample.data.enums;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@RequiredArgsConstructor
+@Getter
+public enum WireFormat {
+    JSON("application/json", "application/json"),
+    // error answers are still written as JSON problem details
+    PROTOBUF("application/x-protobuf", "application/x-protobuf, application/json;q=0.9");
+
+    private final String contentType;
+    private final String accept;
+}
@@ -0,0 +1,232 @@
+package com.jonathanfoucher.httpexample.data.json;
+
+import com.jonathanfoucher.httpexample.data.dto.MovieDto;
+import org.springframework.boot.jackson.JacksonComponent;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.core.JsonParser;
+import tools.jackson.core.JsonToken;
+import tools.jackson.core.SerializableString;
+import tools.jackson.core.io.SerializedString;
+import tools.jackson.databind.BeanProperty;
+import tools.jackson.databind.DatabindContext;
+import tools.jackson.databind.DeserializationContext;
+import tools.jackson.databind.SerializationContext;
+import tools.jackson.databind.ValueDeserializer;
+import tools.jackson.databind.ValueSerializer;
+import tools.jackson.databind.introspect.BeanPropertyDefinition;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Streaming JSON codec of the movies, it writes the same bytes as the default bean serializer: names given by the mapper
+ * in alphabetical order, null fields included and ISO dates. Other value shapes are handed back to the default deserializers.
+ * The same codec is kept in movie-api and http-example, a change to one of them belongs in both.
+ */
+@JacksonComponent
+public class MovieDtoJsonCodec {
+    private static final String ID = "id";
+    private static final String RELEASE_DATE = "releaseDate";
+    private static final String TITLE = "title";
+    private static final int ISO_DATE_LENGTH = 10;
+
+    /**
+     * Names given to the movie fields by the mapper, naming strategies included, resolved once when the codec is contextualized
+     */
+    private record PropertyNames(SerializableString id, SerializableString releaseDate, SerializableString title) {
+        private static final PropertyNames DEFAULT = new PropertyNames(new SerializedString(ID), new SerializedString(RELEASE_DATE), new SerializedString(TITLE));
+
+        static PropertyNames of(DatabindContext context) {
+            Map<String, String> names = new HashMap<>();
+            for (BeanPropertyDefinition property : context.introspectBeanDescription(context.constructType(MovieDto.class)).findProperties()) {
+                names.put(property.getInternalName(), property.getName());
+            }
+            return new PropertyNames(name(names, ID), name(names, RELEASE_DATE), name(names, TITLE));
+        }
+
+        private static SerializableString name(Map<String, String> names, String field) {
+            return new SerializedString(names.getOrDefault(field, field));
+        }
+    }
+
+    public static class Serializer extends ValueSerializer<MovieDto> {
+        private final PropertyNames names;
+
+        public Serializer() {
+            this(PropertyNames.DEFAULT);
+        }
+
+        private Serializer(PropertyNames names) {
+            this.names = names;
+        }
+
+        @Override
+        public ValueSerializer<?> createContextual(SerializationContext context, BeanProperty property) {
+            PropertyNames contextNames = PropertyNames.of(context);
+            return contextNames.equals(names) ? this : new Serializer(contextNames);
+        }
+
+        @Override
+        public void serialize(MovieDto movie, JsonGenerator generator, SerializationContext context) {
+            generator.writeStartObject(movie);
+
+            generator.writeName(names.id());
+            if (movie.getId() != null) {
+                generator.writeNumber(movie.getId());
+            } else {
+                generator.writeNull();
+            }
+
+            generator.writeName(names.releaseDate());
+            if (movie.getReleaseDate() != null) {
+                writeDate(movie.getReleaseDate(), generator);
+            } else {
+                generator.writeNull();
+            }
+
+            generator.writeName(names.title());
+            generator.writeString(movie.getTitle());
+
+            generator.writeEndObject();
+        }
+
+        @Override
+        public Class<?> handledType() {
+            return MovieDto.class;
+        }
+
+        private void writeDate(LocalDate date, JsonGenerator generator) {
+            int year = date.getYear();
+            if (year < 0 || year > 9999) {
+                // signed or longer years, rare enough to go through the formatter
+                generator.writeString(date.toString());
+                return;
+            }
+
+            char[] chars = new char[ISO_DATE_LENGTH];
+            writeDigits(chars, 0, year, 4);
+            chars[4] = '-';
+            writeDigits(chars, 5, date.getMonthValue(), 2);
+            chars[7] = '-';
+            writeDigits(chars, 8, date.getDayOfMonth(), 2);
+            generator.writeString(chars, 0, ISO_DATE_LENGTH);
+        }
+
+        private void writeDigits(char[] chars, int offset, int value, int length) {
+            for (int i = offset + length - 1; i >= offset; i--) {
+                chars[i] = (char) ('0' + value % 10);
+                value /= 10;
+            }
+        }
+    }
+
+    public static class Deserializer extends ValueDeserializer<MovieDto> {
+        private final PropertyNames names;
+
+        public Deserializer() {
+            this(PropertyNames.DEFAULT);
+        }
+
+        private Deserializer(PropertyNames names) {
+            this.names = names;
+        }
+
+        @Override
+        public ValueDeserializer<?> createContextual(DeserializationContext context, BeanProperty property) {
+            PropertyNames contextNames = PropertyNames.of(context);
+            return contextNames.equals(names) ? this : new Deserializer(contextNames);
+        }
+
+        @Override
+        public MovieDto deserialize(JsonParser parser, DeserializationContext context) {
+            MovieDto movie = new MovieDto();
+            JsonToken token = parser.currentToken();
+            if (token == JsonToken.START_OBJECT) {
+                token = parser.nextToken();
+            } else if (token != JsonToken.PROPERTY_NAME && token != JsonToken.END_OBJECT) {
+                return (MovieDto) context.handleUnexpectedToken(MovieDto.class, parser);
+            }
+
+            for (; token == JsonToken.PROPERTY_NAME; token = parser.nextToken()) {
+                String name = parser.currentName();
+                token = parser.nextToken();
+                if (name.equals(names.id().getValue())) {
+                    movie.setId(readId(parser, context, token));
+                } else if (name.equals(names.releaseDate().getValue())) {
+                    movie.setReleaseDate(readDate(parser, context, token));
+                } else if (name.equals(names.title().getValue())) {
+                    movie.setTitle(readTitle(parser, context, token));
+                } else {
+                    context.handleUnknownProperty(parser, this, MovieDto.class, name);
+                }
+            }
+
+            if (token != JsonToken.END_OBJECT) {
+                context.reportWrongTokenException(this, JsonToken.END_OBJECT, "Unexpected token in a movie");
+            }
+            return movie;
+        }
+
+        @Override
+        public Class<?> handledType() {
+            return MovieDto.class;
+        }
+
+        private Long readId(JsonParser parser, DeserializationContext context, JsonToken token) {
+            return switch (token) {
+                case VALUE_NUMBER_INT -> parser.getLongValue();
+                case VALUE_NULL -> null;
+                default -> context.readValue(parser, Long.class);
+            };
+        }
+
+        private String readTitle(JsonParser parser, DeserializationContext context, JsonToken token) {
+            return switch (token) {
+                case VALUE_STRING -> parser.getString();
+                case VALUE_NULL -> null;
+                default -> context.readValue(parser, String.class);
+            };
+        }
+
+        private LocalDate readDate(JsonParser parser, DeserializationContext context, JsonToken token) {
+            if (token == JsonToken.VALUE_NULL) {
+                return null;
+            }
+            if (token != JsonToken.VALUE_STRING || parser.getStringLength() != ISO_DATE_LENGTH) {
+                return context.readValue(parser, LocalDate.class);
+            }
+
+            char[] chars = parser.getStringCharacters();
+            int offset = parser.getStringOffset();
+            int year = readDigits(chars, offset, 4);
+            int month = readDigits(chars, offset + 5, 2);
+            int day = readDigits(chars, offset + 8, 2);
+            if (year < 0 || month < 0 || day < 0 || chars[offset + 4] != '-' || chars[offset + 7] != '-') {
+                return context.readValue(parser, LocalDate.class);
+            }
+
+            try {
+                return LocalDate.of(year, month, day);
+            } catch (DateTimeException e) {
+                return (LocalDate) context.handleWeirdStringValue(LocalDate.class, parser.getString(), e.getMessage());
+            }
+        }
+
+        /**
+         * Returns -1 when one of the characters is not a digit
+         */
+        private int readDigits(char[] chars, int offset, int length) {
+            int value = 0;
+            for (int i = offset; i < offset + length; i++) {
+                int digit = chars[i] - '0';
+                if (digit < 0 || digit > 9) {
+                    return -1;
+                }
+                value = value * 10 + digit;
+            }
+            return value;
+        }
+    }
+}
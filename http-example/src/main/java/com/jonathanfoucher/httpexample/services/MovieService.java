@@ -1,30 +1,234 @@
 package com.jonathanfoucher.httpexample.services;
 
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.jonathanfoucher.httpexample.common.correlation.CorrelationContext;
+import com.jonathanfoucher.httpexample.common.correlation.CorrelationIds;
 import com.jonathanfoucher.httpexample.common.errors.MovieNotFoundException;
 import com.jonathanfoucher.httpexample.connectors.MovieApiConnector;
+import com.jonathanfoucher.httpexample.connectors.pages.MoviePage;
+import com.jonathanfoucher.httpexample.data.dto.MovieBatchDto;
+import com.jonathanfoucher.httpexample.data.dto.MovieChangesDto;
 import com.jonathanfoucher.httpexample.data.dto.MovieDto;
+import com.jonathanfoucher.httpexample.services.caches.CachedMovie;
+import com.jonathanfoucher.httpexample.services.caches.MovieCacheLoader;
+import com.jonathanfoucher.httpexample.services.configs.MovieBulkConfig;
+import com.jonathanfoucher.httpexample.services.configs.MovieChangesConfig;
+import com.jonathanfoucher.httpexample.services.savers.MovieBulkSaver;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class MovieService {
     private final MovieApiConnector movieApiConnector;
+    private final AsyncLoadingCache<Long, CachedMovie> movieCache;
+    private final MovieCacheLoader movieCacheLoader;
+    private final MovieBulkConfig movieBulkConfig;
+    private final MovieChangesConfig movieChangesConfig;
+    private final Executor applicationTaskExecutor;
+    private final TaskScheduler taskScheduler;
+    private final MeterRegistry meterRegistry;
+    private final AtomicLong lastMovieChangesPoll = new AtomicLong();
+    private volatile boolean unsubscribed;
 
     public MovieDto getMovieById(Long movieId) {
-        return movieApiConnector.getMovieById(movieId)
+        CompletableFuture<CachedMovie> loadingMovie = new CompletableFuture<>();
+        CompletableFuture<CachedMovie> movie = movieCache.get(movieId, (id, executor) -> loadingMovie);
+        if (movie == loadingMovie) {
+            load(loadingMovie, () -> movieCacheLoader.load(movieId));
+        }
+        return Optional.ofNullable(await(movie).movie())
                 .orElseThrow(() -> new MovieNotFoundException(movieId));
     }
 
+    public CompletableFuture<MovieDto> getMovieByIdAsync(Long movieId) {
+        return movieCache.get(movieId)
+                .thenApply(movie -> Optional.ofNullable(movie.movie())
+                        .orElseThrow(() -> new MovieNotFoundException(movieId)));
+    }
+
+    public MovieBatchDto getMoviesByIds(List<Long> movieIds) {
+        Set<Long> distinctMovieIds = new LinkedHashSet<>(movieIds);
+        Map<Long, CachedMovie> movies = await(movieCache.getAll(distinctMovieIds,
+                (missingMovieIds, executor) -> CompletableFuture.completedFuture(movieCacheLoader.loadAll(missingMovieIds))));
+        return toMovieBatch(distinctMovieIds, movies);
+    }
+
+    public CompletableFuture<MovieBatchDto> getMoviesByIdsAsync(List<Long> movieIds) {
+        Set<Long> distinctMovieIds = new LinkedHashSet<>(movieIds);
+        return movieCache.getAll(distinctMovieIds)
+                .thenApply(movies -> toMovieBatch(distinctMovieIds, movies));
+    }
+
+    public CompletableFuture<MoviePage> getMoviePageAsync(String cursor, int limit) {
+        return movieApiConnector.getMoviePageAsync(cursor, limit);
+    }
+
+    public CompletableFuture<List<MovieDto>> findMoviesByTitlePrefixAsync(String titlePrefix, int limit) {
+        return movieApiConnector.findMoviesByTitlePrefixAsync(titlePrefix, limit);
+    }
+
+    public CompletableFuture<List<MovieDto>> findMoviesByReleaseDateAsync(LocalDate from, LocalDate to, int limit) {
+        return movieApiConnector.findMoviesByReleaseDateAsync(from, to, limit);
+    }
+
     public void saveMovie(MovieDto movie) {
         movieApiConnector.saveMovie(movie);
+        movieCache.synchronous().invalidate(movie.getId());
+    }
+
+    public CompletableFuture<Void> saveMovieAsync(MovieDto movie) {
+        return movieApiConnector.saveMovieAsync(movie)
+                .thenRun(() -> movieCache.synchronous().invalidate(movie.getId()));
+    }
+
+    public void saveMovies(List<MovieDto> movies) {
+        movieApiConnector.saveMovies(movies);
+        movieCache.synchronous().invalidateAll(movies.stream()
+                .map(MovieDto::getId)
+                .toList());
+    }
+
+    public MovieBulkSaver createBulkSaver() {
+        return new MovieBulkSaver(this::saveMovies, applicationTaskExecutor, movieBulkConfig);
+    }
+
+    /**
+     * Follows the movies saved to the movie API from startup, so that cached movies are invalidated as soon as they change.
+     * A failed poll is retried from the same sequence, when the movie API no longer knows the changes since then the whole cache is invalidated.
+     * The time of the last successful poll is exposed to alert on a subscription that stopped.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void subscribeToMovieChanges() {
+        if (movieChangesConfig.isEnabled()) {
+            TimeGauge.builder("movie.changes.last.poll", lastMovieChangesPoll, TimeUnit.MILLISECONDS, AtomicLong::get)
+                    .description("Time of the last successful poll of the movie changes, since the epoch")
+                    .register(meterRegistry);
+            pollMovieChanges(null, 0);
+        }
+    }
+
+    @PreDestroy
+    public void unsubscribeFromMovieChanges() {
+        unsubscribed = true;
     }
 
     @Scheduled(cron = "0 */5 * * * *")
     public void cronExample() {
-        log.info("Cron example has been called");
+        try (CorrelationContext.Scope ignored = CorrelationContext.of(CorrelationIds.generate()).open()) {
+            log.info("Cron example has been called");
+        }
+    }
+
+    private void pollMovieChanges(Long afterSequence, int failures) {
+        if (unsubscribed) {
+            return;
+        }
+        try (CorrelationContext.Scope ignored = CorrelationContext.of(CorrelationIds.generate()).open()) {
+            movieApiConnector.getMovieChangesAsync(afterSequence, movieChangesConfig.getPollTimeout())
+                    .thenAccept(changes -> {
+                        applyMovieChanges(afterSequence, changes);
+                        lastMovieChangesPoll.set(System.currentTimeMillis());
+                        // polled again from another thread, so that a long run of answers does not nest on the client thread
+                        applicationTaskExecutor.execute(() -> pollMovieChanges(changes.getSequence(), 0));
+                    })
+                    // failing to apply the changes or to poll again must not end the subscription either
+                    .whenComplete((ignoredResult, error) -> {
+                        if (error != null) {
+                            pollMovieChangesLater(afterSequence, failures, error);
+                        }
+                    });
+        } catch (RuntimeException e) {
+            pollMovieChangesLater(afterSequence, failures, e);
+        }
+    }
+
+    private void pollMovieChangesLater(Long afterSequence, int failures, Throwable error) {
+        Duration backoff = getMovieChangesBackoff(failures);
+        log.warn("Failed to poll movie changes after {}, polling again in {}", afterSequence, backoff, error);
+        try {
+            taskScheduler.schedule(() -> pollMovieChanges(afterSequence, failures + 1), Instant.now().plus(backoff));
+        } catch (RejectedExecutionException e) {
+            log.error("Could not schedule the next poll of movie changes, cached movies are no longer invalidated when they change", e);
+        }
+    }
+
+    private void applyMovieChanges(Long afterSequence, MovieChangesDto changes) {
+        if (changes.isReset()) {
+            if (afterSequence != null) {
+                log.warn("Movie changes after {} are no longer known, invalidating all the cached movies", afterSequence);
+            }
+            movieCache.synchronous().invalidateAll();
+        } else if (!changes.getMovieIds().isEmpty()) {
+            movieCache.synchronous().invalidateAll(changes.getMovieIds());
+        }
+    }
+
+    private Duration getMovieChangesBackoff(int failures) {
+        Duration backoff = movieChangesConfig.getInitialBackoff().multipliedBy(1L << Math.min(failures, 16));
+        return backoff.compareTo(movieChangesConfig.getMaxBackoff()) < 0 ? backoff : movieChangesConfig.getMaxBackoff();
+    }
+
+    private <T> void load(CompletableFuture<T> loading, Supplier<T> loader) {
+        try {
+            loading.complete(loader.get());
+        } catch (Throwable e) {
+            // errors included, the cached placeholder would otherwise hang every later lookup of the id
+            loading.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Waits for a load of another lookup at most as long as the load itself could take
+     */
+    private <T> T await(CompletableFuture<T> future) {
+        Duration timeout = movieApiConnector.getTimeout();
+        try {
+            return future.get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new ResourceAccessException("Timed out after " + timeout + " waiting for movies being loaded");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResourceAccessException("Interrupted while waiting for movies being loaded");
+        }
+    }
+
+    private MovieBatchDto toMovieBatch(Set<Long> movieIds, Map<Long, CachedMovie> movies) {
+        MovieBatchDto movieBatch = new MovieBatchDto();
+        movieIds.forEach(movieId -> Optional.ofNullable(movies.get(movieId))
+                .map(CachedMovie::movie)
+                .ifPresentOrElse(movieBatch.getMovies()::add, () -> movieBatch.getMissingIds().add(movieId)));
+        return movieBatch;
     }
 }
@@ -0,0 +1,155 @@
+package com.jonathanfoucher.httpexample.services.batchers;
+
+import com.jonathanfoucher.httpexample.connectors.MovieApiConnector;
+import com.jonathanfoucher.httpexample.data.dto.MovieBatchDto;
+import com.jonathanfoucher.httpexample.data.dto.MovieDto;
+import com.jonathanfoucher.httpexample.services.configs.MovieBatchingConfig;
+import io.micrometer.context.ContextSnapshot;
+import io.micrometer.context.ContextSnapshotFactory;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "movie-batching", name = "enabled", havingValue = "true")
+public class MovieBatchLoader {
+    private static final ContextSnapshotFactory CONTEXT_SNAPSHOT_FACTORY = ContextSnapshotFactory.builder().build();
+
+    private final MovieApiConnector movieApiConnector;
+    private final MovieBatchingConfig movieBatchingConfig;
+    private final Executor executor;
+    private final TaskScheduler taskScheduler;
+    private final DistributionSummary batchSizeSummary;
+    private final Timer waitTimer;
+
+    private final Object lock = new Object();
+    private List<PendingLoad> pendingLoads = new ArrayList<>();
+    private ScheduledFuture<?> scheduledFlush;
+
+    public MovieBatchLoader(MovieApiConnector movieApiConnector, MovieBatchingConfig movieBatchingConfig, MeterRegistry meterRegistry,
+                            @Qualifier("applicationTaskExecutor") Executor executor, TaskScheduler taskScheduler) {
+        this.movieApiConnector = movieApiConnector;
+        this.movieBatchingConfig = movieBatchingConfig;
+        this.executor = executor;
+        this.taskScheduler = taskScheduler;
+        this.batchSizeSummary = DistributionSummary.builder("movie.batch.size")
+                .description("Number of movie ids sent in a single batched upstream call")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.waitTimer = Timer.builder("movie.batch.wait")
+                .description("Time a movie lookup waited before its batch was dispatched")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    public Optional<MovieDto> load(Long movieId) {
+        // the batch waits at most the max delay before being sent, then its call is bounded by the client timeouts
+        Duration timeout = movieBatchingConfig.getMaxDelay().plus(movieApiConnector.getTimeout());
+        try {
+            return loadAsync(movieId).get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new ResourceAccessException("Timed out after " + timeout + " waiting for the batch loading movie " + movieId);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResourceAccessException("Interrupted while waiting for the batch loading movie " + movieId);
+        }
+    }
+
+    public CompletableFuture<Optional<MovieDto>> loadAsync(Long movieId) {
+        PendingLoad pendingLoad = new PendingLoad(movieId, new CompletableFuture<>(), System.nanoTime(), CONTEXT_SNAPSHOT_FACTORY.captureAll());
+
+        List<PendingLoad> batch = null;
+        synchronized (lock) {
+            pendingLoads.add(pendingLoad);
+            if (pendingLoads.size() >= movieBatchingConfig.getMaxBatchSize()) {
+                batch = drainPendingLoads();
+            } else if (pendingLoads.size() == 1) {
+                scheduledFlush = taskScheduler.schedule(this::flush, Instant.now().plus(movieBatchingConfig.getMaxDelay()));
+            }
+        }
+
+        if (batch != null) {
+            dispatch(batch);
+        }
+        return pendingLoad.result();
+    }
+
+    private void flush() {
+        List<PendingLoad> batch;
+        synchronized (lock) {
+            batch = drainPendingLoads();
+        }
+        if (!batch.isEmpty()) {
+            dispatch(batch);
+        }
+    }
+
+    private List<PendingLoad> drainPendingLoads() {
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+        List<PendingLoad> batch = pendingLoads;
+        pendingLoads = new ArrayList<>();
+        return batch;
+    }
+
+    private void dispatch(List<PendingLoad> batch) {
+        long dispatchTime = System.nanoTime();
+        batch.forEach(pendingLoad -> waitTimer.record(dispatchTime - pendingLoad.enqueueTime(), TimeUnit.NANOSECONDS));
+        try {
+            executor.execute(() -> loadBatch(batch));
+        } catch (Throwable e) {
+            batch.forEach(pendingLoad -> pendingLoad.result().completeExceptionally(e));
+        }
+    }
+
+    private void loadBatch(List<PendingLoad> batch) {
+        Set<Long> movieIds = batch.stream()
+                .map(PendingLoad::movieId)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        batchSizeSummary.record(movieIds.size());
+        log.debug("Loading batch of {} movies", movieIds.size());
+
+        try (ContextSnapshot.Scope ignored = batch.getFirst().contextSnapshot().setThreadLocals()) {
+            MovieBatchDto movieBatch = movieApiConnector.getMoviesByIds(movieIds);
+            Map<Long, MovieDto> movies = movieBatch.getMovies()
+                    .stream()
+                    .collect(Collectors.toMap(MovieDto::getId, Function.identity(), (first, second) -> first));
+            batch.forEach(pendingLoad -> pendingLoad.result().complete(Optional.ofNullable(movies.get(pendingLoad.movieId()))));
+        } catch (Throwable e) {
+            // errors included, a batch left incomplete would hang all of its callers
+            batch.forEach(pendingLoad -> pendingLoad.result().completeExceptionally(e));
+        }
+    }
+
+    private record PendingLoad(Long movieId, CompletableFuture<Optional<MovieDto>> result, long enqueueTime, ContextSnapshot contextSnapshot) {
+    }
+}
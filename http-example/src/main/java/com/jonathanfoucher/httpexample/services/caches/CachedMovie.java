@@ -0,0 +1,21 @@
+package com.jonathanfoucher.httpexample.services.caches;
+
+import com.jonathanfoucher.httpexample.data.dto.MovieDto;
+
+import java.util.Optional;
+
+/**
+ * Cache entry of a movie lookup, a movie that does not exist is cached too so that missing ids are not requested again
+ */
+public record CachedMovie(MovieDto movie) {
+    public static final CachedMovie NOT_FOUND = new CachedMovie(null);
+
+    public static CachedMovie of(Optional<MovieDto> movie) {
+        return movie.map(CachedMovie::new)
+                .orElse(NOT_FOUND);
+    }
+
+    public boolean isFound() {
+        return movie != null;
+    }
+}
@@ -0,0 +1,81 @@
+package com.jonathanfoucher.httpexample.services.caches;
+
+import com.github.benmanes.caffeine.cache.AsyncCacheLoader;
+import com.jonathanfoucher.httpexample.connectors.MovieApiConnector;
+import com.jonathanfoucher.httpexample.data.dto.MovieBatchDto;
+import com.jonathanfoucher.httpexample.data.dto.MovieDto;
+import com.jonathanfoucher.httpexample.services.batchers.MovieBatchLoader;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Loads movies into the movie cache, also used by the cache to refresh the entries in the background
+ */
+@Component
+@RequiredArgsConstructor
+public class MovieCacheLoader implements AsyncCacheLoader<Long, CachedMovie> {
+    private final MovieApiConnector movieApiConnector;
+    private final ObjectProvider<MovieBatchLoader> movieBatchLoader;
+
+    public CachedMovie load(Long movieId) {
+        try {
+            MovieBatchLoader batchLoader = movieBatchLoader.getIfAvailable();
+            return CachedMovie.of(batchLoader != null ? batchLoader.load(movieId) : movieApiConnector.getMovieById(movieId));
+        } catch (RuntimeException e) {
+            if (isNotFound(e)) {
+                return CachedMovie.NOT_FOUND;
+            }
+            throw e;
+        }
+    }
+
+    public Map<Long, CachedMovie> loadAll(Set<? extends Long> movieIds) {
+        return toCachedMovies(movieIds, movieApiConnector.getMoviesByIds(new ArrayList<>(movieIds)));
+    }
+
+    @Override
+    public CompletableFuture<CachedMovie> asyncLoad(Long movieId, Executor executor) {
+        MovieBatchLoader batchLoader = movieBatchLoader.getIfAvailable();
+        CompletableFuture<Optional<MovieDto>> movie = batchLoader != null ? batchLoader.loadAsync(movieId) : movieApiConnector.getMovieByIdAsync(movieId);
+        return movie.handle((result, error) -> {
+            if (error == null) {
+                return CachedMovie.of(result);
+            }
+            if (isNotFound(error)) {
+                return CachedMovie.NOT_FOUND;
+            }
+            throw error instanceof CompletionException completionException ? completionException : new CompletionException(error);
+        });
+    }
+
+    @Override
+    public CompletableFuture<Map<Long, CachedMovie>> asyncLoadAll(Set<? extends Long> movieIds, Executor executor) {
+        return movieApiConnector.getMoviesByIdsAsync(new ArrayList<>(movieIds))
+                .thenApply(movieBatch -> toCachedMovies(movieIds, movieBatch));
+    }
+
+    private Map<Long, CachedMovie> toCachedMovies(Set<? extends Long> movieIds, MovieBatchDto movieBatch) {
+        Map<Long, CachedMovie> cachedMovies = HashMap.newHashMap(movieIds.size());
+        for (MovieDto movie : movieBatch.getMovies()) {
+            cachedMovies.putIfAbsent(movie.getId(), new CachedMovie(movie));
+        }
+        // ids left out of the answer are cached as missing as well
+        for (Long movieId : movieIds) {
+            cachedMovies.putIfAbsent(movieId, CachedMovie.NOT_FOUND);
+        }
+        return cachedMovies;
+    }
+
+    private boolean isNotFound(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        return cause instanceof HttpClientErrorException.NotFound || cause instanceof WebClientResponseException.NotFound;
+    }
+}
@@ -0,0 +1,18 @@
+package com.jonathanfoucher.httpexample.services.configs;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties("movie-batching")
+public class MovieBatchingConfig {
+    private boolean enabled = false;
+    private int maxBatchSize = 50;
+    private Duration maxDelay = Duration.ofMillis(5);
+}
@@ -0,0 +1,16 @@
+package com.jonathanfoucher.httpexample.services.configs;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties("movie-bulk")
+public class MovieBulkConfig {
+    private int batchSize = 500;
+    private int maxInFlightBatches = 2;
+    private int maxReportedErrors = 100;
+}
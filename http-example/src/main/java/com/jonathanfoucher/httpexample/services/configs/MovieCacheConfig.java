@@ -0,0 +1,46 @@
+package com.jonathanfoucher.httpexample.services.configs;
+
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.jonathanfoucher.httpexample.services.caches.CachedMovie;
+import com.jonathanfoucher.httpexample.services.caches.MovieCacheLoader;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties("movie-cache")
+public class MovieCacheConfig {
+    private static final String MOVIE_CACHE_NAME = "movies";
+
+    private long maximumSize = 10_000;
+    /**
+     * Soft limit, older movies are still served while they are reloaded in the background
+     */
+    private Duration refreshAfterWrite = Duration.ofMinutes(1);
+    /**
+     * Hard limit, movies that could not be reloaded until then are evicted
+     */
+    private Duration expireAfterWrite = Duration.ofMinutes(10);
+    private Duration notFoundExpireAfterWrite = Duration.ofSeconds(30);
+
+    @Bean
+    public AsyncLoadingCache<Long, CachedMovie> movieCache(MovieCacheLoader movieCacheLoader, MeterRegistry meterRegistry) {
+        AsyncLoadingCache<Long, CachedMovie> movieCache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(Expiry.writing((Long movieId, CachedMovie cachedMovie) -> cachedMovie.isFound() ? expireAfterWrite : notFoundExpireAfterWrite))
+                .refreshAfterWrite(refreshAfterWrite)
+                .recordStats()
+                .buildAsync(movieCacheLoader);
+        return CaffeineCacheMetrics.monitor(meterRegistry, movieCache, MOVIE_CACHE_NAME);
+    }
+}
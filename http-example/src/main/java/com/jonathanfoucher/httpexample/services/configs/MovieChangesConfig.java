@@ -0,0 +1,22 @@
+package com.jonathanfoucher.httpexample.services.configs;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties("movie-changes")
+public class MovieChangesConfig {
+    private boolean enabled = true;
+    /**
+     * Time the movie API holds a poll when there is no change, to keep below the client response timeout
+     */
+    private Duration pollTimeout = Duration.ofSeconds(5);
+    private Duration initialBackoff = Duration.ofSeconds(1);
+    private Duration maxBackoff = Duration.ofSeconds(30);
+}
@@ -0,0 +1,133 @@
+package com.jonathanfoucher.httpexample.services.savers;
+
+import com.jonathanfoucher.httpexample.data.dto.MovieBulkErrorDto;
+import com.jonathanfoucher.httpexample.data.dto.MovieBulkResultDto;
+import com.jonathanfoucher.httpexample.data.dto.MovieDto;
+import com.jonathanfoucher.httpexample.services.configs.MovieBulkConfig;
+import io.micrometer.context.ContextSnapshot;
+import io.micrometer.context.ContextSnapshotFactory;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+
+@Slf4j
+public class MovieBulkSaver {
+    private static final ContextSnapshotFactory CONTEXT_SNAPSHOT_FACTORY = ContextSnapshotFactory.builder().build();
+
+    private final Consumer<List<MovieDto>> batchWriter;
+    private final Executor executor;
+    private final MovieBulkConfig movieBulkConfig;
+    private final ContextSnapshot contextSnapshot;
+
+    private final Deque<InFlightBatch> inFlightBatches = new ArrayDeque<>();
+    private final MovieBulkResultDto result = new MovieBulkResultDto();
+    private List<MovieDto> currentBatch;
+    private long currentBatchFromIndex;
+    private long nextIndex;
+
+    public MovieBulkSaver(Consumer<List<MovieDto>> batchWriter, Executor executor, MovieBulkConfig movieBulkConfig) {
+        this.batchWriter = batchWriter;
+        this.executor = executor;
+        this.movieBulkConfig = movieBulkConfig;
+        this.contextSnapshot = CONTEXT_SNAPSHOT_FACTORY.captureAll();
+        this.currentBatch = new ArrayList<>(movieBulkConfig.getBatchSize());
+    }
+
+    public void save(MovieDto movie) {
+        if (currentBatch.isEmpty()) {
+            currentBatchFromIndex = nextIndex;
+        }
+        currentBatch.add(movie);
+        nextIndex++;
+        result.setReceived(result.getReceived() + 1);
+
+        if (currentBatch.size() >= movieBulkConfig.getBatchSize()) {
+            sendCurrentBatch();
+        }
+    }
+
+    public void reject(String reason) {
+        addError(nextIndex, nextIndex, reason);
+        nextIndex++;
+        result.setReceived(result.getReceived() + 1);
+        result.setRejected(result.getRejected() + 1);
+    }
+
+    public void abort(String reason) {
+        addError(nextIndex, nextIndex, reason);
+    }
+
+    public MovieBulkResultDto complete() {
+        sendCurrentBatch();
+        while (!inFlightBatches.isEmpty()) {
+            awaitOldestBatch();
+        }
+        log.info("Bulk save completed: {} received, {} saved, {} rejected, {} failed",
+                result.getReceived(), result.getSaved(), result.getRejected(), result.getFailed());
+        return result;
+    }
+
+    private void sendCurrentBatch() {
+        if (currentBatch.isEmpty()) {
+            return;
+        }
+        while (inFlightBatches.size() >= movieBulkConfig.getMaxInFlightBatches()) {
+            awaitOldestBatch();
+        }
+
+        List<MovieDto> batch = currentBatch;
+        currentBatch = new ArrayList<>(movieBulkConfig.getBatchSize());
+        CompletableFuture<Void> future;
+        try {
+            future = CompletableFuture.runAsync(() -> writeBatch(batch), executor);
+        } catch (RejectedExecutionException e) {
+            // the executor is saturated, the batch is reported instead of failing the whole bulk save
+            long toIndex = currentBatchFromIndex + batch.size() - 1;
+            log.warn("Bulk save of records {} to {} was rejected", currentBatchFromIndex, toIndex, e);
+            result.setRejected(result.getRejected() + batch.size());
+            addError(currentBatchFromIndex, toIndex, "too many concurrent bulk saves, try again later");
+            return;
+        }
+        inFlightBatches.add(new InFlightBatch(currentBatchFromIndex, batch.size(), future));
+    }
+
+    private void writeBatch(List<MovieDto> batch) {
+        try (ContextSnapshot.Scope ignored = contextSnapshot.setThreadLocals()) {
+            batchWriter.accept(batch);
+        }
+    }
+
+    private void awaitOldestBatch() {
+        InFlightBatch batch = inFlightBatches.poll();
+        try {
+            batch.future().join();
+            result.setSaved(result.getSaved() + batch.size());
+        } catch (CompletionException e) {
+            log.warn("Bulk save of records {} to {} failed", batch.fromIndex(), batch.toIndex(), e.getCause());
+            result.setFailed(result.getFailed() + batch.size());
+            addError(batch.fromIndex(), batch.toIndex(), e.getCause().getMessage());
+        }
+    }
+
+    private void addError(long fromIndex, long toIndex, String reason) {
+        if (result.getErrors().size() < movieBulkConfig.getMaxReportedErrors()) {
+            result.getErrors().add(new MovieBulkErrorDto(fromIndex, toIndex, reason));
+        } else {
+            result.setErrorsTruncated(true);
+        }
+    }
+
+    private record InFlightBatch(long fromIndex, int size, CompletableFuture<Void> future) {
+        private long toIndex() {
+            return fromIndex + size - 1;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.jonathanfoucher.httpexample.benchmarks;
+
+import com.github.luben.zstd.Zstd;
+import com.jonathanfoucher.httpexample.data.dto.MovieBatchDto;
+import com.jonathanfoucher.httpexample.data.dto.MovieDto;
+import org.openjdk.jmh.annotations.*;
+import tools.jackson.databind.PropertyNamingStrategies;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CompressionBenchmark {
+    private static final int BATCH_SIZE = 100;
+    private static final int BUFFER_SIZE = 8192;
+
+    @Param({"gzip-1", "gzip-6", "zstd-1", "zstd-3"})
+    private String codec;
+
+    private byte[] movieBatchJson;
+    private byte[] compressedMovieBatchJson;
+    private boolean zstd;
+    private int level;
+
+    @Setup
+    public void setup() throws IOException {
+        MovieBatchDto movieBatch = new MovieBatchDto();
+        for (long i = 0; i < BATCH_SIZE; i++) {
+            MovieDto movie = new MovieDto();
+            movie.setId(1_000 + i * 37);
+            movie.setTitle("Some movie title " + i);
+            movie.setReleaseDate(LocalDate.of(1980, 1, 1).plusDays(i * 113));
+            movieBatch.getMovies().add(movie);
+        }
+        movieBatchJson = JsonMapper.builder()
+                .propertyNamingStrategy(PropertyNamingStrategies.SNAKE_CASE)
+                .build()
+                .writeValueAsBytes(movieBatch);
+
+        String[] codecAndLevel = codec.split("-");
+        zstd = "zstd".equals(codecAndLevel[0]);
+        level = Integer.parseInt(codecAndLevel[1]);
+        compressedMovieBatchJson = compress();
+        System.out.printf("%n%s: %d bytes compressed to %d bytes%n", codec, movieBatchJson.length, compressedMovieBatchJson.length);
+    }
+
+    @Benchmark
+    public byte[] compress() throws IOException {
+        if (zstd) {
+            return Zstd.compress(movieBatchJson, level);
+        }
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(movieBatchJson.length / 4);
+        try (GZIPOutputStream outputStream = new GZIPOutputStream(compressed, BUFFER_SIZE) {
+            {
+                def.setLevel(level);
+            }
+        }) {
+            outputStream.write(movieBatchJson);
+        }
+        return compressed.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] decompress() throws IOException {
+        if (zstd) {
+            return Zstd.decompress(compressedMovieBatchJson, movieBatchJson.length);
+        }
+        try (GZIPInputStream inputStream = new GZIPInputStream(new ByteArrayInputStream(compressedMovieBatchJson), BUFFER_SIZE)) {
+            return inputStream.readAllBytes();
+        }
+    }
+}
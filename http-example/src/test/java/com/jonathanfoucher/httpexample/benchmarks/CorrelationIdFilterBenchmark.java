@@ -0,0 +1,51 @@
+package com.jonathanfoucher.httpexample.benchmarks;
+
+import com.jonathanfoucher.httpexample.common.filters.CorrelationIdFilter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static com.jonathanfoucher.httpexample.data.enums.AdditionalHttpHeaders.CORRELATION_ID_HEADER;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CorrelationIdFilterBenchmark {
+    private final CorrelationIdFilter correlationIdFilter = new CorrelationIdFilter();
+    private final FilterChain filterChain = (request, response) -> {
+    };
+
+    private MockHttpServletRequest requestWithCorrelationId;
+    private MockHttpServletRequest requestWithoutCorrelationId;
+    private MockHttpServletResponse response;
+
+    @Setup
+    public void setup() {
+        requestWithCorrelationId = new MockHttpServletRequest();
+        requestWithCorrelationId.addHeader(CORRELATION_ID_HEADER.getHeaderName(), "256a46fb-f91a-402a-b45e-065cbe5f2aa9");
+        requestWithoutCorrelationId = new MockHttpServletRequest();
+        response = new MockHttpServletResponse();
+    }
+
+    @Benchmark
+    public MockHttpServletResponse doFilterWithProvidedCorrelationId() throws ServletException, IOException {
+        requestWithCorrelationId.clearAttributes();
+        correlationIdFilter.doFilter(requestWithCorrelationId, response, filterChain);
+        return response;
+    }
+
+    @Benchmark
+    public MockHttpServletResponse doFilterWithGeneratedCorrelationId() throws ServletException, IOException {
+        requestWithoutCorrelationId.clearAttributes();
+        correlationIdFilter.doFilter(requestWithoutCorrelationId, response, filterChain);
+        return response;
+    }
+}
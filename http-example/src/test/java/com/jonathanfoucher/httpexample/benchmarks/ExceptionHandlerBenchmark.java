@@ -0,0 +1,47 @@
+package com.jonathanfoucher.httpexample.benchmarks;
+
+import com.jonathanfoucher.httpexample.common.errors.MovieNotFoundException;
+import com.jonathanfoucher.httpexample.common.errors.MovieNotValidException;
+import com.jonathanfoucher.httpexample.controllers.advisers.CustomResponseEntityExceptionHandler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Warnings are filtered out by {@code logback-benchmark.xml}, so only the level check is included in the results.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ExceptionHandlerBenchmark {
+    private final CustomResponseEntityExceptionHandler exceptionHandler = new CustomResponseEntityExceptionHandler(new SimpleMeterRegistry());
+    private final MovieNotFoundException movieNotFoundException = new MovieNotFoundException(15L);
+    private final MovieNotValidException movieNotValidException = new MovieNotValidException(List.of("title field is required"));
+
+    private WebRequest webRequest;
+
+    @Setup
+    public void setup() {
+        webRequest = new ServletWebRequest(new MockHttpServletRequest("GET", "/movies/15"));
+    }
+
+    @Benchmark
+    public ResponseEntity<ProblemDetail> handleNotFoundException() {
+        return exceptionHandler.handleNotFoundExceptions(movieNotFoundException, webRequest);
+    }
+
+    @Benchmark
+    public ResponseEntity<ProblemDetail> handleBadRequestException() {
+        return exceptionHandler.handleBadRequestExceptions(movieNotValidException, webRequest);
+    }
+}
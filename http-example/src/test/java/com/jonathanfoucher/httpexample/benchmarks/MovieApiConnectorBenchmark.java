@@ -0,0 +1,93 @@
+package com.jonathanfoucher.httpexample.benchmarks;
+
+import com.jonathanfoucher.httpexample.common.correlation.CorrelationContext;
+import com.jonathanfoucher.httpexample.connectors.MovieApiConnector;
+import com.jonathanfoucher.httpexample.connectors.configs.HedgingConfig;
+import com.jonathanfoucher.httpexample.connectors.configs.MovieApiConfig;
+import com.jonathanfoucher.httpexample.connectors.hedgers.RequestHedger;
+import com.jonathanfoucher.httpexample.data.dto.MovieBatchDto;
+import com.jonathanfoucher.httpexample.data.dto.MovieDto;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.retry.Retry;
+import io.github.resilience4j.retry.RetryConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.restclient.RestTemplateBuilder;
+import org.springframework.http.converter.json.JacksonJsonHttpMessageConverter;
+import org.springframework.http.client.reactive.JdkClientHttpConnector;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import tools.jackson.databind.PropertyNamingStrategies;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.http.HttpStatus.OK;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MovieApiConnectorBenchmark {
+    private static final String MOVIE_JSON = "{\"id\":15,\"title\":\"Some movie\",\"release_date\":\"2022-07-19\"}";
+    private static final String MOVIE_BATCH_JSON = "{\"movies\":[" + MOVIE_JSON + "],\"missing_ids\":[16]}";
+    private static final List<Long> MOVIE_IDS = List.of(15L, 16L);
+
+    private MovieApiConnector movieApiConnector;
+    private CorrelationContext.Scope correlationScope;
+
+    @Setup
+    public void setup() {
+        MovieApiConfig movieApiConfig = new MovieApiConfig();
+        movieApiConfig.setBaseUrl("http://localhost:8091/movie-api");
+        movieApiConfig.setApiKey("some-api-key");
+        movieApiConfig.setMoviesPath("/movies");
+        movieApiConfig.setMoviesBatchPath("/movies/batch");
+        movieApiConfig.setMovieByIdPath("/movies/{movie_id}");
+        movieApiConfig.setMovieChangesPath("/movies/changes");
+
+        HedgingConfig hedgingConfig = new HedgingConfig();
+        hedgingConfig.setEnabled(false);
+
+        JsonMapper jsonMapper = JsonMapper.builder()
+                .propertyNamingStrategy(PropertyNamingStrategies.SNAKE_CASE)
+                .build();
+        RestTemplateBuilder restTemplateBuilder = new RestTemplateBuilder()
+                .messageConverters(new JacksonJsonHttpMessageConverter(jsonMapper));
+
+        movieApiConnector = new MovieApiConnector(restTemplateBuilder, movieApiConfig, (uri, method) -> {
+            MockClientHttpRequest request = new MockClientHttpRequest(method, uri);
+            String body = uri.getQuery() != null ? MOVIE_BATCH_JSON : MOVIE_JSON;
+            MockClientHttpResponse response = new MockClientHttpResponse(body.getBytes(StandardCharsets.UTF_8), OK);
+            response.getHeaders().setContentType(APPLICATION_JSON);
+            request.setResponse(response);
+            return request;
+        }, WebClient.builder(), new JdkClientHttpConnector(), jsonMapper, CircuitBreaker.ofDefaults("movie-api"),
+                Retry.of("movie-api", RetryConfig.custom().maxAttempts(1).build()),
+                new RequestHedger("movie-api", hedgingConfig, new SimpleMeterRegistry()));
+
+        correlationScope = CorrelationContext.of("256a46fb-f91a-402a-b45e-065cbe5f2aa9").open();
+    }
+
+    @TearDown
+    public void tearDown() {
+        correlationScope.close();
+    }
+
+    @Benchmark
+    public Optional<MovieDto> getMovieById() {
+        return movieApiConnector.getMovieById(15L);
+    }
+
+    @Benchmark
+    public MovieBatchDto getMoviesByIds() {
+        return movieApiConnector.getMoviesByIds(MOVIE_IDS);
+    }
+}
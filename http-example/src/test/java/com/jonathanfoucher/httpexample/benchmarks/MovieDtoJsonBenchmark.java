@@ -0,0 +1,64 @@
+package com.jonathanfoucher.httpexample.benchmarks;
+
+import com.jonathanfoucher.httpexample.data.dto.MovieDto;
+import com.jonathanfoucher.httpexample.data.json.MovieDtoJsonCodec;
+import org.openjdk.jmh.annotations.*;
+import tools.jackson.databind.ObjectReader;
+import tools.jackson.databind.ObjectWriter;
+import tools.jackson.databind.PropertyNamingStrategies;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.databind.module.SimpleModule;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MovieDtoJsonBenchmark {
+    private static final String MOVIE_JSON = "{\"id\":15,\"title\":\"Some movie\",\"release_date\":\"2022-07-19\"}";
+
+    /**
+     * DEFAULT maps through the bean serializers, CODEC through the hand written {@link MovieDtoJsonCodec}
+     */
+    @Param({"DEFAULT", "CODEC"})
+    private String mapping;
+
+    private ObjectReader movieReader;
+    private ObjectWriter movieWriter;
+    private MovieDto movie;
+
+    @Setup
+    public void setup() {
+        JsonMapper jsonMapper = JsonMapper.builder()
+                .propertyNamingStrategy(PropertyNamingStrategies.SNAKE_CASE)
+                .build();
+        if ("CODEC".equals(mapping)) {
+            jsonMapper = jsonMapper.rebuild()
+                    .addModule(new SimpleModule()
+                            .addSerializer(MovieDto.class, new MovieDtoJsonCodec.Serializer())
+                            .addDeserializer(MovieDto.class, new MovieDtoJsonCodec.Deserializer()))
+                    .build();
+        }
+        movieReader = jsonMapper.readerFor(MovieDto.class);
+        movieWriter = jsonMapper.writerFor(MovieDto.class);
+
+        movie = new MovieDto();
+        movie.setId(15L);
+        movie.setTitle("Some movie");
+        movie.setReleaseDate(LocalDate.of(2022, 7, 19));
+    }
+
+    @Benchmark
+    public String serialize() {
+        return movieWriter.writeValueAsString(movie);
+    }
+
+    @Benchmark
+    public MovieDto deserialize() {
+        return movieReader.readValue(MOVIE_JSON);
+    }
+}
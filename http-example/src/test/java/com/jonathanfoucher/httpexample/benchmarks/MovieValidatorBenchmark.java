@@ -0,0 +1,50 @@
+package com.jonathanfoucher.httpexample.benchmarks;
+
+import com.jonathanfoucher.httpexample.common.errors.MovieNotValidException;
+import com.jonathanfoucher.httpexample.controllers.validators.MovieValidator;
+import com.jonathanfoucher.httpexample.data.dto.MovieDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MovieValidatorBenchmark {
+    private final MovieValidator movieValidator = new MovieValidator(new SimpleMeterRegistry());
+
+    private MovieDto validMovie;
+    private MovieDto invalidMovie;
+
+    @Setup
+    public void setup() {
+        validMovie = new MovieDto();
+        validMovie.setId(15L);
+        validMovie.setTitle("Some movie");
+        validMovie.setReleaseDate(LocalDate.of(2022, 7, 19));
+
+        invalidMovie = new MovieDto();
+        invalidMovie.setTitle("Some movie".repeat(20));
+    }
+
+    @Benchmark
+    public MovieDto validateValidMovie() {
+        movieValidator.validateMovie(validMovie);
+        return validMovie;
+    }
+
+    @Benchmark
+    public MovieNotValidException validateInvalidMovie() {
+        try {
+            movieValidator.validateMovie(invalidMovie);
+            return null;
+        } catch (MovieNotValidException e) {
+            return e;
+        }
+    }
+}
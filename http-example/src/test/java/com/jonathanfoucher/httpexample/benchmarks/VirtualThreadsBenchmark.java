@@ -0,0 +1,182 @@
+package com.jonathanfoucher.httpexample.benchmarks;
+
+import com.jonathanfoucher.httpexample.HttpExampleApplication;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.apache.catalina.Context;
+import org.apache.catalina.LifecycleException;
+import org.apache.catalina.startup.Tomcat;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compares http-example throughput with platform and virtual threads while movie-api answers with an increasing latency.
+ * <p>
+ * Run with {@code mvn -Pbenchmark test-compile exec:exec -Dbenchmark.args="<latencies in ms> <concurrency> <seconds per run>"},
+ * for example {@code -Dbenchmark.args="0,50,200 400 10"}.
+ */
+public class VirtualThreadsBenchmark {
+    private static final String CONTEXT_PATH = "/http-api-example";
+    private static final String MOVIE_JSON = "{\"id\":%s,\"title\":\"Some movie\",\"release_date\":\"2022-07-19\"}";
+    private static final Duration WARMUP_DURATION = Duration.ofSeconds(2);
+    private static final int UPSTREAM_MAX_THREADS = 2000;
+
+    private static final AtomicInteger upstreamLatency = new AtomicInteger();
+    private static final AtomicLong movieIds = new AtomicLong();
+
+    public static void main(String[] args) throws Exception {
+        List<Integer> latencies = args.length > 0 ? parseLatencies(args[0]) : List.of(0, 20, 100, 250);
+        int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 400;
+        Duration duration = Duration.ofSeconds(args.length > 2 ? Long.parseLong(args[2]) : 10);
+
+        Tomcat upstream = startUpstream();
+        List<String> results = new ArrayList<>();
+        try {
+            for (boolean virtualThreads : List.of(false, true)) {
+                try (ConfigurableApplicationContext application = startApplication(upstream.getConnector().getLocalPort(), virtualThreads)) {
+                    int port = Integer.parseInt(application.getEnvironment().getRequiredProperty("local.server.port"));
+                    runLoad(port, concurrency, WARMUP_DURATION);
+
+                    for (int latency : latencies) {
+                        upstreamLatency.set(latency);
+                        LoadResult result = runLoad(port, concurrency, duration);
+                        results.add(String.format("%-9s %12d %14.1f %10.1f %10.1f %8d", virtualThreads ? "virtual" : "platform",
+                                latency, result.throughput(), result.percentile(0.5), result.percentile(0.99), result.errors()));
+                    }
+                }
+            }
+        } finally {
+            upstream.stop();
+            upstream.destroy();
+        }
+
+        System.out.printf("%nconcurrency=%d, duration=%ss%n", concurrency, duration.toSeconds());
+        System.out.printf("%-9s %12s %14s %10s %10s %8s%n", "threads", "latency (ms)", "throughput/s", "p50 (ms)", "p99 (ms)", "errors");
+        results.forEach(System.out::println);
+    }
+
+    private static List<Integer> parseLatencies(String latencies) {
+        return Arrays.stream(latencies.split(","))
+                .map(String::trim)
+                .map(Integer::parseInt)
+                .toList();
+    }
+
+    private static Tomcat startUpstream() throws LifecycleException {
+        Tomcat upstream = new Tomcat();
+        upstream.setBaseDir(System.getProperty("java.io.tmpdir"));
+        upstream.setPort(0);
+        upstream.getConnector().setProperty("maxThreads", String.valueOf(UPSTREAM_MAX_THREADS));
+
+        Context context = upstream.addContext("/movie-api", null);
+        Tomcat.addServlet(context, "movies", new MovieServlet());
+        context.addServletMappingDecoded("/movies/*", "movies");
+        upstream.start();
+        return upstream;
+    }
+
+    private static ConfigurableApplicationContext startApplication(int upstreamPort, boolean virtualThreads) {
+        return new SpringApplicationBuilder(HttpExampleApplication.class)
+                .run("--server.port=0",
+                        "--spring.threads.virtual.enabled=" + virtualThreads,
+                        "--movie-api.base-url=http://localhost:" + upstreamPort + "/movie-api",
+                        "--movie-cache.maximum-size=0",
+                        "--movie-changes.enabled=false",
+                        "--logging.level.root=WARN");
+    }
+
+    private static LoadResult runLoad(int port, int concurrency, Duration duration) throws Exception {
+        long deadline = System.nanoTime() + duration.toNanos();
+        try (HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+             ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<WorkerResult>> futures = new ArrayList<>();
+            for (int i = 0; i < concurrency; i++) {
+                futures.add(workers.submit(() -> runWorker(client, port, deadline)));
+            }
+
+            List<Long> latencies = new ArrayList<>();
+            long errors = 0;
+            for (Future<WorkerResult> future : futures) {
+                WorkerResult result = future.get();
+                latencies.addAll(result.latencies());
+                errors += result.errors();
+            }
+            Collections.sort(latencies);
+            return new LoadResult(latencies, errors, duration);
+        }
+    }
+
+    private static WorkerResult runWorker(HttpClient client, int port, long deadline) {
+        List<Long> latencies = new ArrayList<>();
+        long errors = 0;
+        while (System.nanoTime() < deadline) {
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + CONTEXT_PATH + "/movies/" + movieIds.incrementAndGet()))
+                    .GET()
+                    .build();
+            long start = System.nanoTime();
+            try {
+                HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                if (response.statusCode() == 200) {
+                    latencies.add(System.nanoTime() - start);
+                } else {
+                    errors++;
+                }
+            } catch (IOException e) {
+                errors++;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return new WorkerResult(latencies, errors);
+    }
+
+    private static class MovieServlet extends HttpServlet {
+        @Override
+        protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+            try {
+                Thread.sleep(upstreamLatency.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            String movieId = request.getPathInfo().substring(1);
+            byte[] body = String.format(MOVIE_JSON, movieId).getBytes(StandardCharsets.UTF_8);
+            response.setContentType("application/json");
+            response.setContentLength(body.length);
+            response.getOutputStream().write(body);
+        }
+    }
+
+    private record WorkerResult(List<Long> latencies, long errors) {
+    }
+
+    private record LoadResult(List<Long> latencies, long errors, Duration duration) {
+        private double throughput() {
+            return latencies.size() / (double) duration.toSeconds();
+        }
+
+        private double percentile(double percentile) {
+            if (latencies.isEmpty()) {
+                return 0;
+            }
+            int index = (int) Math.ceil(percentile * latencies.size()) - 1;
+            return latencies.get(Math.max(index, 0)) / 1_000_000.0;
+        }
+    }
+}
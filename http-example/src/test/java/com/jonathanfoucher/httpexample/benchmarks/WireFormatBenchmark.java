@@ -0,0 +1,73 @@
+package com.jonathanfoucher.httpexample.benchmarks;
+
+import com.jonathanfoucher.httpexample.connectors.codecs.MovieProtobufMapper;
+import com.jonathanfoucher.httpexample.data.dto.MovieBatchDto;
+import com.jonathanfoucher.httpexample.data.dto.MovieDto;
+import com.jonathanfoucher.httpexample.data.proto.MovieBatch;
+import org.openjdk.jmh.annotations.*;
+import tools.jackson.databind.ObjectReader;
+import tools.jackson.databind.ObjectWriter;
+import tools.jackson.databind.PropertyNamingStrategies;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WireFormatBenchmark {
+    private static final int BATCH_SIZE = 100;
+
+    private ObjectReader movieBatchReader;
+    private ObjectWriter movieBatchWriter;
+    private MovieBatchDto movieBatch;
+    private byte[] movieBatchJson;
+    private byte[] movieBatchProtobuf;
+
+    @Setup
+    public void setup() {
+        JsonMapper jsonMapper = JsonMapper.builder()
+                .propertyNamingStrategy(PropertyNamingStrategies.SNAKE_CASE)
+                .build();
+        movieBatchReader = jsonMapper.readerFor(MovieBatchDto.class);
+        movieBatchWriter = jsonMapper.writerFor(MovieBatchDto.class);
+
+        movieBatch = new MovieBatchDto();
+        for (long i = 0; i < BATCH_SIZE; i++) {
+            MovieDto movie = new MovieDto();
+            movie.setId(1_000 + i * 37);
+            movie.setTitle("Some movie title " + i);
+            movie.setReleaseDate(LocalDate.of(1980, 1, 1).plusDays(i * 113));
+            movieBatch.getMovies().add(movie);
+        }
+        movieBatch.getMissingIds().add(42L);
+
+        movieBatchJson = serializeJson();
+        movieBatchProtobuf = serializeProtobuf();
+        System.out.printf("%njson: %d bytes, protobuf: %d bytes%n", movieBatchJson.length, movieBatchProtobuf.length);
+    }
+
+    @Benchmark
+    public byte[] serializeJson() {
+        return movieBatchWriter.writeValueAsBytes(movieBatch);
+    }
+
+    @Benchmark
+    public byte[] serializeProtobuf() {
+        return MovieProtobufMapper.toMessage(movieBatch).toByteArray();
+    }
+
+    @Benchmark
+    public MovieBatchDto deserializeJson() {
+        return movieBatchReader.readValue(movieBatchJson);
+    }
+
+    @Benchmark
+    public Object deserializeProtobuf() throws Exception {
+        return MovieProtobufMapper.toDto(MovieBatch.parseFrom(movieBatchProtobuf));
+    }
+}
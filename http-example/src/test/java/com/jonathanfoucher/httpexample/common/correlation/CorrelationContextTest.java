@@ -0,0 +1,65 @@
+package com.jonathanfoucher.httpexample.common.correlation;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.core.task.support.ContextPropagatingTaskDecorator;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CorrelationContextTest {
+    private static final String CORRELATION_ID = "256a46fb-f91a-402a-b45e-065cbe5f2aa9";
+    private static final String OTHER_CORRELATION_ID = "9d6b1a3c-5f0e-4c2a-8e7b-1f2d3c4b5a69";
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void openAndClose() {
+        // WHEN
+        try (CorrelationContext.Scope ignored = CorrelationContext.of(CORRELATION_ID).open()) {
+            try (CorrelationContext.Scope ignoredNested = CorrelationContext.of(OTHER_CORRELATION_ID).open()) {
+                // THEN
+                assertEquals(OTHER_CORRELATION_ID, CorrelationContext.currentCorrelationId());
+                assertEquals(OTHER_CORRELATION_ID, MDC.get(CorrelationContext.MDC_KEY));
+            }
+            assertEquals(CORRELATION_ID, CorrelationContext.currentCorrelationId());
+            assertEquals(CORRELATION_ID, MDC.get(CorrelationContext.MDC_KEY));
+        }
+        assertNull(CorrelationContext.current());
+        assertNull(MDC.get(CorrelationContext.MDC_KEY));
+    }
+
+    @Test
+    void propagateWithTaskDecorator() {
+        // GIVEN
+        ContextPropagatingTaskDecorator taskDecorator = new ContextPropagatingTaskDecorator();
+        AtomicReference<String> taskCorrelationId = new AtomicReference<>();
+        AtomicReference<String> taskMdcCorrelationId = new AtomicReference<>();
+
+        // WHEN
+        Runnable task;
+        try (CorrelationContext.Scope ignored = CorrelationContext.of(CORRELATION_ID).open()) {
+            task = taskDecorator.decorate(() -> {
+                taskCorrelationId.set(CorrelationContext.currentCorrelationId());
+                taskMdcCorrelationId.set(MDC.get(CorrelationContext.MDC_KEY));
+            });
+        }
+        CompletableFuture.runAsync(task, executor).join();
+
+        // THEN
+        assertEquals(CORRELATION_ID, taskCorrelationId.get());
+        assertEquals(CORRELATION_ID, taskMdcCorrelationId.get());
+        assertNull(CompletableFuture.supplyAsync(CorrelationContext::current, executor).join());
+        assertNull(CompletableFuture.supplyAsync(() -> MDC.get(CorrelationContext.MDC_KEY), executor).join());
+    }
+}
@@ -0,0 +1,65 @@
+package com.jonathanfoucher.httpexample.common.correlation;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.NullAndEmptySource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CorrelationIdsTest {
+    private static final Pattern CORRELATION_ID_REGEX_PATTERN = Pattern.compile("^[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}$");
+
+    @Test
+    void isValidWithUuid() {
+        // GIVEN
+        String correlationId = UUID.randomUUID().toString();
+
+        // WHEN
+        boolean result = CorrelationIds.isValid(correlationId);
+
+        // THEN
+        assertTrue(result);
+    }
+
+    @ParameterizedTest
+    @NullAndEmptySource
+    @ValueSource(strings = {
+            "not-valid-correlation-id",
+            "256A46FB-F91A-402A-B45E-065CBE5F2AA9",
+            "256a46fb-f91a-402a-b45e-065cbe5f2aa",
+            "256a46fb-f91a-402a-b45e-065cbe5f2aa90",
+            "256a46fbf-91a-402a-b45e-065cbe5f2aa9",
+            "256a46fb-f91a-402a-b45e-065cbe5f2ag9"
+    })
+    void isValidWithInvalidValue(String correlationId) {
+        // WHEN
+        boolean result = CorrelationIds.isValid(correlationId);
+
+        // THEN
+        assertFalse(result);
+    }
+
+    @Test
+    void generate() {
+        // WHEN
+        Set<String> results = new HashSet<>();
+        for (int i = 0; i < 1000; i++) {
+            results.add(CorrelationIds.generate());
+        }
+
+        // THEN
+        assertEquals(1000, results.size());
+        for (String result : results) {
+            assertTrue(CORRELATION_ID_REGEX_PATTERN.matcher(result).matches());
+            assertTrue(CorrelationIds.isValid(result));
+            assertEquals(4, UUID.fromString(result).version());
+            assertEquals(2, UUID.fromString(result).variant());
+        }
+    }
+}
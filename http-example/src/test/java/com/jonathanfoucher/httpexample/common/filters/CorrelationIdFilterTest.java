@@ -1,5 +1,8 @@
 package com.jonathanfoucher.httpexample.common.filters;
 
+import com.jonathanfoucher.httpexample.common.correlation.CorrelationContext;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -10,6 +13,7 @@ import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
 
 import java.io.IOException;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.regex.Pattern;
 
 import static com.jonathanfoucher.httpexample.data.enums.AdditionalHttpHeaders.CORRELATION_ID_HEADER;
@@ -73,5 +77,46 @@ class CorrelationIdFilterTest {
         // THEN
         String resultCorrelationId = response.getHeader(CORRELATION_ID_HEADER.getHeaderName());
         assertEquals(correlationId, resultCorrelationId);
+
+    }
+
+    @Test
+    void doFilterExposesCorrelationContextToTheChain() throws ServletException, IOException {
+        // GIVEN
+        String correlationId = UUID.randomUUID().toString();
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(CORRELATION_ID_HEADER.getHeaderName(), correlationId);
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        AtomicReference<String> chainCorrelationId = new AtomicReference<>();
+        FilterChain chain = (chainRequest, chainResponse) -> chainCorrelationId.set(CorrelationContext.currentCorrelationId());
+
+        // WHEN
+        correlationIdFilter.doFilter(request, response, chain);
+
+        // THEN
+        assertEquals(correlationId, chainCorrelationId.get());
+        assertEquals(correlationId, CorrelationContext.get(request).getCorrelationId());
+        assertNull(CorrelationContext.current());
+    }
+
+    @Test
+    void doFilterWithAsyncDispatch() throws ServletException, IOException {
+        // GIVEN
+        String correlationId = UUID.randomUUID().toString();
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        CorrelationContext.bind(request, correlationId);
+        request.setDispatcherType(DispatcherType.ASYNC);
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        AtomicReference<String> chainCorrelationId = new AtomicReference<>();
+        FilterChain chain = (chainRequest, chainResponse) -> chainCorrelationId.set(CorrelationContext.currentCorrelationId());
+
+        // WHEN
+        correlationIdFilter.doFilter(request, response, chain);
+
+        // THEN
+        assertEquals(correlationId, chainCorrelationId.get());
+        assertNull(CorrelationContext.current());
     }
 }
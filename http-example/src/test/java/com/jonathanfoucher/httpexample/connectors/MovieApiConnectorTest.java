@@ -1,84 +1,143 @@
 package com.jonathanfoucher.httpexample.connectors;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.jonathanfoucher.httpexample.common.correlation.CorrelationContext;
+import com.jonathanfoucher.httpexample.connectors.configs.HedgingConfig;
 import com.jonathanfoucher.httpexample.connectors.configs.MovieApiConfig;
+import com.jonathanfoucher.httpexample.connectors.configs.ProtobufConfig;
+import com.jonathanfoucher.httpexample.connectors.hedgers.RequestHedger;
+import com.jonathanfoucher.httpexample.connectors.pages.MoviePage;
+import com.jonathanfoucher.httpexample.data.dto.MovieBatchDto;
+import com.jonathanfoucher.httpexample.data.dto.MovieChangesDto;
 import com.jonathanfoucher.httpexample.data.dto.MovieDto;
+import com.jonathanfoucher.httpexample.data.proto.Movie;
+import com.jonathanfoucher.httpexample.data.proto.MovieBatch;
+import com.jonathanfoucher.httpexample.data.proto.MovieList;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.retry.Retry;
+import io.github.resilience4j.retry.RetryConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.http.codec.autoconfigure.CodecsAutoConfiguration;
 import org.springframework.boot.restclient.test.autoconfigure.RestClientTest;
-import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.boot.webclient.autoconfigure.WebClientAutoConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.reactive.ClientHttpConnector;
+import org.springframework.http.client.reactive.ClientHttpRequest;
+import org.springframework.mock.http.client.reactive.MockClientHttpRequest;
+import org.springframework.mock.http.client.reactive.MockClientHttpResponse;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
 import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.test.web.client.MockRestServiceServer;
 import org.springframework.web.client.RestTemplate;
-import org.springframework.web.context.request.RequestContextHolder;
-import org.springframework.web.context.request.ServletRequestAttributes;
 import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 import tools.jackson.databind.PropertyNamingStrategies;
 import tools.jackson.databind.json.JsonMapper;
 
 import java.net.URI;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 
 import static com.jonathanfoucher.httpexample.data.enums.AdditionalHttpHeaders.API_KEY_HEADER;
 import static com.jonathanfoucher.httpexample.data.enums.AdditionalHttpHeaders.CORRELATION_ID_HEADER;
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.when;
-import static org.springframework.http.HttpHeaders.CONTENT_TYPE;
+import static org.springframework.http.HttpHeaders.*;
 import static org.springframework.http.HttpMethod.GET;
 import static org.springframework.http.HttpMethod.POST;
+import static org.springframework.http.HttpStatus.INTERNAL_SERVER_ERROR;
+import static org.springframework.http.HttpStatus.NOT_MODIFIED;
+import static org.springframework.http.HttpStatus.OK;
 import static org.springframework.http.MediaType.APPLICATION_JSON;
 import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
 import static org.springframework.test.web.client.ExpectedCount.once;
 import static org.springframework.test.web.client.match.MockRestRequestMatchers.*;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
 import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
 
-@SpringJUnitConfig(MovieApiConnector.class)
-@RestClientTest(MovieApiConnector.class)
+@SpringJUnitConfig({MovieApiConnector.class, ProtobufConfig.class, MovieApiConnectorTest.MovieApiTestConfig.class})
+@RestClientTest(components = MovieApiConnector.class, properties = {"movie-api.movies-batch-size=2", "movie-api.wire-format=JSON"})
+@ImportAutoConfiguration({CodecsAutoConfiguration.class, WebClientAutoConfiguration.class})
 @ActiveProfiles("test")
 class MovieApiConnectorTest {
     @Autowired
     private MovieApiConnector movieApiConnector;
-    @MockitoBean
-    private MovieApiConfig movieApiConfig;
+    @MockitoBean(name = "movieApiRequestFactory")
+    private ClientHttpRequestFactory movieApiRequestFactory;
+    @MockitoBean(name = "movieApiHttpConnector")
+    private ClientHttpConnector movieApiHttpConnector;
+    @Autowired
+    private CircuitBreaker movieApiCircuitBreaker;
 
     private MockRestServiceServer server;
+    private CorrelationContext.Scope correlationScope;
 
     private static final String BASE_URL = "http://localhost:8091/movie-api";
     private static final String API_KEY = "some-api-key";
     private static final String MOVIES_PATH = "/movies";
+    private static final String MOVIES_BATCH_PATH = "/movies/batch";
     private static final String MOVIE_BY_ID_PATH = "/movies/{movie_id}";
+    private static final String MOVIE_CHANGES_PATH = "/movies/changes";
     private static final String CORRELATION_ID = "256a46fb-f91a-402a-b45e-065cbe5f2aa9";
+    private static final String OTHER_CORRELATION_ID = "8f0c2e1a-4b7d-4c3e-9a51-6d2f7b8e0c14";
+    private static final String ETAG_VALUE = "\"7d1a5c3e\"";
 
     private static final Long ID = 15L;
+    private static final Long SECOND_ID = 16L;
+    private static final Long THIRD_ID = 17L;
     private static final String TITLE = "Some movie";
     private static final LocalDate RELEASE_DATE = LocalDate.of(2022, 7, 19);
 
     private static final JsonMapper jsonMapper = JsonMapper.builder()
             .propertyNamingStrategy(PropertyNamingStrategies.SNAKE_CASE)
             .build();
+    private static final HedgingConfig hedgingConfig = new HedgingConfig();
 
     @BeforeEach
     void init() {
+        hedgingConfig.setEnabled(false);
+        movieApiCircuitBreaker.reset();
+
         RestTemplate restTemplate = (RestTemplate) ReflectionTestUtils.getField(movieApiConnector, "restTemplate");
         assertNotNull(restTemplate);
         server = MockRestServiceServer.createServer(restTemplate);
 
-        MockHttpServletRequest request = new MockHttpServletRequest();
-        request.setAttribute(CORRELATION_ID_HEADER.getHeaderName(), CORRELATION_ID);
-        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        Cache<?, ?> validatedResponses = (Cache<?, ?>) ReflectionTestUtils.getField(movieApiConnector, "validatedResponses");
+        assertNotNull(validatedResponses);
+        validatedResponses.invalidateAll();
+
+        correlationScope = CorrelationContext.of(CORRELATION_ID).open();
+    }
 
-        when(movieApiConfig.getBaseUrl())
-                .thenReturn(BASE_URL);
-        when(movieApiConfig.getApiKey())
-                .thenReturn(API_KEY);
-        when(movieApiConfig.getMoviesPath())
-                .thenReturn(MOVIES_PATH);
-        when(movieApiConfig.getMovieByIdPath())
-                .thenReturn(MOVIE_BY_ID_PATH);
+    @AfterEach
+    void reset() {
+        correlationScope.close();
     }
 
     private URI getMovieByIdUri() {
@@ -88,6 +147,14 @@ class MovieApiConnectorTest {
                 .toUri();
     }
 
+    private URI getMoviesByIdsUri(String movieIds) {
+        return UriComponentsBuilder.fromUriString(BASE_URL)
+                .path(MOVIES_PATH)
+                .queryParam("ids", movieIds)
+                .build()
+                .toUri();
+    }
+
     private URI getMoviesUri() {
         return UriComponentsBuilder.fromUriString(BASE_URL)
                 .path(MOVIES_PATH)
@@ -95,6 +162,13 @@ class MovieApiConnectorTest {
                 .toUri();
     }
 
+    private URI getMoviesBatchUri() {
+        return UriComponentsBuilder.fromUriString(BASE_URL)
+                .path(MOVIES_BATCH_PATH)
+                .build()
+                .toUri();
+    }
+
     @Test
     void getMovieById() {
         // GIVEN
@@ -137,6 +211,353 @@ class MovieApiConnectorTest {
         assertTrue(resultOpt.isEmpty());
     }
 
+    @Test
+    void getMovieByIdRevalidated() {
+        // GIVEN
+        MovieDto movie = initMovie();
+        HttpHeaders responseHeaders = new HttpHeaders();
+        responseHeaders.setETag(ETAG_VALUE);
+
+        server.expect(once(), requestTo(getMovieByIdUri()))
+                .andExpect(method(GET))
+                .andExpect(headerDoesNotExist(IF_NONE_MATCH))
+                .andRespond(withSuccess(jsonMapper.writeValueAsString(movie), APPLICATION_JSON).headers(responseHeaders));
+        server.expect(once(), requestTo(getMovieByIdUri()))
+                .andExpect(method(GET))
+                .andExpect(header(IF_NONE_MATCH, ETAG_VALUE))
+                .andExpect(header(API_KEY_HEADER.getHeaderName(), API_KEY))
+                .andRespond(withStatus(NOT_MODIFIED).headers(responseHeaders));
+        server.expect(once(), requestTo(getMovieByIdUri()))
+                .andExpect(method(GET))
+                .andExpect(header(IF_NONE_MATCH, ETAG_VALUE))
+                .andRespond(withSuccess(jsonMapper.writeValueAsString(initMovie(SECOND_ID)), APPLICATION_JSON));
+
+        // WHEN
+        MovieDto firstResult = movieApiConnector.getMovieById(ID).orElseThrow();
+        MovieDto revalidatedResult = movieApiConnector.getMovieById(ID).orElseThrow();
+        MovieDto changedResult = movieApiConnector.getMovieById(ID).orElseThrow();
+
+        // THEN
+        server.verify();
+        assertNotSame(firstResult, revalidatedResult);
+        assertEquals(ID, revalidatedResult.getId());
+        assertEquals(TITLE, revalidatedResult.getTitle());
+        assertEquals(RELEASE_DATE, revalidatedResult.getReleaseDate());
+        assertEquals(SECOND_ID, changedResult.getId());
+    }
+
+    @Test
+    void getMovieByIdHedgedIsRecordedOnceByCircuitBreaker() {
+        // GIVEN
+        enableHedging();
+        MovieDto movie = initMovie();
+
+        server.expect(once(), requestTo(getMovieByIdUri()))
+                .andRespond(request -> {
+                    sleep(Duration.ofMillis(200));
+                    return withSuccess(jsonMapper.writeValueAsString(movie), APPLICATION_JSON).createResponse(request);
+                });
+        server.expect(once(), requestTo(getMovieByIdUri()))
+                .andRespond(withStatus(INTERNAL_SERVER_ERROR));
+
+        // WHEN
+        Optional<MovieDto> resultOpt = movieApiConnector.getMovieById(ID);
+
+        // THEN
+        server.verify();
+        assertEquals(ID, resultOpt.orElseThrow().getId());
+        assertEquals(1, movieApiCircuitBreaker.getMetrics().getNumberOfSuccessfulCalls());
+        assertEquals(0, movieApiCircuitBreaker.getMetrics().getNumberOfFailedCalls());
+    }
+
+    @Test
+    void getMovieByIdAsync() {
+        // GIVEN
+        MovieDto movie = initMovie();
+        List<MockClientHttpRequest> requests = mockAsyncResponse(GET, getMovieByIdUri(), jsonMapper.writeValueAsString(movie));
+
+        // WHEN
+        Optional<MovieDto> resultOpt = movieApiConnector.getMovieByIdAsync(ID).join();
+
+        // THEN
+        assertEquals(1, requests.size());
+        assertEquals(CORRELATION_ID, requests.getFirst().getHeaders().getFirst(CORRELATION_ID_HEADER.getHeaderName()));
+        assertEquals(API_KEY, requests.getFirst().getHeaders().getFirst(API_KEY_HEADER.getHeaderName()));
+
+        assertNotNull(resultOpt);
+        assertTrue(resultOpt.isPresent());
+
+        MovieDto result = resultOpt.get();
+        assertEquals(ID, result.getId());
+        assertEquals(TITLE, result.getTitle());
+        assertEquals(RELEASE_DATE, result.getReleaseDate());
+    }
+
+    @Test
+    void getMovieByIdAsyncHedgedIsRecordedOnceByCircuitBreaker() {
+        // GIVEN
+        enableHedging();
+        MovieDto movie = initMovie();
+        AtomicInteger attempts = new AtomicInteger();
+        when(movieApiHttpConnector.connect(eq(GET), eq(getMovieByIdUri()), any()))
+                .thenAnswer(invocation -> {
+                    boolean primary = attempts.incrementAndGet() == 1;
+                    MockClientHttpResponse response = primary
+                            ? initAsyncResponse(OK, jsonMapper.writeValueAsString(movie), null)
+                            : initAsyncResponse(INTERNAL_SERVER_ERROR, null, null);
+                    Function<ClientHttpRequest, Mono<Void>> requestCallback = invocation.getArgument(2);
+                    Mono<MockClientHttpResponse> answer = requestCallback.apply(new MockClientHttpRequest(GET, getMovieByIdUri()))
+                            .thenReturn(response);
+                    return primary ? answer.delayElement(Duration.ofMillis(200)) : answer;
+                });
+
+        // WHEN
+        Optional<MovieDto> resultOpt = movieApiConnector.getMovieByIdAsync(ID).join();
+
+        // THEN
+        assertEquals(2, attempts.get());
+        assertEquals(ID, resultOpt.orElseThrow().getId());
+        assertEquals(1, movieApiCircuitBreaker.getMetrics().getNumberOfSuccessfulCalls());
+        assertEquals(0, movieApiCircuitBreaker.getMetrics().getNumberOfFailedCalls());
+    }
+
+    @Test
+    void getMovieByIdAsyncWithoutResult() {
+        // GIVEN
+        mockAsyncResponse(GET, getMovieByIdUri(), null);
+
+        // WHEN
+        Optional<MovieDto> resultOpt = movieApiConnector.getMovieByIdAsync(ID).join();
+
+        // THEN
+        assertNotNull(resultOpt);
+        assertTrue(resultOpt.isEmpty());
+    }
+
+    @Test
+    void getMovieByIdAsyncCoalescedKeepsCallerContexts() {
+        // GIVEN
+        CompletableFuture<Void> responseSent = new CompletableFuture<>();
+        MockClientHttpResponse response = initAsyncResponse(OK, jsonMapper.writeValueAsString(initMovie()), null);
+        List<MockClientHttpRequest> requests = new ArrayList<>();
+        when(movieApiHttpConnector.connect(eq(GET), eq(getMovieByIdUri()), any()))
+                .thenAnswer(invocation -> {
+                    MockClientHttpRequest request = new MockClientHttpRequest(GET, getMovieByIdUri());
+                    requests.add(request);
+
+                    Function<ClientHttpRequest, Mono<Void>> requestCallback = invocation.getArgument(2);
+                    return requestCallback.apply(request)
+                            .then(Mono.fromFuture(responseSent))
+                            .thenReturn(response);
+                });
+
+        CompletableFuture<String> firstCallerCorrelationId = movieApiConnector.getMovieByIdAsync(ID)
+                .thenApply(movie -> CorrelationContext.currentCorrelationId());
+        CompletableFuture<String> secondCallerCorrelationId;
+        try (CorrelationContext.Scope ignored = CorrelationContext.of(OTHER_CORRELATION_ID).open()) {
+            secondCallerCorrelationId = movieApiConnector.getMovieByIdAsync(ID)
+                    .thenApply(movie -> CorrelationContext.currentCorrelationId());
+        }
+
+        // WHEN
+        CompletableFuture.runAsync(() -> responseSent.complete(null)).join();
+
+        // THEN
+        assertEquals(1, requests.size());
+        assertEquals(CORRELATION_ID, firstCallerCorrelationId.join());
+        assertEquals(OTHER_CORRELATION_ID, secondCallerCorrelationId.join());
+    }
+
+    @Test
+    void getMovieByIdAsyncRevalidated() {
+        // GIVEN
+        MovieDto movie = initMovie();
+        List<MockClientHttpRequest> requests = mockAsyncResponses(GET, getMovieByIdUri(),
+                initAsyncResponse(OK, jsonMapper.writeValueAsString(movie), ETAG_VALUE),
+                initAsyncResponse(NOT_MODIFIED, null, ETAG_VALUE));
+
+        // WHEN
+        MovieDto firstResult = movieApiConnector.getMovieByIdAsync(ID).join().orElseThrow();
+        // a caller changing its movie does not change the movie of the next callers
+        firstResult.setTitle("Some other movie");
+        MovieDto revalidatedResult = movieApiConnector.getMovieByIdAsync(ID).join().orElseThrow();
+
+        // THEN
+        assertEquals(2, requests.size());
+        assertNull(requests.getFirst().getHeaders().getFirst(IF_NONE_MATCH));
+        assertEquals(ETAG_VALUE, requests.get(1).getHeaders().getFirst(IF_NONE_MATCH));
+        assertEquals(ID, revalidatedResult.getId());
+        assertEquals(TITLE, revalidatedResult.getTitle());
+        assertEquals(RELEASE_DATE, revalidatedResult.getReleaseDate());
+    }
+
+    @Test
+    void getMoviesByIds() {
+        // GIVEN
+        MovieBatchDto firstChunk = new MovieBatchDto();
+        firstChunk.getMovies().add(initMovie());
+        firstChunk.getMissingIds().add(SECOND_ID);
+
+        MovieBatchDto secondChunk = new MovieBatchDto();
+        secondChunk.getMovies().add(initMovie(THIRD_ID));
+
+        server.expect(once(), requestTo(getMoviesByIdsUri(ID + "," + SECOND_ID)))
+                .andExpect(method(GET))
+                .andExpect(header(CORRELATION_ID_HEADER.getHeaderName(), CORRELATION_ID))
+                .andExpect(header(API_KEY_HEADER.getHeaderName(), API_KEY))
+                .andRespond(withSuccess(jsonMapper.writeValueAsString(firstChunk), APPLICATION_JSON));
+        server.expect(once(), requestTo(getMoviesByIdsUri(String.valueOf(THIRD_ID))))
+                .andExpect(method(GET))
+                .andExpect(header(CORRELATION_ID_HEADER.getHeaderName(), CORRELATION_ID))
+                .andExpect(header(API_KEY_HEADER.getHeaderName(), API_KEY))
+                .andRespond(withSuccess(jsonMapper.writeValueAsString(secondChunk), APPLICATION_JSON));
+
+        // WHEN
+        MovieBatchDto result = movieApiConnector.getMoviesByIds(List.of(ID, SECOND_ID, THIRD_ID, ID));
+
+        // THEN
+        server.verify();
+
+        assertNotNull(result);
+        assertEquals(2, result.getMovies().size());
+        assertEquals(ID, result.getMovies().get(0).getId());
+        assertEquals(TITLE, result.getMovies().get(0).getTitle());
+        assertEquals(RELEASE_DATE, result.getMovies().get(0).getReleaseDate());
+        assertEquals(THIRD_ID, result.getMovies().get(1).getId());
+        assertEquals(List.of(SECOND_ID), result.getMissingIds());
+    }
+
+    @Test
+    void getMoviesByIdsAsync() {
+        // GIVEN
+        MovieBatchDto firstChunk = new MovieBatchDto();
+        firstChunk.getMovies().add(initMovie());
+        firstChunk.getMissingIds().add(SECOND_ID);
+
+        MovieBatchDto secondChunk = new MovieBatchDto();
+        secondChunk.getMovies().add(initMovie(THIRD_ID));
+
+        mockAsyncResponse(GET, getMoviesByIdsUri(ID + "," + SECOND_ID), jsonMapper.writeValueAsString(firstChunk));
+        mockAsyncResponse(GET, getMoviesByIdsUri(String.valueOf(THIRD_ID)), jsonMapper.writeValueAsString(secondChunk));
+
+        // WHEN
+        MovieBatchDto result = movieApiConnector.getMoviesByIdsAsync(List.of(ID, SECOND_ID, THIRD_ID, ID)).join();
+
+        // THEN
+        assertNotNull(result);
+        assertEquals(2, result.getMovies().size());
+        assertEquals(ID, result.getMovies().get(0).getId());
+        assertEquals(THIRD_ID, result.getMovies().get(1).getId());
+        assertEquals(List.of(SECOND_ID), result.getMissingIds());
+    }
+
+    @Test
+    void findMoviesByTitlePrefixAsync() {
+        // GIVEN
+        List<MockClientHttpRequest> requests = mockAsyncResponse(GET, URI.create(BASE_URL + MOVIES_PATH + "?title_prefix=some%20movie&limit=20"),
+                jsonMapper.writeValueAsString(List.of(initMovie(), initMovie(SECOND_ID))));
+
+        // WHEN
+        List<MovieDto> result = movieApiConnector.findMoviesByTitlePrefixAsync("some movie", 20).join();
+
+        // THEN
+        assertEquals(1, requests.size());
+        assertEquals(API_KEY, requests.getFirst().getHeaders().getFirst(API_KEY_HEADER.getHeaderName()));
+        assertEquals(2, result.size());
+        assertEquals(ID, result.get(0).getId());
+        assertEquals(TITLE, result.get(0).getTitle());
+        assertEquals(RELEASE_DATE, result.get(0).getReleaseDate());
+        assertEquals(SECOND_ID, result.get(1).getId());
+    }
+
+    @Test
+    void findMoviesByReleaseDateAsync() {
+        // GIVEN
+        mockAsyncResponse(GET, URI.create(BASE_URL + MOVIES_PATH + "?release_date_from=2022-01-01&release_date_to=2022-07-19&limit=5"),
+                jsonMapper.writeValueAsString(List.of(initMovie())));
+
+        // WHEN
+        List<MovieDto> result = movieApiConnector.findMoviesByReleaseDateAsync(LocalDate.of(2022, 1, 1), RELEASE_DATE, 5).join();
+
+        // THEN
+        assertEquals(1, result.size());
+        assertEquals(ID, result.getFirst().getId());
+        assertEquals(RELEASE_DATE, result.getFirst().getReleaseDate());
+    }
+
+    @Test
+    void getMoviePageAsync() {
+        // GIVEN
+        MockClientHttpResponse response = initAsyncResponse(OK, jsonMapper.writeValueAsString(List.of(initMovie(), initMovie(SECOND_ID))), null);
+        response.getHeaders().set(LINK, "<" + BASE_URL + MOVIES_PATH + "?limit=2&cursor=16>; rel=\"next\"");
+        List<MockClientHttpRequest> requests = mockAsyncResponses(GET, URI.create(BASE_URL + MOVIES_PATH + "?limit=2"), response);
+
+        // WHEN
+        MoviePage result = movieApiConnector.getMoviePageAsync(null, 2).join();
+
+        // THEN
+        assertEquals(1, requests.size());
+        assertEquals(API_KEY, requests.getFirst().getHeaders().getFirst(API_KEY_HEADER.getHeaderName()));
+        assertEquals(APPLICATION_JSON_VALUE, requests.getFirst().getHeaders().getFirst(ACCEPT));
+        assertEquals("16", result.nextCursor());
+        List<MovieDto> movies = result.movies().collectList().block();
+        assertNotNull(movies);
+        assertEquals(2, movies.size());
+        assertEquals(ID, movies.get(0).getId());
+        assertEquals(TITLE, movies.get(0).getTitle());
+        assertEquals(RELEASE_DATE, movies.get(0).getReleaseDate());
+        assertEquals(SECOND_ID, movies.get(1).getId());
+    }
+
+    @Test
+    void getLastMoviePageAsync() {
+        // GIVEN
+        mockAsyncResponse(GET, URI.create(BASE_URL + MOVIES_PATH + "?cursor=16&limit=2"),
+                jsonMapper.writeValueAsString(List.of(initMovie(THIRD_ID))));
+
+        // WHEN
+        MoviePage result = movieApiConnector.getMoviePageAsync("16", 2).join();
+
+        // THEN
+        assertNull(result.nextCursor());
+        List<MovieDto> movies = result.movies().collectList().block();
+        assertNotNull(movies);
+        assertEquals(1, movies.size());
+        assertEquals(THIRD_ID, movies.getFirst().getId());
+    }
+
+    @Test
+    void getMovieChangesAsync() {
+        // GIVEN
+        List<MockClientHttpRequest> requests = mockAsyncResponse(GET, URI.create(BASE_URL + MOVIE_CHANGES_PATH + "?after=100&wait_ms=5000"),
+                "{\"sequence\":102,\"reset\":false,\"movie_ids\":[15,16]}");
+
+        // WHEN
+        MovieChangesDto result = movieApiConnector.getMovieChangesAsync(100L, Duration.ofSeconds(5)).join();
+
+        // THEN
+        assertEquals(1, requests.size());
+        assertEquals(API_KEY, requests.getFirst().getHeaders().getFirst(API_KEY_HEADER.getHeaderName()));
+        assertEquals(APPLICATION_JSON_VALUE, requests.getFirst().getHeaders().getFirst(ACCEPT));
+        assertEquals(102, result.getSequence());
+        assertFalse(result.isReset());
+        assertEquals(List.of(ID, SECOND_ID), result.getMovieIds());
+    }
+
+    @Test
+    void getMovieChangesAsyncWithoutSequence() {
+        // GIVEN
+        mockAsyncResponse(GET, URI.create(BASE_URL + MOVIE_CHANGES_PATH), "{\"sequence\":102,\"reset\":true,\"movie_ids\":[]}");
+
+        // WHEN
+        MovieChangesDto result = movieApiConnector.getMovieChangesAsync(null, Duration.ofSeconds(5)).join();
+
+        // THEN
+        assertEquals(102, result.getSequence());
+        assertTrue(result.isReset());
+        assertEquals(List.of(), result.getMovieIds());
+    }
+
     @Test
     void saveMovie() {
         // GIVEN
@@ -154,11 +575,260 @@ class MovieApiConnectorTest {
         movieApiConnector.saveMovie(movie);
     }
 
+    @Test
+    void saveMovieAsync() {
+        // GIVEN
+        MovieDto movie = initMovie();
+        List<MockClientHttpRequest> requests = mockAsyncResponse(POST, getMoviesUri(), null);
+
+        // WHEN
+        movieApiConnector.saveMovieAsync(movie).join();
+
+        // THEN
+        assertEquals(1, requests.size());
+        MockClientHttpRequest request = requests.getFirst();
+        assertEquals(CORRELATION_ID, request.getHeaders().getFirst(CORRELATION_ID_HEADER.getHeaderName()));
+        assertEquals(API_KEY, request.getHeaders().getFirst(API_KEY_HEADER.getHeaderName()));
+        assertEquals(APPLICATION_JSON, request.getHeaders().getContentType());
+        assertEquals(jsonMapper.writeValueAsString(movie), request.getBodyAsString().block());
+    }
+
+    @Test
+    void saveMovies() {
+        // GIVEN
+        List<MovieDto> movies = List.of(initMovie(), initMovie(SECOND_ID));
+
+        server.expect(once(), requestTo(getMoviesBatchUri()))
+                .andExpect(method(POST))
+                .andExpect(header(CORRELATION_ID_HEADER.getHeaderName(), CORRELATION_ID))
+                .andExpect(header(API_KEY_HEADER.getHeaderName(), API_KEY))
+                .andExpect(header(CONTENT_TYPE, APPLICATION_JSON_VALUE))
+                .andExpect(content().string(jsonMapper.writeValueAsString(movies)))
+                .andRespond(withSuccess());
+
+        // WHEN
+        movieApiConnector.saveMovies(movies);
+
+        // THEN
+        server.verify();
+    }
+
+    @Test
+    void getTimeout() {
+        // WHEN
+        Duration timeout = movieApiConnector.getTimeout();
+
+        // THEN
+        // 3 attempts of 2s for a connection and 10s for the response, with backoffs of at most 75ms then 150ms
+        assertEquals(Duration.ofMillis(36_225), timeout);
+    }
+
+    @Nested
+    @TestPropertySource(properties = "movie-api.wire-format=PROTOBUF")
+    class WithProtobufWireFormat {
+        private static final String PROTOBUF_ACCEPT = "application/x-protobuf, application/json;q=0.9";
+        private static final MediaType APPLICATION_PROTOBUF = MediaType.parseMediaType("application/x-protobuf");
+
+        @Test
+        void getMovieById() {
+            // GIVEN
+            server.expect(once(), requestTo(getMovieByIdUri()))
+                    .andExpect(method(GET))
+                    .andExpect(header(ACCEPT, PROTOBUF_ACCEPT))
+                    .andExpect(header(API_KEY_HEADER.getHeaderName(), API_KEY))
+                    .andRespond(withSuccess(initMovieMessage(ID).toByteArray(), APPLICATION_PROTOBUF));
+
+            // WHEN
+            MovieDto result = movieApiConnector.getMovieById(ID).orElseThrow();
+
+            // THEN
+            server.verify();
+            assertEquals(ID, result.getId());
+            assertEquals(TITLE, result.getTitle());
+            assertEquals(RELEASE_DATE, result.getReleaseDate());
+        }
+
+        @Test
+        void getMoviesByIdsAsync() {
+            // GIVEN
+            MovieBatch movieBatch = MovieBatch.newBuilder()
+                    .addMovies(initMovieMessage(ID))
+                    .addMissingIds(SECOND_ID)
+                    .build();
+            MockClientHttpResponse response = new MockClientHttpResponse(OK);
+            response.getHeaders().setContentType(APPLICATION_PROTOBUF);
+            response.setBody(Flux.just(DefaultDataBufferFactory.sharedInstance.wrap(movieBatch.toByteArray())));
+            List<MockClientHttpRequest> requests = mockAsyncResponses(GET, getMoviesByIdsUri(ID + "," + SECOND_ID), response);
+
+            // WHEN
+            MovieBatchDto result = movieApiConnector.getMoviesByIdsAsync(List.of(ID, SECOND_ID)).join();
+
+            // THEN
+            assertEquals(1, requests.size());
+            assertEquals(PROTOBUF_ACCEPT, requests.getFirst().getHeaders().getFirst(ACCEPT));
+            assertEquals(1, result.getMovies().size());
+            assertEquals(ID, result.getMovies().getFirst().getId());
+            assertEquals(TITLE, result.getMovies().getFirst().getTitle());
+            assertEquals(RELEASE_DATE, result.getMovies().getFirst().getReleaseDate());
+            assertEquals(List.of(SECOND_ID), result.getMissingIds());
+        }
+
+        @Test
+        void findMoviesByTitlePrefixAsync() {
+            // GIVEN
+            MovieList movies = MovieList.newBuilder()
+                    .addMovies(initMovieMessage(ID))
+                    .addMovies(initMovieMessage(SECOND_ID))
+                    .build();
+            MockClientHttpResponse response = new MockClientHttpResponse(OK);
+            response.getHeaders().setContentType(APPLICATION_PROTOBUF);
+            response.setBody(Flux.just(DefaultDataBufferFactory.sharedInstance.wrap(movies.toByteArray())));
+            List<MockClientHttpRequest> requests = mockAsyncResponses(GET, URI.create(BASE_URL + MOVIES_PATH + "?title_prefix=some&limit=20"), response);
+
+            // WHEN
+            List<MovieDto> result = movieApiConnector.findMoviesByTitlePrefixAsync("some", 20).join();
+
+            // THEN
+            assertEquals(PROTOBUF_ACCEPT, requests.getFirst().getHeaders().getFirst(ACCEPT));
+            assertEquals(2, result.size());
+            assertEquals(ID, result.get(0).getId());
+            assertEquals(TITLE, result.get(0).getTitle());
+            assertEquals(RELEASE_DATE, result.get(0).getReleaseDate());
+            assertEquals(SECOND_ID, result.get(1).getId());
+        }
+
+        @Test
+        void saveMovieAsync() {
+            // GIVEN
+            List<MockClientHttpRequest> requests = mockAsyncResponse(POST, getMoviesUri(), null);
+
+            // WHEN
+            movieApiConnector.saveMovieAsync(initMovie()).join();
+
+            // THEN
+            assertEquals(1, requests.size());
+            MockClientHttpRequest request = requests.getFirst();
+            assertEquals(APPLICATION_PROTOBUF, request.getHeaders().getContentType());
+            byte[] body = DataBufferUtils.join(request.getBody())
+                    .map(dataBuffer -> {
+                        byte[] bytes = new byte[dataBuffer.readableByteCount()];
+                        dataBuffer.read(bytes);
+                        DataBufferUtils.release(dataBuffer);
+                        return bytes;
+                    })
+                    .block();
+            assertArrayEquals(initMovieMessage(ID).toByteArray(), body);
+        }
+
+        @Test
+        void saveMovies() {
+            // GIVEN
+            MovieList movies = MovieList.newBuilder()
+                    .addMovies(initMovieMessage(ID))
+                    .addMovies(initMovieMessage(SECOND_ID))
+                    .build();
+
+            server.expect(once(), requestTo(getMoviesBatchUri()))
+                    .andExpect(method(POST))
+                    .andExpect(header(CONTENT_TYPE, APPLICATION_PROTOBUF.toString()))
+                    .andExpect(content().bytes(movies.toByteArray()))
+                    .andRespond(withSuccess());
+
+            // WHEN
+            movieApiConnector.saveMovies(List.of(initMovie(), initMovie(SECOND_ID)));
+
+            // THEN
+            server.verify();
+        }
+
+        private Movie initMovieMessage(Long id) {
+            return Movie.newBuilder()
+                    .setId(id)
+                    .setTitle(TITLE)
+                    .setReleaseDate(RELEASE_DATE.toEpochDay())
+                    .build();
+        }
+    }
+
+    private void enableHedging() {
+        hedgingConfig.setEnabled(true);
+        hedgingConfig.setMinDelay(Duration.ofMillis(10));
+        hedgingConfig.setMaxDelay(Duration.ofMillis(10));
+    }
+
+    private void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private List<MockClientHttpRequest> mockAsyncResponse(HttpMethod method, URI uri, String body) {
+        return mockAsyncResponses(method, uri, initAsyncResponse(OK, body, null));
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<MockClientHttpRequest> mockAsyncResponses(HttpMethod method, URI uri, MockClientHttpResponse... responses) {
+        List<MockClientHttpRequest> requests = new ArrayList<>();
+        when(movieApiHttpConnector.connect(eq(method), eq(uri), any()))
+                .thenAnswer(invocation -> {
+                    MockClientHttpRequest request = new MockClientHttpRequest(method, uri);
+                    requests.add(request);
+
+                    MockClientHttpResponse response = responses[Math.min(requests.size(), responses.length) - 1];
+                    Function<ClientHttpRequest, Mono<Void>> requestCallback = invocation.getArgument(2);
+                    return requestCallback.apply(request)
+                            .thenReturn(response);
+                });
+        return requests;
+    }
+
+    private MockClientHttpResponse initAsyncResponse(HttpStatus status, String body, String eTag) {
+        MockClientHttpResponse response = new MockClientHttpResponse(status);
+        if (body != null) {
+            response.getHeaders().setContentType(APPLICATION_JSON);
+            response.setBody(body);
+        }
+        if (eTag != null) {
+            response.getHeaders().setETag(eTag);
+        }
+        return response;
+    }
+
     private MovieDto initMovie() {
+        return initMovie(ID);
+    }
+
+    private MovieDto initMovie(Long id) {
         MovieDto movie = new MovieDto();
-        movie.setId(ID);
+        movie.setId(id);
         movie.setTitle(TITLE);
         movie.setReleaseDate(RELEASE_DATE);
         return movie;
     }
+
+    @Configuration
+    static class MovieApiTestConfig {
+        @Bean
+        public MovieApiConfig movieApiConfig() {
+            return new MovieApiConfig();
+        }
+
+        @Bean
+        public CircuitBreaker movieApiCircuitBreaker() {
+            return CircuitBreaker.ofDefaults("movie-api");
+        }
+
+        @Bean
+        public Retry movieApiRetry() {
+            return Retry.of("movie-api", RetryConfig.custom().maxAttempts(1).build());
+        }
+
+        @Bean
+        public RequestHedger movieApiRequestHedger() {
+            return new RequestHedger("movie-api", hedgingConfig, new SimpleMeterRegistry());
+        }
+    }
 }
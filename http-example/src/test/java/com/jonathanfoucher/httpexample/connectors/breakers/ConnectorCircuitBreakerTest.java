@@ -0,0 +1,230 @@
+package com.jonathanfoucher.httpexample.connectors.breakers;
+
+import com.jonathanfoucher.httpexample.common.errors.UpstreamUnavailableException;
+import com.jonathanfoucher.httpexample.connectors.configs.CircuitBreakingConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.http.HttpStatus.INTERNAL_SERVER_ERROR;
+import static org.springframework.http.HttpStatus.NOT_FOUND;
+
+class ConnectorCircuitBreakerTest {
+    private static final String RESULT = "some result";
+
+    private final CircuitBreakingConfig circuitBreakingConfig = new CircuitBreakingConfig();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private CircuitBreaker circuitBreaker;
+    private ConnectorCircuitBreaker connectorCircuitBreaker;
+
+    @BeforeEach
+    void init() {
+        circuitBreakingConfig.setSlidingWindowSize(4);
+        circuitBreakingConfig.setMinimumNumberOfCalls(4);
+        circuitBreakingConfig.setWaitDurationInOpenState(Duration.ofSeconds(30));
+        circuitBreakingConfig.setPermittedNumberOfCallsInHalfOpenState(1);
+        circuitBreaker = CircuitBreakerFactory.createCircuitBreaker("movie-api", circuitBreakingConfig, meterRegistry);
+        connectorCircuitBreaker = new ConnectorCircuitBreaker(circuitBreaker);
+    }
+
+    @Test
+    void executeOpensAfterFailures() {
+        // GIVEN
+        AtomicInteger calls = new AtomicInteger();
+        for (int i = 0; i < 4; i++) {
+            assertThrows(HttpServerErrorException.class, () -> connectorCircuitBreaker.execute(() -> {
+                calls.incrementAndGet();
+                throw new HttpServerErrorException(INTERNAL_SERVER_ERROR);
+            }));
+        }
+
+        // WHEN / THEN
+        UpstreamUnavailableException exception = assertThrows(UpstreamUnavailableException.class, () -> connectorCircuitBreaker.execute(() -> {
+            calls.incrementAndGet();
+            return RESULT;
+        }));
+        assertEquals(Duration.ofSeconds(30), exception.getRetryAfter());
+        assertEquals(4, calls.get());
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+
+        assertEquals(1, meterRegistry.get("resilience4j.circuitbreaker.not.permitted.calls").counter().count());
+        assertEquals(1, meterRegistry.get("resilience4j.circuitbreaker.transitions").tag("from", "closed").tag("to", "open").counter().count());
+        assertEquals(1, meterRegistry.get("resilience4j.circuitbreaker.state").tag("state", "open").gauge().value());
+    }
+
+    @Test
+    void executeIgnoresClientErrors() {
+        // GIVEN
+        for (int i = 0; i < 4; i++) {
+            assertThrows(HttpClientErrorException.class, () -> connectorCircuitBreaker.execute(() -> {
+                throw new HttpClientErrorException(NOT_FOUND);
+            }));
+        }
+
+        // WHEN
+        String result = connectorCircuitBreaker.execute(() -> RESULT);
+
+        // THEN
+        assertEquals(RESULT, result);
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    void executeClosesAfterSuccessfulProbe() {
+        // GIVEN
+        circuitBreaker.transitionToOpenState();
+        circuitBreaker.transitionToHalfOpenState();
+
+        // WHEN
+        String result = connectorCircuitBreaker.execute(() -> RESULT);
+
+        // THEN
+        assertEquals(RESULT, result);
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    void executeRecordsFailedProbeThrowingError() {
+        // GIVEN
+        circuitBreaker.transitionToOpenState();
+        circuitBreaker.transitionToHalfOpenState();
+
+        // WHEN
+        assertThrows(StackOverflowError.class, () -> connectorCircuitBreaker.execute(() -> {
+            throw new StackOverflowError();
+        }));
+
+        // THEN
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+    }
+
+    @Test
+    void executeAsyncOpensAfterFailures() {
+        // GIVEN
+        for (int i = 0; i < 4; i++) {
+            CompletableFuture<String> future = connectorCircuitBreaker.executeAsync(() -> CompletableFuture.failedFuture(new HttpServerErrorException(INTERNAL_SERVER_ERROR)));
+            assertThrows(CompletionException.class, future::join);
+        }
+
+        // WHEN
+        CompletableFuture<String> result = connectorCircuitBreaker.executeAsync(() -> CompletableFuture.completedFuture(RESULT));
+
+        // THEN
+        assertThatThrownBy(result::join)
+                .isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(UpstreamUnavailableException.class);
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+    }
+
+    @Test
+    void executeAsyncRecordsFailedProbeThrowingError() {
+        // GIVEN
+        circuitBreaker.transitionToOpenState();
+        circuitBreaker.transitionToHalfOpenState();
+
+        // WHEN
+        assertThrows(StackOverflowError.class, () -> connectorCircuitBreaker.executeAsync(() -> {
+            throw new StackOverflowError();
+        }));
+
+        // THEN
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+    }
+
+    @Test
+    void executeAsyncWithSuccess() {
+        // WHEN
+        String result = connectorCircuitBreaker.executeAsync(() -> CompletableFuture.completedFuture(RESULT)).join();
+
+        // THEN
+        assertEquals(RESULT, result);
+        assertEquals(1, circuitBreaker.getMetrics().getNumberOfSuccessfulCalls());
+    }
+
+    @Test
+    void executeStreamAsyncOpensAfterMidStreamFailures() {
+        // GIVEN
+        for (int i = 0; i < 4; i++) {
+            ResponseEntity<Flux<String>> response = connectorCircuitBreaker.executeStreamAsync(() -> CompletableFuture.completedFuture(
+                    ResponseEntity.ok(Flux.just(RESULT).concatWith(Flux.error(new HttpServerErrorException(INTERNAL_SERVER_ERROR)))))).join();
+            assertThrows(HttpServerErrorException.class, () -> response.getBody().collectList().block());
+        }
+
+        // WHEN
+        CompletableFuture<ResponseEntity<Flux<String>>> result = connectorCircuitBreaker.executeStreamAsync(() -> CompletableFuture.completedFuture(
+                ResponseEntity.ok(Flux.just(RESULT))));
+
+        // THEN
+        assertThatThrownBy(result::join)
+                .isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(UpstreamUnavailableException.class);
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+    }
+
+    @Test
+    void executeStreamAsyncWithSuccess() {
+        // GIVEN
+        ResponseEntity<Flux<String>> response = connectorCircuitBreaker.executeStreamAsync(() -> CompletableFuture.completedFuture(
+                ResponseEntity.ok(Flux.just(RESULT, RESULT)))).join();
+        assertEquals(0, circuitBreaker.getMetrics().getNumberOfSuccessfulCalls());
+
+        // WHEN
+        List<String> result = response.getBody().collectList().block();
+
+        // THEN
+        assertEquals(List.of(RESULT, RESULT), result);
+        assertEquals(1, circuitBreaker.getMetrics().getNumberOfSuccessfulCalls());
+    }
+
+    @Test
+    void executeStreamAsyncCancelled() {
+        // GIVEN
+        circuitBreaker.transitionToOpenState();
+        circuitBreaker.transitionToHalfOpenState();
+        ResponseEntity<Flux<String>> response = connectorCircuitBreaker.executeStreamAsync(() -> CompletableFuture.completedFuture(
+                ResponseEntity.ok(Flux.just(RESULT, RESULT)))).join();
+
+        // WHEN
+        String result = response.getBody().blockFirst();
+
+        // THEN
+        assertEquals(RESULT, result);
+        assertEquals(0, circuitBreaker.getMetrics().getNumberOfBufferedCalls());
+        assertTrue(circuitBreaker.tryAcquirePermission());
+    }
+
+    @Test
+    void executeStreamAsyncNeverSubscribed() throws InterruptedException {
+        // GIVEN
+        circuitBreakingConfig.setSlowCallDurationThreshold(Duration.ofMillis(100));
+        circuitBreaker = CircuitBreakerFactory.createCircuitBreaker("movie-api-unsubscribed", circuitBreakingConfig, meterRegistry);
+        connectorCircuitBreaker = new ConnectorCircuitBreaker(circuitBreaker);
+        circuitBreaker.transitionToOpenState();
+        circuitBreaker.transitionToHalfOpenState();
+
+        // WHEN
+        ResponseEntity<Flux<String>> response = connectorCircuitBreaker.executeStreamAsync(() -> CompletableFuture.completedFuture(
+                ResponseEntity.ok(Flux.just(RESULT)))).join();
+        TimeUnit.MILLISECONDS.sleep(300);
+
+        // THEN
+        assertNotNull(response.getBody());
+        assertEquals(0, circuitBreaker.getMetrics().getNumberOfBufferedCalls());
+        assertTrue(circuitBreaker.tryAcquirePermission());
+    }
+}
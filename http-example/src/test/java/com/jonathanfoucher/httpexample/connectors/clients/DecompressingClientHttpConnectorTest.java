@@ -0,0 +1,102 @@
+package com.jonathanfoucher.httpexample.connectors.clients;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.client.reactive.ClientHttpConnector;
+import org.springframework.http.client.reactive.ClientHttpResponse;
+import org.springframework.mock.http.client.reactive.MockClientHttpRequest;
+import org.springframework.mock.http.client.reactive.MockClientHttpResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPOutputStream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.http.HttpHeaders.*;
+import static org.springframework.http.HttpMethod.GET;
+import static org.springframework.http.HttpStatus.OK;
+
+class DecompressingClientHttpConnectorTest {
+    private static final URI URI = java.net.URI.create("http://localhost:8091/movie-api/movies/5");
+    private static final String BODY = "{\"id\":5,\"title\":\"Some movie\",\"release_date\":\"2022-07-19\"}";
+
+    @Test
+    void connectWithGzipResponse() throws IOException {
+        // GIVEN
+        byte[] compressed = gzip(BODY);
+        MockClientHttpResponse response = new MockClientHttpResponse(OK);
+        response.getHeaders().set(CONTENT_ENCODING, "gzip");
+        response.getHeaders().setContentLength(compressed.length);
+        int half = compressed.length / 2;
+        response.setBody(Flux.just(wrap(compressed, 0, half), wrap(compressed, half, compressed.length)));
+
+        AtomicReference<MockClientHttpRequest> sentRequest = new AtomicReference<>();
+        DecompressingClientHttpConnector connector = new DecompressingClientHttpConnector(mockConnector(sentRequest, response));
+
+        // WHEN
+        ClientHttpResponse result = connector.connect(GET, URI, request -> request.setComplete()).block();
+
+        // THEN
+        assertNotNull(result);
+        assertEquals("gzip", sentRequest.get().getHeaders().getFirst(ACCEPT_ENCODING));
+        assertNull(result.getHeaders().getFirst(CONTENT_ENCODING));
+        assertNull(result.getHeaders().getFirst(CONTENT_LENGTH));
+        assertEquals(BODY, readBody(result));
+    }
+
+    @Test
+    void connectWithIdentityResponse() {
+        // GIVEN
+        MockClientHttpResponse response = new MockClientHttpResponse(OK);
+        response.setBody(BODY);
+
+        AtomicReference<MockClientHttpRequest> sentRequest = new AtomicReference<>();
+        DecompressingClientHttpConnector connector = new DecompressingClientHttpConnector(mockConnector(sentRequest, response));
+
+        // WHEN
+        ClientHttpResponse result = connector.connect(GET, URI, request -> request.setComplete()).block();
+
+        // THEN
+        assertSame(response, result);
+        assertEquals(BODY, readBody(result));
+    }
+
+    private ClientHttpConnector mockConnector(AtomicReference<MockClientHttpRequest> sentRequest, MockClientHttpResponse response) {
+        return (method, uri, requestCallback) -> {
+            MockClientHttpRequest request = new MockClientHttpRequest(method, uri);
+            sentRequest.set(request);
+            return requestCallback.apply(request).thenReturn(response);
+        };
+    }
+
+    private String readBody(ClientHttpResponse response) {
+        return DataBufferUtils.join(response.getBody())
+                .map(dataBuffer -> {
+                    String body = dataBuffer.toString(UTF_8);
+                    DataBufferUtils.release(dataBuffer);
+                    return body;
+                })
+                .block();
+    }
+
+    private DataBuffer wrap(byte[] bytes, int from, int to) {
+        byte[] chunk = new byte[to - from];
+        System.arraycopy(bytes, from, chunk, 0, chunk.length);
+        return DefaultDataBufferFactory.sharedInstance.wrap(chunk);
+    }
+
+    private byte[] gzip(String value) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream outputStream = new GZIPOutputStream(compressed)) {
+            outputStream.write(value.getBytes(UTF_8));
+        }
+        return compressed.toByteArray();
+    }
+}
@@ -0,0 +1,188 @@
+package com.jonathanfoucher.httpexample.connectors.clients;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.*;
+
+class GzipDecoderTest {
+    private static final DefaultDataBufferFactory BUFFER_FACTORY = DefaultDataBufferFactory.sharedInstance;
+    private static final String BODY = "{\"movies\":[" + "{\"id\":5,\"title\":\"Some movie\",\"release_date\":\"2022-07-19\"},".repeat(200) + "{}]}";
+
+    private final GzipDecoder gzipDecoder = new GzipDecoder();
+
+    @AfterEach
+    void tearDown() {
+        gzipDecoder.close();
+    }
+
+    @Test
+    void decodeSingleBuffer() throws IOException {
+        // GIVEN
+        byte[] compressed = gzip(BODY);
+
+        // WHEN
+        String result = decode(compressed, compressed.length);
+        gzipDecoder.complete();
+
+        // THEN
+        assertEquals(BODY, result);
+    }
+
+    @Test
+    void decodeBufferPerByte() throws IOException {
+        // GIVEN
+        byte[] compressed = gzip(BODY);
+
+        // WHEN
+        String result = decode(compressed, 1);
+        gzipDecoder.complete();
+
+        // THEN
+        assertEquals(BODY, result);
+    }
+
+    @Test
+    void decodeWithOptionalHeaderFields() {
+        // GIVEN
+        byte[] compressed = gzipWithAllHeaderFields(BODY);
+
+        // WHEN
+        String result = decode(compressed, 3);
+        gzipDecoder.complete();
+
+        // THEN
+        assertEquals(BODY, result);
+    }
+
+    @Test
+    void decodeConcatenatedMembers() throws IOException {
+        // GIVEN
+        ByteArrayOutputStream members = new ByteArrayOutputStream();
+        members.writeBytes(gzip(BODY));
+        members.writeBytes(gzip(BODY));
+        byte[] compressed = members.toByteArray();
+
+        // WHEN
+        String result = decode(compressed, 7);
+        gzipDecoder.complete();
+
+        // THEN
+        assertEquals(BODY + BODY, result);
+    }
+
+    @Test
+    void decodeSizesOutputFromInflatedBytes() throws IOException {
+        // GIVEN
+        byte[] bytes = new byte[64 * 1024];
+        new Random(42).nextBytes(bytes);
+        byte[] compressed = gzip(bytes);
+
+        // WHEN
+        DataBuffer decoded = gzipDecoder.decode(BUFFER_FACTORY.wrap(compressed));
+        gzipDecoder.complete();
+
+        // THEN
+        assertEquals(bytes.length, decoded.readableByteCount());
+        assertTrue(decoded.capacity() < 2 * bytes.length, "capacity " + decoded.capacity());
+        DataBufferUtils.release(decoded);
+    }
+
+    @Test
+    void decodeWithCorruptTrailer() throws IOException {
+        // GIVEN
+        byte[] compressed = gzip(BODY);
+        compressed[compressed.length - 5]++;
+
+        // WHEN / THEN
+        IllegalStateException exception = assertThrows(IllegalStateException.class, () -> decode(compressed, compressed.length));
+        assertEquals("Invalid gzip response body", exception.getMessage());
+    }
+
+    @Test
+    void decodeTruncatedBody() throws IOException {
+        // GIVEN
+        byte[] compressed = gzip(BODY);
+        byte[] truncated = new byte[compressed.length / 2];
+        System.arraycopy(compressed, 0, truncated, 0, truncated.length);
+        decode(truncated, truncated.length);
+
+        // WHEN / THEN
+        IllegalStateException exception = assertThrows(IllegalStateException.class, gzipDecoder::complete);
+        assertEquals("Truncated gzip response body", exception.getMessage());
+    }
+
+    @Test
+    void completeWithoutBody() {
+        // WHEN / THEN
+        assertDoesNotThrow(gzipDecoder::complete);
+    }
+
+    private String decode(byte[] compressed, int chunkSize) {
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        for (int offset = 0; offset < compressed.length; offset += chunkSize) {
+            DataBuffer decoded = gzipDecoder.decode(BUFFER_FACTORY.wrap(Arrays.copyOfRange(compressed, offset, Math.min(offset + chunkSize, compressed.length))));
+            byte[] bytes = new byte[decoded.readableByteCount()];
+            decoded.read(bytes);
+            DataBufferUtils.release(decoded);
+            result.writeBytes(bytes);
+        }
+        return result.toString(UTF_8);
+    }
+
+    private byte[] gzip(String value) throws IOException {
+        return gzip(value.getBytes(UTF_8));
+    }
+
+    private byte[] gzip(byte[] value) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream outputStream = new GZIPOutputStream(compressed)) {
+            outputStream.write(value);
+        }
+        return compressed.toByteArray();
+    }
+
+    private byte[] gzipWithAllHeaderFields(String value) {
+        byte[] bytes = value.getBytes(UTF_8);
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        // magic, deflate, FHCRC | FEXTRA | FNAME | FCOMMENT, mtime, extra flags, unknown os
+        compressed.writeBytes(new byte[]{0x1f, (byte) 0x8b, 8, 0x1e, 0, 0, 0, 0, 0, (byte) 0xff});
+        compressed.writeBytes(new byte[]{3, 0, 'a', 'b', 'c'});
+        compressed.writeBytes("movies.json\0".getBytes(UTF_8));
+        compressed.writeBytes("some comment\0".getBytes(UTF_8));
+        compressed.writeBytes(new byte[]{0, 0});
+
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        deflater.setInput(bytes);
+        deflater.finish();
+        byte[] output = new byte[1024];
+        while (!deflater.finished()) {
+            compressed.write(output, 0, deflater.deflate(output));
+        }
+        deflater.end();
+
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        writeInt(compressed, (int) crc.getValue());
+        writeInt(compressed, bytes.length);
+        return compressed.toByteArray();
+    }
+
+    private void writeInt(ByteArrayOutputStream outputStream, int value) {
+        for (int i = 0; i < 4; i++) {
+            outputStream.write(value >>> (8 * i));
+        }
+    }
+}
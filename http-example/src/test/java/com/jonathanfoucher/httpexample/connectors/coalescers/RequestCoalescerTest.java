@@ -0,0 +1,157 @@
+package com.jonathanfoucher.httpexample.connectors.coalescers;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestCoalescerTest {
+    private static final String REQUEST_KEY = "GET http://localhost:8091/movie-api/movies/15";
+    private static final String RESULT = "some result";
+
+    private final RequestCoalescer requestCoalescer = new RequestCoalescer();
+
+    @Test
+    void executeWithConcurrentIdenticalRequests() throws Exception {
+        // GIVEN
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch releaseLeader = new CountDownLatch(1);
+
+        CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> requestCoalescer.execute(REQUEST_KEY, () -> {
+            calls.incrementAndGet();
+            leaderStarted.countDown();
+            await(releaseLeader);
+            return RESULT;
+        }));
+        assertTrue(leaderStarted.await(5, TimeUnit.SECONDS));
+
+        // WHEN
+        CompletableFuture<String> follower = CompletableFuture.supplyAsync(() -> requestCoalescer.execute(REQUEST_KEY, () -> {
+            calls.incrementAndGet();
+            return "other result";
+        }));
+        Thread.sleep(100);
+        releaseLeader.countDown();
+
+        // THEN
+        assertEquals(RESULT, leader.get(5, TimeUnit.SECONDS));
+        assertEquals(RESULT, follower.get(5, TimeUnit.SECONDS));
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void executeWithSequentialIdenticalRequests() {
+        // GIVEN
+        AtomicInteger calls = new AtomicInteger();
+
+        // WHEN
+        requestCoalescer.execute(REQUEST_KEY, calls::incrementAndGet);
+        int result = requestCoalescer.execute(REQUEST_KEY, calls::incrementAndGet);
+
+        // THEN
+        assertEquals(2, result);
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void executeWithFailingRequest() {
+        // WHEN / THEN
+        assertThatThrownBy(() -> requestCoalescer.execute(REQUEST_KEY, () -> {
+            throw new IllegalStateException("some error");
+        }))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("some error");
+    }
+
+    @Test
+    void executeWithConcurrentIdenticalRequestsAndError() throws Exception {
+        // GIVEN
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch releaseLeader = new CountDownLatch(1);
+
+        CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> requestCoalescer.execute(REQUEST_KEY, () -> {
+            leaderStarted.countDown();
+            await(releaseLeader);
+            throw new AssertionError("some error");
+        }));
+        assertTrue(leaderStarted.await(5, TimeUnit.SECONDS));
+
+        // WHEN
+        CompletableFuture<String> follower = CompletableFuture.supplyAsync(() -> requestCoalescer.execute(REQUEST_KEY, () -> RESULT));
+        Thread.sleep(100);
+        releaseLeader.countDown();
+
+        // THEN
+        assertThatThrownBy(() -> leader.get(5, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(AssertionError.class);
+        assertThatThrownBy(() -> follower.get(5, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(AssertionError.class)
+                .hasRootCauseMessage("some error");
+        assertEquals(RESULT, requestCoalescer.execute(REQUEST_KEY, () -> RESULT));
+    }
+
+    @Test
+    void executeAsyncWithConcurrentIdenticalRequests() throws Exception {
+        // GIVEN
+        AtomicInteger calls = new AtomicInteger();
+        CompletableFuture<String> response = new CompletableFuture<>();
+
+        CompletableFuture<String> leader = requestCoalescer.executeAsync(REQUEST_KEY, () -> {
+            calls.incrementAndGet();
+            return response;
+        });
+
+        // WHEN
+        CompletableFuture<String> follower = requestCoalescer.executeAsync(REQUEST_KEY, () -> {
+            calls.incrementAndGet();
+            return CompletableFuture.completedFuture("other result");
+        });
+        response.complete(RESULT);
+
+        // THEN
+        assertEquals(RESULT, leader.get(5, TimeUnit.SECONDS));
+        assertEquals(RESULT, follower.get(5, TimeUnit.SECONDS));
+        assertEquals(1, calls.get());
+        assertEquals("other result", requestCoalescer.executeAsync(REQUEST_KEY, () -> CompletableFuture.completedFuture("other result")).join());
+    }
+
+    @Test
+    void executeAsyncWithFailingRequest() {
+        // WHEN
+        CompletableFuture<String> result = requestCoalescer.executeAsync(REQUEST_KEY, () -> CompletableFuture.failedFuture(new IllegalStateException("some error")));
+
+        // THEN
+        assertThatThrownBy(result::join)
+                .hasCauseInstanceOf(IllegalStateException.class)
+                .hasRootCauseMessage("some error");
+    }
+
+    @Test
+    void executeAsyncWithRequestThrowingError() {
+        // WHEN
+        CompletableFuture<String> result = requestCoalescer.executeAsync(REQUEST_KEY, () -> {
+            throw new AssertionError("some error");
+        });
+
+        // THEN
+        assertThatThrownBy(result::join)
+                .hasCauseInstanceOf(AssertionError.class)
+                .hasRootCauseMessage("some error");
+        assertEquals(RESULT, requestCoalescer.executeAsync(REQUEST_KEY, () -> CompletableFuture.completedFuture(RESULT)).join());
+    }
+
+    private void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,315 @@
+package com.jonathanfoucher.httpexample.connectors.hedgers;
+
+import com.jonathanfoucher.httpexample.common.correlation.CorrelationContext;
+import com.jonathanfoucher.httpexample.connectors.configs.HedgingConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.HttpServerErrorException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.http.HttpStatus.BAD_GATEWAY;
+
+class RequestHedgerTest {
+    private static final String RESULT = "some result";
+    private static final String HEDGED_RESULT = "some hedged result";
+    private static final String CORRELATION_ID = "256a46fb-f91a-402a-b45e-065cbe5f2aa9";
+
+    private final HedgingConfig hedgingConfig = new HedgingConfig();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<CompletableFuture<String>> attempts = new ArrayList<>();
+
+    @BeforeEach
+    void init() {
+        hedgingConfig.setMinDelay(Duration.ofMillis(10));
+        hedgingConfig.setMaxDelay(Duration.ofMillis(10));
+        hedgingConfig.setBudgetBurst(1);
+    }
+
+    @Test
+    void executeAsyncHedgesSlowRequest() {
+        // GIVEN
+        RequestHedger requestHedger = new RequestHedger("movie-api", hedgingConfig, meterRegistry);
+
+        // WHEN
+        CompletableFuture<String> result = requestHedger.executeAsync(this::newAttempt);
+
+        // THEN
+        waitForAttempts(2);
+        attempts.get(1).complete(HEDGED_RESULT);
+        assertEquals(HEDGED_RESULT, result.join());
+
+        attempts.getFirst().complete(RESULT);
+        assertEquals(HEDGED_RESULT, result.join());
+        assertEquals(1, getHedgeCount("sent"));
+        assertEquals(1, getHedgeCount("won"));
+    }
+
+    @Test
+    void executeAsyncCancelsLosingAttempt() {
+        // GIVEN
+        List<String> attemptThreads = new CopyOnWriteArrayList<>();
+        RequestHedger requestHedger = new RequestHedger("movie-api", hedgingConfig, meterRegistry);
+
+        // WHEN
+        CompletableFuture<String> result = requestHedger.executeAsync(() -> {
+            attemptThreads.add(Thread.currentThread().getName());
+            return newAttempt();
+        });
+        waitForAttempts(2);
+        attempts.getFirst().complete(RESULT);
+
+        // THEN
+        assertEquals(RESULT, result.join());
+        assertTrue(attempts.get(1).isCancelled());
+        assertEquals("hedging-movie-api", attemptThreads.get(1));
+        assertEquals(0, getHedgeCount("won"));
+    }
+
+    @Test
+    void executeAsyncCancelsHedgeOnceAnswered() throws InterruptedException {
+        // GIVEN
+        hedgingConfig.setMinDelay(Duration.ofMillis(200));
+        hedgingConfig.setMaxDelay(Duration.ofMillis(200));
+        RequestHedger requestHedger = new RequestHedger("movie-api", hedgingConfig, meterRegistry);
+        CompletableFuture<String> result = requestHedger.executeAsync(this::newAttempt);
+
+        // WHEN
+        attempts.getFirst().complete(RESULT);
+        TimeUnit.MILLISECONDS.sleep(400);
+
+        // THEN
+        assertEquals(RESULT, result.join());
+        assertEquals(1, attempts.size());
+        assertEquals(0, getHedgeCount("sent"));
+        assertEquals(0, getHedgeCount("rejected"));
+    }
+
+    @Test
+    void executeAsyncDoesNotHedgeFastRequest() {
+        // GIVEN
+        RequestHedger requestHedger = new RequestHedger("movie-api", hedgingConfig, meterRegistry);
+
+        // WHEN
+        String result = requestHedger.executeAsync(() -> CompletableFuture.completedFuture(RESULT)).join();
+
+        // THEN
+        assertEquals(RESULT, result);
+        assertEquals(0, getHedgeCount("sent"));
+    }
+
+    @Test
+    void executeAsyncStopsHedgingWhenBudgetIsSpent() throws InterruptedException {
+        // GIVEN
+        hedgingConfig.setBudgetRatio(0);
+        RequestHedger requestHedger = new RequestHedger("movie-api", hedgingConfig, meterRegistry);
+        requestHedger.executeAsync(this::newAttempt);
+        waitForAttempts(2);
+
+        // WHEN
+        CompletableFuture<String> result = requestHedger.executeAsync(this::newAttempt);
+        TimeUnit.MILLISECONDS.sleep(100);
+
+        // THEN
+        assertEquals(3, attempts.size());
+        attempts.get(2).complete(RESULT);
+        assertEquals(RESULT, result.join());
+        assertEquals(1, getHedgeCount("sent"));
+        assertEquals(1, getHedgeCount("rejected"));
+    }
+
+    @Test
+    void executeAsyncFailsWhenEveryAttemptFailed() {
+        // GIVEN
+        RequestHedger requestHedger = new RequestHedger("movie-api", hedgingConfig, meterRegistry);
+        CompletableFuture<String> result = requestHedger.executeAsync(this::newAttempt);
+        waitForAttempts(2);
+
+        // WHEN
+        attempts.getFirst().completeExceptionally(new HttpServerErrorException(BAD_GATEWAY));
+
+        // THEN
+        assertFalse(result.isDone());
+        attempts.get(1).completeExceptionally(new HttpServerErrorException(BAD_GATEWAY));
+        assertThatThrownBy(result::join)
+                .isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(HttpServerErrorException.class);
+    }
+
+    @Test
+    void executeAsyncDoesNotHedgeWhenDisabled() throws InterruptedException {
+        // GIVEN
+        hedgingConfig.setEnabled(false);
+        RequestHedger requestHedger = new RequestHedger("movie-api", hedgingConfig, meterRegistry);
+
+        // WHEN
+        CompletableFuture<String> result = requestHedger.executeAsync(this::newAttempt);
+        TimeUnit.MILLISECONDS.sleep(100);
+
+        // THEN
+        assertEquals(1, attempts.size());
+        attempts.getFirst().complete(RESULT);
+        assertEquals(RESULT, result.join());
+    }
+
+    @Test
+    void executeAsyncRaisesThresholdWhenFirstAttemptsAreSlow() throws InterruptedException {
+        // GIVEN
+        hedgingConfig.setMaxDelay(Duration.ofSeconds(1));
+        hedgingConfig.setMinSamples(10);
+        RequestHedger requestHedger = new RequestHedger("movie-api", hedgingConfig, meterRegistry);
+        for (int i = 0; i < 10; i++) {
+            requestHedger.executeAsync(() -> CompletableFuture.completedFuture(RESULT)).join();
+        }
+        TimeUnit.SECONDS.sleep(1);
+        long fastThreshold = requestHedger.getThresholdNanos();
+
+        // WHEN
+        List<CompletableFuture<String>> results = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            results.add(requestHedger.executeAsync(this::newAttempt));
+        }
+        TimeUnit.MILLISECONDS.sleep(100);
+        attempts.forEach(attempt -> attempt.completeExceptionally(new HttpServerErrorException(BAD_GATEWAY)));
+        TimeUnit.SECONDS.sleep(1);
+
+        // THEN
+        assertTrue(results.stream().allMatch(CompletableFuture::isCompletedExceptionally));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(10), fastThreshold);
+        long threshold = requestHedger.getThresholdNanos();
+        assertTrue(threshold >= TimeUnit.MILLISECONDS.toNanos(100), "threshold " + threshold);
+    }
+
+    @Test
+    void executeHedgesSlowBlockingRequest() {
+        // GIVEN
+        CountDownLatch abortFirstAttempt = new CountDownLatch(1);
+        AtomicInteger attemptCount = new AtomicInteger();
+        List<String> attemptCorrelationIds = new CopyOnWriteArrayList<>();
+        List<Thread> attemptThreads = new CopyOnWriteArrayList<>();
+        RequestHedger requestHedger = new RequestHedger("movie-api", hedgingConfig, meterRegistry);
+
+        // WHEN
+        String result;
+        try (CorrelationContext.Scope ignored = CorrelationContext.of(CORRELATION_ID).open()) {
+            result = requestHedger.execute(() -> {
+                attemptCorrelationIds.add(CorrelationContext.currentCorrelationId());
+                attemptThreads.add(Thread.currentThread());
+                if (attemptCount.incrementAndGet() == 1) {
+                    RequestHedger.abortOnCancel(abortFirstAttempt::countDown);
+                    await(abortFirstAttempt);
+                    throw new IllegalStateException("aborted");
+                }
+                return HEDGED_RESULT;
+            });
+        }
+
+        // THEN
+        assertEquals(HEDGED_RESULT, result);
+        assertEquals(0, abortFirstAttempt.getCount());
+        assertEquals(List.of(CORRELATION_ID, CORRELATION_ID), attemptCorrelationIds);
+        assertEquals(Thread.currentThread(), attemptThreads.getFirst());
+        assertTrue(attemptThreads.get(1).isVirtual());
+        assertEquals(1, getHedgeCount("won"));
+    }
+
+    @Test
+    void executeAbortsLosingBlockingHedge() {
+        // GIVEN
+        CountDownLatch hedgeSent = new CountDownLatch(1);
+        CountDownLatch abortHedge = new CountDownLatch(1);
+        AtomicInteger attemptCount = new AtomicInteger();
+        RequestHedger requestHedger = new RequestHedger("movie-api", hedgingConfig, meterRegistry);
+
+        // WHEN
+        String result = requestHedger.execute(() -> {
+            if (attemptCount.incrementAndGet() == 1) {
+                await(hedgeSent);
+                return RESULT;
+            }
+            RequestHedger.abortOnCancel(abortHedge::countDown);
+            hedgeSent.countDown();
+            await(abortHedge);
+            return HEDGED_RESULT;
+        });
+
+        // THEN
+        assertEquals(RESULT, result);
+        await(abortHedge);
+        assertEquals(0, getHedgeCount("won"));
+    }
+
+    @Test
+    void executeDoesNotHedgeFastBlockingRequest() {
+        // GIVEN
+        hedgingConfig.setMinDelay(Duration.ofSeconds(1));
+        hedgingConfig.setMaxDelay(Duration.ofSeconds(1));
+        List<Thread> attemptThreads = new CopyOnWriteArrayList<>();
+        RequestHedger requestHedger = new RequestHedger("movie-api", hedgingConfig, meterRegistry);
+
+        // WHEN
+        String result = requestHedger.execute(() -> {
+            attemptThreads.add(Thread.currentThread());
+            return RESULT;
+        });
+
+        // THEN
+        assertEquals(RESULT, result);
+        assertEquals(List.of(Thread.currentThread()), attemptThreads);
+        assertEquals(0, getHedgeCount("sent"));
+    }
+
+    @Test
+    void executeWithFailingBlockingRequest() {
+        // GIVEN
+        RequestHedger requestHedger = new RequestHedger("movie-api", hedgingConfig, meterRegistry);
+
+        // WHEN / THEN
+        assertThatThrownBy(() -> requestHedger.execute(() -> {
+            throw new HttpServerErrorException(BAD_GATEWAY);
+        }))
+                .isInstanceOf(HttpServerErrorException.class);
+    }
+
+    private synchronized CompletableFuture<String> newAttempt() {
+        CompletableFuture<String> attempt = new CompletableFuture<>();
+        attempts.add(attempt);
+        return attempt;
+    }
+
+    private void waitForAttempts(int count) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (attemptCount() < count && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertEquals(count, attemptCount());
+    }
+
+    private synchronized int attemptCount() {
+        return attempts.size();
+    }
+
+    private void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private double getHedgeCount(String result) {
+        return meterRegistry.get("hedging.requests").tag("result", result).counter().count();
+    }
+}
@@ -0,0 +1,157 @@
+package com.jonathanfoucher.httpexample.connectors.interceptors;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.http.HttpHeaders.*;
+import static org.springframework.http.HttpMethod.GET;
+import static org.springframework.http.HttpMethod.POST;
+import static org.springframework.http.HttpStatus.NO_CONTENT;
+import static org.springframework.http.HttpStatus.OK;
+
+class CompressionInterceptorTest {
+    private static final URI URI = java.net.URI.create("http://localhost:8091/movie-api/movies/batch");
+    private static final String BODY = "[" + "{\"id\":5,\"title\":\"Some movie\",\"release_date\":\"2022-07-19\"},".repeat(50) + "{}]";
+
+    @Test
+    void interceptWithLargeRequestBody() throws IOException {
+        // GIVEN
+        CompressionInterceptor compressionInterceptor = new CompressionInterceptor(true, 1024);
+        MockClientHttpRequest request = new MockClientHttpRequest(POST, URI);
+        AtomicReference<byte[]> sentBody = new AtomicReference<>();
+        ClientHttpRequestExecution execution = (executedRequest, body) -> {
+            sentBody.set(body);
+            return new MockClientHttpResponse(new byte[0], OK);
+        };
+
+        // WHEN
+        compressionInterceptor.intercept(request, BODY.getBytes(UTF_8), execution).close();
+
+        // THEN
+        assertEquals("gzip", request.getHeaders().getFirst(CONTENT_ENCODING));
+        assertEquals("gzip", request.getHeaders().getFirst(ACCEPT_ENCODING));
+        assertEquals(sentBody.get().length, request.getHeaders().getContentLength());
+        assertTrue(sentBody.get().length < BODY.length());
+        try (GZIPInputStream inputStream = new GZIPInputStream(new ByteArrayInputStream(sentBody.get()))) {
+            assertEquals(BODY, new String(inputStream.readAllBytes(), UTF_8));
+        }
+    }
+
+    @Test
+    void interceptWithSmallRequestBody() throws IOException {
+        // GIVEN
+        CompressionInterceptor compressionInterceptor = new CompressionInterceptor(true, BODY.length() + 1);
+        MockClientHttpRequest request = new MockClientHttpRequest(POST, URI);
+        AtomicReference<byte[]> sentBody = new AtomicReference<>();
+        ClientHttpRequestExecution execution = (executedRequest, body) -> {
+            sentBody.set(body);
+            return new MockClientHttpResponse(new byte[0], OK);
+        };
+
+        // WHEN
+        compressionInterceptor.intercept(request, BODY.getBytes(UTF_8), execution).close();
+
+        // THEN
+        assertNull(request.getHeaders().getFirst(CONTENT_ENCODING));
+        assertEquals(BODY, new String(sentBody.get(), UTF_8));
+    }
+
+    @Test
+    void interceptWithRequestCompressionDisabled() throws IOException {
+        // GIVEN
+        CompressionInterceptor compressionInterceptor = new CompressionInterceptor(true, -1);
+        MockClientHttpRequest request = new MockClientHttpRequest(POST, URI);
+        ClientHttpRequestExecution execution = (executedRequest, body) -> new MockClientHttpResponse(new byte[0], OK);
+
+        // WHEN
+        compressionInterceptor.intercept(request, BODY.getBytes(UTF_8), execution).close();
+
+        // THEN
+        assertNull(request.getHeaders().getFirst(CONTENT_ENCODING));
+        assertEquals("gzip", request.getHeaders().getFirst(ACCEPT_ENCODING));
+    }
+
+    @Test
+    void interceptWithCompressedResponsesNotAccepted() throws IOException {
+        // GIVEN
+        CompressionInterceptor compressionInterceptor = new CompressionInterceptor(false, 1024);
+        MockClientHttpRequest request = new MockClientHttpRequest(POST, URI);
+        AtomicReference<byte[]> sentBody = new AtomicReference<>();
+        ClientHttpRequestExecution execution = (executedRequest, body) -> {
+            sentBody.set(body);
+            return new MockClientHttpResponse(new byte[0], OK);
+        };
+
+        // WHEN
+        compressionInterceptor.intercept(request, BODY.getBytes(UTF_8), execution).close();
+
+        // THEN
+        assertEquals("gzip", request.getHeaders().getFirst(CONTENT_ENCODING));
+        assertNull(request.getHeaders().getFirst(ACCEPT_ENCODING));
+        try (GZIPInputStream inputStream = new GZIPInputStream(new ByteArrayInputStream(sentBody.get()))) {
+            assertEquals(BODY, new String(inputStream.readAllBytes(), UTF_8));
+        }
+    }
+
+    @Test
+    void interceptWithGzipResponse() throws IOException {
+        // GIVEN
+        CompressionInterceptor compressionInterceptor = new CompressionInterceptor(true, -1);
+        MockClientHttpRequest request = new MockClientHttpRequest(GET, URI);
+        byte[] compressed = gzip(BODY);
+        ClientHttpRequestExecution execution = (executedRequest, body) -> {
+            MockClientHttpResponse response = new MockClientHttpResponse(compressed, OK);
+            response.getHeaders().set(CONTENT_ENCODING, "gzip");
+            response.getHeaders().setContentLength(compressed.length);
+            return response;
+        };
+
+        // WHEN
+        try (ClientHttpResponse response = compressionInterceptor.intercept(request, new byte[0], execution)) {
+            // THEN
+            assertNull(response.getHeaders().getFirst(CONTENT_ENCODING));
+            assertNull(response.getHeaders().getFirst(CONTENT_LENGTH));
+            assertEquals(BODY, new String(response.getBody().readAllBytes(), UTF_8));
+        }
+    }
+
+    @Test
+    void interceptWithEmptyGzipResponse() throws IOException {
+        // GIVEN
+        CompressionInterceptor compressionInterceptor = new CompressionInterceptor(true, -1);
+        MockClientHttpRequest request = new MockClientHttpRequest(GET, URI);
+        ClientHttpRequestExecution execution = (executedRequest, body) -> {
+            MockClientHttpResponse response = new MockClientHttpResponse(new byte[0], NO_CONTENT);
+            response.getHeaders().set(CONTENT_ENCODING, "gzip");
+            return response;
+        };
+
+        // WHEN
+        try (ClientHttpResponse response = compressionInterceptor.intercept(request, new byte[0], execution)) {
+            // THEN
+            assertEquals(NO_CONTENT, response.getStatusCode());
+            assertEquals(0, response.getBody().readAllBytes().length);
+        }
+    }
+
+    private byte[] gzip(String value) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream outputStream = new GZIPOutputStream(compressed)) {
+            outputStream.write(value.getBytes(UTF_8));
+        }
+        return compressed.toByteArray();
+    }
+}
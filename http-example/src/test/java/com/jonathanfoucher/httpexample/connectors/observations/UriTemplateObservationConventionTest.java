@@ -0,0 +1,58 @@
+package com.jonathanfoucher.httpexample.connectors.observations;
+
+import io.micrometer.common.KeyValue;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientRequestObservationContext;
+
+import java.net.URI;
+
+import static com.jonathanfoucher.httpexample.connectors.observations.UriTemplateObservationConvention.URI_TEMPLATE_ATTRIBUTE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.http.HttpMethod.GET;
+
+class UriTemplateObservationConventionTest {
+    private static final URI MOVIE_URI = URI.create("http://localhost:8081/movies/15");
+    private static final String MOVIE_BY_ID_TEMPLATE = "http://localhost:8081/movies/{id}";
+
+    private final UriTemplateObservationConvention observationConvention = new UriTemplateObservationConvention();
+
+    @Test
+    void getLowCardinalityKeyValuesWithUriTemplateAttribute() {
+        // GIVEN
+        ClientRequestObservationContext context = createContext(ClientRequest.create(GET, MOVIE_URI)
+                .attribute(URI_TEMPLATE_ATTRIBUTE, MOVIE_BY_ID_TEMPLATE));
+
+        // WHEN
+        KeyValue uri = getUri(context);
+
+        // THEN
+        assertEquals("/movies/{id}", uri.getValue());
+        assertEquals(MOVIE_BY_ID_TEMPLATE, context.getUriTemplate());
+    }
+
+    @Test
+    void getLowCardinalityKeyValuesWithoutUriTemplateAttribute() {
+        // GIVEN
+        ClientRequestObservationContext context = createContext(ClientRequest.create(GET, MOVIE_URI));
+
+        // WHEN
+        KeyValue uri = getUri(context);
+
+        // THEN
+        assertEquals("none", uri.getValue());
+    }
+
+    private ClientRequestObservationContext createContext(ClientRequest.Builder requestBuilder) {
+        ClientRequestObservationContext context = new ClientRequestObservationContext(requestBuilder);
+        context.setRequest(requestBuilder.build());
+        return context;
+    }
+
+    private KeyValue getUri(ClientRequestObservationContext context) {
+        return observationConvention.getLowCardinalityKeyValues(context).stream()
+                .filter(keyValue -> keyValue.getKey().equals("uri"))
+                .findFirst()
+                .orElseThrow();
+    }
+}
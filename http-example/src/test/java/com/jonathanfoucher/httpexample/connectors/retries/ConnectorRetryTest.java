@@ -0,0 +1,121 @@
+package com.jonathanfoucher.httpexample.connectors.retries;
+
+import com.jonathanfoucher.httpexample.common.errors.UpstreamUnavailableException;
+import com.jonathanfoucher.httpexample.connectors.configs.RetryingConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.http.HttpStatus.*;
+
+class ConnectorRetryTest {
+    private static final String RESULT = "some result";
+
+    private final RetryingConfig retryingConfig = new RetryingConfig();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private ConnectorRetry connectorRetry;
+
+    @BeforeEach
+    void init() {
+        retryingConfig.setInitialBackoff(Duration.ofMillis(5));
+        connectorRetry = new ConnectorRetry(RetryFactory.createRetry("movie-api", retryingConfig, meterRegistry));
+    }
+
+    @Test
+    void executeRetriesTransientFailures() {
+        // GIVEN
+        AtomicInteger calls = new AtomicInteger();
+
+        // WHEN
+        String result = connectorRetry.execute(() -> {
+            if (calls.incrementAndGet() == 1) {
+                throw new ResourceAccessException("connection refused");
+            }
+            return RESULT;
+        });
+
+        // THEN
+        assertEquals(RESULT, result);
+        assertEquals(2, calls.get());
+        assertEquals(1, meterRegistry.get("resilience4j.retry.calls").tag("kind", "successful_with_retry").functionCounter().count());
+    }
+
+    @Test
+    void executeStopsAfterMaxAttempts() {
+        // GIVEN
+        AtomicInteger calls = new AtomicInteger();
+
+        // WHEN / THEN
+        assertThrows(HttpServerErrorException.class, () -> connectorRetry.execute(() -> {
+            calls.incrementAndGet();
+            throw new HttpServerErrorException(SERVICE_UNAVAILABLE);
+        }));
+        assertEquals(3, calls.get());
+    }
+
+    @Test
+    void executeDoesNotRetryOtherFailures() {
+        // GIVEN
+        AtomicInteger calls = new AtomicInteger();
+
+        // WHEN / THEN
+        assertThrows(HttpServerErrorException.class, () -> connectorRetry.execute(() -> {
+            calls.incrementAndGet();
+            throw new HttpServerErrorException(INTERNAL_SERVER_ERROR);
+        }));
+        assertThrows(HttpClientErrorException.class, () -> connectorRetry.execute(() -> {
+            calls.incrementAndGet();
+            throw new HttpClientErrorException(NOT_FOUND);
+        }));
+        assertThrows(UpstreamUnavailableException.class, () -> connectorRetry.execute(() -> {
+            calls.incrementAndGet();
+            throw new UpstreamUnavailableException("movie-api", Duration.ofSeconds(10));
+        }));
+        assertEquals(3, calls.get());
+    }
+
+    @Test
+    void executeAsyncRetriesTransientFailures() {
+        // GIVEN
+        AtomicInteger calls = new AtomicInteger();
+
+        // WHEN
+        String result = connectorRetry.executeAsync(() -> calls.incrementAndGet() < 3
+                        ? CompletableFuture.<String>failedFuture(new HttpServerErrorException(GATEWAY_TIMEOUT))
+                        : CompletableFuture.completedFuture(RESULT))
+                .join();
+
+        // THEN
+        assertEquals(RESULT, result);
+        assertEquals(3, calls.get());
+    }
+
+    @Test
+    void executeAsyncDoesNotRetryWhenDisabled() {
+        // GIVEN
+        retryingConfig.setEnabled(false);
+        connectorRetry = new ConnectorRetry(RetryFactory.createRetry("movie-api-disabled", retryingConfig, new SimpleMeterRegistry()));
+        AtomicInteger calls = new AtomicInteger();
+
+        // WHEN / THEN
+        CompletableFuture<String> result = connectorRetry.executeAsync(() -> {
+            calls.incrementAndGet();
+            return CompletableFuture.failedFuture(new HttpServerErrorException(BAD_GATEWAY));
+        });
+        assertThatThrownBy(result::join)
+                .isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(HttpServerErrorException.class);
+        assertEquals(1, calls.get());
+    }
+}
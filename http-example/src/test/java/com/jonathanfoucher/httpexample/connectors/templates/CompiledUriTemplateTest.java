@@ -0,0 +1,65 @@
+package com.jonathanfoucher.httpexample.connectors.templates;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.web.util.DefaultUriBuilderFactory;
+
+import java.net.URI;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CompiledUriTemplateTest {
+    private static final String MOVIE_BY_ID_TEMPLATE = "http://localhost:8091/movie-api/movies/{movie_id}";
+    private static final String MOVIES_BY_IDS_TEMPLATE = "http://localhost:8091/movie-api/movies?ids={ids}";
+
+    @Test
+    void expandWithPositionalVariables() {
+        // GIVEN
+        CompiledUriTemplate uriTemplate = new CompiledUriTemplate(MOVIE_BY_ID_TEMPLATE);
+
+        // WHEN
+        URI result = uriTemplate.expand(15L);
+
+        // THEN
+        assertEquals(URI.create("http://localhost:8091/movie-api/movies/15"), result);
+    }
+
+    @Test
+    void expandWithMapVariables() {
+        // GIVEN
+        CompiledUriTemplate uriTemplate = new CompiledUriTemplate(MOVIES_BY_IDS_TEMPLATE);
+
+        // WHEN
+        URI result = uriTemplate.expand(Map.of("ids", "15,16"));
+
+        // THEN
+        assertEquals(URI.create("http://localhost:8091/movie-api/movies?ids=15,16"), result);
+    }
+
+    @Test
+    void expandEncodesSpecialCharactersLikeDefaultUriBuilderFactory() {
+        // GIVEN
+        CompiledUriTemplate uriTemplate = new CompiledUriTemplate(MOVIES_BY_IDS_TEMPLATE);
+        String value = "some title/é&x=1 ?#";
+
+        // WHEN
+        URI result = uriTemplate.expand(value);
+
+        // THEN
+        assertEquals(new DefaultUriBuilderFactory().expand(MOVIES_BY_IDS_TEMPLATE, value), result);
+    }
+
+    @Test
+    void expandWithMissingVariable() {
+        // GIVEN
+        CompiledUriTemplate uriTemplate = new CompiledUriTemplate(MOVIE_BY_ID_TEMPLATE);
+
+        // WHEN / THEN
+        assertThatThrownBy(uriTemplate::expand)
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> uriTemplate.expand(Map.of("other", 15L)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Map has no value for 'movie_id'");
+    }
+}
@@ -0,0 +1,32 @@
+package com.jonathanfoucher.httpexample.connectors.templates;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.http.HttpHeaders.ACCEPT;
+import static org.springframework.http.HttpHeaders.AUTHORIZATION;
+import static org.springframework.http.HttpMethod.GET;
+import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+
+class RequestTemplateTest {
+    private static final String MOVIE_BY_ID_TEMPLATE = "http://localhost:8091/movie-api/movies/{movie_id}";
+    private static final String API_KEY = "some-api-key";
+
+    @Test
+    void requestKeyPrefixWithoutSecretHeaders() {
+        // GIVEN
+        HttpHeaders headers = new HttpHeaders();
+        headers.add("X-Api-Key", API_KEY);
+        headers.add(AUTHORIZATION, "Bearer " + API_KEY);
+        headers.add(ACCEPT, APPLICATION_JSON_VALUE);
+
+        // WHEN
+        RequestTemplate requestTemplate = new RequestTemplate(GET, MOVIE_BY_ID_TEMPLATE, headers);
+
+        // THEN
+        assertEquals("GET " + MOVIE_BY_ID_TEMPLATE + " [Accept:\"application/json\"] ", requestTemplate.getRequestKeyPrefix());
+        assertFalse(requestTemplate.getRequestKeyPrefix().contains(API_KEY));
+        assertEquals(API_KEY, requestTemplate.getHeaders().getFirst("x-api-key"));
+    }
+}
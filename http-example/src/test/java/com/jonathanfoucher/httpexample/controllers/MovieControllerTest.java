@@ -2,26 +2,41 @@ package com.jonathanfoucher.httpexample.controllers;
 
 import com.jonathanfoucher.httpexample.common.errors.MovieNotFoundException;
 import com.jonathanfoucher.httpexample.common.errors.MovieNotValidException;
+import com.jonathanfoucher.httpexample.common.errors.UpstreamUnavailableException;
 import com.jonathanfoucher.httpexample.common.filters.CorrelationIdFilter;
+import com.jonathanfoucher.httpexample.connectors.pages.MoviePage;
 import com.jonathanfoucher.httpexample.controllers.advisers.CustomResponseEntityExceptionHandler;
 import com.jonathanfoucher.httpexample.controllers.validators.MovieValidator;
+import com.jonathanfoucher.httpexample.data.dto.MovieBatchDto;
 import com.jonathanfoucher.httpexample.data.dto.MovieDto;
 import com.jonathanfoucher.httpexample.services.MovieService;
+import com.jonathanfoucher.httpexample.services.configs.MovieBulkConfig;
+import com.jonathanfoucher.httpexample.services.savers.MovieBulkSaver;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InOrder;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
 import org.springframework.http.converter.json.JacksonJsonHttpMessageConverter;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import reactor.core.publisher.Flux;
 import tools.jackson.databind.PropertyNamingStrategies;
 import tools.jackson.databind.json.JsonMapper;
 
+import java.time.Duration;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.regex.Pattern;
 
 import static com.jonathanfoucher.httpexample.data.enums.AdditionalHttpHeaders.CORRELATION_ID_HEADER;
@@ -29,13 +44,18 @@ import static org.hamcrest.Matchers.*;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 import static org.mockito.Mockito.any;
+import static org.springframework.http.HttpHeaders.*;
 import static org.springframework.http.HttpStatus.*;
 import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
-@SpringJUnitConfig({MovieController.class, CustomResponseEntityExceptionHandler.class, CorrelationIdFilter.class})
+@SpringJUnitConfig({MovieController.class, CustomResponseEntityExceptionHandler.class, CorrelationIdFilter.class, SimpleMeterRegistry.class,
+        MovieControllerTest.JsonMapperConfig.class})
 class MovieControllerTest {
     private MockMvc mockMvc;
     @Autowired
@@ -44,6 +64,8 @@ class MovieControllerTest {
     private CorrelationIdFilter correlationIdFilter;
     @Autowired
     private CustomResponseEntityExceptionHandler customResponseEntityExceptionHandler;
+    @Autowired
+    private SimpleMeterRegistry meterRegistry;
     @MockitoBean
     private MovieValidator movieValidator;
     @MockitoBean
@@ -51,8 +73,10 @@ class MovieControllerTest {
 
     private static final String MOVIE_BY_ID_PATH = "/movies/{id}";
     private static final String MOVIES_PATH = "/movies";
+    private static final String MOVIES_BULK_PATH = "/movies/bulk";
 
     private static final Long ID = 15L;
+    private static final Long OTHER_ID = 16L;
     private static final String TITLE = "Some movie";
     private static final LocalDate RELEASE_DATE = LocalDate.of(2022, 7, 19);
 
@@ -79,17 +103,45 @@ class MovieControllerTest {
         // GIVEN
         MovieDto movie = initMovie();
 
-        when(movieService.getMovieById(ID))
-                .thenReturn(movie);
+        when(movieService.getMovieByIdAsync(ID))
+                .thenReturn(CompletableFuture.completedFuture(movie));
 
         // WHEN / THEN
-        mockMvc.perform(get(MOVIE_BY_ID_PATH, ID))
+        performAsync(get(MOVIE_BY_ID_PATH, ID))
                 .andExpect(status().isOk())
                 .andExpect(header().exists(CORRELATION_ID_HEADER.getHeaderName()))
                 .andExpect(header().string(CORRELATION_ID_HEADER.getHeaderName(), matchesPattern(CORRELATION_ID_REGEX_PATTERN)))
+                .andExpect(header().exists(ETAG))
                 .andExpect(content().string(jsonMapper.writeValueAsString(movie)));
 
-        verify(movieService, times(1)).getMovieById(ID);
+        verify(movieService, times(1)).getMovieByIdAsync(ID);
+    }
+
+    @Test
+    void getMovieByIdNotModified() throws Exception {
+        // GIVEN
+        MovieDto movie = initMovie();
+
+        when(movieService.getMovieByIdAsync(ID))
+                .thenReturn(CompletableFuture.completedFuture(movie));
+
+        String eTag = performAsync(get(MOVIE_BY_ID_PATH, ID))
+                .andReturn()
+                .getResponse()
+                .getHeader(ETAG);
+        assertNotNull(eTag);
+
+        // WHEN / THEN
+        performAsync(get(MOVIE_BY_ID_PATH, ID).header(IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(ETAG, eTag))
+                .andExpect(content().string(""));
+
+        movie.setTitle("Some other title");
+        performAsync(get(MOVIE_BY_ID_PATH, ID).header(IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(ETAG, not(eTag)))
+                .andExpect(content().string(jsonMapper.writeValueAsString(movie)));
     }
 
     @Test
@@ -97,27 +149,28 @@ class MovieControllerTest {
         // GIVEN
         MovieDto movie = initMovie();
 
-        when(movieService.getMovieById(ID))
-                .thenReturn(movie);
+        when(movieService.getMovieByIdAsync(ID))
+                .thenReturn(CompletableFuture.completedFuture(movie));
 
         // WHEN / THEN
-        mockMvc.perform(get(MOVIE_BY_ID_PATH, ID).header(CORRELATION_ID_HEADER.getHeaderName(), CORRELATION_ID))
+        performAsync(get(MOVIE_BY_ID_PATH, ID).header(CORRELATION_ID_HEADER.getHeaderName(), CORRELATION_ID))
                 .andExpect(status().isOk())
                 .andExpect(header().exists(CORRELATION_ID_HEADER.getHeaderName()))
                 .andExpect(header().string(CORRELATION_ID_HEADER.getHeaderName(), equalTo(CORRELATION_ID)))
                 .andExpect(content().string(jsonMapper.writeValueAsString(movie)));
 
-        verify(movieService, times(1)).getMovieById(ID);
+        verify(movieService, times(1)).getMovieByIdAsync(ID);
     }
 
     @Test
     void getMovieByIdWithMovieNotFound() throws Exception {
         // GIVEN
-        when(movieService.getMovieById(ID))
-                .thenThrow(new MovieNotFoundException(ID));
+        when(movieService.getMovieByIdAsync(ID))
+                .thenReturn(CompletableFuture.failedFuture(new MovieNotFoundException(ID)));
+        double handledExceptions = getHandledExceptionCount("MovieNotFoundException", NOT_FOUND.value());
 
         // WHEN / THEN
-        mockMvc.perform(get(MOVIE_BY_ID_PATH, ID))
+        performAsync(get(MOVIE_BY_ID_PATH, ID))
                 .andExpect(status().isNotFound())
                 .andExpect(header().exists(CORRELATION_ID_HEADER.getHeaderName()))
                 .andExpect(header().string(CORRELATION_ID_HEADER.getHeaderName(), matchesPattern(CORRELATION_ID_REGEX_PATTERN)))
@@ -129,17 +182,37 @@ class MovieControllerTest {
                 .andExpect(jsonPath("$.properties.timestamp").isNotEmpty())
                 .andExpect(jsonPath("$.properties.timestamp", matchesPattern(TIMESTAMP_REGEX_PATTERN)));
 
-        verify(movieService, times(1)).getMovieById(ID);
+        verify(movieService, times(1)).getMovieByIdAsync(ID);
+        assertEquals(handledExceptions + 1, getHandledExceptionCount("MovieNotFoundException", NOT_FOUND.value()));
+    }
+
+    @Test
+    void getMovieByIdWithUpstreamUnavailable() throws Exception {
+        // GIVEN
+        when(movieService.getMovieByIdAsync(ID))
+                .thenReturn(CompletableFuture.failedFuture(new UpstreamUnavailableException("movie-api", Duration.ofSeconds(10))));
+
+        // WHEN / THEN
+        performAsync(get(MOVIE_BY_ID_PATH, ID))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(RETRY_AFTER, "10"))
+                .andExpect(header().string(CORRELATION_ID_HEADER.getHeaderName(), matchesPattern(CORRELATION_ID_REGEX_PATTERN)))
+                .andExpect(jsonPath("$.title", equalTo(SERVICE_UNAVAILABLE.getReasonPhrase())))
+                .andExpect(jsonPath("$.status", equalTo(SERVICE_UNAVAILABLE.value())))
+                .andExpect(jsonPath("$.detail", equalTo("Upstream movie-api is unavailable")))
+                .andExpect(jsonPath("$.instance", equalTo("uri=/movies/15")));
+
+        verify(movieService, times(1)).getMovieByIdAsync(ID);
     }
 
     @Test
     void getMovieByIdWithInternalServerError() throws Exception {
         // GIVEN
-        when(movieService.getMovieById(ID))
-                .thenThrow(new RuntimeException("some error"));
+        when(movieService.getMovieByIdAsync(ID))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("some error")));
 
         // WHEN / THEN
-        mockMvc.perform(get(MOVIE_BY_ID_PATH, ID))
+        performAsync(get(MOVIE_BY_ID_PATH, ID))
                 .andExpect(status().isInternalServerError())
                 .andExpect(header().exists(CORRELATION_ID_HEADER.getHeaderName()))
                 .andExpect(header().string(CORRELATION_ID_HEADER.getHeaderName(), matchesPattern(CORRELATION_ID_REGEX_PATTERN)))
@@ -151,7 +224,154 @@ class MovieControllerTest {
                 .andExpect(jsonPath("$.properties.timestamp").isNotEmpty())
                 .andExpect(jsonPath("$.properties.timestamp", matchesPattern(TIMESTAMP_REGEX_PATTERN)));
 
-        verify(movieService, times(1)).getMovieById(ID);
+        verify(movieService, times(1)).getMovieByIdAsync(ID);
+    }
+
+    @Test
+    void getMovies() throws Exception {
+        // GIVEN
+        MovieBatchDto movieBatch = new MovieBatchDto();
+        movieBatch.getMovies().add(initMovie());
+        movieBatch.getMissingIds().add(OTHER_ID);
+
+        when(movieService.getMoviesByIdsAsync(List.of(ID, OTHER_ID)))
+                .thenReturn(CompletableFuture.completedFuture(movieBatch));
+
+        // WHEN / THEN
+        performAsync(get(MOVIES_PATH).param("ids", ID + "," + OTHER_ID))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(CORRELATION_ID_HEADER.getHeaderName()))
+                .andExpect(header().string(CORRELATION_ID_HEADER.getHeaderName(), matchesPattern(CORRELATION_ID_REGEX_PATTERN)))
+                .andExpect(content().string(jsonMapper.writeValueAsString(movieBatch)));
+
+        verify(movieService, times(1)).getMoviesByIdsAsync(List.of(ID, OTHER_ID));
+    }
+
+    @Test
+    void getMoviePage() throws Exception {
+        // GIVEN
+        MovieDto otherMovie = initMovie();
+        otherMovie.setId(OTHER_ID);
+        when(movieService.getMoviePageAsync("14", 2))
+                .thenReturn(CompletableFuture.completedFuture(new MoviePage(Flux.just(initMovie(), otherMovie), String.valueOf(OTHER_ID))));
+
+        // WHEN / THEN
+        MvcResult pageResult = performAsync(get(MOVIES_PATH + "?cursor=14&limit=2"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(pageResult))
+                .andExpect(status().isOk())
+                .andExpect(header().string(CONTENT_TYPE, APPLICATION_JSON.toString()))
+                .andExpect(header().string(LINK, "<http://localhost/movies?limit=2&cursor=16>; rel=\"next\""))
+                .andExpect(content().string(jsonMapper.writeValueAsString(List.of(initMovie(), otherMovie))));
+
+        verify(movieService, times(1)).getMoviePageAsync("14", 2);
+    }
+
+    @Test
+    void getLastMoviePage() throws Exception {
+        // GIVEN
+        when(movieService.getMoviePageAsync(null, 1000))
+                .thenReturn(CompletableFuture.completedFuture(new MoviePage(Flux.just(initMovie()), null)));
+
+        // WHEN / THEN
+        MvcResult pageResult = performAsync(get(MOVIES_PATH))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(pageResult))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(LINK))
+                .andExpect(content().string(jsonMapper.writeValueAsString(List.of(initMovie()))));
+    }
+
+    @Test
+    void getMoviePageWithUpstreamFailureMidway() throws Exception {
+        // GIVEN
+        Flux<MovieDto> movies = Flux.concat(Flux.just(initMovie()), Flux.error(new IllegalStateException("connection reset")));
+        when(movieService.getMoviePageAsync(null, 1000))
+                .thenReturn(CompletableFuture.completedFuture(new MoviePage(movies, null)));
+
+        // WHEN
+        MvcResult pageResult = performAsync(get(MOVIES_PATH))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        Object asyncResult = pageResult.getAsyncResult();
+
+        // THEN
+        assertInstanceOf(IllegalStateException.class, asyncResult);
+        assertFalse(pageResult.getResponse().getContentAsString().endsWith("]"));
+    }
+
+    @Test
+    void getMoviePageWithInvalidLimit() throws Exception {
+        // WHEN / THEN
+        mockMvc.perform(get(MOVIES_PATH)
+                        .param("limit", "0"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.status", equalTo(BAD_REQUEST.value())));
+
+        verifyNoInteractions(movieService);
+    }
+
+    @Test
+    void findMoviesByTitlePrefix() throws Exception {
+        // GIVEN
+        when(movieService.findMoviesByTitlePrefixAsync("some", 20))
+                .thenReturn(CompletableFuture.completedFuture(List.of(initMovie())));
+
+        // WHEN / THEN
+        performAsync(get(MOVIES_PATH).param("title_prefix", "some"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(CORRELATION_ID_HEADER.getHeaderName(), matchesPattern(CORRELATION_ID_REGEX_PATTERN)))
+                .andExpect(content().string(jsonMapper.writeValueAsString(List.of(initMovie()))));
+
+        verify(movieService, times(1)).findMoviesByTitlePrefixAsync("some", 20);
+    }
+
+    @Test
+    void findMoviesByReleaseDate() throws Exception {
+        // GIVEN
+        LocalDate from = LocalDate.of(2022, 1, 1);
+        when(movieService.findMoviesByReleaseDateAsync(from, RELEASE_DATE, 5))
+                .thenReturn(CompletableFuture.completedFuture(List.of(initMovie())));
+
+        // WHEN / THEN
+        performAsync(get(MOVIES_PATH)
+                .param("release_date_from", "2022-01-01")
+                .param("release_date_to", "2022-07-19")
+                .param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(jsonMapper.writeValueAsString(List.of(initMovie()))));
+
+        verify(movieService, times(1)).findMoviesByReleaseDateAsync(from, RELEASE_DATE, 5);
+    }
+
+    @Test
+    void findMoviesWithInvalidLimit() throws Exception {
+        // GIVEN
+        double handledExceptions = getHandledExceptionCount("ResponseStatusException", BAD_REQUEST.value());
+
+        // WHEN / THEN
+        mockMvc.perform(get(MOVIES_PATH)
+                        .param("title_prefix", "some")
+                        .param("limit", "101"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.status", equalTo(BAD_REQUEST.value())))
+                .andExpect(jsonPath("$.detail", equalTo("Between 1 and 100 movies can be searched at once")));
+
+        verifyNoInteractions(movieService);
+        assertEquals(handledExceptions + 1, getHandledExceptionCount("ResponseStatusException", BAD_REQUEST.value()));
+    }
+
+    @Test
+    void findMoviesByReleaseDateWithInvalidRange() throws Exception {
+        // WHEN / THEN
+        mockMvc.perform(get(MOVIES_PATH)
+                        .param("release_date_from", "2022-07-20")
+                        .param("release_date_to", "2022-07-19"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(movieService);
     }
 
     @Test
@@ -159,8 +379,11 @@ class MovieControllerTest {
         // GIVEN
         MovieDto movie = initMovie();
 
+        when(movieService.saveMovieAsync(any()))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
         // WHEN / THEN
-        mockMvc.perform(post(MOVIES_PATH).contentType(APPLICATION_JSON)
+        performAsync(post(MOVIES_PATH).contentType(APPLICATION_JSON)
                         .content(jsonMapper.writeValueAsString(movie)))
                 .andExpect(header().exists(CORRELATION_ID_HEADER.getHeaderName()))
                 .andExpect(header().string(CORRELATION_ID_HEADER.getHeaderName(), matchesPattern(CORRELATION_ID_REGEX_PATTERN)))
@@ -170,7 +393,7 @@ class MovieControllerTest {
         ArgumentCaptor<MovieDto> capturedMovie = ArgumentCaptor.forClass(MovieDto.class);
         InOrder inOrder = inOrder(movieValidator, movieService);
         inOrder.verify(movieValidator, times(1)).validateMovie(capturedMovie.capture());
-        inOrder.verify(movieService, times(1)).saveMovie(capturedMovie.capture());
+        inOrder.verify(movieService, times(1)).saveMovieAsync(capturedMovie.capture());
 
         MovieDto validatedMovie = capturedMovie.getAllValues().get(0);
         checkMovie(validatedMovie);
@@ -204,7 +427,7 @@ class MovieControllerTest {
 
         ArgumentCaptor<MovieDto> capturedMovie = ArgumentCaptor.forClass(MovieDto.class);
         verify(movieValidator, times(1)).validateMovie(capturedMovie.capture());
-        verify(movieService, never()).saveMovie(any());
+        verify(movieService, never()).saveMovieAsync(any());
 
         MovieDto validatedMovie = capturedMovie.getAllValues().getFirst();
         assertNotNull(validatedMovie);
@@ -213,6 +436,125 @@ class MovieControllerTest {
         assertEquals(RELEASE_DATE, validatedMovie.getReleaseDate());
     }
 
+    @Test
+    void saveMovieWithUnreadableBody() throws Exception {
+        // GIVEN
+        double handledExceptions = getHandledExceptionCount("HttpMessageNotReadableException", BAD_REQUEST.value());
+
+        // WHEN / THEN
+        mockMvc.perform(post(MOVIES_PATH).contentType(APPLICATION_JSON)
+                        .content("{\"id\": 15, \"title"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(movieService);
+        assertEquals(handledExceptions + 1, getHandledExceptionCount("HttpMessageNotReadableException", BAD_REQUEST.value()));
+    }
+
+    @Test
+    void deleteMovieNotSupported() throws Exception {
+        // GIVEN
+        double handledExceptions = getHandledExceptionCount("HttpRequestMethodNotSupportedException", METHOD_NOT_ALLOWED.value());
+
+        // WHEN / THEN
+        mockMvc.perform(delete(MOVIE_BY_ID_PATH, ID))
+                .andExpect(status().isMethodNotAllowed());
+
+        assertEquals(handledExceptions + 1, getHandledExceptionCount("HttpRequestMethodNotSupportedException", METHOD_NOT_ALLOWED.value()));
+    }
+
+    @Test
+    void saveMovies() throws Exception {
+        // GIVEN
+        MovieDto movie = initMovie();
+        MovieDto otherMovie = initMovie();
+        otherMovie.setId(OTHER_ID);
+        MovieDto notValidMovie = initMovie();
+        notValidMovie.setTitle(null);
+
+        String content = jsonMapper.writeValueAsString(movie) + "\n"
+                + jsonMapper.writeValueAsString(notValidMovie) + "\n"
+                + "{\"id\":\"not-a-number\",\"title\":\"Some title\"}\n"
+                + jsonMapper.writeValueAsString(otherMovie) + "\n";
+
+        List<List<MovieDto>> savedBatches = new ArrayList<>();
+        when(movieService.createBulkSaver())
+                .thenReturn(new MovieBulkSaver(savedBatches::add, Runnable::run, new MovieBulkConfig()));
+        doThrow(new MovieNotValidException(List.of("title field is required")))
+                .when(movieValidator).validateMovie(argThat(validatedMovie -> validatedMovie.getTitle() == null));
+
+        // WHEN / THEN
+        mockMvc.perform(post(MOVIES_BULK_PATH).contentType(APPLICATION_NDJSON)
+                        .content(content))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(CORRELATION_ID_HEADER.getHeaderName()))
+                .andExpect(jsonPath("$.received", equalTo(4)))
+                .andExpect(jsonPath("$.saved", equalTo(2)))
+                .andExpect(jsonPath("$.rejected", equalTo(2)))
+                .andExpect(jsonPath("$.failed", equalTo(0)))
+                .andExpect(jsonPath("$.errors_truncated", equalTo(false)))
+                .andExpect(jsonPath("$.errors", hasSize(2)))
+                .andExpect(jsonPath("$.errors[0].from_index", equalTo(1)))
+                .andExpect(jsonPath("$.errors[0].reason", equalTo("Movie is not valid: \ntitle field is required")))
+                .andExpect(jsonPath("$.errors[1].from_index", equalTo(2)))
+                .andExpect(jsonPath("$.errors[1].reason", org.hamcrest.Matchers.startsWith("Cannot deserialize value of type `java.lang.Long`")));
+
+        assertEquals(1, savedBatches.size());
+        assertEquals(2, savedBatches.getFirst().size());
+        checkMovie(savedBatches.getFirst().getFirst());
+        assertEquals(OTHER_ID, savedBatches.getFirst().get(1).getId());
+    }
+
+    @Test
+    void saveMoviesWithJsonArray() throws Exception {
+        // GIVEN
+        List<MovieDto> movies = List.of(initMovie(), initMovie());
+
+        List<List<MovieDto>> savedBatches = new ArrayList<>();
+        when(movieService.createBulkSaver())
+                .thenReturn(new MovieBulkSaver(savedBatches::add, Runnable::run, new MovieBulkConfig()));
+
+        // WHEN / THEN
+        mockMvc.perform(post(MOVIES_BULK_PATH).contentType(APPLICATION_JSON)
+                        .content(jsonMapper.writeValueAsString(movies)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.received", equalTo(2)))
+                .andExpect(jsonPath("$.saved", equalTo(2)))
+                .andExpect(jsonPath("$.errors", hasSize(0)));
+
+        verify(movieValidator, times(2)).validateMovie(any());
+        assertEquals(1, savedBatches.size());
+        assertEquals(2, savedBatches.getFirst().size());
+    }
+
+    @Test
+    void saveMoviesWithMalformedPayload() throws Exception {
+        // GIVEN
+        String content = jsonMapper.writeValueAsString(initMovie()) + "\n{\"id\": 16, \"title\n";
+
+        List<List<MovieDto>> savedBatches = new ArrayList<>();
+        when(movieService.createBulkSaver())
+                .thenReturn(new MovieBulkSaver(savedBatches::add, Runnable::run, new MovieBulkConfig()));
+
+        // WHEN / THEN
+        mockMvc.perform(post(MOVIES_BULK_PATH).contentType(APPLICATION_NDJSON)
+                        .content(content))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.received", equalTo(1)))
+                .andExpect(jsonPath("$.saved", equalTo(1)))
+                .andExpect(jsonPath("$.errors", hasSize(1)))
+                .andExpect(jsonPath("$.errors[0].from_index", equalTo(1)))
+                .andExpect(jsonPath("$.errors[0].reason", org.hamcrest.Matchers.startsWith("Payload could not be read")));
+
+        assertEquals(1, savedBatches.size());
+    }
+
+    private ResultActions performAsync(RequestBuilder requestBuilder) throws Exception {
+        MvcResult mvcResult = mockMvc.perform(requestBuilder)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(mvcResult));
+    }
+
     private MovieDto initMovie() {
         MovieDto movie = new MovieDto();
         movie.setId(ID);
@@ -221,10 +563,22 @@ class MovieControllerTest {
         return movie;
     }
 
+    private double getHandledExceptionCount(String exception, int status) {
+        return meterRegistry.counter("http.server.exceptions", "exception", exception, "status", String.valueOf(status)).count();
+    }
+
     private void checkMovie(MovieDto movie) {
         assertNotNull(movie);
         assertEquals(ID, movie.getId());
         assertEquals(TITLE, movie.getTitle());
         assertEquals(RELEASE_DATE, movie.getReleaseDate());
     }
+
+    @Configuration
+    static class JsonMapperConfig {
+        @Bean
+        JsonMapper jsonMapper() {
+            return jsonMapper;
+        }
+    }
 }
@@ -2,6 +2,7 @@ package com.jonathanfoucher.httpexample.controllers.validators;
 
 import com.jonathanfoucher.httpexample.common.errors.MovieNotValidException;
 import com.jonathanfoucher.httpexample.data.dto.MovieDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
@@ -9,11 +10,14 @@ import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
 import java.time.LocalDate;
 
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 
-@SpringJUnitConfig(MovieValidator.class)
+@SpringJUnitConfig({MovieValidator.class, SimpleMeterRegistry.class})
 class MovieValidatorTest {
     @Autowired
     private MovieValidator movieValidator;
+    @Autowired
+    private SimpleMeterRegistry meterRegistry;
 
     private static final int MAX_TITLE_LENGTH = 100;
     private static final Long ID = 15L;
@@ -34,11 +38,13 @@ class MovieValidatorTest {
         // GIVEN
         MovieDto movie = initMovie();
         movie.setId(null);
+        double failures = getValidationFailureCount("id_required");
 
         // WHEN / THEN
         assertThatThrownBy(() -> movieValidator.validateMovie(movie))
                 .isInstanceOf(MovieNotValidException.class)
                 .hasMessage("Movie is not valid: \nid field is required");
+        assertEquals(failures + 1, getValidationFailureCount("id_required"));
     }
 
     @Test
@@ -46,11 +52,13 @@ class MovieValidatorTest {
         // GIVEN
         MovieDto movie = initMovie();
         movie.setTitle(null);
+        double failures = getValidationFailureCount("title_required");
 
         // WHEN / THEN
         assertThatThrownBy(() -> movieValidator.validateMovie(movie))
                 .isInstanceOf(MovieNotValidException.class)
                 .hasMessage("Movie is not valid: \ntitle field is required");
+        assertEquals(failures + 1, getValidationFailureCount("title_required"));
     }
 
     @Test
@@ -59,11 +67,13 @@ class MovieValidatorTest {
         MovieDto movie = initMovie();
         String tooLongTitle = "a".repeat(MAX_TITLE_LENGTH + 1);
         movie.setTitle(tooLongTitle);
+        double failures = getValidationFailureCount("title_too_long");
 
         // WHEN / THEN
         assertThatThrownBy(() -> movieValidator.validateMovie(movie))
                 .isInstanceOf(MovieNotValidException.class)
                 .hasMessage("Movie is not valid: \ntitle length should be equal or less than 100 characters");
+        assertEquals(failures + 1, getValidationFailureCount("title_too_long"));
     }
 
     @Test
@@ -71,11 +81,17 @@ class MovieValidatorTest {
         // GIVEN
         MovieDto movie = initMovie();
         movie.setReleaseDate(null);
+        double failures = getValidationFailureCount("release_date_required");
 
         // WHEN / THEN
         assertThatThrownBy(() -> movieValidator.validateMovie(movie))
                 .isInstanceOf(MovieNotValidException.class)
                 .hasMessage("Movie is not valid: \nrelease_date field is required");
+        assertEquals(failures + 1, getValidationFailureCount("release_date_required"));
+    }
+
+    private double getValidationFailureCount(String rule) {
+        return meterRegistry.counter("movie.validation.failures", "rule", rule).count();
     }
 
     private MovieDto initMovie() {
@@ -1,33 +1,75 @@
 package com.jonathanfoucher.httpexample.services;
 
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.LoadingCache;
 import com.jonathanfoucher.httpexample.common.errors.MovieNotFoundException;
 import com.jonathanfoucher.httpexample.connectors.MovieApiConnector;
+import com.jonathanfoucher.httpexample.connectors.pages.MoviePage;
+import com.jonathanfoucher.httpexample.data.dto.MovieBatchDto;
+import com.jonathanfoucher.httpexample.data.dto.MovieBulkResultDto;
+import com.jonathanfoucher.httpexample.data.dto.MovieChangesDto;
 import com.jonathanfoucher.httpexample.data.dto.MovieDto;
+import com.jonathanfoucher.httpexample.services.caches.CachedMovie;
+import com.jonathanfoucher.httpexample.services.caches.MovieCacheLoader;
+import com.jonathanfoucher.httpexample.services.configs.MovieBulkConfig;
+import com.jonathanfoucher.httpexample.services.configs.MovieCacheConfig;
+import com.jonathanfoucher.httpexample.services.configs.MovieChangesConfig;
+import com.jonathanfoucher.httpexample.services.savers.MovieBulkSaver;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import reactor.core.publisher.Flux;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
-import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
+import static org.springframework.http.HttpStatus.NOT_FOUND;
 
-@SpringJUnitConfig(MovieService.class)
+@SpringJUnitConfig({MovieService.class, MovieCacheLoader.class, MovieCacheConfig.class, MovieBulkConfig.class, MovieChangesConfig.class, SimpleMeterRegistry.class,
+        ThreadPoolTaskExecutor.class})
 class MovieServiceTest {
     @Autowired
     private MovieService movieService;
+    @Autowired
+    private AsyncLoadingCache<Long, CachedMovie> movieAsyncCache;
+    private LoadingCache<Long, CachedMovie> movieCache;
     @MockitoBean
     private MovieApiConnector movieApiConnector;
+    @MockitoBean
+    private TaskScheduler taskScheduler;
+    @Autowired
+    private MeterRegistry meterRegistry;
 
     private static final Long ID = 15L;
+    private static final Long SECOND_ID = 16L;
+    private static final Long THIRD_ID = 17L;
     private static final String TITLE = "Some movie";
     private static final LocalDate RELEASE_DATE = LocalDate.of(2022, 7, 19);
 
+    @BeforeEach
+    void init() {
+        movieCache = movieAsyncCache.synchronous();
+        movieCache.invalidateAll();
+        when(movieApiConnector.getTimeout()).thenReturn(Duration.ofSeconds(5));
+    }
+
     @Test
     void getMovieById() {
         // GIVEN
@@ -54,12 +96,246 @@ class MovieServiceTest {
         when(movieApiConnector.getMovieById(ID))
                 .thenReturn(Optional.empty());
 
+        // WHEN / THEN
+        for (int i = 0; i < 2; i++) {
+            assertThatThrownBy(() -> movieService.getMovieById(ID))
+                    .isInstanceOf(MovieNotFoundException.class)
+                    .hasMessage("Movie with id 15 is not found");
+        }
+
+        verify(movieApiConnector, times(1)).getMovieById(ID);
+        assertSame(CachedMovie.NOT_FOUND, movieCache.getIfPresent(ID));
+        assertTrue(getExpiresAfter(ID).compareTo(Duration.ofSeconds(30)) <= 0);
+    }
+
+    @Test
+    void getMovieByIdWithNotFoundError() {
+        // GIVEN
+        when(movieApiConnector.getMovieById(ID))
+                .thenThrow(HttpClientErrorException.create(NOT_FOUND, NOT_FOUND.getReasonPhrase(), null, null, null));
+
         // WHEN / THEN
         assertThatThrownBy(() -> movieService.getMovieById(ID))
                 .isInstanceOf(MovieNotFoundException.class)
                 .hasMessage("Movie with id 15 is not found");
 
         verify(movieApiConnector, times(1)).getMovieById(ID);
+        assertSame(CachedMovie.NOT_FOUND, movieCache.getIfPresent(ID));
+    }
+
+    @Test
+    void getMovieByIdWithUpstreamError() {
+        // GIVEN
+        when(movieApiConnector.getMovieById(ID))
+                .thenThrow(new ResourceAccessException("connection refused"));
+
+        // WHEN / THEN
+        assertThrows(ResourceAccessException.class, () -> movieService.getMovieById(ID));
+        assertNull(movieCache.getIfPresent(ID));
+    }
+
+    @Test
+    void getMovieByIdWithUpstreamThrowingError() {
+        // GIVEN
+        when(movieApiConnector.getMovieById(ID))
+                .thenThrow(new AssertionError("some error"))
+                .thenReturn(Optional.of(initMovie()));
+
+        // WHEN / THEN
+        assertThatThrownBy(() -> movieService.getMovieById(ID))
+                .isInstanceOf(AssertionError.class)
+                .hasMessage("some error");
+        assertEquals(ID, movieService.getMovieById(ID).getId());
+        verify(movieApiConnector, times(2)).getMovieById(ID);
+    }
+
+    @Test
+    void getMovieByIdWhileAnotherLookupHangs() {
+        // GIVEN
+        when(movieApiConnector.getTimeout()).thenReturn(Duration.ofMillis(10));
+        movieAsyncCache.put(ID, new CompletableFuture<>());
+
+        // WHEN / THEN
+        assertThatThrownBy(() -> movieService.getMovieById(ID))
+                .isInstanceOf(ResourceAccessException.class)
+                .hasMessageStartingWith("Timed out after PT0.01S");
+        verify(movieApiConnector, never()).getMovieById(ID);
+    }
+
+    @Test
+    void getMovieByIdFromCache() {
+        // GIVEN
+        MovieDto movie = initMovie();
+
+        when(movieApiConnector.getMovieById(ID))
+                .thenReturn(Optional.of(movie));
+
+        // WHEN
+        MovieDto firstResult = movieService.getMovieById(ID);
+        MovieDto secondResult = movieService.getMovieById(ID);
+
+        // THEN
+        verify(movieApiConnector, times(1)).getMovieById(ID);
+
+        assertSame(firstResult, secondResult);
+        assertEquals(ID, secondResult.getId());
+        assertEquals(TITLE, secondResult.getTitle());
+        assertEquals(RELEASE_DATE, secondResult.getReleaseDate());
+    }
+
+    @Test
+    void getMovieByIdAsync() {
+        // GIVEN
+        MovieDto movie = initMovie();
+
+        when(movieApiConnector.getMovieByIdAsync(ID))
+                .thenReturn(CompletableFuture.completedFuture(Optional.of(movie)));
+
+        // WHEN
+        MovieDto firstResult = movieService.getMovieByIdAsync(ID).join();
+        MovieDto secondResult = movieService.getMovieByIdAsync(ID).join();
+
+        // THEN
+        verify(movieApiConnector, times(1)).getMovieByIdAsync(ID);
+        verify(movieApiConnector, never()).getMovieById(any());
+
+        assertSame(firstResult, secondResult);
+        assertEquals(ID, firstResult.getId());
+        assertEquals(TITLE, firstResult.getTitle());
+        assertEquals(RELEASE_DATE, firstResult.getReleaseDate());
+    }
+
+    @Test
+    void getMovieByIdAsyncWithoutResult() {
+        // GIVEN
+        when(movieApiConnector.getMovieByIdAsync(ID))
+                .thenReturn(CompletableFuture.completedFuture(Optional.empty()));
+
+        // WHEN
+        CompletableFuture<MovieDto> result = movieService.getMovieByIdAsync(ID);
+
+        // THEN
+        assertThatThrownBy(result::join)
+                .hasCauseInstanceOf(MovieNotFoundException.class)
+                .hasRootCauseMessage("Movie with id 15 is not found");
+        assertSame(CachedMovie.NOT_FOUND, movieCache.getIfPresent(ID));
+    }
+
+    @Test
+    void getMovieByIdAsyncServesStaleMovieWhileRefreshing() {
+        // GIVEN
+        MovieDto staleMovie = initMovie();
+        MovieDto refreshedMovie = initMovie();
+        refreshedMovie.setTitle("Some refreshed movie");
+        movieCache.put(ID, new CachedMovie(staleMovie));
+
+        CompletableFuture<Optional<MovieDto>> refreshing = new CompletableFuture<>();
+        when(movieApiConnector.getMovieByIdAsync(ID))
+                .thenReturn(refreshing);
+
+        // WHEN
+        movieCache.refresh(ID);
+        MovieDto staleResult = movieService.getMovieByIdAsync(ID).join();
+        refreshing.complete(Optional.of(refreshedMovie));
+        MovieDto refreshedResult = movieService.getMovieByIdAsync(ID).join();
+
+        // THEN
+        verify(movieApiConnector, times(1)).getMovieByIdAsync(ID);
+        assertSame(staleMovie, staleResult);
+        assertSame(refreshedMovie, refreshedResult);
+    }
+
+    @Test
+    void getMovieByIdAsyncKeepsStaleMovieWhenRefreshFails() {
+        // GIVEN
+        MovieDto staleMovie = initMovie();
+        movieCache.put(ID, new CachedMovie(staleMovie));
+
+        when(movieApiConnector.getMovieByIdAsync(ID))
+                .thenReturn(CompletableFuture.failedFuture(new ResourceAccessException("connection refused")));
+
+        // WHEN
+        assertThatThrownBy(() -> movieCache.refresh(ID).join())
+                .hasCauseInstanceOf(ResourceAccessException.class);
+        MovieDto result = movieService.getMovieByIdAsync(ID).join();
+
+        // THEN
+        verify(movieApiConnector, times(1)).getMovieByIdAsync(ID);
+        assertSame(staleMovie, result);
+        assertTrue(getExpiresAfter(ID).compareTo(Duration.ofMinutes(9)) > 0);
+    }
+
+    @Test
+    void getMoviesByIds() {
+        // GIVEN
+        movieCache.put(ID, new CachedMovie(initMovie()));
+
+        MovieBatchDto movieBatch = new MovieBatchDto();
+        movieBatch.getMovies().add(initMovie(THIRD_ID));
+        movieBatch.getMissingIds().add(SECOND_ID);
+
+        when(movieApiConnector.getMoviesByIds(List.of(SECOND_ID, THIRD_ID)))
+                .thenReturn(movieBatch);
+
+        // WHEN
+        MovieBatchDto result = movieService.getMoviesByIds(List.of(ID, SECOND_ID, THIRD_ID, ID));
+
+        // THEN
+        verify(movieApiConnector, times(1)).getMoviesByIds(List.of(SECOND_ID, THIRD_ID));
+
+        assertNotNull(result);
+        assertEquals(2, result.getMovies().size());
+        assertEquals(ID, result.getMovies().get(0).getId());
+        assertEquals(THIRD_ID, result.getMovies().get(1).getId());
+        assertEquals(List.of(SECOND_ID), result.getMissingIds());
+        assertNotNull(movieCache.getIfPresent(THIRD_ID));
+        assertSame(CachedMovie.NOT_FOUND, movieCache.getIfPresent(SECOND_ID));
+    }
+
+    @Test
+    void getMoviePageAsync() {
+        // GIVEN
+        MoviePage moviePage = new MoviePage(Flux.just(initMovie()), "15");
+        when(movieApiConnector.getMoviePageAsync("14", 10))
+                .thenReturn(CompletableFuture.completedFuture(moviePage));
+
+        // WHEN
+        MoviePage result = movieService.getMoviePageAsync("14", 10).join();
+
+        // THEN
+        verify(movieApiConnector, times(1)).getMoviePageAsync("14", 10);
+        assertSame(moviePage, result);
+    }
+
+    @Test
+    void findMoviesByTitlePrefixAsync() {
+        // GIVEN
+        List<MovieDto> movies = List.of(initMovie());
+        when(movieApiConnector.findMoviesByTitlePrefixAsync("some", 10))
+                .thenReturn(CompletableFuture.completedFuture(movies));
+
+        // WHEN
+        List<MovieDto> result = movieService.findMoviesByTitlePrefixAsync("some", 10).join();
+
+        // THEN
+        verify(movieApiConnector, times(1)).findMoviesByTitlePrefixAsync("some", 10);
+        assertSame(movies, result);
+    }
+
+    @Test
+    void findMoviesByReleaseDateAsync() {
+        // GIVEN
+        LocalDate from = RELEASE_DATE.minusYears(1);
+        List<MovieDto> movies = List.of(initMovie());
+        when(movieApiConnector.findMoviesByReleaseDateAsync(from, RELEASE_DATE, 10))
+                .thenReturn(CompletableFuture.completedFuture(movies));
+
+        // WHEN
+        List<MovieDto> result = movieService.findMoviesByReleaseDateAsync(from, RELEASE_DATE, 10).join();
+
+        // THEN
+        verify(movieApiConnector, times(1)).findMoviesByReleaseDateAsync(from, RELEASE_DATE, 10);
+        assertSame(movies, result);
     }
 
     @Test
@@ -81,9 +357,185 @@ class MovieServiceTest {
         assertEquals(RELEASE_DATE, result.getReleaseDate());
     }
 
+    @Test
+    void saveMovieAsync() {
+        // GIVEN
+        MovieDto movie = initMovie();
+        movieCache.put(ID, new CachedMovie(movie));
+
+        when(movieApiConnector.saveMovieAsync(movie))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        // WHEN
+        movieService.saveMovieAsync(movie).join();
+
+        // THEN
+        verify(movieApiConnector, times(1)).saveMovieAsync(movie);
+        verify(movieApiConnector, never()).saveMovie(any());
+        assertNull(movieCache.getIfPresent(ID));
+    }
+
+    @Test
+    void saveMovieInvalidatesCachedMovie() {
+        // GIVEN
+        MovieDto movie = initMovie();
+        movieCache.put(ID, new CachedMovie(movie));
+
+        // WHEN
+        movieService.saveMovie(movie);
+
+        // THEN
+        verify(movieApiConnector, times(1)).saveMovie(movie);
+        assertNull(movieCache.getIfPresent(ID));
+    }
+
+    @Test
+    void saveMovies() {
+        // GIVEN
+        List<MovieDto> movies = List.of(initMovie(), initMovie(SECOND_ID));
+        movieCache.put(ID, new CachedMovie(initMovie()));
+        movieCache.put(THIRD_ID, new CachedMovie(initMovie(THIRD_ID)));
+
+        // WHEN
+        movieService.saveMovies(movies);
+
+        // THEN
+        verify(movieApiConnector, times(1)).saveMovies(movies);
+        assertNull(movieCache.getIfPresent(ID));
+        assertNotNull(movieCache.getIfPresent(THIRD_ID));
+    }
+
+    @Test
+    void subscribeToMovieChanges() {
+        // GIVEN
+        CompletableFuture<MovieChangesDto> firstChanges = new CompletableFuture<>();
+        CompletableFuture<MovieChangesDto> nextChanges = new CompletableFuture<>();
+        when(movieApiConnector.getMovieChangesAsync(eq(null), any())).thenReturn(firstChanges);
+        when(movieApiConnector.getMovieChangesAsync(eq(100L), any())).thenReturn(nextChanges);
+        when(movieApiConnector.getMovieChangesAsync(eq(101L), any())).thenReturn(new CompletableFuture<>());
+        movieCache.put(ID, new CachedMovie(initMovie()));
+
+        // WHEN
+        long subscriptionTime = System.currentTimeMillis();
+        movieService.subscribeToMovieChanges();
+        firstChanges.complete(initMovieChanges(100L, true));
+
+        // THEN
+        assertNull(movieCache.getIfPresent(ID));
+        assertTrue(getLastMovieChangesPoll() >= subscriptionTime);
+        verify(movieApiConnector, timeout(1000)).getMovieChangesAsync(100L, Duration.ofSeconds(5));
+
+        // WHEN
+        movieCache.put(ID, new CachedMovie(initMovie()));
+        movieCache.put(SECOND_ID, new CachedMovie(initMovie(SECOND_ID)));
+        nextChanges.complete(initMovieChanges(101L, false, ID));
+
+        // THEN
+        verify(movieApiConnector, timeout(1000)).getMovieChangesAsync(101L, Duration.ofSeconds(5));
+        assertNull(movieCache.getIfPresent(ID));
+        assertNotNull(movieCache.getIfPresent(SECOND_ID));
+    }
+
+    @Test
+    void pollMovieChangesAgainAfterFailure() {
+        // GIVEN
+        when(movieApiConnector.getMovieChangesAsync(eq(100L), any()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("connection reset")))
+                .thenReturn(CompletableFuture.completedFuture(initMovieChanges(101L, false, ID)));
+        when(movieApiConnector.getMovieChangesAsync(eq(null), any()))
+                .thenReturn(CompletableFuture.completedFuture(initMovieChanges(100L, true)));
+        when(movieApiConnector.getMovieChangesAsync(eq(101L), any())).thenReturn(new CompletableFuture<>());
+        ArgumentCaptor<Runnable> nextPoll = ArgumentCaptor.forClass(Runnable.class);
+        ArgumentCaptor<Instant> nextPollTime = ArgumentCaptor.forClass(Instant.class);
+
+        // WHEN
+        Instant failureTime = Instant.now();
+        movieService.subscribeToMovieChanges();
+
+        // THEN
+        verify(taskScheduler, timeout(1000)).schedule(nextPoll.capture(), nextPollTime.capture());
+        assertFalse(nextPollTime.getValue().isBefore(failureTime.plusSeconds(1)));
+
+        // WHEN
+        movieCache.put(ID, new CachedMovie(initMovie()));
+        nextPoll.getValue().run();
+
+        // THEN
+        verify(movieApiConnector, timeout(1000)).getMovieChangesAsync(101L, Duration.ofSeconds(5));
+        verify(movieApiConnector, times(2)).getMovieChangesAsync(100L, Duration.ofSeconds(5));
+        assertNull(movieCache.getIfPresent(ID));
+    }
+
+    @Test
+    void pollMovieChangesAgainAfterFailureToApplyChanges() {
+        // GIVEN
+        MovieChangesDto invalidChanges = initMovieChanges(100L, false);
+        invalidChanges.setMovieIds(null);
+        when(movieApiConnector.getMovieChangesAsync(eq(null), any()))
+                .thenReturn(CompletableFuture.completedFuture(invalidChanges))
+                .thenThrow(new IllegalStateException("connection pool shut down"))
+                .thenReturn(new CompletableFuture<>());
+        ArgumentCaptor<Runnable> nextPoll = ArgumentCaptor.forClass(Runnable.class);
+
+        // WHEN
+        movieService.subscribeToMovieChanges();
+
+        // THEN
+        verify(taskScheduler, timeout(1000)).schedule(nextPoll.capture(), any(Instant.class));
+        long lastPoll = getLastMovieChangesPoll();
+
+        // WHEN
+        nextPoll.getValue().run();
+
+        // THEN
+        verify(taskScheduler, timeout(1000).times(2)).schedule(nextPoll.capture(), any(Instant.class));
+        nextPoll.getValue().run();
+        verify(movieApiConnector, times(3)).getMovieChangesAsync(null, Duration.ofSeconds(5));
+        assertEquals(lastPoll, getLastMovieChangesPoll());
+    }
+
+    @Test
+    void createBulkSaver() {
+        // GIVEN
+        MovieDto movie = initMovie();
+
+        // WHEN
+        MovieBulkSaver movieBulkSaver = movieService.createBulkSaver();
+        movieBulkSaver.save(movie);
+        MovieBulkResultDto result = movieBulkSaver.complete();
+
+        // THEN
+        verify(movieApiConnector, times(1)).saveMovies(List.of(movie));
+        assertEquals(1, result.getReceived());
+        assertEquals(1, result.getSaved());
+    }
+
+    private long getLastMovieChangesPoll() {
+        return (long) meterRegistry.get("movie.changes.last.poll").timeGauge().value(TimeUnit.MILLISECONDS);
+    }
+
+    private Duration getExpiresAfter(Long movieId) {
+        return movieCache.policy()
+                .expireVariably()
+                .flatMap(expiry -> expiry.getExpiresAfter(movieId))
+                .orElseThrow();
+    }
+
+    private MovieChangesDto initMovieChanges(long sequence, boolean reset, Long... movieIds) {
+        MovieChangesDto movieChanges = new MovieChangesDto();
+        movieChanges.setSequence(sequence);
+        movieChanges.setReset(reset);
+        movieChanges.setMovieIds(List.of(movieIds));
+        return movieChanges;
+    }
+
     private MovieDto initMovie() {
+        return initMovie(ID);
+    }
+
+    private MovieDto initMovie(Long id) {
         MovieDto movie = new MovieDto();
-        movie.setId(ID);
+        movie.setId(id);
         movie.setTitle(TITLE);
         movie.setReleaseDate(RELEASE_DATE);
         return movie;
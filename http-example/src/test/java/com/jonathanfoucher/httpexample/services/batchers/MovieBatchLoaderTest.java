@@ -0,0 +1,199 @@
+package com.jonathanfoucher.httpexample.services.batchers;
+
+import com.jonathanfoucher.httpexample.common.correlation.CorrelationContext;
+import com.jonathanfoucher.httpexample.connectors.MovieApiConnector;
+import com.jonathanfoucher.httpexample.data.dto.MovieBatchDto;
+import com.jonathanfoucher.httpexample.data.dto.MovieDto;
+import com.jonathanfoucher.httpexample.services.configs.MovieBatchingConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class MovieBatchLoaderTest {
+    private final MovieApiConnector movieApiConnector = mock(MovieApiConnector.class);
+    private final MovieBatchingConfig movieBatchingConfig = new MovieBatchingConfig();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final ThreadPoolTaskScheduler taskScheduler = new ThreadPoolTaskScheduler();
+
+    private MovieBatchLoader movieBatchLoader;
+
+    private static final String CORRELATION_ID = "256a46fb-f91a-402a-b45e-065cbe5f2aa9";
+    private static final Long ID = 15L;
+    private static final Long SECOND_ID = 16L;
+    private static final Long THIRD_ID = 17L;
+    private static final String TITLE = "Some movie";
+    private static final LocalDate RELEASE_DATE = LocalDate.of(2022, 7, 19);
+
+    @BeforeEach
+    void init() {
+        movieBatchingConfig.setEnabled(true);
+        movieBatchingConfig.setMaxBatchSize(3);
+        movieBatchingConfig.setMaxDelay(Duration.ofMillis(50));
+        taskScheduler.initialize();
+        when(movieApiConnector.getTimeout()).thenReturn(Duration.ofSeconds(5));
+        movieBatchLoader = new MovieBatchLoader(movieApiConnector, movieBatchingConfig, meterRegistry, executor, taskScheduler);
+    }
+
+    @AfterEach
+    void reset() {
+        executor.shutdownNow();
+        taskScheduler.shutdown();
+    }
+
+    @Test
+    void loadWithFullBatch() throws Exception {
+        // GIVEN
+        movieBatchingConfig.setMaxDelay(Duration.ofMinutes(1));
+
+        MovieBatchDto movieBatch = new MovieBatchDto();
+        movieBatch.getMovies().add(initMovie(ID));
+        movieBatch.getMovies().add(initMovie(THIRD_ID));
+        movieBatch.getMissingIds().add(SECOND_ID);
+
+        when(movieApiConnector.getMoviesByIds(Set.of(ID, SECOND_ID, THIRD_ID)))
+                .thenReturn(movieBatch);
+
+        // WHEN
+        CompletableFuture<Optional<MovieDto>> firstResult = movieBatchLoader.loadAsync(ID);
+        CompletableFuture<Optional<MovieDto>> secondResult = movieBatchLoader.loadAsync(SECOND_ID);
+        CompletableFuture<Optional<MovieDto>> thirdResult = movieBatchLoader.loadAsync(THIRD_ID);
+
+        // THEN
+        assertEquals(ID, firstResult.get(5, TimeUnit.SECONDS).orElseThrow().getId());
+        assertTrue(secondResult.get(5, TimeUnit.SECONDS).isEmpty());
+        assertEquals(THIRD_ID, thirdResult.get(5, TimeUnit.SECONDS).orElseThrow().getId());
+
+        verify(movieApiConnector, times(1)).getMoviesByIds(any());
+        assertEquals(1, meterRegistry.get("movie.batch.size").summary().count());
+        assertEquals(3, meterRegistry.get("movie.batch.size").summary().totalAmount());
+        assertEquals(3, meterRegistry.get("movie.batch.wait").timer().count());
+    }
+
+    @Test
+    void loadWithMaxDelayReached() throws Exception {
+        // GIVEN
+        List<Runnable> scheduledFlushes = new ArrayList<>();
+        TaskScheduler manualTaskScheduler = mock(TaskScheduler.class);
+        when(manualTaskScheduler.schedule(any(Runnable.class), any(Instant.class)))
+                .thenAnswer(invocation -> {
+                    scheduledFlushes.add(invocation.getArgument(0));
+                    return mock(ScheduledFuture.class);
+                });
+        movieBatchLoader = new MovieBatchLoader(movieApiConnector, movieBatchingConfig, meterRegistry, executor, manualTaskScheduler);
+
+        MovieBatchDto movieBatch = new MovieBatchDto();
+        movieBatch.getMovies().add(initMovie(ID));
+        movieBatch.getMovies().add(initMovie(SECOND_ID));
+
+        when(movieApiConnector.getMoviesByIds(Set.of(ID, SECOND_ID)))
+                .thenReturn(movieBatch);
+
+        CompletableFuture<Optional<MovieDto>> firstResult = movieBatchLoader.loadAsync(ID);
+        CompletableFuture<Optional<MovieDto>> secondResult = movieBatchLoader.loadAsync(SECOND_ID);
+        assertEquals(1, scheduledFlushes.size());
+        assertFalse(firstResult.isDone());
+
+        // WHEN
+        scheduledFlushes.getFirst().run();
+
+        // THEN
+        assertEquals(ID, firstResult.get(5, TimeUnit.SECONDS).orElseThrow().getId());
+        assertEquals(TITLE, firstResult.get(5, TimeUnit.SECONDS).orElseThrow().getTitle());
+        assertEquals(RELEASE_DATE, firstResult.get(5, TimeUnit.SECONDS).orElseThrow().getReleaseDate());
+        assertEquals(SECOND_ID, secondResult.get(5, TimeUnit.SECONDS).orElseThrow().getId());
+
+        verify(movieApiConnector, times(1)).getMoviesByIds(any());
+        assertEquals(2, meterRegistry.get("movie.batch.size").summary().totalAmount());
+    }
+
+    @Test
+    void loadPropagatesCorrelationContext() {
+        // GIVEN
+        AtomicReference<String> upstreamCorrelationId = new AtomicReference<>();
+        when(movieApiConnector.getMoviesByIds(Set.of(ID)))
+                .thenAnswer(invocation -> {
+                    upstreamCorrelationId.set(CorrelationContext.currentCorrelationId());
+                    return new MovieBatchDto();
+                });
+
+        // WHEN
+        try (CorrelationContext.Scope ignored = CorrelationContext.of(CORRELATION_ID).open()) {
+            movieBatchLoader.load(ID);
+        }
+
+        // THEN
+        assertEquals(CORRELATION_ID, upstreamCorrelationId.get());
+    }
+
+    @Test
+    void loadWithUpstreamError() {
+        // GIVEN
+        movieBatchingConfig.setMaxBatchSize(1);
+
+        when(movieApiConnector.getMoviesByIds(Set.of(ID)))
+                .thenThrow(new IllegalStateException("some error"));
+
+        // WHEN / THEN
+        assertThatThrownBy(() -> movieBatchLoader.load(ID))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("some error");
+    }
+
+    @Test
+    void loadWithUpstreamThrowingError() {
+        // GIVEN
+        movieBatchingConfig.setMaxBatchSize(1);
+
+        when(movieApiConnector.getMoviesByIds(Set.of(ID)))
+                .thenThrow(new AssertionError("some error"));
+
+        // WHEN / THEN
+        assertThatThrownBy(() -> movieBatchLoader.load(ID))
+                .isInstanceOf(AssertionError.class)
+                .hasMessage("some error");
+    }
+
+    @Test
+    void loadWithBatchNeverSent() {
+        // GIVEN
+        when(movieApiConnector.getTimeout()).thenReturn(Duration.ofMillis(10));
+        movieBatchLoader = new MovieBatchLoader(movieApiConnector, movieBatchingConfig, meterRegistry, executor, mock(TaskScheduler.class));
+
+        // WHEN / THEN
+        assertThatThrownBy(() -> movieBatchLoader.load(ID))
+                .isInstanceOf(ResourceAccessException.class)
+                .hasMessageContaining("movie 15");
+    }
+
+    private MovieDto initMovie(Long id) {
+        MovieDto movie = new MovieDto();
+        movie.setId(id);
+        movie.setTitle(TITLE);
+        movie.setReleaseDate(RELEASE_DATE);
+        return movie;
+    }
+}
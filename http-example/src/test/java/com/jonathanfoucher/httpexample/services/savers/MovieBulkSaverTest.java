@@ -0,0 +1,189 @@
+package com.jonathanfoucher.httpexample.services.savers;
+
+import com.jonathanfoucher.httpexample.data.dto.MovieBulkErrorDto;
+import com.jonathanfoucher.httpexample.data.dto.MovieBulkResultDto;
+import com.jonathanfoucher.httpexample.data.dto.MovieDto;
+import com.jonathanfoucher.httpexample.services.configs.MovieBulkConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MovieBulkSaverTest {
+    private final MovieBulkConfig movieBulkConfig = new MovieBulkConfig();
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+    private final List<List<MovieDto>> writtenBatches = new CopyOnWriteArrayList<>();
+
+    private static final String TITLE = "Some movie";
+    private static final LocalDate RELEASE_DATE = LocalDate.of(2022, 7, 19);
+
+    @BeforeEach
+    void init() {
+        movieBulkConfig.setBatchSize(2);
+        movieBulkConfig.setMaxInFlightBatches(2);
+        movieBulkConfig.setMaxReportedErrors(2);
+    }
+
+    @AfterEach
+    void reset() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void saveMovies() {
+        // GIVEN
+        MovieBulkSaver movieBulkSaver = new MovieBulkSaver(writtenBatches::add, executor, movieBulkConfig);
+
+        // WHEN
+        movieBulkSaver.save(initMovie(1L));
+        movieBulkSaver.reject("title field is required");
+        movieBulkSaver.save(initMovie(3L));
+        movieBulkSaver.save(initMovie(4L));
+        movieBulkSaver.save(initMovie(5L));
+        MovieBulkResultDto result = movieBulkSaver.complete();
+
+        // THEN
+        assertEquals(5, result.getReceived());
+        assertEquals(4, result.getSaved());
+        assertEquals(1, result.getRejected());
+        assertEquals(0, result.getFailed());
+        assertFalse(result.isErrorsTruncated());
+        assertEquals(1, result.getErrors().size());
+        checkError(result.getErrors().getFirst(), 1, 1, "title field is required");
+
+        assertEquals(2, writtenBatches.size());
+        assertEquals(4, writtenBatches.stream().mapToInt(List::size).sum());
+    }
+
+    @Test
+    void saveMoviesWithBoundedInFlightBatches() {
+        // GIVEN
+        movieBulkConfig.setMaxInFlightBatches(1);
+        AtomicInteger inFlightBatches = new AtomicInteger();
+        AtomicInteger maxInFlightBatches = new AtomicInteger();
+        MovieBulkSaver movieBulkSaver = new MovieBulkSaver(batch -> {
+            maxInFlightBatches.accumulateAndGet(inFlightBatches.incrementAndGet(), Math::max);
+            sleep();
+            inFlightBatches.decrementAndGet();
+        }, executor, movieBulkConfig);
+
+        // WHEN
+        for (long id = 1; id <= 10; id++) {
+            movieBulkSaver.save(initMovie(id));
+        }
+        MovieBulkResultDto result = movieBulkSaver.complete();
+
+        // THEN
+        assertEquals(10, result.getSaved());
+        assertEquals(1, maxInFlightBatches.get());
+    }
+
+    @Test
+    void saveMoviesWithFailedBatch() {
+        // GIVEN
+        MovieBulkSaver movieBulkSaver = new MovieBulkSaver(batch -> {
+            if (batch.getFirst().getId() == 3L) {
+                throw new IllegalStateException("some error");
+            }
+        }, executor, movieBulkConfig);
+
+        // WHEN
+        for (long id = 1; id <= 5; id++) {
+            movieBulkSaver.save(initMovie(id));
+        }
+        MovieBulkResultDto result = movieBulkSaver.complete();
+
+        // THEN
+        assertEquals(5, result.getReceived());
+        assertEquals(3, result.getSaved());
+        assertEquals(2, result.getFailed());
+        assertEquals(1, result.getErrors().size());
+        checkError(result.getErrors().getFirst(), 2, 3, "some error");
+    }
+
+    @Test
+    void saveMoviesWithTooManyErrors() {
+        // GIVEN
+        MovieBulkSaver movieBulkSaver = new MovieBulkSaver(batch -> {
+            if (batch.getFirst().getId() == 3L) {
+                throw new IllegalStateException("some error");
+            }
+        }, executor, movieBulkConfig);
+
+        // WHEN
+        for (long id = 1; id <= 5; id++) {
+            movieBulkSaver.save(initMovie(id));
+        }
+        movieBulkSaver.reject("title field is required");
+        movieBulkSaver.reject("id field is required");
+        MovieBulkResultDto result = movieBulkSaver.complete();
+
+        // THEN
+        assertEquals(7, result.getReceived());
+        assertEquals(3, result.getSaved());
+        assertEquals(2, result.getRejected());
+        assertEquals(2, result.getFailed());
+        assertTrue(result.isErrorsTruncated());
+        assertEquals(2, result.getErrors().size());
+        checkError(result.getErrors().get(0), 5, 5, "title field is required");
+        checkError(result.getErrors().get(1), 6, 6, "id field is required");
+    }
+
+    @Test
+    void saveMoviesWithRejectedBatch() {
+        // GIVEN
+        AtomicInteger submittedBatches = new AtomicInteger();
+        MovieBulkSaver movieBulkSaver = new MovieBulkSaver(writtenBatches::add, command -> {
+            if (submittedBatches.incrementAndGet() == 2) {
+                throw new RejectedExecutionException("saturated");
+            }
+            executor.execute(command);
+        }, movieBulkConfig);
+
+        // WHEN
+        for (long id = 1; id <= 5; id++) {
+            movieBulkSaver.save(initMovie(id));
+        }
+        MovieBulkResultDto result = movieBulkSaver.complete();
+
+        // THEN
+        assertEquals(5, result.getReceived());
+        assertEquals(3, result.getSaved());
+        assertEquals(2, result.getRejected());
+        assertEquals(0, result.getFailed());
+        assertEquals(1, result.getErrors().size());
+        checkError(result.getErrors().getFirst(), 2, 3, "too many concurrent bulk saves, try again later");
+        assertEquals(2, writtenBatches.size());
+    }
+
+    private void checkError(MovieBulkErrorDto error, long fromIndex, long toIndex, String reason) {
+        assertEquals(fromIndex, error.getFromIndex());
+        assertEquals(toIndex, error.getToIndex());
+        assertEquals(reason, error.getReason());
+    }
+
+    private MovieDto initMovie(Long id) {
+        MovieDto movie = new MovieDto();
+        movie.setId(id);
+        movie.setTitle(TITLE);
+        movie.setReleaseDate(RELEASE_DATE);
+        return movie;
+    }
+
+    private void sleep() {
+        try {
+            Thread.sleep(20);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
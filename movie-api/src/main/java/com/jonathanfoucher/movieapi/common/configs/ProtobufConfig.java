@@ -0,0 +1,15 @@
+package com.jonathanfoucher.movieapi.common.configs;
+
+import com.jonathanfoucher.movieapi.common.converters.MovieProtobufHttpMessageConverter;
+import org.springframework.boot.http.converter.autoconfigure.ServerHttpMessageConvertersCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// registered after the JSON converter, so that protobuf is only written when asked for through the Accept header
+@Configuration
+public class ProtobufConfig {
+    @Bean
+    public ServerHttpMessageConvertersCustomizer protobufMessageConvertersCustomizer() {
+        return builder -> builder.configureMessageConvertersList(converters -> converters.add(new MovieProtobufHttpMessageConverter()));
+    }
+}
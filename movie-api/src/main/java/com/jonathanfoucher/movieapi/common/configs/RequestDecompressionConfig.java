@@ -0,0 +1,18 @@
+package com.jonathanfoucher.movieapi.common.configs;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties("request-decompression")
+public class RequestDecompressionConfig {
+    /**
+     * Gzip request bodies inflating past this size are answered with a 413, the compressed body buffered for non-blocking reads is bounded alike
+     */
+    private DataSize maxBodySize = DataSize.ofMegabytes(10);
+}
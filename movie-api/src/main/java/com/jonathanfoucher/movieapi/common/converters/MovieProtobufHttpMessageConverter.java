@@ -0,0 +1,149 @@
+package com.jonathanfoucher.movieapi.common.converters;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.Message;
+import com.jonathanfoucher.movieapi.data.dto.MovieBatchDto;
+import com.jonathanfoucher.movieapi.data.dto.MovieDto;
+import com.jonathanfoucher.movieapi.data.proto.Movie;
+import com.jonathanfoucher.movieapi.data.proto.MovieBatch;
+import com.jonathanfoucher.movieapi.data.proto.MovieList;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Type;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads and writes movies, movie batches and movie lists with the protobuf schema of src/main/proto/movie.proto
+ */
+public class MovieProtobufHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+    public static final MediaType APPLICATION_PROTOBUF = new MediaType("application", "x-protobuf");
+
+    public MovieProtobufHttpMessageConverter() {
+        super(APPLICATION_PROTOBUF);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return clazz == MovieDto.class || clazz == MovieBatchDto.class;
+    }
+
+    /**
+     * Movie lists are only told apart from other lists by their generic type, which is checked once writing
+     */
+    @Override
+    public List<MediaType> getSupportedMediaTypes(Class<?> clazz) {
+        return List.class.isAssignableFrom(clazz) ? getSupportedMediaTypes() : super.getSupportedMediaTypes(clazz);
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return isMovieType(type) && canRead(mediaType);
+    }
+
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        return isMovieType(type != null ? type : clazz) && canWrite(mediaType);
+    }
+
+    @Override
+    public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) throws IOException {
+        Class<?> clazz = ResolvableType.forType(type).toClass();
+        InputStream body = inputMessage.getBody();
+        try {
+            if (clazz == MovieDto.class) {
+                return toMovieDto(Movie.parseFrom(body));
+            } else if (clazz == MovieBatchDto.class) {
+                return toMovieBatchDto(MovieBatch.parseFrom(body));
+            }
+            return toMovieDtos(MovieList.parseFrom(body).getMoviesList());
+        } catch (InvalidProtocolBufferException e) {
+            throw new HttpMessageNotReadableException("Invalid protobuf movie payload: " + e.getMessage(), e, inputMessage);
+        }
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) throws IOException {
+        return read(clazz, null, inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage) throws IOException {
+        Message message = switch (object) {
+            case MovieDto movie -> toMovie(movie);
+            case MovieBatchDto movieBatch -> toMovieBatch(movieBatch);
+            case List<?> movies -> toMovieList(movies);
+            default -> throw new HttpMessageNotWritableException("Not a movie type: " + object.getClass().getName());
+        };
+        message.writeTo(outputMessage.getBody());
+    }
+
+    private boolean isMovieType(Type type) {
+        ResolvableType resolvableType = ResolvableType.forType(type);
+        Class<?> clazz = resolvableType.toClass();
+        return supports(clazz) || (List.class.isAssignableFrom(clazz) && resolvableType.getGeneric(0).toClass() == MovieDto.class);
+    }
+
+    private MovieDto toMovieDto(Movie movie) {
+        MovieDto movieDto = new MovieDto();
+        movieDto.setId(movie.hasId() ? movie.getId() : null);
+        movieDto.setTitle(movie.hasTitle() ? movie.getTitle() : null);
+        movieDto.setReleaseDate(movie.hasReleaseDate() ? LocalDate.ofEpochDay(movie.getReleaseDate()) : null);
+        return movieDto;
+    }
+
+    private List<MovieDto> toMovieDtos(List<Movie> movies) {
+        List<MovieDto> movieDtos = new ArrayList<>(movies.size());
+        for (Movie movie : movies) {
+            movieDtos.add(toMovieDto(movie));
+        }
+        return movieDtos;
+    }
+
+    private MovieBatchDto toMovieBatchDto(MovieBatch movieBatch) {
+        MovieBatchDto movieBatchDto = new MovieBatchDto();
+        movieBatchDto.setMovies(toMovieDtos(movieBatch.getMoviesList()));
+        movieBatchDto.setMissingIds(new ArrayList<>(movieBatch.getMissingIdsList()));
+        return movieBatchDto;
+    }
+
+    private Movie toMovie(MovieDto movieDto) {
+        Movie.Builder movie = Movie.newBuilder();
+        if (movieDto.getId() != null) {
+            movie.setId(movieDto.getId());
+        }
+        if (movieDto.getTitle() != null) {
+            movie.setTitle(movieDto.getTitle());
+        }
+        if (movieDto.getReleaseDate() != null) {
+            movie.setReleaseDate(movieDto.getReleaseDate().toEpochDay());
+        }
+        return movie.build();
+    }
+
+    private MovieBatch toMovieBatch(MovieBatchDto movieBatchDto) {
+        MovieBatch.Builder movieBatch = MovieBatch.newBuilder();
+        for (MovieDto movieDto : movieBatchDto.getMovies()) {
+            movieBatch.addMovies(toMovie(movieDto));
+        }
+        return movieBatch.addAllMissingIds(movieBatchDto.getMissingIds())
+                .build();
+    }
+
+    private MovieList toMovieList(List<?> movieDtos) {
+        MovieList.Builder movieList = MovieList.newBuilder();
+        for (Object movieDto : movieDtos) {
+            movieList.addMovies(toMovie((MovieDto) movieDto));
+        }
+        return movieList.build();
+    }
+}
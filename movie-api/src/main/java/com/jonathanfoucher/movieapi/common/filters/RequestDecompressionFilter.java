@@ -0,0 +1,285 @@
+package com.jonathanfoucher.movieapi.common.filters;
+
+import com.jonathanfoucher.movieapi.common.configs.RequestDecompressionConfig;
+import jakarta.servlet.*;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.web.servlet.FilterRegistration;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ContentTooLargeException;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.zip.GZIPInputStream;
+
+import static org.springframework.http.HttpHeaders.ACCEPT_ENCODING;
+import static org.springframework.http.HttpHeaders.CONTENT_ENCODING;
+import static org.springframework.http.HttpHeaders.CONTENT_LENGTH;
+
+// gzip request bodies are inflated while they are read up to a maximum size, other content codings are answered with a 415 (RFC 7694)
+@Component
+@FilterRegistration(order = 1)
+@RequiredArgsConstructor
+public class RequestDecompressionFilter implements Filter {
+    private static final String GZIP = "gzip";
+    private static final String IDENTITY = "identity";
+
+    private final RequestDecompressionConfig requestDecompressionConfig;
+
+    @Override
+    public void doFilter(ServletRequest servletRequest, ServletResponse servletResponse, FilterChain filterChain) throws IOException, ServletException {
+        HttpServletRequest request = (HttpServletRequest) servletRequest;
+        String contentEncoding = request.getHeader(CONTENT_ENCODING);
+
+        if (contentEncoding == null || IDENTITY.equalsIgnoreCase(contentEncoding)) {
+            filterChain.doFilter(request, servletResponse);
+        } else if (GZIP.equalsIgnoreCase(contentEncoding)) {
+            doFilterGzip(request, (HttpServletResponse) servletResponse, filterChain);
+        } else {
+            HttpServletResponse response = (HttpServletResponse) servletResponse;
+            response.setHeader(ACCEPT_ENCODING, GZIP);
+            response.sendError(HttpServletResponse.SC_UNSUPPORTED_MEDIA_TYPE, "Unsupported content encoding " + contentEncoding);
+        }
+    }
+
+    private void doFilterGzip(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws IOException, ServletException {
+        try {
+            filterChain.doFilter(new GzipRequest(request, requestDecompressionConfig.getMaxBodySize().toBytes()), response);
+        } catch (ContentTooLargeException e) {
+            // the body was read by the chain without the exception being answered
+            if (response.isCommitted()) {
+                throw e;
+            }
+            response.sendError(e.getStatusCode().value());
+        }
+    }
+
+    private static ContentTooLargeException tooLarge(long maxBodySize) {
+        return new ContentTooLargeException(new IOException("Request body larger than " + maxBodySize + " bytes"));
+    }
+
+    private static class GzipRequest extends HttpServletRequestWrapper {
+        private final long maxBodySize;
+        private ServletInputStream inputStream;
+        private BufferedReader reader;
+
+        GzipRequest(HttpServletRequest request, long maxBodySize) {
+            super(request);
+            this.maxBodySize = maxBodySize;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() throws IOException {
+            if (reader != null) {
+                throw new IllegalStateException("getReader() has already been called for this request");
+            }
+            if (inputStream == null) {
+                inputStream = new GzipServletInputStream(super.getInputStream(), maxBodySize);
+            }
+            return inputStream;
+        }
+
+        @Override
+        public BufferedReader getReader() throws IOException {
+            if (reader == null) {
+                String encoding = getCharacterEncoding();
+                Charset charset = encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8;
+                reader = new BufferedReader(new InputStreamReader(getInputStream(), charset));
+            }
+            return reader;
+        }
+
+        @Override
+        public int getContentLength() {
+            return -1;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return -1;
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return isContentCodingHeader(name) ? null : super.getHeader(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaders(String name) {
+            return isContentCodingHeader(name) ? Collections.emptyEnumeration() : super.getHeaders(name);
+        }
+
+        private boolean isContentCodingHeader(String name) {
+            return CONTENT_ENCODING.equalsIgnoreCase(name) || CONTENT_LENGTH.equalsIgnoreCase(name);
+        }
+    }
+
+    /**
+     * Blocking reads inflate the body as it is received. Non-blocking reads buffer the compressed body
+     * as it becomes available, since inflating could need more bytes than are ready, and inflate it once all of it was read.
+     * Both the inflated and the buffered bodies are bounded, past the maximum size reads fail with a 413.
+     */
+    private static class GzipServletInputStream extends ServletInputStream {
+        private final ServletInputStream compressed;
+        private final long maxBodySize;
+        private InputStream decompressed;
+        private ReadListener readListener;
+        private boolean finished;
+
+        GzipServletInputStream(ServletInputStream compressed, long maxBodySize) {
+            this.compressed = compressed;
+            this.maxBodySize = maxBodySize;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int result = getDecompressed().read();
+            finished = result == -1;
+            return result;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            int result = getDecompressed().read(bytes, offset, length);
+            finished = result == -1;
+            return result;
+        }
+
+        private InputStream getDecompressed() throws IOException {
+            if (decompressed == null) {
+                if (readListener != null) {
+                    throw new IllegalStateException("The gzip request body is not ready to be read");
+                }
+                decompressed = new BoundedInputStream(new GZIPInputStream(compressed, 8192), maxBodySize);
+            }
+            return decompressed;
+        }
+
+        @Override
+        public boolean isFinished() {
+            return finished;
+        }
+
+        @Override
+        public boolean isReady() {
+            return readListener == null ? compressed.isReady() : decompressed != null;
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            if (this.readListener != null) {
+                throw new IllegalStateException("A read listener has already been set");
+            }
+            this.readListener = readListener;
+            compressed.setReadListener(new BufferingReadListener(readListener));
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (decompressed != null) {
+                decompressed.close();
+            } else {
+                compressed.close();
+            }
+        }
+
+        private class BufferingReadListener implements ReadListener {
+            private final ReadListener readListener;
+            private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+            private final byte[] buffer = new byte[8192];
+            private boolean failed;
+
+            BufferingReadListener(ReadListener readListener) {
+                this.readListener = readListener;
+            }
+
+            @Override
+            public void onDataAvailable() throws IOException {
+                int length;
+                while (!failed && compressed.isReady() && (length = compressed.read(buffer)) != -1) {
+                    body.write(buffer, 0, length);
+                    if (body.size() > maxBodySize) {
+                        // the rest of the body is left unread
+                        failed = true;
+                        readListener.onError(tooLarge(maxBodySize));
+                    }
+                }
+            }
+
+            @Override
+            public void onAllDataRead() throws IOException {
+                if (failed) {
+                    return;
+                }
+                try {
+                    decompressed = new BoundedInputStream(new GZIPInputStream(new ByteArrayInputStream(body.toByteArray()), 8192), maxBodySize);
+                } catch (IOException e) {
+                    readListener.onError(e);
+                    return;
+                }
+                readListener.onDataAvailable();
+                readListener.onAllDataRead();
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                if (!failed) {
+                    readListener.onError(throwable);
+                }
+            }
+        }
+    }
+
+    private static class BoundedInputStream extends FilterInputStream {
+        private final long maxSize;
+        private long size;
+
+        BoundedInputStream(InputStream inputStream, long maxSize) {
+            super(inputStream);
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int result = super.read();
+            if (result != -1) {
+                count(1);
+            }
+            return result;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            int result = super.read(bytes, offset, length);
+            if (result != -1) {
+                count(result);
+            }
+            return result;
+        }
+
+        @Override
+        public long skip(long length) throws IOException {
+            long result = super.skip(length);
+            count(result);
+            return result;
+        }
+
+        private void count(long length) {
+            size += length;
+            if (size > maxSize) {
+                throw tooLarge(maxSize);
+            }
+        }
+    }
+}
@@ -1,24 +1,158 @@
 package com.jonathanfoucher.movieapi.controllers;
 
+import com.jonathanfoucher.movieapi.data.dto.MovieBatchDto;
+import com.jonathanfoucher.movieapi.data.dto.MovieChangesDto;
 import com.jonathanfoucher.movieapi.data.dto.MovieDto;
+import com.jonathanfoucher.movieapi.stores.MovieChangeFeed;
+import com.jonathanfoucher.movieapi.stores.MovieStore;
+import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import tools.jackson.core.StreamWriteFeature;
+import tools.jackson.databind.ObjectWriter;
+import tools.jackson.databind.SequenceWriter;
+import tools.jackson.databind.SerializationFeature;
+import tools.jackson.databind.json.JsonMapper;
 
+import java.io.OutputStream;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.springframework.http.HttpHeaders.LINK;
+import static org.springframework.http.HttpStatus.BAD_REQUEST;
+import static org.springframework.http.HttpStatus.NOT_FOUND;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
 
 @RestController
 @RequestMapping("/movies")
+@RequiredArgsConstructor
 public class MovieController {
+    private static final int MAX_BATCH_SIZE = 100;
+    private static final int MAX_SEARCH_LIMIT = 100;
+    private static final String DEFAULT_SEARCH_LIMIT = "20";
+    private static final int MAX_PAGE_SIZE = 10_000;
+    private static final String DEFAULT_PAGE_SIZE = "1000";
+    private static final int MAX_CHANGES = 10_000;
+    private static final String DEFAULT_CHANGES = "1000";
+    private static final long MAX_CHANGES_WAIT_MILLIS = 20_000;
+
+    private final MovieStore movieStore;
+    private final MovieChangeFeed movieChangeFeed;
+    private final JsonMapper jsonMapper;
+
     Logger log = LoggerFactory.getLogger(MovieController.class);
 
     @GetMapping("/{movie_id}")
-    public MovieDto getMovie(@PathVariable("movie_id") Long movieId,
-                             @RequestHeader HttpHeaders headers
+    public ResponseEntity<MovieDto> getMovie(@PathVariable("movie_id") Long movieId,
+                                             @RequestHeader HttpHeaders headers
     ) {
         log.info("Received request to get movie {} with headers {}", movieId, headers);
-        return initMovie(movieId);
+        // conditional requests are answered with a 304 by Spring when the entity tag matches
+        MovieDto movie = movieStore.findById(movieId)
+                .orElseThrow(() -> new ResponseStatusException(NOT_FOUND, "Movie " + movieId + " not found"));
+        return ResponseEntity.ok()
+                .eTag(MovieETags.getETag(movie))
+                .varyBy(HttpHeaders.ACCEPT)
+                .body(movie);
+    }
+
+    /**
+     * Pages through the movies by ascending id, the cursor of the next page is the last id of the current one
+     * and is given by the {@code Link} header until the last page
+     */
+    @GetMapping(produces = APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> getMoviePage(@RequestParam(value = "cursor", required = false) Long cursor,
+                                                              @RequestParam(value = "limit", defaultValue = DEFAULT_PAGE_SIZE) int limit,
+                                                              @RequestHeader HttpHeaders headers
+    ) {
+        log.info("Received request to list at most {} movies after {} with headers {}", limit, cursor, headers);
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new ResponseStatusException(BAD_REQUEST, "Between 1 and " + MAX_PAGE_SIZE + " movies can be listed at once");
+        }
+
+        // one more id is read to know whether there is a next page
+        long[] movieIds = movieStore.findIds(cursor, limit + 1);
+        int pageSize = Math.min(movieIds.length, limit);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(APPLICATION_JSON);
+        if (movieIds.length > limit) {
+            String nextPage = ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("cursor", movieIds[limit - 1])
+                    .replaceQueryParam("limit", limit)
+                    .toUriString();
+            response.header(LINK, "<" + nextPage + ">; rel=\"next\"");
+        }
+        return response.body(outputStream -> writeMovies(movieIds, pageSize, outputStream));
+    }
+
+    /**
+     * Ids of the movies saved after the sequence, waiting up to {@code wait_ms} for a save when there is none yet.
+     * The answered sequence is the one to resume from, a reset means that any movie may have changed since the requested one.
+     */
+    @GetMapping("/changes")
+    public CompletableFuture<MovieChangesDto> getMovieChanges(@RequestParam(value = "after", required = false) Long afterSequence,
+                                                              @RequestParam(value = "limit", defaultValue = DEFAULT_CHANGES) int limit,
+                                                              @RequestParam(value = "wait_ms", defaultValue = "0") long waitMillis,
+                                                              @RequestHeader HttpHeaders headers
+    ) {
+        log.info("Received request to get at most {} movie changes after {} with headers {}", limit, afterSequence, headers);
+        if (limit < 1 || limit > MAX_CHANGES) {
+            throw new ResponseStatusException(BAD_REQUEST, "Between 1 and " + MAX_CHANGES + " movie changes can be read at once");
+        }
+        if (waitMillis < 0 || waitMillis > MAX_CHANGES_WAIT_MILLIS) {
+            throw new ResponseStatusException(BAD_REQUEST, "Movie changes can be waited for at most " + MAX_CHANGES_WAIT_MILLIS + " ms");
+        }
+        return movieChangeFeed.poll(afterSequence, limit, Duration.ofMillis(waitMillis));
+    }
+
+    @GetMapping(params = "ids")
+    public MovieBatchDto getMovies(@RequestParam("ids") List<Long> movieIds,
+                                   @RequestHeader HttpHeaders headers
+    ) {
+        log.info("Received request to get movies {} with headers {}", movieIds, headers);
+        if (movieIds.size() > MAX_BATCH_SIZE) {
+            throw new ResponseStatusException(BAD_REQUEST, "At most " + MAX_BATCH_SIZE + " movie ids can be requested at once");
+        }
+
+        MovieBatchDto movieBatch = new MovieBatchDto();
+        new LinkedHashSet<>(movieIds).forEach(movieId -> movieStore.findById(movieId)
+                .ifPresentOrElse(movieBatch.getMovies()::add, () -> movieBatch.getMissingIds().add(movieId)));
+        return movieBatch;
+    }
+
+    @GetMapping(params = "title_prefix")
+    public List<MovieDto> findMoviesByTitlePrefix(@RequestParam("title_prefix") String titlePrefix,
+                                                  @RequestParam(value = "limit", defaultValue = DEFAULT_SEARCH_LIMIT) int limit,
+                                                  @RequestHeader HttpHeaders headers
+    ) {
+        log.info("Received request to find at most {} movies with title prefix {} with headers {}", limit, titlePrefix, headers);
+        checkSearchLimit(limit);
+        return movieStore.findByTitlePrefix(titlePrefix, limit);
+    }
+
+    @GetMapping(params = {"release_date_from", "release_date_to"})
+    public List<MovieDto> findMoviesByReleaseDate(@RequestParam("release_date_from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                  @RequestParam("release_date_to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                  @RequestParam(value = "limit", defaultValue = DEFAULT_SEARCH_LIMIT) int limit,
+                                                  @RequestHeader HttpHeaders headers
+    ) {
+        log.info("Received request to find at most {} movies released from {} to {} with headers {}", limit, from, to, headers);
+        checkSearchLimit(limit);
+        if (from.isAfter(to)) {
+            throw new ResponseStatusException(BAD_REQUEST, "The release date range cannot end before it starts");
+        }
+        return movieStore.findByReleaseDate(from, to, limit);
     }
 
     @PostMapping
@@ -26,13 +160,45 @@ public class MovieController {
                           @RequestHeader HttpHeaders headers
     ) {
         log.info("Received request to save movie: {} with headers {}", movie, headers);
+        checkMovieId(movie);
+        movieStore.save(movie);
+    }
+
+    @PostMapping("/batch")
+    public void saveMovies(@RequestBody List<MovieDto> movies,
+                           @RequestHeader HttpHeaders headers
+    ) {
+        log.info("Received request to save {} movies with headers {}", movies.size(), headers);
+        // the whole batch is rejected before any movie is saved
+        movies.forEach(this::checkMovieId);
+        movieStore.saveAll(movies);
+    }
+
+    /**
+     * Movies are decoded one at a time and written through the generator buffer, a page is never held as a whole.
+     * The array is only closed once all the movies were written, a page that failed midway ends with an invalid body.
+     */
+    private void writeMovies(long[] movieIds, int pageSize, OutputStream outputStream) {
+        ObjectWriter movieWriter = jsonMapper.writerFor(MovieDto.class)
+                .without(StreamWriteFeature.AUTO_CLOSE_TARGET)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        SequenceWriter sequenceWriter = movieWriter.writeValuesAsArray(outputStream);
+        for (int i = 0; i < pageSize; i++) {
+            movieStore.findById(movieIds[i])
+                    .ifPresent(sequenceWriter::write);
+        }
+        sequenceWriter.close();
+    }
+
+    private void checkSearchLimit(int limit) {
+        if (limit < 1 || limit > MAX_SEARCH_LIMIT) {
+            throw new ResponseStatusException(BAD_REQUEST, "Between 1 and " + MAX_SEARCH_LIMIT + " movies can be searched at once");
+        }
     }
 
-    private MovieDto initMovie(Long id) {
-        MovieDto movie = new MovieDto();
-        movie.setId(id);
-        movie.setTitle("Title");
-        movie.setReleaseDate(LocalDate.of(2020, 1, 1));
-        return movie;
+    private void checkMovieId(MovieDto movie) {
+        if (movie == null || movie.getId() == null) {
+            throw new ResponseStatusException(BAD_REQUEST, "Movies can only be saved with an id");
+        }
     }
 }
@@ -0,0 +1,26 @@
+package com.jonathanfoucher.movieapi.controllers;
+
+import com.jonathanfoucher.movieapi.data.dto.MovieDto;
+
+/**
+ * Entity tags of the movies, hashed with FNV-1a from the movie fields. Both services tag movies with the same copy of this class.
+ * Tags are weak since a movie is written as JSON or protobuf, compressed or not, and every representation shares its tag.
+ */
+final class MovieETags {
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private MovieETags() {
+    }
+
+    static String getETag(MovieDto movie) {
+        long hash = FNV_OFFSET_BASIS;
+        hash = (hash ^ (movie.getId() != null ? movie.getId() : 0)) * FNV_PRIME;
+        String title = movie.getTitle() != null ? movie.getTitle() : "";
+        for (int i = 0; i < title.length(); i++) {
+            hash = (hash ^ title.charAt(i)) * FNV_PRIME;
+        }
+        hash = (hash ^ (movie.getReleaseDate() != null ? movie.getReleaseDate().toEpochDay() : 0)) * FNV_PRIME;
+        return "W/\"" + Long.toHexString(hash) + "\"";
+    }
+}
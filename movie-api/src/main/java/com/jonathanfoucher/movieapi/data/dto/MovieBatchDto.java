@@ -0,0 +1,17 @@
+package com.jonathanfoucher.movieapi.data.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+import tools.jackson.databind.PropertyNamingStrategies;
+import tools.jackson.databind.annotation.JsonNaming;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+public class MovieBatchDto {
+    private List<MovieDto> movies = new ArrayList<>();
+    private List<Long> missingIds = new ArrayList<>();
+}
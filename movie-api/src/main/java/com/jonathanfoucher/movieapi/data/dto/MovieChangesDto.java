@@ -0,0 +1,24 @@
+package com.jonathanfoucher.movieapi.data.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+import tools.jackson.databind.PropertyNamingStrategies;
+import tools.jackson.databind.annotation.JsonNaming;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+public class MovieChangesDto {
+    /**
+     * Sequence of the last change read, the next changes are read after it
+     */
+    private long sequence;
+    /**
+     * True when the changes since the requested sequence are no longer known, any movie may have changed
+     */
+    private boolean reset;
+    private List<Long> movieIds = new ArrayList<>();
+}
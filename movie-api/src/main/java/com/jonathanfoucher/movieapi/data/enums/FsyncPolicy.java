@@ -0,0 +1,16 @@
+package com.jonathanfoucher.movieapi.data.enums;
+
+public enum FsyncPolicy {
+    /**
+     * Saves return once their movies are on disk, concurrent saves share the same fsync
+     */
+    ALWAYS,
+    /**
+     * Saves return once their movies are written to the OS, which is synced to disk at a fixed interval
+     */
+    INTERVAL,
+    /**
+     * Saves return once their movies are written to the OS, which syncs them to disk on its own
+     */
+    NEVER
+}
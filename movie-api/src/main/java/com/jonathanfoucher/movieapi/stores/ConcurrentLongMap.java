@@ -0,0 +1,191 @@
+package com.jonathanfoucher.movieapi.stores;
+
+import java.util.Objects;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Hash map keyed by primitive longs, split into stripes of open addressing tables so that keys are never boxed.
+ * Writes lock their stripe, reads are optimistic and only take the read lock when they raced with a write.
+ * Entries can be added or replaced but not removed, a slot is empty as long as its value is null.
+ */
+public class ConcurrentLongMap<V> {
+    private static final int STRIPE_BITS = 6;
+    private static final int STRIPE_COUNT = 1 << STRIPE_BITS;
+    private static final int MIN_STRIPE_CAPACITY = 16;
+    private static final float MAX_LOAD_FACTOR = 0.75f;
+
+    private final Stripe[] stripes = new Stripe[STRIPE_COUNT];
+
+    public ConcurrentLongMap(int initialCapacity) {
+        int stripeCapacity = Math.max(MIN_STRIPE_CAPACITY, tableSizeFor((int) Math.ceil(initialCapacity / (STRIPE_COUNT * MAX_LOAD_FACTOR))));
+        for (int i = 0; i < STRIPE_COUNT; i++) {
+            stripes[i] = new Stripe(stripeCapacity);
+        }
+    }
+
+    public V get(long key) {
+        long hash = mix(key);
+        Stripe stripe = getStripe(hash);
+        long stamp = stripe.lock.tryOptimisticRead();
+        Object value = stripe.find(key, hash);
+        if (!stripe.lock.validate(stamp)) {
+            stamp = stripe.lock.readLock();
+            try {
+                value = stripe.find(key, hash);
+            } finally {
+                stripe.lock.unlockRead(stamp);
+            }
+        }
+        return cast(value);
+    }
+
+    /**
+     * Returns the previous value of the key, or null when it was not present
+     */
+    public V put(long key, V value) {
+        Objects.requireNonNull(value, "Null values are not supported");
+        long hash = mix(key);
+        Stripe stripe = getStripe(hash);
+        long stamp = stripe.lock.writeLock();
+        try {
+            return cast(stripe.put(key, hash, value));
+        } finally {
+            stripe.lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Visits the entries one stripe at a time, a stripe cannot be written to while it is visited
+     */
+    public void forEach(LongObjectConsumer<V> consumer) {
+        for (Stripe stripe : stripes) {
+            long stamp = stripe.lock.readLock();
+            try {
+                Table table = stripe.table;
+                for (int i = 0; i < table.keys.length; i++) {
+                    if (table.values[i] != null) {
+                        consumer.accept(table.keys[i], cast(table.values[i]));
+                    }
+                }
+            } finally {
+                stripe.lock.unlockRead(stamp);
+            }
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            size += stripe.size;
+        }
+        return size;
+    }
+
+    /**
+     * Number of slots allocated by all the stripes, each one holds a key and a value reference
+     */
+    public long capacity() {
+        long capacity = 0;
+        for (Stripe stripe : stripes) {
+            capacity += stripe.table.keys.length;
+        }
+        return capacity;
+    }
+
+    private Stripe getStripe(long hash) {
+        return stripes[(int) (hash >>> (Long.SIZE - STRIPE_BITS))];
+    }
+
+    @SuppressWarnings("unchecked")
+    private V cast(Object value) {
+        return (V) value;
+    }
+
+    /**
+     * Murmur3 finalizer, sequential ids are spread over all the stripes and slots
+     */
+    private static long mix(long key) {
+        long hash = key;
+        hash = (hash ^ (hash >>> 33)) * 0xff51afd7ed558ccdL;
+        hash = (hash ^ (hash >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return hash ^ (hash >>> 33);
+    }
+
+    private static int tableSizeFor(int capacity) {
+        return capacity <= 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+    }
+
+    @FunctionalInterface
+    public interface LongObjectConsumer<V> {
+        void accept(long key, V value);
+    }
+
+    /**
+     * Tables are replaced as a whole on resize, so that an optimistic read always probes consistent arrays
+     */
+    private record Table(long[] keys, Object[] values) {
+        Table(int capacity) {
+            this(new long[capacity], new Object[capacity]);
+        }
+    }
+
+    private static final class Stripe {
+        private final StampedLock lock = new StampedLock();
+        private Table table;
+        private volatile int size;
+
+        private Stripe(int capacity) {
+            this.table = new Table(capacity);
+        }
+
+        private Object find(long key, long hash) {
+            Table current = table;
+            long[] keys = current.keys;
+            Object[] values = current.values;
+            int mask = keys.length - 1;
+            // tables are never full, the probe always ends on an empty slot
+            for (int i = (int) hash & mask; ; i = (i + 1) & mask) {
+                Object value = values[i];
+                if (value == null || keys[i] == key) {
+                    return value;
+                }
+            }
+        }
+
+        private Object put(long key, long hash, Object value) {
+            int index = indexOf(table, key, hash);
+            Object previous = table.values[index];
+            if (previous == null && size + 1 > table.keys.length * MAX_LOAD_FACTOR) {
+                resize();
+                index = indexOf(table, key, hash);
+            }
+            table.keys[index] = key;
+            table.values[index] = value;
+            if (previous == null) {
+                size++;
+            }
+            return previous;
+        }
+
+        private void resize() {
+            Table resized = new Table(table.keys.length * 2);
+            for (int i = 0; i < table.keys.length; i++) {
+                if (table.values[i] != null) {
+                    int index = indexOf(resized, table.keys[i], mix(table.keys[i]));
+                    resized.keys[index] = table.keys[i];
+                    resized.values[index] = table.values[i];
+                }
+            }
+            table = resized;
+        }
+
+        private static int indexOf(Table table, long key, long hash) {
+            int mask = table.keys.length - 1;
+            int index = (int) hash & mask;
+            while (table.values[index] != null && table.keys[index] != key) {
+                index = (index + 1) & mask;
+            }
+            return index;
+        }
+    }
+}
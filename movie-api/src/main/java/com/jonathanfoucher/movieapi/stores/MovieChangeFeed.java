@@ -0,0 +1,125 @@
+package com.jonathanfoucher.movieapi.stores;
+
+import com.jonathanfoucher.movieapi.data.dto.MovieChangesDto;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Ids of the saved movies numbered by an increasing sequence, the last changes are kept in a ring so that readers can resume from a sequence.
+ * Sequences of a run start from its startup time shifted by 20 bits, a run would have to save a million movies per millisecond of uptime
+ * to reach the sequences of the next one: they keep increasing across restarts as long as the clock does not go back,
+ * and a sequence of a previous run is answered with a reset since its changes were not kept.
+ */
+public class MovieChangeFeed {
+    private static final int SEQUENCE_TIME_SHIFT = 20;
+
+    private final long[] movieIds;
+    private final int mask;
+    private final long startSequence;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final List<CompletableFuture<Void>> waitingReaders = new ArrayList<>();
+    private long lastSequence;
+
+    public MovieChangeFeed(int capacity) {
+        this(capacity, System.currentTimeMillis() << SEQUENCE_TIME_SHIFT);
+    }
+
+    MovieChangeFeed(int capacity, long startSequence) {
+        int ringSize = Integer.highestOneBit(Math.max(capacity - 1, 1)) << 1;
+        this.movieIds = new long[ringSize];
+        this.mask = ringSize - 1;
+        this.startSequence = startSequence;
+        this.lastSequence = startSequence;
+    }
+
+    /**
+     * Adds a change of the movie, to be called once the saved movie can be read
+     */
+    public void publish(long movieId) {
+        List<CompletableFuture<Void>> wokenReaders = null;
+        lock.lock();
+        try {
+            lastSequence++;
+            movieIds[(int) (lastSequence & mask)] = movieId;
+            if (!waitingReaders.isEmpty()) {
+                wokenReaders = new ArrayList<>(waitingReaders);
+                waitingReaders.clear();
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (wokenReaders != null) {
+            wokenReaders.forEach(reader -> reader.complete(null));
+        }
+    }
+
+    /**
+     * Distinct ids of the movies changed after the sequence, at most limit changes are read.
+     * Without a sequence, or when its changes are no longer kept, a reset is answered with the last sequence to read from.
+     */
+    public MovieChangesDto read(Long afterSequence, int limit) {
+        MovieChangesDto changes = new MovieChangesDto();
+        lock.lock();
+        try {
+            long firstKeptSequence = Math.max(startSequence, lastSequence - movieIds.length);
+            if (afterSequence == null || afterSequence < firstKeptSequence || afterSequence > lastSequence) {
+                changes.setSequence(lastSequence);
+                changes.setReset(true);
+                return changes;
+            }
+
+            long toSequence = Math.min(lastSequence, afterSequence + limit);
+            LinkedHashSet<Long> changedMovieIds = new LinkedHashSet<>();
+            for (long sequence = afterSequence + 1; sequence <= toSequence; sequence++) {
+                changedMovieIds.add(movieIds[(int) (sequence & mask)]);
+            }
+            changes.setSequence(toSequence);
+            changes.getMovieIds().addAll(changedMovieIds);
+            return changes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Long poll, answers as soon as there are changes after the sequence or once the timeout elapsed with no change.
+     * Waiting readers are answered from another thread than the save that woke them up.
+     */
+    public CompletableFuture<MovieChangesDto> poll(Long afterSequence, int limit, Duration timeout) {
+        CompletableFuture<Void> change = new CompletableFuture<>();
+        lock.lock();
+        try {
+            if (afterSequence == null || afterSequence != lastSequence || timeout.isZero()) {
+                return CompletableFuture.completedFuture(read(afterSequence, limit));
+            }
+            waitingReaders.add(change);
+        } finally {
+            lock.unlock();
+        }
+
+        MovieChangesDto noChange = new MovieChangesDto();
+        noChange.setSequence(afterSequence);
+        CompletableFuture<MovieChangesDto> changes = change.thenApplyAsync(ignored -> read(afterSequence, limit))
+                .completeOnTimeout(noChange, timeout.toNanos(), TimeUnit.NANOSECONDS);
+        // a reader that timed out no longer waits for the next change
+        changes.whenComplete((result, error) -> removeWaitingReader(change));
+        return changes;
+    }
+
+    private void removeWaitingReader(CompletableFuture<Void> change) {
+        if (!change.isDone()) {
+            lock.lock();
+            try {
+                waitingReaders.remove(change);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package com.jonathanfoucher.movieapi.stores;
+
+import com.jonathanfoucher.movieapi.data.dto.MovieDto;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongPredicate;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Sorted indexes of the movie ids, titles and release dates.
+ * Title and release date entries are single byte array keys ending with the movie id, compared as unsigned bytes,
+ * so that a title prefix or a date range is a contiguous run of keys.
+ * Updates of a same movie are expected to be ordered by the caller, queries may briefly see both the old and the new key.
+ */
+class MovieIndexes {
+    // skip list node and its share of the index levels, then the key array aligned on 8 bytes or the boxed id
+    private static final int NODE_SIZE = 32;
+    private static final int BOXED_ID_SIZE = 16;
+    private static final int ARRAY_HEADER_SIZE = 16;
+    private static final byte TITLE_END = 0;
+    private static final byte TITLE_ESCAPE = 1;
+
+    private static final Comparator<byte[]> KEY_ORDER = Arrays::compareUnsigned;
+
+    private final NavigableSet<Long> ids = new ConcurrentSkipListSet<>();
+    private final NavigableSet<byte[]> titles = new ConcurrentSkipListSet<>(KEY_ORDER);
+    private final NavigableSet<byte[]> releaseDates = new ConcurrentSkipListSet<>(KEY_ORDER);
+    private final LongAdder memoryUsage = new LongAdder();
+
+    /**
+     * Replaces the keys of the previous version of the movie, null when it is new, by the keys of the saved one
+     */
+    void update(long movieId, MovieDto previous, MovieDto movie) {
+        if (previous == null && ids.add(movieId)) {
+            memoryUsage.add(NODE_SIZE + BOXED_ID_SIZE);
+        }
+
+        String previousTitle = previous != null ? normalizeTitle(previous.getTitle()) : null;
+        String title = normalizeTitle(movie.getTitle());
+        if (!Objects.equals(previousTitle, title)) {
+            remove(titles, previousTitle != null ? getTitleKey(previousTitle, movieId) : null);
+            add(titles, title != null ? getTitleKey(title, movieId) : null);
+        }
+
+        LocalDate previousReleaseDate = previous != null ? previous.getReleaseDate() : null;
+        LocalDate releaseDate = movie.getReleaseDate();
+        if (!Objects.equals(previousReleaseDate, releaseDate)) {
+            remove(releaseDates, previousReleaseDate != null ? getReleaseDateKey(previousReleaseDate, movieId) : null);
+            add(releaseDates, releaseDate != null ? getReleaseDateKey(releaseDate, movieId) : null);
+        }
+    }
+
+    /**
+     * Indexes the records of a store that is not saved to yet, like the movies reloaded on startup.
+     * Keys are sorted first, a skip list is several times faster to fill in order than one key at a time.
+     */
+    void addAll(ConcurrentLongMap<byte[]> records) {
+        long[] movieIds = new long[records.size()];
+        int[] movieCount = new int[1];
+        List<byte[]> titleKeys = new ArrayList<>(records.size());
+        List<byte[]> releaseDateKeys = new ArrayList<>(records.size());
+        records.forEach((movieId, record) -> {
+            movieIds[movieCount[0]++] = movieId;
+            MovieDto movie = MovieRecords.decode(movieId, record);
+            if (movie.getTitle() != null) {
+                titleKeys.add(getTitleKey(normalizeTitle(movie.getTitle()), movieId));
+            }
+            if (movie.getReleaseDate() != null) {
+                releaseDateKeys.add(getReleaseDateKey(movie.getReleaseDate(), movieId));
+            }
+        });
+        Arrays.parallelSort(movieIds, 0, movieCount[0]);
+        for (int i = 0; i < movieCount[0]; i++) {
+            ids.add(movieIds[i]);
+        }
+        memoryUsage.add((long) movieCount[0] * (NODE_SIZE + BOXED_ID_SIZE));
+        addSorted(titles, titleKeys);
+        addSorted(releaseDates, releaseDateKeys);
+    }
+
+    /**
+     * Visits the movie ids greater than the given one, or all of them when it is null, in ascending order
+     * until the visitor returns false
+     */
+    void scanIds(Long afterId, LongPredicate visitor) {
+        for (Long movieId : afterId != null ? ids.tailSet(afterId, false) : ids) {
+            if (!visitor.test(movieId)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Visits the ids of the movies whose title starts with the prefix, ignoring case, ordered by title
+     * until the visitor returns false
+     */
+    void scanTitlePrefix(String prefix, LongPredicate visitor) {
+        byte[] prefixKey = escapeTitle(normalizeTitle(prefix).getBytes(UTF_8));
+        for (byte[] key : titles.tailSet(prefixKey, true)) {
+            if (!startsWith(key, prefixKey) || !visitor.test(getMovieId(key))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Visits the ids of the movies released between both dates included, ordered by release date
+     * until the visitor returns false
+     */
+    void scanReleaseDates(LocalDate from, LocalDate to, LongPredicate visitor) {
+        byte[] fromKey = getSortableLong(from.toEpochDay());
+        byte[] toKey = getSortableLong(to.toEpochDay());
+        for (byte[] key : releaseDates.tailSet(fromKey, true)) {
+            if (Arrays.compareUnsigned(key, 0, Long.BYTES, toKey, 0, Long.BYTES) > 0
+                    || !visitor.test(getMovieId(key))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Estimated heap retained by the index entries, assuming compressed references
+     */
+    long getMemoryUsage() {
+        return memoryUsage.sum();
+    }
+
+    static boolean hasTitlePrefix(MovieDto movie, String prefix) {
+        return movie.getTitle() != null && normalizeTitle(movie.getTitle()).startsWith(normalizeTitle(prefix));
+    }
+
+    static boolean isReleasedBetween(MovieDto movie, LocalDate from, LocalDate to) {
+        LocalDate releaseDate = movie.getReleaseDate();
+        return releaseDate != null && !releaseDate.isBefore(from) && !releaseDate.isAfter(to);
+    }
+
+    private void add(NavigableSet<byte[]> index, byte[] key) {
+        if (key != null && index.add(key)) {
+            memoryUsage.add(getRetainedSize(key));
+        }
+    }
+
+    private void addSorted(NavigableSet<byte[]> index, List<byte[]> keys) {
+        byte[][] sortedKeys = keys.toArray(byte[][]::new);
+        Arrays.parallelSort(sortedKeys, KEY_ORDER);
+        for (byte[] key : sortedKeys) {
+            add(index, key);
+        }
+    }
+
+    private void remove(NavigableSet<byte[]> index, byte[] key) {
+        if (key != null && index.remove(key)) {
+            memoryUsage.add(-getRetainedSize(key));
+        }
+    }
+
+    private static boolean startsWith(byte[] key, byte[] prefix) {
+        return key.length >= prefix.length && Arrays.equals(key, 0, prefix.length, prefix, 0, prefix.length);
+    }
+
+    private static String normalizeTitle(String title) {
+        return title != null ? title.toLowerCase(Locale.ROOT) : null;
+    }
+
+    /**
+     * The title is ended by a zero byte, so that a title sorts before the longer ones it is a prefix of
+     */
+    private static byte[] getTitleKey(String normalizedTitle, long movieId) {
+        byte[] title = escapeTitle(normalizedTitle.getBytes(UTF_8));
+        return ByteBuffer.allocate(title.length + 1 + Long.BYTES)
+                .put(title)
+                .put(TITLE_END)
+                .putLong(movieId ^ Long.MIN_VALUE)
+                .array();
+    }
+
+    /**
+     * Zero and escape bytes of the title become two bytes starting with the escape one, so that a title holding a NUL character
+     * neither ends early nor sorts before the shorter titles it starts with. Both keep their order with the other bytes.
+     */
+    private static byte[] escapeTitle(byte[] title) {
+        int escapedCount = 0;
+        for (byte b : title) {
+            if (b == TITLE_END || b == TITLE_ESCAPE) {
+                escapedCount++;
+            }
+        }
+        if (escapedCount == 0) {
+            return title;
+        }
+
+        byte[] escaped = new byte[title.length + escapedCount];
+        int position = 0;
+        for (byte b : title) {
+            if (b == TITLE_END || b == TITLE_ESCAPE) {
+                escaped[position++] = TITLE_ESCAPE;
+                escaped[position++] = (byte) (b + 1);
+            } else {
+                escaped[position++] = b;
+            }
+        }
+        return escaped;
+    }
+
+    private static byte[] getReleaseDateKey(LocalDate releaseDate, long movieId) {
+        return ByteBuffer.allocate(2 * Long.BYTES)
+                .putLong(releaseDate.toEpochDay() ^ Long.MIN_VALUE)
+                .putLong(movieId ^ Long.MIN_VALUE)
+                .array();
+    }
+
+    /**
+     * Big endian bytes with the sign bit flipped, so that negative values sort first as unsigned bytes
+     */
+    private static byte[] getSortableLong(long value) {
+        return ByteBuffer.allocate(Long.BYTES)
+                .putLong(value ^ Long.MIN_VALUE)
+                .array();
+    }
+
+    private static long getMovieId(byte[] key) {
+        return ByteBuffer.wrap(key, key.length - Long.BYTES, Long.BYTES).getLong() ^ Long.MIN_VALUE;
+    }
+
+    private static long getRetainedSize(byte[] key) {
+        return NODE_SIZE + ((ARRAY_HEADER_SIZE + key.length + 7) & ~7L);
+    }
+}
@@ -0,0 +1,71 @@
+package com.jonathanfoucher.movieapi.stores;
+
+import com.jonathanfoucher.movieapi.data.dto.MovieDto;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Compact binary form of a stored movie, the id being the key it is stored with:
+ * a flags byte, the release date as an epoch day on 4 bytes (8 for far dates) and the UTF-8 title up to the end.
+ */
+public final class MovieRecords {
+    private static final byte HAS_TITLE = 1;
+    private static final byte HAS_RELEASE_DATE = 2;
+    private static final byte WIDE_RELEASE_DATE = 4;
+
+    private MovieRecords() {
+    }
+
+    public static byte[] encode(MovieDto movie) {
+        byte flags = 0;
+        int size = 1;
+
+        LocalDate releaseDate = movie.getReleaseDate();
+        long epochDay = 0;
+        if (releaseDate != null) {
+            epochDay = releaseDate.toEpochDay();
+            boolean wide = epochDay != (int) epochDay;
+            flags |= (byte) (wide ? HAS_RELEASE_DATE | WIDE_RELEASE_DATE : HAS_RELEASE_DATE);
+            size += wide ? Long.BYTES : Integer.BYTES;
+        }
+
+        byte[] title = null;
+        if (movie.getTitle() != null) {
+            title = movie.getTitle().getBytes(UTF_8);
+            flags |= HAS_TITLE;
+            size += title.length;
+        }
+
+        ByteBuffer record = ByteBuffer.allocate(size)
+                .put(flags);
+        if ((flags & WIDE_RELEASE_DATE) != 0) {
+            record.putLong(epochDay);
+        } else if ((flags & HAS_RELEASE_DATE) != 0) {
+            record.putInt((int) epochDay);
+        }
+        if (title != null) {
+            record.put(title);
+        }
+        return record.array();
+    }
+
+    public static MovieDto decode(long movieId, byte[] record) {
+        ByteBuffer buffer = ByteBuffer.wrap(record);
+        byte flags = buffer.get();
+
+        MovieDto movie = new MovieDto();
+        movie.setId(movieId);
+        if ((flags & WIDE_RELEASE_DATE) != 0) {
+            movie.setReleaseDate(LocalDate.ofEpochDay(buffer.getLong()));
+        } else if ((flags & HAS_RELEASE_DATE) != 0) {
+            movie.setReleaseDate(LocalDate.ofEpochDay(buffer.getInt()));
+        }
+        if ((flags & HAS_TITLE) != 0) {
+            movie.setTitle(new String(record, buffer.position(), buffer.remaining(), UTF_8));
+        }
+        return movie;
+    }
+}
@@ -0,0 +1,185 @@
+package com.jonathanfoucher.movieapi.stores;
+
+import com.jonathanfoucher.movieapi.data.dto.MovieDto;
+import com.jonathanfoucher.movieapi.stores.logs.MovieLog;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory store of the movies, each movie is kept as a single compact record under its primitive id.
+ * With a log, saves are appended to it before being visible and the movies are reloaded from it on startup.
+ * Ids, titles and release dates are indexed on each save, so that movies can be listed and searched without a scan.
+ * With a change feed, each save is then published to it.
+ */
+public class MovieStore implements AutoCloseable {
+    // object header and length of a byte array, then arrays are aligned on 8 bytes
+    private static final int ARRAY_HEADER_SIZE = 16;
+    // a long key and a compressed value reference per slot
+    private static final int SLOT_SIZE = Long.BYTES + Integer.BYTES;
+    private static final int SAVE_LOCK_COUNT = 64;
+
+    private final ConcurrentLongMap<byte[]> records;
+    private final LongAdder recordsSize = new LongAdder();
+    private final MovieIndexes indexes = new MovieIndexes();
+    private final ReentrantLock[] saveLocks = new ReentrantLock[SAVE_LOCK_COUNT];
+    private final MovieLog movieLog;
+    private final MovieChangeFeed changeFeed;
+
+    public MovieStore(int initialCapacity) {
+        this(initialCapacity, null);
+    }
+
+    public MovieStore(int initialCapacity, MovieLog movieLog) {
+        this(initialCapacity, movieLog, null);
+    }
+
+    public MovieStore(int initialCapacity, MovieLog movieLog, MovieChangeFeed changeFeed) {
+        this.records = new ConcurrentLongMap<>(initialCapacity);
+        for (int i = 0; i < SAVE_LOCK_COUNT; i++) {
+            saveLocks[i] = new ReentrantLock();
+        }
+        this.movieLog = movieLog;
+        this.changeFeed = changeFeed;
+        if (movieLog != null) {
+            movieLog.open(this::store, consumer -> records.forEach(consumer::accept));
+            indexes.addAll(records);
+        }
+    }
+
+    public Optional<MovieDto> findById(long movieId) {
+        byte[] record = records.get(movieId);
+        return record != null ? Optional.of(MovieRecords.decode(movieId, record)) : Optional.empty();
+    }
+
+    /**
+     * Ids of the stored movies greater than the given one, or from the first one when it is null, in ascending order.
+     * Only the ids are read, so that a page of movies can be decoded one at a time while it is written.
+     */
+    public long[] findIds(Long afterId, int limit) {
+        long[] movieIds = new long[limit];
+        int[] movieCount = new int[1];
+        indexes.scanIds(afterId, movieId -> {
+            movieIds[movieCount[0]++] = movieId;
+            return movieCount[0] < limit;
+        });
+        return movieCount[0] < limit ? Arrays.copyOf(movieIds, movieCount[0]) : movieIds;
+    }
+
+    /**
+     * Movies whose title starts with the prefix, ignoring case, ordered by title
+     */
+    public List<MovieDto> findByTitlePrefix(String prefix, int limit) {
+        Map<Long, MovieDto> movies = new LinkedHashMap<>();
+        indexes.scanTitlePrefix(prefix, movieId -> {
+            // an index entry can be visited while the movie is being saved again, the movie is checked once read
+            findById(movieId)
+                    .filter(movie -> MovieIndexes.hasTitlePrefix(movie, prefix))
+                    .ifPresent(movie -> movies.putIfAbsent(movieId, movie));
+            return movies.size() < limit;
+        });
+        return new ArrayList<>(movies.values());
+    }
+
+    /**
+     * Movies released between both dates included, ordered by release date
+     */
+    public List<MovieDto> findByReleaseDate(LocalDate from, LocalDate to, int limit) {
+        Map<Long, MovieDto> movies = new LinkedHashMap<>();
+        indexes.scanReleaseDates(from, to, movieId -> {
+            findById(movieId)
+                    .filter(movie -> MovieIndexes.isReleasedBetween(movie, from, to))
+                    .ifPresent(movie -> movies.putIfAbsent(movieId, movie));
+            return movies.size() < limit;
+        });
+        return new ArrayList<>(movies.values());
+    }
+
+    /**
+     * Adds the movie or replaces the one with the same id, the movie id is required
+     */
+    public void save(MovieDto movie) {
+        saveAll(List.of(movie));
+    }
+
+    /**
+     * Saves the movies in order, with a log they are committed together
+     */
+    public void saveAll(List<MovieDto> movies) {
+        long position = 0;
+        for (MovieDto movie : movies) {
+            long movieId = movie.getId();
+            byte[] record = MovieRecords.encode(movie);
+            if (movieLog != null) {
+                position = movieLog.append(movieId, record, () -> put(movieId, record));
+            } else {
+                put(movieId, record);
+            }
+        }
+        if (movieLog != null && !movies.isEmpty()) {
+            movieLog.commit(position);
+        }
+    }
+
+    public int size() {
+        return records.size();
+    }
+
+    /**
+     * Estimated heap retained by the store and its indexes, assuming compressed references
+     */
+    public long getMemoryUsage() {
+        return records.capacity() * SLOT_SIZE + recordsSize.sum() + indexes.getMemoryUsage();
+    }
+
+    /**
+     * Bytes of the log files, 0 without a log
+     */
+    public long getLogSize() {
+        return movieLog != null ? movieLog.getSize() : 0;
+    }
+
+    @Override
+    public void close() {
+        if (movieLog != null) {
+            movieLog.close();
+        }
+    }
+
+    /**
+     * Saves of a same id are serialized, so that its index entries are replaced and its changes published in the order its records are
+     */
+    private void put(long movieId, byte[] record) {
+        ReentrantLock saveLock = saveLocks[Long.hashCode(movieId) & (SAVE_LOCK_COUNT - 1)];
+        saveLock.lock();
+        try {
+            byte[] previous = store(movieId, record);
+            indexes.update(movieId, previous != null ? MovieRecords.decode(movieId, previous) : null, MovieRecords.decode(movieId, record));
+            if (changeFeed != null) {
+                changeFeed.publish(movieId);
+            }
+        } finally {
+            saveLock.unlock();
+        }
+    }
+
+    /**
+     * Stores the record without indexing it, the movies replayed from the log are indexed at once afterward
+     */
+    private byte[] store(long movieId, byte[] record) {
+        byte[] previous = records.put(movieId, record);
+        recordsSize.add(getRetainedSize(record) - (previous != null ? getRetainedSize(previous) : 0));
+        return previous;
+    }
+
+    private static long getRetainedSize(byte[] record) {
+        return (ARRAY_HEADER_SIZE + record.length + 7) & ~7L;
+    }
+}
@@ -0,0 +1,14 @@
+package com.jonathanfoucher.movieapi.stores.configs;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class MovieChangeFeedConfig {
+    /**
+     * Number of changes kept to resume from, rounded up to a power of two.
+     * Resuming from an older sequence is answered with a reset.
+     */
+    private int capacity = 65_536;
+}
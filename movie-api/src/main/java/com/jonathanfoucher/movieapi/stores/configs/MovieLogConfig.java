@@ -0,0 +1,26 @@
+package com.jonathanfoucher.movieapi.stores.configs;
+
+import com.jonathanfoucher.movieapi.data.enums.FsyncPolicy;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@Getter
+@Setter
+public class MovieLogConfig {
+    private boolean enabled = false;
+    private Path directory = Path.of("movie-log");
+    /**
+     * A new segment file is started once the current one reaches this size
+     */
+    private DataSize segmentSize = DataSize.ofMegabytes(64);
+    private FsyncPolicy fsyncPolicy = FsyncPolicy.INTERVAL;
+    private Duration fsyncInterval = Duration.ofSeconds(1);
+    /**
+     * The log is compacted into a snapshot of the stored movies once it is this many times larger than the last snapshot
+     */
+    private double compactionRatio = 2;
+}
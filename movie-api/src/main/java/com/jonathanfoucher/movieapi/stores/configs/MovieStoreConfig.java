@@ -0,0 +1,49 @@
+package com.jonathanfoucher.movieapi.stores.configs;
+
+import com.jonathanfoucher.movieapi.stores.MovieChangeFeed;
+import com.jonathanfoucher.movieapi.stores.MovieStore;
+import com.jonathanfoucher.movieapi.stores.logs.MovieLog;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties("movie-store")
+public class MovieStoreConfig {
+    /**
+     * Number of movies the store is sized for up front, it grows past it one stripe at a time
+     */
+    private int initialCapacity = 65_536;
+    private MovieLogConfig log = new MovieLogConfig();
+    private MovieChangeFeedConfig changes = new MovieChangeFeedConfig();
+
+    @Bean
+    public MovieChangeFeed movieChangeFeed() {
+        return new MovieChangeFeed(changes.getCapacity());
+    }
+
+    @Bean(destroyMethod = "close")
+    public MovieStore movieStore(MovieChangeFeed movieChangeFeed, MeterRegistry meterRegistry) {
+        MovieStore movieStore = new MovieStore(initialCapacity, log.isEnabled() ? new MovieLog(log) : null, movieChangeFeed);
+        Gauge.builder("movie.store.size", movieStore, MovieStore::size)
+                .description("Number of stored movies")
+                .register(meterRegistry);
+        Gauge.builder("movie.store.memory", movieStore, MovieStore::getMemoryUsage)
+                .description("Estimated heap used by the stored movies")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        if (log.isEnabled()) {
+            Gauge.builder("movie.log.size", movieStore, MovieStore::getLogSize)
+                    .description("Size of the movie log files")
+                    .baseUnit("bytes")
+                    .register(meterRegistry);
+        }
+        return movieStore;
+    }
+}
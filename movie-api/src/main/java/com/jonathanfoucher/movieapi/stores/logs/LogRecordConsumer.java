@@ -0,0 +1,6 @@
+package com.jonathanfoucher.movieapi.stores.logs;
+
+@FunctionalInterface
+public interface LogRecordConsumer {
+    void accept(long movieId, byte[] record);
+}
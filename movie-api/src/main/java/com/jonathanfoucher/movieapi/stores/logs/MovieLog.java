@@ -0,0 +1,596 @@
+package com.jonathanfoucher.movieapi.stores.logs;
+
+import com.jonathanfoucher.movieapi.data.enums.FsyncPolicy;
+import com.jonathanfoucher.movieapi.stores.configs.MovieLogConfig;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * Append-only log of the saved movies, written to numbered segment files through a {@link FileChannel}.
+ * Once large enough, the log is compacted into a snapshot of the stored movies, which replaces all the older segments.
+ * On startup the latest snapshot and the following segments are replayed through memory mappings.
+ * <p>
+ * Files start with a magic number and a version, then hold records made of their length, a CRC32C checksum
+ * of the id and payload, the movie id and the payload. A torn record at the end of the last segment is truncated.
+ * After a failed write the log refuses further appends, so that a torn record can only be found at the end of the last segment.
+ */
+@Slf4j
+public class MovieLog implements AutoCloseable {
+    private static final int MAGIC = 0x4d564c47;
+    private static final int VERSION = 1;
+    private static final int FILE_HEADER_SIZE = 2 * Integer.BYTES;
+    private static final int RECORD_HEADER_SIZE = 2 * Integer.BYTES + Long.BYTES;
+    private static final int MAX_RECORD_SIZE = 16 * 1024 * 1024;
+    private static final int WRITE_BUFFER_SIZE = 256 * 1024;
+    private static final long MAX_MAPPING_SIZE = 1L << 30;
+    private static final Pattern FILE_NAME = Pattern.compile("(segment|snapshot)-(\\d{20})\\.log");
+    private static final String SEGMENT = "segment";
+    private static final String SNAPSHOT = "snapshot";
+
+    private final Path directory;
+    private final long segmentSize;
+    private final FsyncPolicy fsyncPolicy;
+    private final Duration fsyncInterval;
+    private final double compactionRatio;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("movie-log").daemon().factory());
+
+    // appends are serialized, the sync lock is taken first when both are needed
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final ReentrantLock syncLock = new ReentrantLock();
+    private final ByteBuffer writeBuffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+    private final CRC32C appendChecksum = new CRC32C();
+    private final AtomicBoolean compacting = new AtomicBoolean();
+    private final AtomicLong size = new AtomicLong();
+    private final AtomicLong durablePosition = new AtomicLong();
+    private final ArrayDeque<PendingRecord> pendingRecords = new ArrayDeque<>();
+
+    private Consumer<LogRecordConsumer> liveRecords;
+    private FileChannel segment;
+    private long segmentId;
+    // positions count the bytes appended since the log was opened
+    private long appendedPosition;
+    private volatile long writtenPosition;
+    private volatile long snapshotSize;
+    private volatile IOException failure;
+
+    public MovieLog(MovieLogConfig config) {
+        this.directory = config.getDirectory();
+        this.segmentSize = config.getSegmentSize().toBytes();
+        this.fsyncPolicy = config.getFsyncPolicy();
+        this.fsyncInterval = config.getFsyncInterval();
+        this.compactionRatio = config.getCompactionRatio();
+    }
+
+    /**
+     * Replays the log into the given consumer, then starts a new segment for the next appends.
+     * The live records are written to the snapshots when the log is compacted.
+     */
+    public void open(LogRecordConsumer replay, Consumer<LogRecordConsumer> liveRecords) {
+        this.liveRecords = liveRecords;
+        try {
+            Files.createDirectories(directory);
+            try (Stream<Path> files = Files.list(directory)) {
+                for (Path file : files.filter(file -> file.toString().endsWith(".tmp")).toList()) {
+                    // left by a compaction that did not complete
+                    Files.delete(file);
+                }
+            }
+
+            long start = System.nanoTime();
+            long snapshotId = getLatestFileId(SNAPSHOT);
+            long recordCount = 0;
+            if (snapshotId > 0) {
+                Path snapshot = getPath(SNAPSHOT, snapshotId);
+                recordCount += replay(snapshot, replay, false);
+                snapshotSize = Files.size(snapshot);
+            }
+            deleteFilesBefore(SNAPSHOT, snapshotId);
+            deleteFilesBefore(SEGMENT, snapshotId);
+
+            List<Long> segmentIds = getFileIds(SEGMENT);
+            for (int i = 0; i < segmentIds.size(); i++) {
+                recordCount += replay(getPath(SEGMENT, segmentIds.get(i)), replay, i == segmentIds.size() - 1);
+            }
+            log.info("Replayed {} movie log records from {} in {} ms", recordCount, directory,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+
+            long lastId = segmentIds.isEmpty() ? snapshotId : segmentIds.getLast();
+            size.set(getDirectorySize());
+            openSegment(Math.max(lastId + 1, snapshotId));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open the movie log in " + directory, e);
+        }
+
+        if (fsyncPolicy == FsyncPolicy.INTERVAL) {
+            long interval = fsyncInterval.toMillis();
+            scheduler.scheduleWithFixedDelay(this::syncQuietly, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Buffers the record, the applied callback runs once the record is committed, written with the INTERVAL and NEVER policies
+     * and on disk with the ALWAYS one, under the append lock so that its effects follow the log order.
+     * Returns the position to commit for the record to be written.
+     */
+    public long append(long movieId, byte[] record, Runnable applied) {
+        int recordSize = RECORD_HEADER_SIZE + record.length;
+        if (recordSize > MAX_RECORD_SIZE) {
+            throw new IllegalArgumentException("Movie " + movieId + " is too large to be logged");
+        }
+
+        appendLock.lock();
+        try {
+            checkNotFailed();
+            if (writeBuffer.remaining() < recordSize) {
+                flush();
+            }
+            if (writeBuffer.remaining() < recordSize) {
+                ByteBuffer largeBuffer = ByteBuffer.allocate(recordSize);
+                writeRecord(largeBuffer, appendChecksum, movieId, record);
+                write(largeBuffer.flip());
+            } else {
+                writeRecord(writeBuffer, appendChecksum, movieId, record);
+            }
+            appendedPosition += recordSize;
+            pendingRecords.add(new PendingRecord(appendedPosition, applied));
+            return appendedPosition;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not append movie " + movieId + " to the log", e);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Writes the records appended up to the position, and waits for them to be on disk with the ALWAYS policy.
+     * Their applied callbacks have run once it returns.
+     */
+    public void commit(long position) {
+        if (fsyncPolicy == FsyncPolicy.ALWAYS) {
+            sync(position);
+            return;
+        }
+
+        appendLock.lock();
+        try {
+            if (writtenPosition < position) {
+                flush();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write the movie log", e);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Group commit, a single fsync covers all the records appended before it started
+     */
+    public void sync(long position) {
+        syncLock.lock();
+        try {
+            if (durablePosition.get() < position) {
+                syncSegment();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not sync the movie log", e);
+        } finally {
+            syncLock.unlock();
+        }
+
+        // the records synced by a concurrent call may not have been applied yet
+        appendLock.lock();
+        try {
+            applyCommittedRecords();
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Writes a snapshot of the live records and deletes the segments it replaces
+     */
+    public void compact() {
+        if (!compacting.compareAndSet(false, true)) {
+            return;
+        }
+
+        Path temporarySnapshot = null;
+        try {
+            long start = System.nanoTime();
+            long snapshotId;
+            appendLock.lock();
+            try {
+                // the records of the older segments are all applied, and so part of the live records
+                flush();
+                roll();
+                applyCommittedRecords();
+                snapshotId = segmentId;
+            } finally {
+                appendLock.unlock();
+            }
+
+            Path snapshot = getPath(SNAPSHOT, snapshotId);
+            temporarySnapshot = snapshot.resolveSibling(snapshot.getFileName() + ".tmp");
+            long recordCount = writeSnapshot(temporarySnapshot);
+            if (fsyncPolicy != FsyncPolicy.NEVER) {
+                // records applied since the roll are part of the snapshot, they must not be lost while the records before them are replayed
+                sync(writtenPosition);
+            }
+            Files.move(temporarySnapshot, snapshot, ATOMIC_MOVE);
+            syncDirectory();
+
+            deleteFilesBefore(SNAPSHOT, snapshotId);
+            deleteFilesBefore(SEGMENT, snapshotId);
+            snapshotSize = Files.size(snapshot);
+            size.set(getDirectorySize());
+            log.info("Compacted the movie log into a snapshot of {} movies in {} ms", recordCount,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (IOException | UncheckedIOException e) {
+            log.error("Could not compact the movie log", e);
+            deleteQuietly(temporarySnapshot);
+        } finally {
+            compacting.set(false);
+        }
+    }
+
+    /**
+     * Bytes of the snapshot and segment files
+     */
+    public long getSize() {
+        return size.get();
+    }
+
+    /**
+     * Position up to which the appended records are on disk
+     */
+    long getDurablePosition() {
+        return durablePosition.get();
+    }
+
+    @Override
+    public void close() {
+        // interrupting a compaction would close the segment it is writing to
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        appendLock.lock();
+        try {
+            if (segment != null && segment.isOpen()) {
+                // the records that could not be written are not applied either
+                if (failure == null) {
+                    flush();
+                    if (fsyncPolicy != FsyncPolicy.NEVER) {
+                        force(segment);
+                    }
+                }
+                segment.close();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not close the movie log", e);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    private void syncQuietly() {
+        if (failure != null) {
+            return;
+        }
+        try {
+            sync(writtenPosition);
+        } catch (UncheckedIOException e) {
+            log.error("Could not sync the movie log", e);
+        }
+    }
+
+    private void syncSegment() throws IOException {
+        FileChannel channel;
+        long target;
+        appendLock.lock();
+        try {
+            flush();
+            channel = segment;
+            target = writtenPosition;
+        } finally {
+            appendLock.unlock();
+        }
+
+        try {
+            force(channel);
+        } catch (ClosedByInterruptException e) {
+            throw e;
+        } catch (ClosedChannelException e) {
+            // the segment was rolled in the meantime, and synced before being closed
+        }
+        durablePosition.accumulateAndGet(target, Math::max);
+    }
+
+    private void flush() throws IOException {
+        if (writeBuffer.position() > 0) {
+            write(writeBuffer.flip());
+            writeBuffer.clear();
+        }
+        writtenPosition = appendedPosition;
+        if (segment.position() >= segmentSize) {
+            roll();
+            if (size.get() > compactionRatio * Math.max(snapshotSize, segmentSize)) {
+                scheduler.execute(this::compact);
+            }
+        }
+        applyCommittedRecords();
+    }
+
+    /**
+     * Runs in log order the applied callbacks of the records committed so far, the append lock must be held
+     */
+    private void applyCommittedRecords() {
+        long committedPosition = fsyncPolicy == FsyncPolicy.ALWAYS ? durablePosition.get() : writtenPosition;
+        while (!pendingRecords.isEmpty() && pendingRecords.peek().position() <= committedPosition) {
+            pendingRecords.poll().applied().run();
+        }
+    }
+
+    private void write(ByteBuffer buffer) throws IOException {
+        checkNotFailed();
+        size.addAndGet(buffer.remaining());
+        try {
+            while (buffer.hasRemaining()) {
+                segment.write(buffer);
+            }
+        } catch (IOException e) {
+            // part of a record may have been written, appending after it would hide the next records from the replay
+            failure = e;
+            throw e;
+        }
+    }
+
+    /**
+     * A failed fsync may have dropped the written pages, a later one succeeding would not mean they are on disk
+     */
+    private void force(FileChannel channel) throws IOException {
+        checkNotFailed();
+        try {
+            channel.force(false);
+        } catch (ClosedChannelException e) {
+            throw e;
+        } catch (IOException e) {
+            failure = e;
+            throw e;
+        }
+    }
+
+    private void checkNotFailed() throws IOException {
+        if (failure != null) {
+            throw new IOException("The movie log refuses appends after a failed write", failure);
+        }
+    }
+
+    private void roll() throws IOException {
+        if (fsyncPolicy != FsyncPolicy.NEVER) {
+            force(segment);
+            durablePosition.accumulateAndGet(writtenPosition, Math::max);
+        }
+        segment.close();
+        openSegment(segmentId + 1);
+    }
+
+    private void openSegment(long id) throws IOException {
+        segment = FileChannel.open(getPath(SEGMENT, id), CREATE_NEW, WRITE);
+        segmentId = id;
+        ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE)
+                .putInt(MAGIC)
+                .putInt(VERSION)
+                .flip();
+        write(header);
+    }
+
+    private long writeSnapshot(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, CREATE_NEW, WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE)
+                    .putInt(MAGIC)
+                    .putInt(VERSION);
+            CRC32C checksum = new CRC32C();
+            long[] recordCount = {0};
+            liveRecords.accept((movieId, record) -> {
+                try {
+                    if (buffer.remaining() < RECORD_HEADER_SIZE + record.length) {
+                        writeFully(channel, buffer.flip());
+                        buffer.clear();
+                    }
+                    if (buffer.remaining() < RECORD_HEADER_SIZE + record.length) {
+                        ByteBuffer largeBuffer = ByteBuffer.allocate(RECORD_HEADER_SIZE + record.length);
+                        writeRecord(largeBuffer, checksum, movieId, record);
+                        writeFully(channel, largeBuffer.flip());
+                    } else {
+                        writeRecord(buffer, checksum, movieId, record);
+                    }
+                    recordCount[0]++;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            writeFully(channel, buffer.flip());
+            channel.force(true);
+            return recordCount[0];
+        }
+    }
+
+    /**
+     * Reads the records of a file through memory mappings of at most 1GB, returns the number of records
+     */
+    private long replay(Path file, LogRecordConsumer replay, boolean lastSegment) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, READ, WRITE)) {
+            long fileSize = channel.size();
+            if (fileSize == 0) {
+                return 0;
+            }
+            if (fileSize < FILE_HEADER_SIZE) {
+                return truncate(channel, file, 0, fileSize, lastSegment);
+            }
+
+            CRC32C checksum = new CRC32C();
+            MappedByteBuffer mapping = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(fileSize, MAX_MAPPING_SIZE));
+            if (mapping.getInt(0) != MAGIC || mapping.getInt(Integer.BYTES) != VERSION) {
+                throw new IllegalStateException("Unknown movie log format in " + file);
+            }
+
+            long mappingStart = 0;
+            long position = FILE_HEADER_SIZE;
+            long recordCount = 0;
+            while (position + RECORD_HEADER_SIZE <= fileSize) {
+                if (position + RECORD_HEADER_SIZE > mappingStart + mapping.limit()) {
+                    mappingStart = position;
+                    mapping = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(fileSize - position, MAX_MAPPING_SIZE));
+                }
+                int length = mapping.getInt((int) (position - mappingStart));
+                if (length <= 0 || length > MAX_RECORD_SIZE || position + RECORD_HEADER_SIZE + length > fileSize) {
+                    break;
+                }
+                if (position + RECORD_HEADER_SIZE + length > mappingStart + mapping.limit()) {
+                    mappingStart = position;
+                    mapping = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(fileSize - position, MAX_MAPPING_SIZE));
+                }
+
+                int offset = (int) (position - mappingStart);
+                int expectedChecksum = mapping.getInt(offset + Integer.BYTES);
+                checksum.reset();
+                checksum.update(mapping.slice(offset + 2 * Integer.BYTES, Long.BYTES + length));
+                if ((int) checksum.getValue() != expectedChecksum) {
+                    break;
+                }
+
+                byte[] record = new byte[length];
+                mapping.get(offset + RECORD_HEADER_SIZE, record);
+                replay.accept(mapping.getLong(offset + 2 * Integer.BYTES), record);
+                recordCount++;
+                position += RECORD_HEADER_SIZE + length;
+            }
+
+            if (position < fileSize) {
+                truncate(channel, file, position, fileSize, lastSegment);
+            }
+            return recordCount;
+        }
+    }
+
+    /**
+     * Only the last segment can end with a torn record, the other files were synced before being replaced
+     */
+    private long truncate(FileChannel channel, Path file, long position, long fileSize, boolean lastSegment) throws IOException {
+        if (!lastSegment) {
+            throw new IllegalStateException("Corrupt movie log record in " + file + " at " + position);
+        }
+        log.warn("Truncating {} torn bytes at the end of {}", fileSize - position, file);
+        channel.truncate(position);
+        return 0;
+    }
+
+    private void syncDirectory() {
+        try (FileChannel channel = FileChannel.open(directory, READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // not supported on every platform, the rename is still atomic
+            log.debug("Could not sync the movie log directory", e);
+        }
+    }
+
+    private long getLatestFileId(String type) throws IOException {
+        List<Long> ids = getFileIds(type);
+        return ids.isEmpty() ? 0 : ids.getLast();
+    }
+
+    private List<Long> getFileIds(String type) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> FILE_NAME.matcher(file.getFileName().toString()))
+                    .filter(Matcher::matches)
+                    .filter(matcher -> matcher.group(1).equals(type))
+                    .map(matcher -> Long.parseLong(matcher.group(2)))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private void deleteFilesBefore(String type, long id) throws IOException {
+        for (long fileId : getFileIds(type)) {
+            if (fileId < id) {
+                Files.delete(getPath(type, fileId));
+            }
+        }
+    }
+
+    private long getDirectorySize() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            long directorySize = 0;
+            for (Path file : files.filter(file -> FILE_NAME.matcher(file.getFileName().toString()).matches()).toList()) {
+                directorySize += Files.size(file);
+            }
+            return directorySize;
+        }
+    }
+
+    private Path getPath(String type, long id) {
+        return directory.resolve(String.format("%s-%020d.log", type, id));
+    }
+
+    private record PendingRecord(long position, Runnable applied) {
+    }
+
+    private static void writeRecord(ByteBuffer buffer, CRC32C checksum, long movieId, byte[] record) {
+        int start = buffer.position();
+        buffer.putInt(record.length)
+                .putInt(0)
+                .putLong(movieId)
+                .put(record);
+        checksum.reset();
+        checksum.update(buffer.slice(start + 2 * Integer.BYTES, Long.BYTES + record.length));
+        buffer.putInt(start + Integer.BYTES, (int) checksum.getValue());
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            if (file != null) {
+                Files.deleteIfExists(file);
+            }
+        } catch (IOException e) {
+            log.warn("Could not delete {}", file, e);
+        }
+    }
+}
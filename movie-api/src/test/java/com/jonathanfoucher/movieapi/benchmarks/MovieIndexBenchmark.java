@@ -0,0 +1,71 @@
+package com.jonathanfoucher.movieapi.benchmarks;
+
+import com.jonathanfoucher.movieapi.data.dto.MovieDto;
+import com.jonathanfoucher.movieapi.stores.MovieStore;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the title prefix and release date range queries of the movie store, and the cost of indexing a save
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class MovieIndexBenchmark {
+    private static final String[] WORDS = {"the", "return", "of", "night", "star", "lost", "city", "dark", "river", "king",
+            "last", "summer", "war", "love", "ghost", "road", "blue", "house", "secret", "island"};
+    private static final int RELEASE_DAYS = 40_000;
+
+    @Param({"1000000"})
+    private int movieCount;
+
+    @Param({"20", "100"})
+    private int limit;
+
+    private MovieStore movieStore;
+
+    @Setup
+    public void setup() {
+        movieStore = new MovieStore(movieCount);
+        Random random = new Random(42);
+        for (long id = 0; id < movieCount; id++) {
+            movieStore.save(initMovie(id, random));
+        }
+    }
+
+    @Benchmark
+    public List<MovieDto> findByTitlePrefix() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String prefix = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)].substring(0, 1);
+        return movieStore.findByTitlePrefix(prefix, limit);
+    }
+
+    @Benchmark
+    public List<MovieDto> findByReleaseDate() {
+        LocalDate from = LocalDate.ofEpochDay(ThreadLocalRandom.current().nextInt(RELEASE_DAYS));
+        return movieStore.findByReleaseDate(from, from.plusMonths(1), limit);
+    }
+
+    @Benchmark
+    public void save() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        movieStore.save(initMovie(random.nextLong(movieCount), random));
+    }
+
+    private MovieDto initMovie(long id, Random random) {
+        MovieDto movie = new MovieDto();
+        movie.setId(id);
+        movie.setTitle(WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)] + " "
+                + WORDS[random.nextInt(WORDS.length)] + " " + id);
+        movie.setReleaseDate(LocalDate.ofEpochDay(random.nextInt(RELEASE_DAYS)));
+        return movie;
+    }
+}
@@ -0,0 +1,102 @@
+package com.jonathanfoucher.movieapi.benchmarks;
+
+import com.jonathanfoucher.movieapi.data.dto.MovieDto;
+import com.jonathanfoucher.movieapi.data.enums.FsyncPolicy;
+import com.jonathanfoucher.movieapi.stores.MovieStore;
+import com.jonathanfoucher.movieapi.stores.configs.MovieLogConfig;
+import com.jonathanfoucher.movieapi.stores.logs.MovieLog;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ingest throughput of the logged movie store for each fsync policy, run with several threads ({@code -t 4}) to see
+ * saves share their fsync, and time to reload a million movies from the log
+ */
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+public class MovieLogBenchmark {
+    private static final int RECOVERY_MOVIE_COUNT = 1_000_000;
+
+    @State(Scope.Benchmark)
+    public static class IngestState {
+        @Param({"NEVER", "INTERVAL", "ALWAYS"})
+        private FsyncPolicy fsyncPolicy;
+
+        private Path directory;
+        private MovieStore movieStore;
+
+        @Setup
+        public void setup() throws IOException {
+            directory = Files.createTempDirectory("movie-log");
+            movieStore = new MovieStore(RECOVERY_MOVIE_COUNT, new MovieLog(initConfig(directory, fsyncPolicy)));
+        }
+
+        @TearDown
+        public void tearDown() throws IOException {
+            movieStore.close();
+            FileSystemUtils.deleteRecursively(directory);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class RecoveryState {
+        private Path directory;
+
+        @Setup
+        public void setup() throws IOException {
+            directory = Files.createTempDirectory("movie-log");
+            try (MovieStore movieStore = new MovieStore(RECOVERY_MOVIE_COUNT, new MovieLog(initConfig(directory, FsyncPolicy.NEVER)))) {
+                for (long id = 0; id < RECOVERY_MOVIE_COUNT; id++) {
+                    movieStore.save(initMovie(id));
+                }
+            }
+        }
+
+        @TearDown
+        public void tearDown() throws IOException {
+            FileSystemUtils.deleteRecursively(directory);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @Warmup(iterations = 3, time = 1)
+    @Measurement(iterations = 5, time = 1)
+    public void save(IngestState state) {
+        state.movieStore.save(initMovie(ThreadLocalRandom.current().nextLong(RECOVERY_MOVIE_COUNT)));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 5)
+    public int recover(RecoveryState state) {
+        try (MovieStore movieStore = new MovieStore(RECOVERY_MOVIE_COUNT, new MovieLog(initConfig(state.directory, FsyncPolicy.NEVER)))) {
+            return movieStore.size();
+        }
+    }
+
+    private static MovieLogConfig initConfig(Path directory, FsyncPolicy fsyncPolicy) {
+        MovieLogConfig config = new MovieLogConfig();
+        config.setEnabled(true);
+        config.setDirectory(directory);
+        config.setFsyncPolicy(fsyncPolicy);
+        return config;
+    }
+
+    private static MovieDto initMovie(long id) {
+        MovieDto movie = new MovieDto();
+        movie.setId(id);
+        movie.setTitle("Some movie " + id);
+        movie.setReleaseDate(LocalDate.ofEpochDay(id % 40_000));
+        return movie;
+    }
+}
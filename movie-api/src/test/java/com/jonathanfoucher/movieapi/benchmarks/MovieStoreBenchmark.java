@@ -0,0 +1,68 @@
+package com.jonathanfoucher.movieapi.benchmarks;
+
+import com.jonathanfoucher.movieapi.data.dto.MovieDto;
+import com.jonathanfoucher.movieapi.stores.MovieStore;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the movie store with a map of boxed ids to movie objects, run with {@code -prof gc} to see the allocations
+ * and with several threads ({@code -t 4}) to see the reads scale while movies are saved
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class MovieStoreBenchmark {
+    @Param({"1000000"})
+    private int movieCount;
+
+    @Param({"STORE", "CONCURRENT_HASH_MAP"})
+    private String storage;
+
+    private MovieStore movieStore;
+    private Map<Long, MovieDto> movieMap;
+
+    @Setup
+    public void setup() {
+        movieStore = new MovieStore(movieCount);
+        movieMap = new ConcurrentHashMap<>(movieCount);
+        for (long id = 0; id < movieCount; id++) {
+            save(initMovie(id));
+        }
+    }
+
+    @Benchmark
+    public MovieDto findById() {
+        long id = ThreadLocalRandom.current().nextLong(movieCount);
+        return "STORE".equals(storage) ? movieStore.findById(id).orElse(null) : movieMap.get(id);
+    }
+
+    @Benchmark
+    public void save() {
+        save(initMovie(ThreadLocalRandom.current().nextLong(movieCount)));
+    }
+
+    private void save(MovieDto movie) {
+        if ("STORE".equals(storage)) {
+            movieStore.save(movie);
+        } else {
+            movieMap.put(movie.getId(), movie);
+        }
+    }
+
+    private MovieDto initMovie(long id) {
+        MovieDto movie = new MovieDto();
+        movie.setId(id);
+        movie.setTitle("Some movie " + id);
+        movie.setReleaseDate(LocalDate.ofEpochDay(id % 40_000));
+        return movie;
+    }
+}
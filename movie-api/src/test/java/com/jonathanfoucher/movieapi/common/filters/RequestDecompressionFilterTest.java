@@ -0,0 +1,315 @@
+package com.jonathanfoucher.movieapi.common.filters;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import com.jonathanfoucher.movieapi.common.configs.RequestDecompressionConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ContentTooLargeException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPOutputStream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.http.HttpHeaders.ACCEPT_ENCODING;
+import static org.springframework.http.HttpHeaders.CONTENT_ENCODING;
+
+@SpringJUnitConfig({RequestDecompressionFilter.class, RequestDecompressionConfig.class})
+class RequestDecompressionFilterTest {
+    @Autowired
+    private RequestDecompressionFilter requestDecompressionFilter;
+    @Autowired
+    private RequestDecompressionConfig requestDecompressionConfig;
+
+    private static final String BODY = "[{\"id\":5,\"title\":\"Some movie\",\"release_date\":\"2022-07-19\"}]";
+    private static final String LARGE_BODY = " ".repeat(1024 * 1024);
+
+    @BeforeEach
+    void initEach() {
+        requestDecompressionConfig.setMaxBodySize(DataSize.ofKilobytes(4));
+    }
+
+    @Test
+    void doFilterWithGzipBody() throws ServletException, IOException {
+        // GIVEN
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/movies/batch");
+        request.addHeader(CONTENT_ENCODING, "gzip");
+        request.setContent(gzip(BODY));
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        AtomicReference<String> chainBody = new AtomicReference<>();
+        AtomicReference<String> chainContentEncoding = new AtomicReference<>();
+        FilterChain chain = (chainRequest, chainResponse) -> {
+            chainBody.set(new String(chainRequest.getInputStream().readAllBytes(), UTF_8));
+            chainContentEncoding.set(((HttpServletRequest) chainRequest).getHeader(CONTENT_ENCODING));
+        };
+
+        // WHEN
+        requestDecompressionFilter.doFilter(request, response, chain);
+
+        // THEN
+        assertEquals(BODY, chainBody.get());
+        assertNull(chainContentEncoding.get());
+        assertEquals(200, response.getStatus());
+    }
+
+    @Test
+    void doFilterWithGzipBodyReadWithoutBlocking() throws ServletException, IOException {
+        // GIVEN
+        byte[] compressed = gzip(BODY);
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/movies/batch") {
+            @Override
+            public ServletInputStream getInputStream() {
+                return new ChunkedServletInputStream(compressed, 16);
+            }
+        };
+        request.addHeader(CONTENT_ENCODING, "gzip");
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        ByteArrayOutputStream chainBody = new ByteArrayOutputStream();
+        AtomicBoolean allDataRead = new AtomicBoolean();
+        FilterChain chain = (chainRequest, chainResponse) -> {
+            ServletInputStream inputStream = chainRequest.getInputStream();
+            inputStream.setReadListener(new ReadListener() {
+                @Override
+                public void onDataAvailable() throws IOException {
+                    byte[] buffer = new byte[8];
+                    int length;
+                    while (inputStream.isReady() && (length = inputStream.read(buffer)) != -1) {
+                        chainBody.write(buffer, 0, length);
+                    }
+                }
+
+                @Override
+                public void onAllDataRead() {
+                    allDataRead.set(inputStream.isFinished());
+                }
+
+                @Override
+                public void onError(Throwable throwable) {
+                    fail(throwable);
+                }
+            });
+        };
+
+        // WHEN
+        requestDecompressionFilter.doFilter(request, response, chain);
+
+        // THEN
+        assertEquals(BODY, chainBody.toString(UTF_8));
+        assertTrue(allDataRead.get());
+    }
+
+    @Test
+    void doFilterWithGzipBodyInflatingPastMaxSize() throws ServletException, IOException {
+        // GIVEN
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/movies/batch");
+        request.addHeader(CONTENT_ENCODING, "gzip");
+        request.setContent(gzip(LARGE_BODY));
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        FilterChain chain = (chainRequest, chainResponse) -> chainRequest.getInputStream().readAllBytes();
+
+        // WHEN
+        requestDecompressionFilter.doFilter(request, response, chain);
+
+        // THEN
+        assertEquals(413, response.getStatus());
+    }
+
+    @Test
+    void doFilterWithGzipBodyInflatingPastMaxSizeReadWithoutBlocking() throws ServletException, IOException {
+        // GIVEN
+        byte[] compressed = gzip(LARGE_BODY);
+        assertTrue(compressed.length < requestDecompressionConfig.getMaxBodySize().toBytes());
+
+        // WHEN
+        NonBlockingRead read = readWithoutBlocking(compressed);
+
+        // THEN
+        assertInstanceOf(ContentTooLargeException.class, read.error().get());
+        assertEquals(413, ((ContentTooLargeException) read.error().get()).getStatusCode().value());
+        assertTrue(read.body().size() <= requestDecompressionConfig.getMaxBodySize().toBytes());
+    }
+
+    @Test
+    void doFilterWithGzipBodyBufferedPastMaxSizeReadWithoutBlocking() throws ServletException, IOException {
+        // GIVEN
+        byte[] random = new byte[16 * 1024];
+        new Random(42).nextBytes(random);
+        byte[] compressed = gzip(random);
+
+        // WHEN
+        NonBlockingRead read = readWithoutBlocking(compressed);
+
+        // THEN
+        assertInstanceOf(ContentTooLargeException.class, read.error().get());
+        assertEquals(0, read.body().size());
+        assertFalse(read.allDataRead().get());
+    }
+
+    @Test
+    void doFilterWithIdentityBody() throws ServletException, IOException {
+        // GIVEN
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/movies/batch");
+        request.setContent(BODY.getBytes(UTF_8));
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        AtomicReference<String> chainBody = new AtomicReference<>();
+        FilterChain chain = (chainRequest, chainResponse) -> chainBody.set(new String(chainRequest.getInputStream().readAllBytes(), UTF_8));
+
+        // WHEN
+        requestDecompressionFilter.doFilter(request, response, chain);
+
+        // THEN
+        assertEquals(BODY, chainBody.get());
+    }
+
+    @Test
+    void doFilterWithUnsupportedContentEncoding() throws ServletException, IOException {
+        // GIVEN
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/movies/batch");
+        request.addHeader(CONTENT_ENCODING, "br");
+        request.setContent(BODY.getBytes(UTF_8));
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        FilterChain chain = (chainRequest, chainResponse) -> fail("the chain should not be called");
+
+        // WHEN
+        requestDecompressionFilter.doFilter(request, response, chain);
+
+        // THEN
+        assertEquals(415, response.getStatus());
+        assertEquals("gzip", response.getHeader(ACCEPT_ENCODING));
+    }
+
+    private NonBlockingRead readWithoutBlocking(byte[] compressed) throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/movies/batch") {
+            @Override
+            public ServletInputStream getInputStream() {
+                return new ChunkedServletInputStream(compressed, 1024);
+            }
+        };
+        request.addHeader(CONTENT_ENCODING, "gzip");
+
+        NonBlockingRead read = new NonBlockingRead(new ByteArrayOutputStream(), new AtomicReference<>(), new AtomicBoolean());
+        FilterChain chain = (chainRequest, chainResponse) -> {
+            ServletInputStream inputStream = chainRequest.getInputStream();
+            inputStream.setReadListener(new ReadListener() {
+                @Override
+                public void onDataAvailable() throws IOException {
+                    byte[] buffer = new byte[1024];
+                    int length;
+                    while (inputStream.isReady() && (length = inputStream.read(buffer)) != -1) {
+                        read.body().write(buffer, 0, length);
+                    }
+                }
+
+                @Override
+                public void onAllDataRead() {
+                    read.allDataRead().set(true);
+                }
+
+                @Override
+                public void onError(Throwable throwable) {
+                    read.error().set(throwable);
+                }
+            });
+        };
+        requestDecompressionFilter.doFilter(request, new MockHttpServletResponse(), chain);
+        return read;
+    }
+
+    private byte[] gzip(String value) throws IOException {
+        return gzip(value.getBytes(UTF_8));
+    }
+
+    private byte[] gzip(byte[] value) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream outputStream = new GZIPOutputStream(compressed)) {
+            outputStream.write(value);
+        }
+        return compressed.toByteArray();
+    }
+
+    private record NonBlockingRead(ByteArrayOutputStream body, AtomicReference<Throwable> error, AtomicBoolean allDataRead) {
+    }
+
+    // hands out the body a chunk at a time, as a container would while the rest of it is still being received
+    private static class ChunkedServletInputStream extends ServletInputStream {
+        private final byte[] body;
+        private final int chunkSize;
+        private int position;
+        private int readyUntil;
+
+        ChunkedServletInputStream(byte[] body, int chunkSize) {
+            this.body = body;
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        public int read() {
+            if (position == body.length) {
+                return -1;
+            }
+            if (!isReady()) {
+                throw new IllegalStateException("read while not ready");
+            }
+            return body[position++] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (position == body.length) {
+                return -1;
+            }
+            if (!isReady()) {
+                throw new IllegalStateException("read while not ready");
+            }
+            int readLength = Math.min(length, readyUntil - position);
+            System.arraycopy(body, position, bytes, offset, readLength);
+            position += readLength;
+            return readLength;
+        }
+
+        @Override
+        public boolean isFinished() {
+            return position == body.length;
+        }
+
+        @Override
+        public boolean isReady() {
+            return position < readyUntil || isFinished();
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            try {
+                while (!isFinished()) {
+                    readyUntil = Math.min(body.length, position + chunkSize);
+                    readListener.onDataAvailable();
+                    if (position < readyUntil) {
+                        // the listener stopped reading
+                        return;
+                    }
+                }
+                readListener.onAllDataRead();
+            } catch (IOException | RuntimeException e) {
+                readListener.onError(e);
+            }
+        }
+    }
+}
@@ -4,40 +4,72 @@ import ch.qos.logback.classic.Level;
 import ch.qos.logback.classic.Logger;
 import ch.qos.logback.classic.spi.ILoggingEvent;
 import ch.qos.logback.core.read.ListAppender;
+import com.jonathanfoucher.movieapi.common.configs.RequestDecompressionConfig;
+import com.jonathanfoucher.movieapi.common.converters.MovieProtobufHttpMessageConverter;
+import com.jonathanfoucher.movieapi.common.filters.RequestDecompressionFilter;
+import com.jonathanfoucher.movieapi.data.dto.MovieBatchDto;
 import com.jonathanfoucher.movieapi.data.dto.MovieDto;
+import com.jonathanfoucher.movieapi.data.proto.Movie;
+import com.jonathanfoucher.movieapi.data.proto.MovieList;
+import com.jonathanfoucher.movieapi.stores.MovieChangeFeed;
+import com.jonathanfoucher.movieapi.stores.MovieStore;
+import com.jonathanfoucher.movieapi.stores.configs.MovieStoreConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
 import org.springframework.http.converter.json.JacksonJsonHttpMessageConverter;
 import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.springframework.test.json.JsonCompareMode;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.util.unit.DataSize;
 import tools.jackson.databind.PropertyNamingStrategies;
 import tools.jackson.databind.json.JsonMapper;
 
+import java.io.ByteArrayOutputStream;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import java.util.zip.GZIPOutputStream;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.*;
+import static com.jonathanfoucher.movieapi.common.converters.MovieProtobufHttpMessageConverter.APPLICATION_PROTOBUF;
+import static org.springframework.http.HttpHeaders.*;
 import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
-@SpringJUnitConfig(MovieController.class)
+@SpringJUnitConfig({MovieController.class, MovieStoreConfig.class, SimpleMeterRegistry.class, MovieControllerTest.JsonMapperConfig.class})
 class MovieControllerTest {
     private MockMvc mockMvc;
     @Autowired
     private MovieController movieController;
+    @Autowired
+    private MovieStore movieStore;
+    @Autowired
+    private MovieChangeFeed movieChangeFeed;
 
     private static final String MOVIES_WITH_ID_PATH = "/movies/{movie_id}";
     private static final String MOVIES_PATH = "/movies";
+    private static final String MOVIES_BATCH_PATH = "/movies/batch";
+    private static final String MOVIE_CHANGES_PATH = "/movies/changes";
 
     private static final Long ID = 15L;
+    private static final Long OTHER_ID = 16L;
+    private static final Long UNKNOWN_ID = 404L;
     private static final String TITLE = "Title";
     private static final LocalDate RELEASE_DATE = LocalDate.of(2020, 1, 1);
 
@@ -51,7 +83,7 @@ class MovieControllerTest {
     @BeforeEach
     void initEach() {
         mockMvc = MockMvcBuilders.standaloneSetup(movieController)
-                .setMessageConverters(new JacksonJsonHttpMessageConverter(jsonMapper))
+                .setMessageConverters(new JacksonJsonHttpMessageConverter(jsonMapper), new MovieProtobufHttpMessageConverter())
                 .build();
 
         listAppender.list.clear();
@@ -69,11 +101,13 @@ class MovieControllerTest {
     void getMovie() throws Exception {
         // GIVEN
         MovieDto movie = initMovie();
+        movieStore.save(movie);
 
         // WHEN / THEN
         mockMvc.perform(get(MOVIES_WITH_ID_PATH, ID)
                         .header("Accept", APPLICATION_JSON))
                 .andExpect(status().isOk())
+                .andExpect(header().string(ETAG, startsWith("W/\"")))
                 .andExpect(content().string(jsonMapper.writeValueAsString(movie)));
 
         List<ILoggingEvent> logsList = listAppender.list;
@@ -83,6 +117,301 @@ class MovieControllerTest {
         assertEquals("Received request to get movie 15 with headers [Accept:\"application/json\"]", logsList.getFirst().getFormattedMessage());
     }
 
+    @Test
+    void getMovieAsProtobuf() throws Exception {
+        // GIVEN
+        Movie movie = Movie.newBuilder()
+                .setId(ID)
+                .setTitle(TITLE)
+                .setReleaseDate(RELEASE_DATE.toEpochDay())
+                .build();
+        movieStore.save(initMovie());
+
+        // WHEN / THEN
+        mockMvc.perform(get(MOVIES_WITH_ID_PATH, ID)
+                        .header(ACCEPT, APPLICATION_PROTOBUF))
+                .andExpect(status().isOk())
+                .andExpect(header().string(CONTENT_TYPE, APPLICATION_PROTOBUF.toString()))
+                .andExpect(header().string(VARY, ACCEPT))
+                .andExpect(content().bytes(movie.toByteArray()));
+    }
+
+    @Test
+    void getMovieNotModified() throws Exception {
+        // GIVEN
+        movieStore.save(initMovie());
+        movieStore.save(initMovie(OTHER_ID));
+        String eTag = mockMvc.perform(get(MOVIES_WITH_ID_PATH, ID))
+                .andReturn()
+                .getResponse()
+                .getHeader(ETAG);
+        assertNotNull(eTag);
+
+        // WHEN / THEN
+        mockMvc.perform(get(MOVIES_WITH_ID_PATH, ID)
+                        .header(IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(ETAG, eTag))
+                .andExpect(content().string(""));
+
+        mockMvc.perform(get(MOVIES_WITH_ID_PATH, OTHER_ID)
+                        .header(IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andExpect(content().string(jsonMapper.writeValueAsString(initMovie(OTHER_ID))));
+    }
+
+    @Test
+    void getMovieNotFound() throws Exception {
+        // WHEN / THEN
+        mockMvc.perform(get(MOVIES_WITH_ID_PATH, UNKNOWN_ID)
+                        .header("Accept", APPLICATION_JSON))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void getMovies() throws Exception {
+        // GIVEN
+        MovieBatchDto movieBatch = new MovieBatchDto();
+        movieBatch.getMovies().add(initMovie());
+        movieBatch.getMovies().add(initMovie(OTHER_ID));
+        movieBatch.getMovies().forEach(movieStore::save);
+
+        // WHEN / THEN
+        mockMvc.perform(get(MOVIES_PATH)
+                        .param("ids", ID + "," + OTHER_ID + "," + ID)
+                        .header("Accept", APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().string(jsonMapper.writeValueAsString(movieBatch)));
+
+        List<ILoggingEvent> logsList = listAppender.list;
+        assertEquals(1, logsList.size());
+        assertNotNull(logsList.getFirst());
+        assertEquals(Level.INFO, logsList.getFirst().getLevel());
+        assertEquals("Received request to get movies [15, 16, 15] with headers [Accept:\"application/json\"]", logsList.getFirst().getFormattedMessage());
+    }
+
+    @Test
+    void getMoviesWithMissingIds() throws Exception {
+        // GIVEN
+        movieStore.save(initMovie());
+
+        MovieBatchDto movieBatch = new MovieBatchDto();
+        movieBatch.getMovies().add(initMovie());
+        movieBatch.getMissingIds().add(UNKNOWN_ID);
+
+        // WHEN / THEN
+        mockMvc.perform(get(MOVIES_PATH)
+                        .param("ids", UNKNOWN_ID + "," + ID)
+                        .header("Accept", APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().json(jsonMapper.writeValueAsString(movieBatch)));
+    }
+
+    @Test
+    void getMoviesWithTooManyIds() throws Exception {
+        // GIVEN
+        String movieIds = LongStream.rangeClosed(1, 101)
+                .mapToObj(String::valueOf)
+                .collect(Collectors.joining(","));
+
+        // WHEN / THEN
+        mockMvc.perform(get(MOVIES_PATH)
+                        .param("ids", movieIds)
+                        .header("Accept", APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getMoviePage() throws Exception {
+        // GIVEN
+        List<MovieDto> movies = List.of(initMovie(1000L), initMovie(1001L), initMovie(1002L));
+        movieStore.saveAll(movies);
+
+        // WHEN / THEN
+        MvcResult firstPage = mockMvc.perform(get(MOVIES_PATH)
+                        .param("cursor", "999")
+                        .param("limit", "2")
+                        .header("Accept", APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(firstPage))
+                .andExpect(status().isOk())
+                .andExpect(header().string(CONTENT_TYPE, APPLICATION_JSON.toString()))
+                .andExpect(header().string(LINK, "<http://localhost/movies?cursor=1001&limit=2>; rel=\"next\""))
+                .andExpect(content().string(jsonMapper.writeValueAsString(movies.subList(0, 2))));
+
+        MvcResult lastPage = mockMvc.perform(get(MOVIES_PATH)
+                        .param("cursor", "1001")
+                        .param("limit", "2"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(lastPage))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(LINK))
+                .andExpect(content().string(jsonMapper.writeValueAsString(movies.subList(2, 3))));
+
+        List<ILoggingEvent> logsList = listAppender.list;
+        assertEquals(2, logsList.size());
+        assertEquals("Received request to list at most 2 movies after 999 with headers [Accept:\"application/json\"]", logsList.getFirst().getFormattedMessage());
+    }
+
+    @Test
+    void getMoviePageWithInvalidLimit() throws Exception {
+        // WHEN / THEN
+        mockMvc.perform(get(MOVIES_PATH)
+                        .param("limit", "10001"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getMovieChanges() throws Exception {
+        // GIVEN
+        long sequence = movieChangeFeed.read(null, 1).getSequence();
+        movieStore.saveAll(List.of(initMovie(ID), initMovie(OTHER_ID), initMovie(ID)));
+
+        // WHEN / THEN
+        MvcResult changes = mockMvc.perform(get(MOVIE_CHANGES_PATH)
+                        .param("after", String.valueOf(sequence))
+                        .header("Accept", APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(changes))
+                .andExpect(status().isOk())
+                .andExpect(content().json("{\"sequence\":" + (sequence + 3) + ",\"reset\":false,\"movie_ids\":[15,16]}", JsonCompareMode.STRICT));
+
+        List<ILoggingEvent> logsList = listAppender.list;
+        assertEquals(1, logsList.size());
+        assertEquals("Received request to get at most 1000 movie changes after " + sequence + " with headers [Accept:\"application/json\"]",
+                logsList.getFirst().getFormattedMessage());
+    }
+
+    @Test
+    void getMovieChangesWithoutSequence() throws Exception {
+        // GIVEN
+        movieStore.save(initMovie());
+        long sequence = movieChangeFeed.read(null, 1).getSequence();
+
+        // WHEN / THEN
+        MvcResult changes = mockMvc.perform(get(MOVIE_CHANGES_PATH))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(changes))
+                .andExpect(status().isOk())
+                .andExpect(content().json("{\"sequence\":" + sequence + ",\"reset\":true,\"movie_ids\":[]}", JsonCompareMode.STRICT));
+    }
+
+    @Test
+    void waitForMovieChanges() throws Exception {
+        // GIVEN
+        long sequence = movieChangeFeed.read(null, 1).getSequence();
+        MvcResult changes = mockMvc.perform(get(MOVIE_CHANGES_PATH)
+                        .param("after", String.valueOf(sequence))
+                        .param("wait_ms", "10000"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // WHEN
+        movieStore.save(initMovie());
+
+        // THEN
+        mockMvc.perform(asyncDispatch(changes))
+                .andExpect(status().isOk())
+                .andExpect(content().json("{\"sequence\":" + (sequence + 1) + ",\"reset\":false,\"movie_ids\":[15]}", JsonCompareMode.STRICT));
+    }
+
+    @Test
+    void getMovieChangesWithInvalidWait() throws Exception {
+        // WHEN / THEN
+        mockMvc.perform(get(MOVIE_CHANGES_PATH)
+                        .param("after", "0")
+                        .param("wait_ms", "20001"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void findMoviesByTitlePrefix() throws Exception {
+        // GIVEN
+        MovieDto firstMovie = initMovie(31L, "The Matrix Reloaded", LocalDate.of(2003, 5, 15));
+        MovieDto secondMovie = initMovie(30L, "the matrix", LocalDate.of(1999, 3, 31));
+        MovieDto thirdMovie = initMovie(32L, "The Matrix Revolutions", LocalDate.of(2003, 11, 5));
+        List.of(firstMovie, secondMovie, thirdMovie, initMovie(33L, "The Mask", null)).forEach(movieStore::save);
+
+        // WHEN / THEN
+        mockMvc.perform(get(MOVIES_PATH)
+                        .param("title_prefix", "THE MATRIX")
+                        .param("limit", "2")
+                        .header("Accept", APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().string(jsonMapper.writeValueAsString(List.of(secondMovie, firstMovie))));
+
+        List<ILoggingEvent> logsList = listAppender.list;
+        assertEquals(1, logsList.size());
+        assertEquals(Level.INFO, logsList.getFirst().getLevel());
+        assertEquals("Received request to find at most 2 movies with title prefix THE MATRIX with headers [Accept:\"application/json\"]", logsList.getFirst().getFormattedMessage());
+    }
+
+    @Test
+    void findMoviesByReleaseDate() throws Exception {
+        // GIVEN
+        MovieDto firstMovie = initMovie(41L, "Alien", LocalDate.of(1979, 5, 25));
+        MovieDto secondMovie = initMovie(40L, "Star Wars", LocalDate.of(1977, 5, 25));
+        List.of(firstMovie, secondMovie, initMovie(42L, "Blade Runner", LocalDate.of(1982, 6, 25))).forEach(movieStore::save);
+
+        // WHEN / THEN
+        mockMvc.perform(get(MOVIES_PATH)
+                        .param("release_date_from", "1977-05-25")
+                        .param("release_date_to", "1979-05-25")
+                        .header("Accept", APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().string(jsonMapper.writeValueAsString(List.of(secondMovie, firstMovie))));
+
+        List<ILoggingEvent> logsList = listAppender.list;
+        assertEquals(1, logsList.size());
+        assertEquals("Received request to find at most 20 movies released from 1977-05-25 to 1979-05-25 with headers [Accept:\"application/json\"]", logsList.getFirst().getFormattedMessage());
+    }
+
+    @Test
+    void findMoviesByReleaseDateAsProtobuf() throws Exception {
+        // GIVEN
+        movieStore.save(initMovie(50L, "Metropolis", LocalDate.of(1927, 1, 10)));
+        MovieList movies = MovieList.newBuilder()
+                .addMovies(Movie.newBuilder().setId(50L).setTitle("Metropolis").setReleaseDate(LocalDate.of(1927, 1, 10).toEpochDay()))
+                .build();
+
+        // WHEN / THEN
+        mockMvc.perform(get(MOVIES_PATH)
+                        .param("release_date_from", "1927-01-01")
+                        .param("release_date_to", "1927-12-31")
+                        .header(ACCEPT, APPLICATION_PROTOBUF))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(movies.toByteArray()));
+    }
+
+    @Test
+    void findMoviesWithInvalidLimit() throws Exception {
+        // WHEN / THEN
+        mockMvc.perform(get(MOVIES_PATH)
+                        .param("title_prefix", "The")
+                        .param("limit", "101")
+                        .header("Accept", APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get(MOVIES_PATH)
+                        .param("title_prefix", "The")
+                        .param("limit", "0")
+                        .header("Accept", APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void findMoviesByReleaseDateWithInvalidRange() throws Exception {
+        // WHEN / THEN
+        mockMvc.perform(get(MOVIES_PATH)
+                        .param("release_date_from", "2000-01-02")
+                        .param("release_date_to", "2000-01-01")
+                        .header("Accept", APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void saveMovie() throws Exception {
         // GIVEN
@@ -100,13 +429,126 @@ class MovieControllerTest {
         assertNotNull(logsList.getFirst());
         assertEquals(Level.INFO, logsList.getFirst().getLevel());
         assertEquals("Received request to save movie: { id=15, title=\"Title\", release_date=2020-01-01 } with headers [Content-Type:\"application/json\", Content-Length:\"53\"]", logsList.getFirst().getFormattedMessage());
+
+        assertEquals(movieDto.toString(), movieStore.findById(ID).map(MovieDto::toString).orElse(null));
+    }
+
+    @Test
+    void saveMoviesWithGzipBodyInflatingPastMaxSize() throws Exception {
+        // GIVEN
+        RequestDecompressionConfig requestDecompressionConfig = new RequestDecompressionConfig();
+        requestDecompressionConfig.setMaxBodySize(DataSize.ofKilobytes(1));
+        MockMvc decompressingMockMvc = MockMvcBuilders.standaloneSetup(movieController)
+                .setMessageConverters(new JacksonJsonHttpMessageConverter(jsonMapper))
+                .addFilters(new RequestDecompressionFilter(requestDecompressionConfig))
+                .build();
+        List<MovieDto> movies = LongStream.rangeClosed(1, 100)
+                .mapToObj(this::initMovie)
+                .toList();
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        try (GZIPOutputStream outputStream = new GZIPOutputStream(body)) {
+            outputStream.write(jsonMapper.writeValueAsBytes(movies));
+        }
+
+        // WHEN / THEN
+        decompressingMockMvc.perform(post(MOVIES_BATCH_PATH)
+                        .contentType(APPLICATION_JSON)
+                        .header(CONTENT_ENCODING, "gzip")
+                        .content(body.toByteArray())
+                )
+                .andExpect(status().isContentTooLarge());
+
+        assertTrue(movieStore.findById(1L).isEmpty());
+    }
+
+    @Test
+    void saveMovieWithoutId() throws Exception {
+        // GIVEN
+        MovieDto movieDto = initMovie(null);
+
+        // WHEN / THEN
+        mockMvc.perform(post(MOVIES_PATH)
+                        .contentType(APPLICATION_JSON)
+                        .content(jsonMapper.writeValueAsString(movieDto))
+                )
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void saveMovies() throws Exception {
+        // GIVEN
+        List<MovieDto> movies = List.of(initMovie(), initMovie(OTHER_ID));
+
+        // WHEN / THEN
+        mockMvc.perform(post(MOVIES_BATCH_PATH)
+                        .contentType(APPLICATION_JSON)
+                        .content(jsonMapper.writeValueAsString(movies))
+                )
+                .andExpect(status().isOk());
+
+        List<ILoggingEvent> logsList = listAppender.list;
+        assertEquals(1, logsList.size());
+        assertNotNull(logsList.getFirst());
+        assertEquals(Level.INFO, logsList.getFirst().getLevel());
+        assertEquals("Received request to save 2 movies with headers [Content-Type:\"application/json\", Content-Length:\"109\"]", logsList.getFirst().getFormattedMessage());
+
+        assertTrue(movieStore.findById(ID).isPresent());
+        assertTrue(movieStore.findById(OTHER_ID).isPresent());
+    }
+
+    @Test
+    void saveMoviesAsProtobuf() throws Exception {
+        // GIVEN
+        MovieList movies = MovieList.newBuilder()
+                .addMovies(Movie.newBuilder().setId(ID).setTitle(TITLE).setReleaseDate(RELEASE_DATE.toEpochDay()))
+                .addMovies(Movie.newBuilder().setId(OTHER_ID))
+                .build();
+
+        // WHEN / THEN
+        mockMvc.perform(post(MOVIES_BATCH_PATH)
+                        .contentType(APPLICATION_PROTOBUF)
+                        .content(movies.toByteArray())
+                )
+                .andExpect(status().isOk());
+
+        List<ILoggingEvent> logsList = listAppender.list;
+        assertEquals(1, logsList.size());
+        assertEquals("Received request to save 2 movies with headers [Content-Type:\"application/x-protobuf\", Content-Length:\"19\"]", logsList.getFirst().getFormattedMessage());
+
+        assertEquals("{ id=16, title=\"null\", release_date=null }", movieStore.findById(OTHER_ID).map(MovieDto::toString).orElse(null));
+    }
+
+    @Test
+    void saveMoviesWithInvalidProtobuf() throws Exception {
+        // WHEN / THEN
+        mockMvc.perform(post(MOVIES_BATCH_PATH)
+                        .contentType(APPLICATION_PROTOBUF)
+                        .content(new byte[]{(byte) 0xff, (byte) 0xff})
+                )
+                .andExpect(status().isBadRequest());
+    }
+
+    @Configuration
+    static class JsonMapperConfig {
+        @Bean
+        JsonMapper jsonMapper() {
+            return jsonMapper;
+        }
     }
 
     private MovieDto initMovie() {
+        return initMovie(ID);
+    }
+
+    private MovieDto initMovie(Long id) {
+        return initMovie(id, TITLE, RELEASE_DATE);
+    }
+
+    private MovieDto initMovie(Long id, String title, LocalDate releaseDate) {
         MovieDto movie = new MovieDto();
-        movie.setId(ID);
-        movie.setTitle(TITLE);
-        movie.setReleaseDate(RELEASE_DATE);
+        movie.setId(id);
+        movie.setTitle(title);
+        movie.setReleaseDate(releaseDate);
         return movie;
     }
 }
@@ -0,0 +1,158 @@
+package com.jonathanfoucher.movieapi.data.json;
+
+import com.jonathanfoucher.movieapi.data.dto.MovieDto;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
+import tools.jackson.databind.DeserializationFeature;
+import tools.jackson.databind.PropertyNamingStrategies;
+import tools.jackson.databind.exc.InvalidFormatException;
+import tools.jackson.databind.exc.MismatchedInputException;
+import tools.jackson.databind.exc.UnrecognizedPropertyException;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.databind.module.SimpleModule;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MovieDtoJsonCodecTest {
+    private static final JsonMapper defaultMapper = JsonMapper.builder()
+            .propertyNamingStrategy(PropertyNamingStrategies.SNAKE_CASE)
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .build();
+    private static final JsonMapper codecMapper = defaultMapper.rebuild()
+            .addModule(new SimpleModule()
+                    .addSerializer(MovieDto.class, new MovieDtoJsonCodec.Serializer())
+                    .addDeserializer(MovieDto.class, new MovieDtoJsonCodec.Deserializer()))
+            .build();
+
+    @ParameterizedTest
+    @MethodSource("movies")
+    void serializeLikeDefaultMapper(MovieDto movie) {
+        // WHEN
+        byte[] result = codecMapper.writeValueAsBytes(movie);
+
+        // THEN
+        assertArrayEquals(defaultMapper.writeValueAsBytes(movie), result);
+    }
+
+    @Test
+    void serializeList() {
+        // GIVEN
+        List<MovieDto> movies = movies().toList();
+
+        // WHEN
+        String result = codecMapper.writeValueAsString(movies);
+
+        // THEN
+        assertEquals(defaultMapper.writeValueAsString(movies), result);
+    }
+
+    @ParameterizedTest
+    @MethodSource("movies")
+    void serializeWithOtherNamingStrategy(MovieDto movie) {
+        // GIVEN
+        JsonMapper kebabCaseMapper = defaultMapper.rebuild()
+                .propertyNamingStrategy(PropertyNamingStrategies.KEBAB_CASE)
+                .build();
+        JsonMapper kebabCaseCodecMapper = codecMapper.rebuild()
+                .propertyNamingStrategy(PropertyNamingStrategies.KEBAB_CASE)
+                .build();
+
+        // WHEN
+        String result = kebabCaseCodecMapper.writeValueAsString(movie);
+
+        // THEN
+        assertEquals(kebabCaseMapper.writeValueAsString(movie), result);
+        // the naming strategy of the movie class wins over the mapper one
+        assertTrue(result.contains("\"release_date\":"));
+        assertEquals(movie.toString(), kebabCaseCodecMapper.readValue(result, MovieDto.class).toString());
+    }
+
+    @ParameterizedTest
+    @MethodSource("movies")
+    void deserializeWhatDefaultMapperWrites(MovieDto movie) {
+        // GIVEN
+        String json = defaultMapper.writeValueAsString(movie);
+
+        // WHEN
+        MovieDto result = codecMapper.readValue(json, MovieDto.class);
+
+        // THEN
+        assertEquals(movie.toString(), result.toString());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "{ \"title\" : \"Title\", \"release_date\" : \"2020-01-01\", \"id\" : 15 }",
+            "{\"id\":\"15\",\"title\":\"Title\",\"release_date\":[2020,1,1]}",
+            "{\"id\":15,\"rating\":{\"stars\":[4,5]},\"title\":\"Title\",\"release_date\":\"2020-01-01\"}"
+    })
+    void deserializeOtherShapes(String json) {
+        // WHEN
+        MovieDto result = codecMapper.readValue(json, MovieDto.class);
+
+        // THEN
+        assertEquals(defaultMapper.readValue(json, MovieDto.class).toString(), result.toString());
+        assertEquals("{ id=15, title=\"Title\", release_date=2020-01-01 }", result.toString());
+    }
+
+    @Test
+    void deserializeEmptyMovie() {
+        // WHEN
+        MovieDto result = codecMapper.readValue("{}", MovieDto.class);
+
+        // THEN
+        assertEquals("{ id=null, title=\"null\", release_date=null }", result.toString());
+    }
+
+    @Test
+    void deserializeWithUnknownPropertyFailing() {
+        // GIVEN
+        JsonMapper strictMapper = codecMapper.rebuild()
+                .enable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .build();
+
+        // WHEN / THEN
+        assertThrows(UnrecognizedPropertyException.class, () -> strictMapper.readValue("{\"id\":15,\"rating\":5}", MovieDto.class));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"2020-02-30", "2020-13-01"})
+    void deserializeWithInvalidDate(String releaseDate) {
+        // GIVEN
+        String json = "{\"id\":15,\"release_date\":\"" + releaseDate + "\"}";
+
+        // WHEN / THEN
+        assertThrows(InvalidFormatException.class, () -> codecMapper.readValue(json, MovieDto.class));
+    }
+
+    @Test
+    void deserializeWithInvalidShape() {
+        // WHEN / THEN
+        assertThrows(MismatchedInputException.class, () -> codecMapper.readValue("[15]", MovieDto.class));
+        assertThrows(MismatchedInputException.class, () -> codecMapper.readValue("{\"id\":true}", MovieDto.class));
+    }
+
+    private static Stream<MovieDto> movies() {
+        return Stream.of(
+                initMovie(15L, "Title", LocalDate.of(2020, 1, 1)),
+                initMovie(Long.MIN_VALUE, "Quote \" backslash \\ tab \t é 🎬 \u0001", LocalDate.of(5, 12, 31)),
+                initMovie(Long.MAX_VALUE, "", LocalDate.of(-44, 3, 15)),
+                initMovie(0L, "Far future", LocalDate.of(12345, 6, 7)),
+                initMovie(null, null, null)
+        );
+    }
+
+    private static MovieDto initMovie(Long id, String title, LocalDate releaseDate) {
+        MovieDto movie = new MovieDto();
+        movie.setId(id);
+        movie.setTitle(title);
+        movie.setReleaseDate(releaseDate);
+        return movie;
+    }
+}
@@ -0,0 +1,106 @@
+package com.jonathanfoucher.movieapi.stores;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentLongMapTest {
+    @Test
+    void putAndGet() {
+        // GIVEN
+        ConcurrentLongMap<String> map = new ConcurrentLongMap<>(0);
+
+        // WHEN
+        String previous = map.put(15L, "first");
+        map.put(0L, "zero");
+        map.put(-1L, "negative");
+        map.put(Long.MIN_VALUE, "min");
+
+        // THEN
+        assertNull(previous);
+        assertEquals("first", map.get(15L));
+        assertEquals("zero", map.get(0L));
+        assertEquals("negative", map.get(-1L));
+        assertEquals("min", map.get(Long.MIN_VALUE));
+        assertNull(map.get(16L));
+        assertEquals(4, map.size());
+    }
+
+    @Test
+    void putReplacesValue() {
+        // GIVEN
+        ConcurrentLongMap<String> map = new ConcurrentLongMap<>(0);
+        map.put(15L, "first");
+
+        // WHEN
+        String previous = map.put(15L, "second");
+
+        // THEN
+        assertEquals("first", previous);
+        assertEquals("second", map.get(15L));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    void putNullValue() {
+        // GIVEN
+        ConcurrentLongMap<String> map = new ConcurrentLongMap<>(0);
+
+        // WHEN / THEN
+        assertThrows(NullPointerException.class, () -> map.put(15L, null));
+    }
+
+    @Test
+    void growPastInitialCapacity() {
+        // GIVEN
+        ConcurrentLongMap<Long> map = new ConcurrentLongMap<>(16);
+        long initialCapacity = map.capacity();
+
+        // WHEN
+        LongStream.range(0, 100_000).forEach(key -> map.put(key * 31, key));
+
+        // THEN
+        assertEquals(100_000, map.size());
+        assertTrue(map.capacity() > initialCapacity);
+        assertTrue(map.capacity() * 0.75 >= map.size());
+        LongStream.range(0, 100_000).forEach(key -> assertEquals(key, map.get(key * 31)));
+        assertNull(map.get(-31L));
+    }
+
+    @Test
+    void readWhileWriting() {
+        // GIVEN
+        ConcurrentLongMap<Long> map = new ConcurrentLongMap<>(0);
+        int writers = 4;
+        int keysPerWriter = 50_000;
+
+        // WHEN
+        try (ExecutorService executor = Executors.newFixedThreadPool(writers * 2)) {
+            CompletableFuture<?>[] tasks = IntStream.range(0, writers * 2)
+                    .mapToObj(task -> CompletableFuture.runAsync(() -> {
+                        long first = (long) (task / 2) * keysPerWriter;
+                        for (long key = first; key < first + keysPerWriter; key++) {
+                            if (task % 2 == 0) {
+                                map.put(key, key);
+                            } else {
+                                // readers see either nothing yet or the written value, never another one
+                                Long value = map.get(key);
+                                assertTrue(value == null || value == key);
+                            }
+                        }
+                    }, executor))
+                    .toArray(CompletableFuture[]::new);
+            CompletableFuture.allOf(tasks).join();
+        }
+
+        // THEN
+        assertEquals(writers * keysPerWriter, map.size());
+        LongStream.range(0, (long) writers * keysPerWriter).forEach(key -> assertEquals(key, map.get(key)));
+    }
+}
@@ -0,0 +1,153 @@
+package com.jonathanfoucher.movieapi.stores;
+
+import com.jonathanfoucher.movieapi.data.dto.MovieChangesDto;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MovieChangeFeedTest {
+    private static final long START_SEQUENCE = 1000;
+    private static final Long ID = 15L;
+    private static final Long OTHER_ID = 16L;
+
+    @Test
+    void readWithoutSequence() {
+        // GIVEN
+        MovieChangeFeed changeFeed = new MovieChangeFeed(8, START_SEQUENCE);
+        changeFeed.publish(ID);
+
+        // WHEN
+        MovieChangesDto result = changeFeed.read(null, 10);
+
+        // THEN
+        assertTrue(result.isReset());
+        assertEquals(START_SEQUENCE + 1, result.getSequence());
+        assertEquals(List.of(), result.getMovieIds());
+    }
+
+    @Test
+    void readAfterSequence() {
+        // GIVEN
+        MovieChangeFeed changeFeed = new MovieChangeFeed(8, START_SEQUENCE);
+        changeFeed.publish(ID);
+        changeFeed.publish(OTHER_ID);
+        changeFeed.publish(ID);
+        changeFeed.publish(17L);
+
+        // WHEN
+        MovieChangesDto firstChanges = changeFeed.read(START_SEQUENCE, 3);
+        MovieChangesDto nextChanges = changeFeed.read(firstChanges.getSequence(), 3);
+        MovieChangesDto noChange = changeFeed.read(nextChanges.getSequence(), 3);
+
+        // THEN
+        assertFalse(firstChanges.isReset());
+        assertEquals(START_SEQUENCE + 3, firstChanges.getSequence());
+        assertEquals(List.of(ID, OTHER_ID), firstChanges.getMovieIds());
+        assertEquals(START_SEQUENCE + 4, nextChanges.getSequence());
+        assertEquals(List.of(17L), nextChanges.getMovieIds());
+        assertFalse(noChange.isReset());
+        assertEquals(START_SEQUENCE + 4, noChange.getSequence());
+        assertEquals(List.of(), noChange.getMovieIds());
+    }
+
+    @Test
+    void readChangesNoLongerKept() {
+        // GIVEN
+        MovieChangeFeed changeFeed = new MovieChangeFeed(4, START_SEQUENCE);
+        for (long movieId = 0; movieId < 6; movieId++) {
+            changeFeed.publish(movieId);
+        }
+
+        // WHEN
+        MovieChangesDto lostChanges = changeFeed.read(START_SEQUENCE + 1, 10);
+        MovieChangesDto keptChanges = changeFeed.read(START_SEQUENCE + 2, 10);
+
+        // THEN
+        assertTrue(lostChanges.isReset());
+        assertEquals(START_SEQUENCE + 6, lostChanges.getSequence());
+        assertFalse(keptChanges.isReset());
+        assertEquals(List.of(2L, 3L, 4L, 5L), keptChanges.getMovieIds());
+    }
+
+    @Test
+    void readSequenceOfAnotherRun() {
+        // GIVEN
+        MovieChangeFeed changeFeed = new MovieChangeFeed(8, START_SEQUENCE);
+        changeFeed.publish(ID);
+
+        // WHEN
+        MovieChangesDto previousRun = changeFeed.read(START_SEQUENCE - 1, 10);
+        MovieChangesDto unknownRun = changeFeed.read(START_SEQUENCE + 2, 10);
+
+        // THEN
+        assertTrue(previousRun.isReset());
+        assertTrue(unknownRun.isReset());
+        assertEquals(START_SEQUENCE + 1, unknownRun.getSequence());
+    }
+
+    @Test
+    void sequencesIncreaseAcrossRuns() throws InterruptedException {
+        // GIVEN
+        MovieChangeFeed previousRun = new MovieChangeFeed(8);
+        previousRun.publish(ID);
+        long lastSequence = previousRun.read(null, 10).getSequence();
+        // a restart takes more than a millisecond
+        Thread.sleep(2);
+
+        // WHEN
+        MovieChangesDto result = new MovieChangeFeed(8).read(lastSequence, 10);
+
+        // THEN
+        assertTrue(result.isReset());
+        assertTrue(result.getSequence() > lastSequence);
+    }
+
+    @Test
+    void pollWaitsForChange() {
+        // GIVEN
+        MovieChangeFeed changeFeed = new MovieChangeFeed(8, START_SEQUENCE);
+        CompletableFuture<MovieChangesDto> changes = changeFeed.poll(START_SEQUENCE, 10, Duration.ofSeconds(10));
+        assertFalse(changes.isDone());
+
+        // WHEN
+        changeFeed.publish(ID);
+        MovieChangesDto result = changes.join();
+
+        // THEN
+        assertFalse(result.isReset());
+        assertEquals(START_SEQUENCE + 1, result.getSequence());
+        assertEquals(List.of(ID), result.getMovieIds());
+    }
+
+    @Test
+    void pollWithoutChange() {
+        // GIVEN
+        MovieChangeFeed changeFeed = new MovieChangeFeed(8, START_SEQUENCE);
+
+        // WHEN
+        MovieChangesDto result = changeFeed.poll(START_SEQUENCE, 10, Duration.ofMillis(50)).join();
+
+        // THEN
+        assertFalse(result.isReset());
+        assertEquals(START_SEQUENCE, result.getSequence());
+        assertEquals(List.of(), result.getMovieIds());
+    }
+
+    @Test
+    void pollPendingChanges() {
+        // GIVEN
+        MovieChangeFeed changeFeed = new MovieChangeFeed(8, START_SEQUENCE);
+        changeFeed.publish(ID);
+
+        // WHEN
+        CompletableFuture<MovieChangesDto> result = changeFeed.poll(START_SEQUENCE, 10, Duration.ofSeconds(10));
+
+        // THEN
+        assertTrue(result.isDone());
+        assertEquals(List.of(ID), result.join().getMovieIds());
+    }
+}
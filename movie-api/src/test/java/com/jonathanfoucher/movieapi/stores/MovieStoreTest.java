@@ -0,0 +1,231 @@
+package com.jonathanfoucher.movieapi.stores;
+
+import com.jonathanfoucher.movieapi.data.dto.MovieChangesDto;
+import com.jonathanfoucher.movieapi.data.dto.MovieDto;
+import com.jonathanfoucher.movieapi.data.enums.FsyncPolicy;
+import com.jonathanfoucher.movieapi.stores.configs.MovieLogConfig;
+import com.jonathanfoucher.movieapi.stores.logs.MovieLog;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MovieStoreTest {
+    private static final Long ID = 15L;
+    private static final String TITLE = "Title";
+    private static final LocalDate RELEASE_DATE = LocalDate.of(2020, 1, 1);
+
+    @Test
+    void saveAndFindById() {
+        // GIVEN
+        MovieStore movieStore = new MovieStore(16);
+        MovieDto movie = initMovie(ID, TITLE, RELEASE_DATE);
+
+        // WHEN
+        movieStore.save(movie);
+        Optional<MovieDto> result = movieStore.findById(ID);
+
+        // THEN
+        assertTrue(result.isPresent());
+        assertEquals(movie.toString(), result.get().toString());
+        assertNotSame(movie, result.get());
+        assertEquals(1, movieStore.size());
+    }
+
+    @Test
+    void findByUnknownId() {
+        // GIVEN
+        MovieStore movieStore = new MovieStore(16);
+
+        // WHEN
+        Optional<MovieDto> result = movieStore.findById(ID);
+
+        // THEN
+        assertTrue(result.isEmpty());
+    }
+
+    @Test
+    void saveAndFindUncommonValues() {
+        // GIVEN
+        MovieStore movieStore = new MovieStore(16);
+        MovieDto emptyMovie = initMovie(-1L, null, null);
+        MovieDto unicodeMovie = initMovie(0L, "Amélie 🎬", LocalDate.of(-44, 3, 15));
+        MovieDto farMovie = initMovie(Long.MAX_VALUE, "", LocalDate.MAX);
+
+        // WHEN
+        movieStore.save(emptyMovie);
+        movieStore.save(unicodeMovie);
+        movieStore.save(farMovie);
+
+        // THEN
+        assertEquals(emptyMovie.toString(), movieStore.findById(-1L).map(MovieDto::toString).orElse(null));
+        assertEquals(unicodeMovie.toString(), movieStore.findById(0L).map(MovieDto::toString).orElse(null));
+        assertEquals(farMovie.toString(), movieStore.findById(Long.MAX_VALUE).map(MovieDto::toString).orElse(null));
+    }
+
+    @Test
+    void saveReplacesMovie() {
+        // GIVEN
+        MovieStore movieStore = new MovieStore(16);
+        movieStore.save(initMovie(ID, "A much longer title than the next one", RELEASE_DATE));
+        long memoryUsage = movieStore.getMemoryUsage();
+
+        // WHEN
+        movieStore.save(initMovie(ID, TITLE, null));
+
+        // THEN
+        assertEquals(1, movieStore.size());
+        assertEquals("{ id=15, title=\"Title\", release_date=null }", movieStore.findById(ID).map(MovieDto::toString).orElse(null));
+        assertTrue(movieStore.getMemoryUsage() < memoryUsage);
+    }
+
+    @Test
+    void savePublishesChanges() {
+        // GIVEN
+        MovieChangeFeed changeFeed = new MovieChangeFeed(16, 0);
+        MovieStore movieStore = new MovieStore(16, null, changeFeed);
+
+        // WHEN
+        movieStore.save(initMovie(ID, TITLE, RELEASE_DATE));
+        movieStore.saveAll(List.of(initMovie(2L, TITLE, RELEASE_DATE), initMovie(ID, "Other title", RELEASE_DATE)));
+
+        // THEN
+        MovieChangesDto changes = changeFeed.read(0L, 10);
+        assertEquals(3, changes.getSequence());
+        assertEquals(List.of(ID, 2L), changes.getMovieIds());
+    }
+
+    @Test
+    void findIds() {
+        // GIVEN
+        MovieStore movieStore = new MovieStore(16);
+        movieStore.save(initMovie(3L, TITLE, RELEASE_DATE));
+        movieStore.save(initMovie(Long.MAX_VALUE, TITLE, RELEASE_DATE));
+        movieStore.save(initMovie(-1L, TITLE, RELEASE_DATE));
+        movieStore.save(initMovie(2L, TITLE, RELEASE_DATE));
+        movieStore.save(initMovie(3L, "Other title", RELEASE_DATE));
+
+        // WHEN
+        long[] result = movieStore.findIds(null, 10);
+        long[] nextResult = movieStore.findIds(2L, 2);
+
+        // THEN
+        assertArrayEquals(new long[]{-1L, 2L, 3L, Long.MAX_VALUE}, result);
+        assertArrayEquals(new long[]{3L, Long.MAX_VALUE}, nextResult);
+        assertArrayEquals(new long[0], movieStore.findIds(Long.MAX_VALUE, 10));
+    }
+
+    @Test
+    void findByTitlePrefix() {
+        // GIVEN
+        MovieStore movieStore = new MovieStore(16);
+        movieStore.save(initMovie(3L, "Amélie", RELEASE_DATE));
+        movieStore.save(initMovie(2L, "AMÉLIE", RELEASE_DATE));
+        movieStore.save(initMovie(1L, "Amélie 2", RELEASE_DATE));
+        movieStore.save(initMovie(4L, "Amelia", RELEASE_DATE));
+        movieStore.save(initMovie(5L, null, RELEASE_DATE));
+
+        // WHEN
+        List<MovieDto> result = movieStore.findByTitlePrefix("amél", 10);
+        List<MovieDto> limitedResult = movieStore.findByTitlePrefix("amél", 2);
+
+        // THEN
+        assertEquals(List.of(2L, 3L, 1L), result.stream().map(MovieDto::getId).toList());
+        assertEquals(List.of(2L, 3L), limitedResult.stream().map(MovieDto::getId).toList());
+        assertEquals(List.of(1L, 2L, 3L, 4L), movieStore.findByTitlePrefix("", 10).stream().map(MovieDto::getId).sorted().toList());
+        assertTrue(movieStore.findByTitlePrefix("amélie 2 and more", 10).isEmpty());
+    }
+
+    @Test
+    void findByTitlePrefixWithNulCharacter() {
+        // GIVEN
+        MovieStore movieStore = new MovieStore(16);
+        movieStore.save(initMovie(1L, "Title\u0000Sequel", RELEASE_DATE));
+        movieStore.save(initMovie(2L, "Title", RELEASE_DATE));
+        movieStore.save(initMovie(3L, "Title\u0001", RELEASE_DATE));
+
+        // WHEN
+        List<MovieDto> result = movieStore.findByTitlePrefix("title", 10);
+        List<MovieDto> nulResult = movieStore.findByTitlePrefix("title\u0000", 10);
+
+        // THEN
+        assertEquals(List.of(2L, 1L, 3L), result.stream().map(MovieDto::getId).toList());
+        assertEquals(List.of(1L), nulResult.stream().map(MovieDto::getId).toList());
+    }
+
+    @Test
+    void findByReleaseDate() {
+        // GIVEN
+        MovieStore movieStore = new MovieStore(16);
+        movieStore.save(initMovie(1L, TITLE, LocalDate.of(2020, 1, 2)));
+        movieStore.save(initMovie(2L, TITLE, LocalDate.of(-44, 3, 15)));
+        movieStore.save(initMovie(3L, TITLE, LocalDate.MAX));
+        movieStore.save(initMovie(4L, TITLE, RELEASE_DATE));
+        movieStore.save(initMovie(-5L, TITLE, RELEASE_DATE));
+        movieStore.save(initMovie(6L, TITLE, null));
+
+        // WHEN
+        List<MovieDto> result = movieStore.findByReleaseDate(LocalDate.MIN, RELEASE_DATE, 10);
+        List<MovieDto> limitedResult = movieStore.findByReleaseDate(RELEASE_DATE, LocalDate.MAX, 3);
+
+        // THEN
+        assertEquals(List.of(2L, -5L, 4L), result.stream().map(MovieDto::getId).toList());
+        assertEquals(List.of(-5L, 4L, 1L), limitedResult.stream().map(MovieDto::getId).toList());
+        assertEquals(List.of(3L), movieStore.findByReleaseDate(LocalDate.MAX, LocalDate.MAX, 10).stream().map(MovieDto::getId).toList());
+    }
+
+    @Test
+    void saveReplacesIndexEntries() {
+        // GIVEN
+        MovieStore movieStore = new MovieStore(16);
+        movieStore.save(initMovie(ID, "Old title", LocalDate.of(1990, 1, 1)));
+        long memoryUsage = movieStore.getMemoryUsage();
+
+        // WHEN
+        movieStore.save(initMovie(ID, TITLE, RELEASE_DATE));
+
+        // THEN
+        assertTrue(movieStore.findByTitlePrefix("old", 10).isEmpty());
+        assertTrue(movieStore.findByReleaseDate(LocalDate.of(1990, 1, 1), LocalDate.of(1990, 1, 1), 10).isEmpty());
+        assertEquals(1, movieStore.findByTitlePrefix("title", 10).size());
+        assertEquals(1, movieStore.findByReleaseDate(RELEASE_DATE, RELEASE_DATE, 10).size());
+        assertEquals(memoryUsage - 8, movieStore.getMemoryUsage());
+    }
+
+    @Test
+    void reloadFromLog(@TempDir Path directory) {
+        // GIVEN
+        MovieLogConfig config = new MovieLogConfig();
+        config.setDirectory(directory);
+        config.setFsyncPolicy(FsyncPolicy.ALWAYS);
+        try (MovieStore movieStore = new MovieStore(16, new MovieLog(config))) {
+            movieStore.save(initMovie(ID, "Old title", RELEASE_DATE));
+            movieStore.saveAll(List.of(initMovie(ID, TITLE, RELEASE_DATE), initMovie(0L, null, null)));
+        }
+
+        // WHEN
+        try (MovieStore movieStore = new MovieStore(16, new MovieLog(config))) {
+            // THEN
+            assertEquals(2, movieStore.size());
+            assertEquals(initMovie(ID, TITLE, RELEASE_DATE).toString(), movieStore.findById(ID).map(MovieDto::toString).orElse(null));
+            assertEquals(initMovie(0L, null, null).toString(), movieStore.findById(0L).map(MovieDto::toString).orElse(null));
+            assertEquals(List.of(ID), movieStore.findByTitlePrefix(TITLE, 10).stream().map(MovieDto::getId).toList());
+            assertArrayEquals(new long[]{0L, ID}, movieStore.findIds(null, 10));
+            assertTrue(movieStore.findByTitlePrefix("old", 10).isEmpty());
+            assertTrue(movieStore.getLogSize() > 0);
+        }
+    }
+
+    private MovieDto initMovie(Long id, String title, LocalDate releaseDate) {
+        MovieDto movie = new MovieDto();
+        movie.setId(id);
+        movie.setTitle(title);
+        movie.setReleaseDate(releaseDate);
+        return movie;
+    }
+}
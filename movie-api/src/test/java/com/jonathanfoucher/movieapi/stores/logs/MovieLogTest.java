@@ -0,0 +1,338 @@
+package com.jonathanfoucher.movieapi.stores.logs;
+
+import com.jonathanfoucher.movieapi.data.enums.FsyncPolicy;
+import com.jonathanfoucher.movieapi.stores.configs.MovieLogConfig;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.*;
+
+class MovieLogTest {
+    @TempDir
+    private Path directory;
+
+    @Test
+    void appendAndReplay() {
+        // GIVEN
+        Map<Long, String> movies = new LinkedHashMap<>();
+        try (MovieLog movieLog = openLog(FsyncPolicy.NEVER, DataSize.ofMegabytes(1), movies)) {
+            movieLog.append(15L, record("first"), () -> {
+            });
+            movieLog.append(-1L, record("negative"), () -> {
+            });
+            long position = movieLog.append(15L, record("second"), () -> {
+            });
+            movieLog.commit(position);
+        }
+
+        // WHEN
+        Map<Long, String> result = new LinkedHashMap<>();
+        try (MovieLog ignored = openLog(FsyncPolicy.NEVER, DataSize.ofMegabytes(1), result)) {
+            // THEN
+            assertEquals(Map.of(15L, "second", -1L, "negative"), result);
+        }
+    }
+
+    @Test
+    void appendRunsCallbackInLogOrder() {
+        // GIVEN
+        Map<Long, String> movies = new LinkedHashMap<>();
+        try (MovieLog movieLog = openLog(FsyncPolicy.NEVER, DataSize.ofMegabytes(1), movies)) {
+            StringBuilder applied = new StringBuilder();
+
+            // WHEN
+            movieLog.append(1L, record("a"), () -> applied.append('a'));
+            long position = movieLog.append(2L, record("b"), () -> applied.append('b'));
+            assertEquals("", applied.toString());
+            movieLog.commit(position);
+
+            // THEN
+            assertEquals("ab", applied.toString());
+        }
+    }
+
+    @Test
+    void appendAppliesRecordOnceSynced() {
+        // GIVEN
+        Map<Long, String> movies = new LinkedHashMap<>();
+        try (MovieLog movieLog = openLog(FsyncPolicy.ALWAYS, DataSize.ofMegabytes(1), movies)) {
+            StringBuilder applied = new StringBuilder();
+            movieLog.append(1L, record("a"), () -> applied.append('a'));
+
+            // WHEN
+            // a record larger than the write buffer gets the buffered ones written, but not synced
+            long position = movieLog.append(2L, new byte[512 * 1024], () -> applied.append('b'));
+            String appliedBeforeSync = applied.toString();
+            movieLog.commit(position);
+
+            // THEN
+            assertEquals("", appliedBeforeSync);
+            assertEquals("ab", applied.toString());
+        }
+    }
+
+    @Test
+    void appendFailsAfterFailedWrite() {
+        // GIVEN
+        Map<Long, String> movies = new LinkedHashMap<>();
+        try (MovieLog movieLog = openLog(FsyncPolicy.NEVER, DataSize.ofMegabytes(1), movies)) {
+            movieLog.commit(movieLog.append(15L, record("first"), () -> {
+            }));
+            long position = movieLog.append(16L, record("second"), () -> fail("the record was not written"));
+
+            // an interrupt closes the segment during the write
+            Thread.currentThread().interrupt();
+            assertThrows(UncheckedIOException.class, () -> movieLog.commit(position));
+            assertTrue(Thread.interrupted());
+
+            // WHEN / THEN
+            assertThrows(UncheckedIOException.class, () -> movieLog.append(17L, record("third"), () -> {
+            }));
+        }
+
+        Map<Long, String> result = new LinkedHashMap<>();
+        openLog(FsyncPolicy.NEVER, DataSize.ofMegabytes(1), result).close();
+        assertEquals(Map.of(15L, "first"), result);
+    }
+
+    @Test
+    void replayTruncatesTornRecord() throws IOException {
+        // GIVEN
+        try (MovieLog movieLog = openLog(FsyncPolicy.ALWAYS, DataSize.ofMegabytes(1), new LinkedHashMap<>())) {
+            movieLog.commit(movieLog.append(15L, record("first"), () -> {
+            }));
+            movieLog.commit(movieLog.append(16L, record("second"), () -> {
+            }));
+        }
+        Path segment = getFiles("segment").getLast();
+        long validSize = Files.size(segment);
+        // a record whose payload was not entirely written
+        Files.write(segment, new byte[]{0, 0, 0, 20, 1, 2, 3, 4, 0, 0}, StandardOpenOption.APPEND);
+
+        // WHEN
+        Map<Long, String> result = new LinkedHashMap<>();
+        try (MovieLog movieLog = openLog(FsyncPolicy.ALWAYS, DataSize.ofMegabytes(1), result)) {
+            movieLog.commit(movieLog.append(17L, record("third"), () -> {
+            }));
+        }
+
+        // THEN
+        assertEquals(Map.of(15L, "first", 16L, "second"), result);
+        assertEquals(validSize, Files.size(segment));
+
+        Map<Long, String> reopened = new LinkedHashMap<>();
+        openLog(FsyncPolicy.ALWAYS, DataSize.ofMegabytes(1), reopened).close();
+        assertEquals(Map.of(15L, "first", 16L, "second", 17L, "third"), reopened);
+    }
+
+    @Test
+    void replayFailsOnCorruptSealedSegment() throws IOException {
+        // GIVEN
+        try (MovieLog movieLog = openLog(FsyncPolicy.NEVER, DataSize.ofMegabytes(1), new LinkedHashMap<>())) {
+            movieLog.commit(movieLog.append(15L, record("first"), () -> {
+            }));
+        }
+        openLog(FsyncPolicy.NEVER, DataSize.ofMegabytes(1), new LinkedHashMap<>()).close();
+        Path segment = getFiles("segment").getFirst();
+        byte[] bytes = Files.readAllBytes(segment);
+        bytes[bytes.length - 1] ^= 1;
+        Files.write(segment, bytes);
+
+        // WHEN / THEN
+        assertThrows(IllegalStateException.class, () -> openLog(FsyncPolicy.NEVER, DataSize.ofMegabytes(1), new LinkedHashMap<>()));
+    }
+
+    @Test
+    void rollSegments() throws IOException {
+        // GIVEN
+        Map<Long, String> movies = new LinkedHashMap<>();
+        MovieLogConfig config = initConfig(FsyncPolicy.INTERVAL, DataSize.ofKilobytes(1));
+        config.setCompactionRatio(1000);
+
+        // WHEN
+        try (MovieLog movieLog = new MovieLog(config)) {
+            movieLog.open((movieId, record) -> fail(), consumer -> fail());
+            for (long movieId = 0; movieId < 400; movieId++) {
+                movieLog.commit(movieLog.append(movieId, record("Movie " + movieId), () -> {
+                }));
+            }
+        }
+
+        // THEN
+        assertTrue(getFiles("segment").size() > 5);
+        try (MovieLog ignored = openLog(FsyncPolicy.INTERVAL, DataSize.ofKilobytes(1), movies)) {
+            assertEquals(400, movies.size());
+            assertEquals("Movie 399", movies.get(399L));
+        }
+    }
+
+    @Test
+    void compact() throws IOException {
+        // GIVEN
+        Map<Long, String> movies = new LinkedHashMap<>();
+        try (MovieLog movieLog = openLog(FsyncPolicy.NEVER, DataSize.ofKilobytes(1), movies)) {
+            for (int i = 0; i < 50; i++) {
+                long movieId = i % 5;
+                String title = "Movie " + i;
+                movieLog.commit(movieLog.append(movieId, record(title), () -> movies.put(movieId, title)));
+            }
+            long size = movieLog.getSize();
+
+            // WHEN
+            movieLog.compact();
+
+            // THEN
+            assertTrue(movieLog.getSize() < size);
+            assertEquals(1, getFiles("snapshot").size());
+            movieLog.commit(movieLog.append(0L, record("After compaction"), () -> movies.put(0L, "After compaction")));
+        }
+
+        Map<Long, String> result = new LinkedHashMap<>();
+        openLog(FsyncPolicy.NEVER, DataSize.ofKilobytes(1), result).close();
+        assertEquals(movies, result);
+        assertEquals("After compaction", result.get(0L));
+        assertEquals("Movie 49", result.get(4L));
+    }
+
+    @Test
+    void compactSyncsRecordsAppliedDuringSnapshot() throws IOException {
+        // GIVEN
+        Map<Long, String> movies = new LinkedHashMap<>();
+        MovieLogConfig config = initConfig(FsyncPolicy.INTERVAL, DataSize.ofMegabytes(1));
+        config.setFsyncInterval(Duration.ofHours(1));
+        config.setCompactionRatio(1000);
+        MovieLog movieLog = new MovieLog(config);
+        long[] lastPosition = {0};
+        movieLog.open((movieId, record) -> fail(), consumer -> {
+            // records are applied to the live state while it is read into the snapshot
+            movieLog.sync(movieLog.append(1L, record("first"), () -> movies.put(1L, "first")));
+            movieLog.commit(movieLog.append(1L, record("second"), () -> movies.put(1L, "second")));
+            lastPosition[0] = movieLog.append(2L, record("after second"), () -> movies.put(2L, "after second"));
+            movieLog.commit(lastPosition[0]);
+            movies.forEach((movieId, title) -> consumer.accept(movieId, record(title)));
+        });
+
+        // WHEN
+        movieLog.compact();
+
+        // THEN
+        // a crash loses the records written after the last sync
+        long lostBytes = lastPosition[0] - movieLog.getDurablePosition();
+        movieLog.close();
+        Path segment = getFiles("segment").getLast();
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - lostBytes);
+        }
+
+        Map<Long, String> result = new LinkedHashMap<>();
+        openLog(FsyncPolicy.INTERVAL, DataSize.ofMegabytes(1), result).close();
+        assertEquals(Map.of(1L, "second", 2L, "after second"), result);
+    }
+
+    @Test
+    void compactWhenLogGrows() throws IOException, InterruptedException {
+        // GIVEN
+        Map<Long, String> movies = new LinkedHashMap<>();
+        try (MovieLog movieLog = openLog(FsyncPolicy.NEVER, DataSize.ofKilobytes(1), movies)) {
+            // WHEN
+            for (int i = 0; i < 500; i++) {
+                long movieId = i % 5;
+                String title = "Movie " + i;
+                movieLog.commit(movieLog.append(movieId, record(title), () -> {
+                    synchronized (movies) {
+                        movies.put(movieId, title);
+                    }
+                }));
+            }
+
+            // THEN
+            for (int i = 0; i < 100 && getFiles("snapshot").isEmpty(); i++) {
+                Thread.sleep(50);
+            }
+            assertFalse(getFiles("snapshot").isEmpty());
+        }
+    }
+
+    @Test
+    void groupCommit() {
+        // GIVEN
+        int writers = 8;
+        int moviesPerWriter = 50;
+
+        Map<Long, String> movies = new LinkedHashMap<>();
+
+        // WHEN
+        try (MovieLog movieLog = openLog(FsyncPolicy.ALWAYS, DataSize.ofKilobytes(4), movies);
+             ExecutorService executor = Executors.newFixedThreadPool(writers)) {
+            CompletableFuture<?>[] tasks = IntStream.range(0, writers)
+                    .mapToObj(writer -> CompletableFuture.runAsync(() -> {
+                        for (long movieId = writer * 1000L; movieId < writer * 1000L + moviesPerWriter; movieId++) {
+                            long appliedMovieId = movieId;
+                            movieLog.commit(movieLog.append(movieId, record("Movie " + movieId), () -> {
+                                synchronized (movies) {
+                                    movies.put(appliedMovieId, "Movie " + appliedMovieId);
+                                }
+                            }));
+                        }
+                    }, executor))
+                    .toArray(CompletableFuture[]::new);
+            CompletableFuture.allOf(tasks).join();
+        }
+
+        // THEN
+        Map<Long, String> result = new LinkedHashMap<>();
+        openLog(FsyncPolicy.ALWAYS, DataSize.ofKilobytes(4), result).close();
+        assertEquals(writers * moviesPerWriter, result.size());
+        assertEquals("Movie 7049", result.get(7049L));
+    }
+
+    private MovieLog openLog(FsyncPolicy fsyncPolicy, DataSize segmentSize, Map<Long, String> movies) {
+        MovieLog movieLog = new MovieLog(initConfig(fsyncPolicy, segmentSize));
+        movieLog.open((movieId, record) -> movies.put(movieId, new String(record, UTF_8)),
+                consumer -> {
+                    synchronized (movies) {
+                        movies.forEach((movieId, title) -> consumer.accept(movieId, record(title)));
+                    }
+                });
+        return movieLog;
+    }
+
+    private MovieLogConfig initConfig(FsyncPolicy fsyncPolicy, DataSize segmentSize) {
+        MovieLogConfig config = new MovieLogConfig();
+        config.setEnabled(true);
+        config.setDirectory(directory);
+        config.setFsyncPolicy(fsyncPolicy);
+        config.setSegmentSize(segmentSize);
+        return config;
+    }
+
+    private List<Path> getFiles(String type) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().startsWith(type))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static byte[] record(String title) {
+        return title.getBytes(UTF_8);
+    }
+}